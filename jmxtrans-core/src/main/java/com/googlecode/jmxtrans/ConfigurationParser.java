@@ -24,7 +24,13 @@ package com.googlecode.jmxtrans;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.googlecode.jmxtrans.exceptions.LifecycleException;
+import com.googlecode.jmxtrans.executors.ExecutorFactory;
 import com.googlecode.jmxtrans.model.JmxProcess;
 import com.googlecode.jmxtrans.model.Server;
 import com.googlecode.jmxtrans.util.ProcessConfigUtils;
@@ -32,10 +38,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
 import javax.inject.Inject;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 public class ConfigurationParser {
 
@@ -43,28 +61,105 @@ public class ConfigurationParser {
 
 	private final ProcessConfigUtils processConfigUtils;
 
+	private final int parallelism;
+
+	/**
+	 * Processes parsed by previous calls, so that a reload only parses the
+	 * files which changed, or whose placeholders resolve to other values.
+	 */
+	private final ConcurrentMap<File, ParsedFile> parsedFiles = new ConcurrentHashMap<>();
+
 	@Inject
 	public ConfigurationParser(ProcessConfigUtils processConfigUtils) {
+		this(processConfigUtils, Runtime.getRuntime().availableProcessors());
+	}
+
+	public ConfigurationParser(ProcessConfigUtils processConfigUtils, int parallelism) {
 		this.processConfigUtils = processConfigUtils;
+		this.parallelism = parallelism;
 	}
 
 	public ImmutableList parseServers(Iterable<File> processConfigFiles, boolean continueOnJsonError) throws LifecycleException {
-		ServerListBuilder serverListBuilder = new ServerListBuilder();
-		for (File processConfigFile : processConfigFiles) {
-			try {
-				JmxProcess process = processConfigUtils.parseProcess(processConfigFile);
-				log.debug("Loaded file: {}", processConfigFile.getAbsolutePath());
-				serverListBuilder.add(process.getServers());
-			} catch (Exception ex) {
-				String message = "Error parsing json: " + processConfigFile;
-				// error parsing one file should not prevent the startup of JMXTrans
-				if (continueOnJsonError) log.error(message, ex);
-				else throw new LifecycleException(message, ex);
+		return parseServers(processConfigFiles, continueOnJsonError, new ServerListBuilder());
+	}
+
+	/**
+	 * Files are parsed in parallel, but their servers are merged in the order
+	 * of the files.
+	 */
+	public ImmutableList<Server> parseServers(Iterable<File> processConfigFiles, boolean continueOnJsonError, ServerListBuilder serverListBuilder) throws LifecycleException {
+		ImmutableList<File> files = ImmutableList.copyOf(processConfigFiles);
+		ExecutorService executor = files.size() <= 1 || parallelism <= 1
+				? MoreExecutors.newDirectExecutorService()
+				: Executors.newFixedThreadPool(Math.min(parallelism, files.size()), ExecutorFactory.threadFactory("configuration-parser"));
+		try {
+			List<Future<JmxProcess>> processes = new ArrayList<>(files.size());
+			for (final File file : files) {
+				processes.add(executor.submit(new Callable<JmxProcess>() {
+					@Override
+					public JmxProcess call() throws Exception {
+						return parse(file);
+					}
+				}));
+			}
+
+			for (int i = 0; i < files.size(); i++) {
+				File processConfigFile = files.get(i);
+				try {
+					JmxProcess process = getUninterruptibly(processes.get(i));
+					log.debug("Loaded file: {}", processConfigFile.getAbsolutePath());
+					serverListBuilder.add(process.getServers());
+				} catch (Exception ex) {
+					Throwable cause = ex instanceof ExecutionException ? ex.getCause() : ex;
+					String message = "Error parsing json: " + processConfigFile;
+					// error parsing one file should not prevent the startup of JMXTrans
+					if (continueOnJsonError) log.error(message, cause);
+					else throw new LifecycleException(message, cause);
+				}
 			}
+		} finally {
+			executor.shutdownNow();
+			parsedFiles.keySet().retainAll(files);
 		}
 		return serverListBuilder.build();
 	}
 
+	/**
+	 * Parses a file, unless its content is unchanged since it was last parsed.
+	 * Files are always read and hashed: modification times are too coarse to
+	 * see a file rewritten with the same size right after it was parsed.
+	 */
+	private JmxProcess parse(File file) throws IOException {
+		ParsedFile parsedFile = parsedFiles.get(file);
+		byte[] content = Files.toByteArray(file);
+		HashCode contentHash = hash(content);
+		if (parsedFile != null && parsedFile.contentHash.equals(contentHash)) {
+			return parsedFile.process;
+		}
+
+		JmxProcess process = processConfigUtils.parseProcess(file.getName(), content);
+		parsedFiles.put(file, new ParsedFile(contentHash, process));
+		return process;
+	}
+
+	/**
+	 * Hashes the content of a file with the current values of its
+	 * placeholders, which can change between reloads.
+	 */
+	private HashCode hash(byte[] content) {
+		Hasher hasher = Hashing.sha256().newHasher().putBytes(content);
+		String text = new String(content, UTF_8);
+		if (text.contains("${")) {
+			hasher.putString(processConfigUtils.resolvePlaceholders(text), UTF_8);
+		}
+		return hasher.hash();
+	}
+
+	@VisibleForTesting
+	int getParsedFilesCount() {
+		return parsedFiles.size();
+	}
+
 	/**
 	 * Merges two lists of servers (and their queries). Based on the equality of
 	 * both sets of objects. Public for testing purposes.
@@ -97,4 +192,14 @@ public class ConfigurationParser {
 				.addQueries(secondServer.getQueries())
 				.build();
 	}
+
+	private static final class ParsedFile {
+		@Nonnull private final HashCode contentHash;
+		@Nonnull private final JmxProcess process;
+
+		private ParsedFile(@Nonnull HashCode contentHash, @Nonnull JmxProcess process) {
+			this.contentHash = contentHash;
+			this.process = process;
+		}
+	}
 }
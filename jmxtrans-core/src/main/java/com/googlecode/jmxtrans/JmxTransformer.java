@@ -24,7 +24,9 @@ package com.googlecode.jmxtrans;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 import com.google.inject.Injector;
 import com.google.inject.name.Named;
 import com.googlecode.jmxtrans.classloader.ClassLoaderEnricher;
@@ -33,11 +35,17 @@ import com.googlecode.jmxtrans.cli.JmxTransConfigurationFactory;
 import com.googlecode.jmxtrans.exceptions.LifecycleException;
 import com.googlecode.jmxtrans.executors.ExecutorRepository;
 import com.googlecode.jmxtrans.guice.JmxTransModule;
+import com.googlecode.jmxtrans.jmx.ConnectionWarmUp;
 import com.googlecode.jmxtrans.model.JmxProcess;
 import com.googlecode.jmxtrans.model.OutputWriter;
+import com.googlecode.jmxtrans.model.OutputWriterFactory;
 import com.googlecode.jmxtrans.model.Query;
 import com.googlecode.jmxtrans.model.Server;
 import com.googlecode.jmxtrans.model.ValidationException;
+import com.googlecode.jmxtrans.model.naming.KeyUtils;
+import com.googlecode.jmxtrans.model.results.SeriesRegistry;
+import com.googlecode.jmxtrans.monitoring.ManagedKeyCache;
+import com.googlecode.jmxtrans.monitoring.ManagedSeriesRegistry;
 import com.googlecode.jmxtrans.monitoring.ManagedThreadPoolExecutor;
 import com.googlecode.jmxtrans.scheduler.ServerScheduler;
 import com.googlecode.jmxtrans.util.WatchDir;
@@ -56,9 +64,11 @@ import java.io.FileNotFoundException;
 import java.lang.management.ManagementFactory;
 import java.net.MalformedURLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadLocalRandom;
@@ -91,6 +101,9 @@ public class JmxTransformer implements WatchedCallback {
 
 	private ImmutableList<Server> masterServersList = ImmutableList.of();
 
+	/** Output writers of the master server list, indexed by the factory which created them. */
+	private ImmutableMap<OutputWriterFactory, OutputWriter> outputWriters = ImmutableMap.of();
+
 	private Thread shutdownHook = new ShutdownHook();
 
 	@Nonnull  private final ScheduledExecutorService reloadScheduler;
@@ -98,10 +111,14 @@ public class JmxTransformer implements WatchedCallback {
 	private volatile boolean isRunning = false;
 	@Nonnull private ExecutorRepository queryExecutorRepository;
 	private final ServerScheduler serverScheduler;
+	@Nonnull private final ConnectionWarmUp connectionWarmUp;
 	@Nonnull private ExecutorRepository resultExecutorRepository;
 	@Nonnull private final ThreadLocalRandom random = ThreadLocalRandom.current();
 	@Nonnull private final MBeanServer platformMBeanServer;
 	@Nullable private ManagedJmxTransformerProcess jmxTransformerProcessMBean;
+	@Nullable private ManagedKeyCache keyCacheMBean;
+	@Nonnull private final SeriesRegistry seriesRegistry;
+	@Nullable private ManagedSeriesRegistry seriesRegistryMBean;
 	@Nullable private ImmutableList<ManagedThreadPoolExecutor> queryExecutorMBeans;
 	@Nullable private ImmutableList<ManagedThreadPoolExecutor> resultExecutorMBeans;
 	private ScheduledFuture<?> reloadScheduledFuture;
@@ -109,20 +126,24 @@ public class JmxTransformer implements WatchedCallback {
 	@Inject
 	public JmxTransformer(
 			@Nonnull ServerScheduler serverScheduler,
+			@Nonnull ConnectionWarmUp connectionWarmUp,
 			JmxTransConfiguration configuration,
 			ConfigurationParser configurationParser,
 			Injector injector,
 			@Nonnull @Named("queryExecutorRepository") ExecutorRepository queryExecutorRepository,
 			@Nonnull @Named("resultExecutorRepository") ExecutorRepository resultExecutorRepository,
-			@Nonnull ScheduledExecutorService scheduledExecutor
+			@Nonnull ScheduledExecutorService scheduledExecutor,
+			@Nonnull SeriesRegistry seriesRegistry
 	) {
 		this.serverScheduler = serverScheduler;
+		this.connectionWarmUp = connectionWarmUp;
 		this.configuration = configuration;
 		this.configurationParser = configurationParser;
 		this.injector = injector;
 		this.queryExecutorRepository = queryExecutorRepository;
 		this.resultExecutorRepository = resultExecutorRepository;
 		this.reloadScheduler = scheduledExecutor;
+		this.seriesRegistry = seriesRegistry;
 
 		this.platformMBeanServer = ManagementFactory.getPlatformMBeanServer();
 	}
@@ -271,6 +292,7 @@ public class JmxTransformer implements WatchedCallback {
 			}
 		}
 		this.masterServersList = ImmutableList.of();
+		this.outputWriters = ImmutableMap.of();
 	}
 
 	/**
@@ -310,42 +332,97 @@ public class JmxTransformer implements WatchedCallback {
 	 */
 	private void startupSystem() throws Exception {
 		this.processFilesIntoServers();
+		this.connectionWarmUp.warmUp(this.masterServersList);
 		this.processServersIntoJobs();
 	}
 
 	/**
 	 * Reloads servers from watchdir.
+	 * <p/>
+	 * Only the servers added or modified by the new configuration are
+	 * scheduled again. Servers left unchanged keep running with their
+	 * executors, connections and output writers.
 	 */
 	private void reloadSystem() throws Exception {
-		serverScheduler.unscheduleAll();
-		this.removeExecutors();
-		this.processFilesIntoServers();
-		this.startExecutors();
-		this.processServersIntoJobs();
+		ServerListBuilder serverListBuilder = new ServerListBuilder(this.outputWriters, configuration.getResultProcessorExecutorPoolSize());
+		ImmutableList<Server> servers = configurationParser.parseServers(
+				getProcessConfigFiles(), configuration.isContinueOnJsonError(), serverListBuilder);
+		ImmutableMap<OutputWriterFactory, OutputWriter> newOutputWriters = serverListBuilder.getOutputWriters();
+
+		ServerListDiff diff = ServerListDiff.compute(this.masterServersList, servers);
+		log.info("Reloading configuration: {} servers added, {} removed, {} changed, {} unchanged",
+				diff.getAdded().size(), diff.getRemoved().size(), diff.getChanged().size(), diff.getUnchanged().size());
+		if (diff.isEmpty()) {
+			return;
+		}
+
+		for (Server server : diff.getRemoved()) {
+			serverScheduler.unschedule(server);
+		}
+		for (Server server : diff.getChanged()) {
+			serverScheduler.unschedule(server);
+		}
+
+		Set<OutputWriter> runningWriters = identitySet(this.outputWriters.values());
+		this.closeWriters(obsoleteWriters(runningWriters, newOutputWriters.values()));
+		this.masterServersList = diff.getServers();
+		this.outputWriters = newOutputWriters;
+
+		this.updateExecutors(diff);
+		this.connectionWarmUp.warmUp(diff.getServersToSchedule());
+		this.processServersIntoJobs(diff.getServersToSchedule(), runningWriters);
 	}
 
 	/**
-	 * Stops executors and removes servers for a reload.
+	 * Removes the executors of removed servers and creates the ones of added
+	 * servers.
 	 */
-	private void removeExecutors() throws Exception {
-		log.debug("Clearing executors for reload.");
+	private void updateExecutors(ServerListDiff diff) throws Exception {
+		log.debug("Updating executors for reload.");
 
 		unregisterExecutors(queryExecutorMBeans);
 		unregisterExecutors(resultExecutorMBeans);
 
-		for (Server server : masterServersList) {
+		for (Server server : diff.getRemoved()) {
 			queryExecutorRepository.remove(server);
 			resultExecutorRepository.remove(server);
 		}
+		for (Server server : diff.getAdded()) {
+			queryExecutorRepository.put(server);
+			resultExecutorRepository.put(server);
+		}
+
+		queryExecutorMBeans = registerExecutors(queryExecutorRepository);
+		resultExecutorMBeans = registerExecutors(resultExecutorRepository);
 	}
 
 	/**
-	 * Starts executors for a reload.
+	 * @return the writers not used anymore by the new configuration.
 	 */
-	private void startExecutors() throws Exception {
-		initializeExecutors();
-		queryExecutorMBeans = registerExecutors(queryExecutorRepository);
-		resultExecutorMBeans = registerExecutors(resultExecutorRepository);
+	private static Set<OutputWriter> obsoleteWriters(Set<OutputWriter> previous, Collection<OutputWriter> current) {
+		Set<OutputWriter> result = Sets.newIdentityHashSet();
+		result.addAll(previous);
+		result.removeAll(identitySet(current));
+		return result;
+	}
+
+	private static Set<OutputWriter> identitySet(Iterable<OutputWriter> writers) {
+		Set<OutputWriter> result = Sets.newIdentityHashSet();
+		for (OutputWriter writer : writers) {
+			result.add(writer);
+		}
+		return result;
+	}
+
+	private void closeWriters(Iterable<OutputWriter> writers) {
+		for (OutputWriter writer : writers) {
+			try {
+				writer.close();
+				log.debug("Stopped writer: {}", writer);
+			} catch (LifecycleException ex) {
+				log.error("Error stopping writer: {}", writer, ex);
+			}
+		}
 	}
 
 	private void initializeExecutors() throws MalformedObjectNameException {
@@ -385,7 +462,11 @@ public class JmxTransformer implements WatchedCallback {
 			throw new LifecycleException(e);
 		}
 
-		this.masterServersList = configurationParser.parseServers(getProcessConfigFiles(), configuration.isContinueOnJsonError());
+		ServerListBuilder serverListBuilder = new ServerListBuilder(
+				ImmutableMap.<OutputWriterFactory, OutputWriter>of(), configuration.getResultProcessorExecutorPoolSize());
+		this.masterServersList = configurationParser.parseServers(
+				getProcessConfigFiles(), configuration.isContinueOnJsonError(), serverListBuilder);
+		this.outputWriters = serverListBuilder.getOutputWriters();
 	}
 
 	/**
@@ -394,13 +475,25 @@ public class JmxTransformer implements WatchedCallback {
 	 * Needs to be called after processFiles()
 	 */
 	private void processServersIntoJobs() throws LifecycleException {
-		for (Server server : this.masterServersList) {
+		this.processServersIntoJobs(this.masterServersList, ImmutableSet.<OutputWriter>of());
+	}
+
+	/**
+	 * @param runningWriters writers already started, kept from the previous configuration.
+	 */
+	private void processServersIntoJobs(ImmutableList<Server> servers, Set<OutputWriter> runningWriters) throws LifecycleException {
+		// writers shared between queries are started only once
+		Set<OutputWriter> startedWriters = Sets.newIdentityHashSet();
+		startedWriters.addAll(runningWriters);
+		for (Server server : servers) {
 			try {
 
 				// need to inject the poolMap
 				for (Query query : server.getQueries()) {
 					for (OutputWriter writer : query.getOutputWriterInstances()) {
-						writer.start();
+						if (startedWriters.add(writer)) {
+							writer.start();
+						}
 					}
 				}
 
@@ -420,6 +513,12 @@ public class JmxTransformer implements WatchedCallback {
 		jmxTransformerProcessMBean = new ManagedJmxTransformerProcess(this, configuration);
 		platformMBeanServer.registerMBean(jmxTransformerProcessMBean, jmxTransformerProcessMBean.getObjectName());
 
+		keyCacheMBean = new ManagedKeyCache(KeyUtils.getKeyCache());
+		platformMBeanServer.registerMBean(keyCacheMBean, keyCacheMBean.getObjectName());
+
+		seriesRegistryMBean = new ManagedSeriesRegistry(seriesRegistry);
+		platformMBeanServer.registerMBean(seriesRegistryMBean, seriesRegistryMBean.getObjectName());
+
 		queryExecutorMBeans = registerExecutors(queryExecutorRepository);
 		resultExecutorMBeans = registerExecutors(resultExecutorRepository);
 	}
@@ -438,6 +537,12 @@ public class JmxTransformer implements WatchedCallback {
 		if (jmxTransformerProcessMBean != null) {
 			platformMBeanServer.unregisterMBean(jmxTransformerProcessMBean.getObjectName());
 		}
+		if (keyCacheMBean != null) {
+			platformMBeanServer.unregisterMBean(keyCacheMBean.getObjectName());
+		}
+		if (seriesRegistryMBean != null) {
+			platformMBeanServer.unregisterMBean(seriesRegistryMBean.getObjectName());
+		}
 
 		unregisterExecutors(queryExecutorMBeans);
 		unregisterExecutors(resultExecutorMBeans);
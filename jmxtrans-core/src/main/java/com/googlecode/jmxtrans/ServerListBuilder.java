@@ -23,6 +23,7 @@
 package com.googlecode.jmxtrans;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.googlecode.jmxtrans.model.OutputWriter;
 import com.googlecode.jmxtrans.model.OutputWriterFactory;
 import com.googlecode.jmxtrans.model.Query;
@@ -44,7 +45,31 @@ import static com.google.common.collect.Sets.newHashSet;
 public class ServerListBuilder {
 
 	@Nonnull private final Map<Server, TemporaryServer> servers = newHashMap();
-	@Nonnull private final Map<OutputWriterFactory, OutputWriterFactory> outputWriters = newHashMap();
+	@Nonnull private final Map<OutputWriterFactory, SingletonOutputWriterFactory> outputWriters = newHashMap();
+	@Nonnull private final Map<OutputWriterFactory, OutputWriter> existingOutputWriters;
+	/** Number of threads writing results, 0 when unknown. */
+	private final int concurrency;
+
+	public ServerListBuilder() {
+		this(ImmutableMap.<OutputWriterFactory, OutputWriter>of());
+	}
+
+	/**
+	 * @param existingOutputWriters output writers created by a previous build,
+	 *                              reused for the factories equal to theirs.
+	 */
+	public ServerListBuilder(@Nonnull Map<OutputWriterFactory, OutputWriter> existingOutputWriters) {
+		this(existingOutputWriters, 0);
+	}
+
+	/**
+	 * @param concurrency number of threads writing results, given to the
+	 *                    factories of new output writers.
+	 */
+	public ServerListBuilder(@Nonnull Map<OutputWriterFactory, OutputWriter> existingOutputWriters, int concurrency) {
+		this.existingOutputWriters = existingOutputWriters;
+		this.concurrency = concurrency;
+	}
 
 	public ServerListBuilder add(Iterable<Server> servers) {
 		for (Server server : servers) {
@@ -64,10 +89,27 @@ public class ServerListBuilder {
 		return servers.get(server);
 	}
 
-	private OutputWriterFactory singleton(OutputWriterFactory outputWriter) {
-		outputWriter = new SingletonOutputWriterFactory(outputWriter);
-		if (!outputWriters.containsKey(outputWriter)) outputWriters.put(outputWriter, outputWriter);
-		return outputWriters.get(outputWriter);
+	private OutputWriterFactory singleton(OutputWriterFactory outputWriterFactory) {
+		SingletonOutputWriterFactory singleton = outputWriters.get(outputWriterFactory);
+		if (singleton == null) {
+			OutputWriter existingOutputWriter = existingOutputWriters.get(outputWriterFactory);
+			singleton = new SingletonOutputWriterFactory(outputWriterFactory,
+					existingOutputWriter == null ? outputWriterFactory.create(concurrency) : existingOutputWriter);
+			outputWriters.put(outputWriterFactory, singleton);
+		}
+		return singleton;
+	}
+
+	/**
+	 * @return the output writers used by the servers built, indexed by the
+	 * factory which created them.
+	 */
+	public ImmutableMap<OutputWriterFactory, OutputWriter> getOutputWriters() {
+		ImmutableMap.Builder<OutputWriterFactory, OutputWriter> result = ImmutableMap.builder();
+		for (Map.Entry<OutputWriterFactory, SingletonOutputWriterFactory> entry : outputWriters.entrySet()) {
+			result.put(entry.getKey(), entry.getValue().create());
+		}
+		return result.build();
 	}
 
 	public ImmutableList<Server> build() {
@@ -0,0 +1,157 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import com.googlecode.jmxtrans.model.OutputWriter;
+import com.googlecode.jmxtrans.model.Query;
+import com.googlecode.jmxtrans.model.Server;
+import lombok.Getter;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.collect.Maps.newHashMap;
+
+/**
+ * Differences between the servers running and the servers read from a
+ * reloaded configuration.
+ * <p/>
+ * Servers are matched by equality (connection settings). A matching server is
+ * unchanged when it has the same queries, sending their results to the same
+ * output writer instances. Otherwise it is changed and needs to be scheduled
+ * again, but its executors and JMX connections can be kept.
+ */
+@Immutable
+public class ServerListDiff {
+
+	/** Servers only in the new configuration. */
+	@Nonnull @Getter private final ImmutableList<Server> added;
+	/** Servers only in the previous configuration. */
+	@Nonnull @Getter private final ImmutableList<Server> removed;
+	/** Servers of the new configuration whose queries or output writers changed. */
+	@Nonnull @Getter private final ImmutableList<Server> changed;
+	/** Servers of the previous configuration, left untouched by the new one. */
+	@Nonnull @Getter private final ImmutableList<Server> unchanged;
+
+	private ServerListDiff(
+			@Nonnull ImmutableList<Server> added,
+			@Nonnull ImmutableList<Server> removed,
+			@Nonnull ImmutableList<Server> changed,
+			@Nonnull ImmutableList<Server> unchanged) {
+		this.added = added;
+		this.removed = removed;
+		this.changed = changed;
+		this.unchanged = unchanged;
+	}
+
+	@Nonnull
+	public static ServerListDiff compute(@Nonnull Collection<Server> previous, @Nonnull Collection<Server> current) {
+		Map<Server, Server> previousByServer = newHashMap();
+		for (Server server : previous) {
+			previousByServer.put(server, server);
+		}
+
+		ImmutableList.Builder<Server> added = ImmutableList.builder();
+		ImmutableList.Builder<Server> changed = ImmutableList.builder();
+		ImmutableList.Builder<Server> unchanged = ImmutableList.builder();
+		for (Server server : current) {
+			Server previousServer = previousByServer.get(server);
+			if (previousServer == null) {
+				added.add(server);
+			} else if (isUnchanged(previousServer, server)) {
+				unchanged.add(previousServer);
+			} else {
+				changed.add(server);
+			}
+		}
+
+		Set<Server> currentServers = Sets.newHashSet(current);
+		ImmutableList.Builder<Server> removed = ImmutableList.builder();
+		for (Server server : previous) {
+			if (!currentServers.contains(server)) {
+				removed.add(server);
+			}
+		}
+
+		return new ServerListDiff(added.build(), removed.build(), changed.build(), unchanged.build());
+	}
+
+	/**
+	 * @return the servers to run with the new configuration.
+	 */
+	@Nonnull
+	public ImmutableList<Server> getServers() {
+		return ImmutableList.<Server>builder().addAll(unchanged).addAll(changed).addAll(added).build();
+	}
+
+	/**
+	 * @return the servers to schedule with the new configuration.
+	 */
+	@Nonnull
+	public ImmutableList<Server> getServersToSchedule() {
+		return ImmutableList.<Server>builder().addAll(changed).addAll(added).build();
+	}
+
+	public boolean isEmpty() {
+		return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+	}
+
+	private static boolean isUnchanged(@Nonnull Server previous, @Nonnull Server current) {
+		if (!sameInstances(previous.getOutputWriters(), current.getOutputWriters())) {
+			return false;
+		}
+		if (previous.getQueries().size() != current.getQueries().size()) {
+			return false;
+		}
+		Map<Query, Query> previousByQuery = newHashMap();
+		for (Query query : previous.getQueries()) {
+			previousByQuery.put(query, query);
+		}
+		for (Query query : current.getQueries()) {
+			Query previousQuery = previousByQuery.get(query);
+			if (previousQuery == null
+					|| !sameInstances(previousQuery.getOutputWriterInstances(), query.getOutputWriterInstances())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean sameInstances(@Nonnull Iterable<OutputWriter> previous, @Nonnull Iterable<OutputWriter> current) {
+		return identitySet(previous).equals(identitySet(current));
+	}
+
+	@Nonnull
+	private static Set<OutputWriter> identitySet(@Nonnull Iterable<OutputWriter> writers) {
+		Set<OutputWriter> result = Sets.newIdentityHashSet();
+		for (OutputWriter writer : writers) {
+			result.add(writer);
+		}
+		return result;
+	}
+}
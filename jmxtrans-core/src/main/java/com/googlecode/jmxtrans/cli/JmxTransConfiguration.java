@@ -156,6 +156,60 @@ public class JmxTransConfiguration {
 	@Getter @Setter
 	private int scheduledExecutorPoolSize = 2;
 
+	private static final String CONNECTION_WARM_UP_POOL_SIZE_PROPERTY = "connection.warm.up.pool.size";
+	@Parameter(
+			names = {"--connection-warm-up-pool-size"},
+			description = "Number of threads used to establish JMX connections before scheduling servers. 0 to disable warm up.",
+			validateWith = PositiveInteger.class
+	)
+	@Getter @Setter
+	private int connectionWarmUpPoolSize = 10;
+
+	private static final String CONNECTION_WARM_UP_TIMEOUT_IN_SECONDS_PROPERTY = "connection.warm.up.timeout.in.seconds";
+	@Parameter(
+			names = {"--connection-warm-up-timeout-in-seconds"},
+			description = "Maximum time spent establishing JMX connections before scheduling servers.",
+			validateWith = PositiveInteger.class
+	)
+	@Getter @Setter
+	private int connectionWarmUpTimeoutSeconds = 30;
+
+	private static final String COUNTER_RATES_MAX_SERIES_PROPERTY = "counter.rates.max.series";
+	@Parameter(
+			names = {"--counter-rates-max-series"},
+			description = "Maximum number of counters whose previous value is kept to compute rates.",
+			validateWith = PositiveInteger.class
+	)
+	@Getter @Setter
+	private int counterRatesMaxSeries = 100000;
+
+	private static final String COUNTER_RATES_EXPIRY_IN_SECONDS_PROPERTY = "counter.rates.expiry.in.seconds";
+	@Parameter(
+			names = {"--counter-rates-expiry-in-seconds"},
+			description = "Time after which the previous value of a counter no longer collected is forgotten.",
+			validateWith = PositiveInteger.class
+	)
+	@Getter @Setter
+	private int counterRatesExpirySeconds = 900;
+
+	private static final String SERIES_REGISTRY_MAX_SIZE_PROPERTY = "series.registry.max.size";
+	@Parameter(
+			names = {"--series-registry-max-size"},
+			description = "Maximum number of series tracked by the series registry.",
+			validateWith = PositiveInteger.class
+	)
+	@Getter @Setter
+	private int seriesRegistryMaxSize = 100000;
+
+	private static final String SERIES_REGISTRY_EXPIRY_IN_SECONDS_PROPERTY = "series.registry.expiry.in.seconds";
+	@Parameter(
+			names = {"--series-registry-expiry-in-seconds"},
+			description = "Time after which a series no longer collected is removed from the series registry.",
+			validateWith = PositiveInteger.class
+	)
+	@Getter @Setter
+	private int seriesRegistryExpirySeconds = 3600;
+
 	private static abstract class PropertySetter<T> {
 		protected final String key;
 		protected final Class<T> type;
@@ -273,6 +327,42 @@ public class JmxTransConfiguration {
 				protected void doSetValue(Integer value, JmxTransConfiguration configuration) {
 					configuration.setScheduledExecutorPoolSize(value);
 				}
+			},
+			new SinglePropertySetter<Integer>(CONNECTION_WARM_UP_POOL_SIZE_PROPERTY, Integer.class) {
+				@Override
+				protected void doSetValue(Integer value, JmxTransConfiguration configuration) {
+					configuration.setConnectionWarmUpPoolSize(value);
+				}
+			},
+			new SinglePropertySetter<Integer>(CONNECTION_WARM_UP_TIMEOUT_IN_SECONDS_PROPERTY, Integer.class) {
+				@Override
+				protected void doSetValue(Integer value, JmxTransConfiguration configuration) {
+					configuration.setConnectionWarmUpTimeoutSeconds(value);
+				}
+			},
+			new SinglePropertySetter<Integer>(COUNTER_RATES_MAX_SERIES_PROPERTY, Integer.class) {
+				@Override
+				protected void doSetValue(Integer value, JmxTransConfiguration configuration) {
+					configuration.setCounterRatesMaxSeries(value);
+				}
+			},
+			new SinglePropertySetter<Integer>(COUNTER_RATES_EXPIRY_IN_SECONDS_PROPERTY, Integer.class) {
+				@Override
+				protected void doSetValue(Integer value, JmxTransConfiguration configuration) {
+					configuration.setCounterRatesExpirySeconds(value);
+				}
+			},
+			new SinglePropertySetter<Integer>(SERIES_REGISTRY_MAX_SIZE_PROPERTY, Integer.class) {
+				@Override
+				protected void doSetValue(Integer value, JmxTransConfiguration configuration) {
+					configuration.setSeriesRegistryMaxSize(value);
+				}
+			},
+			new SinglePropertySetter<Integer>(SERIES_REGISTRY_EXPIRY_IN_SECONDS_PROPERTY, Integer.class) {
+				@Override
+				protected void doSetValue(Integer value, JmxTransConfiguration configuration) {
+					configuration.setSeriesRegistryExpirySeconds(value);
+				}
 			}
 	};
 
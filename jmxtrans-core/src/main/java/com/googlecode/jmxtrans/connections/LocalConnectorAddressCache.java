@@ -0,0 +1,237 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.connections;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
+import com.sun.tools.attach.VirtualMachine;
+import com.sun.tools.attach.VirtualMachineDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.management.remote.JMXServiceURL;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Resolves and caches the local connector address of JVMs running on this
+ * host, identified by their pid.
+ * <p/>
+ * Attaching to a JVM (and possibly loading the management agent into it) is
+ * expensive, so the resolved address is kept until the process behind the pid
+ * changes. When the start time of a process can be read (from /proc on Linux)
+ * it is used to detect pid reuse, otherwise the cached address is trusted until
+ * {@link #invalidate(JMXServiceURL)} is called, typically after a failed connection.
+ * <p/>
+ * Pids found by main class are cached with the address of their process,
+ * local JVMs are listed again only once that address is no longer valid.
+ * <p/>
+ * This class references the attach API, it must only be loaded when
+ * tools.jar is available.
+ */
+@ThreadSafe
+public class LocalConnectorAddressCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(LocalConnectorAddressCache.class);
+
+	private static final String CONNECTOR_ADDRESS = "com.sun.management.jmxremote.localConnectorAddress";
+
+	private static final Path PROC = Paths.get("/proc");
+
+	/** Index of the starttime field in /proc/[pid]/stat, counting from the field following the command name. */
+	private static final int START_TIME_FIELD = 19;
+
+	@Nonnull private final ConcurrentMap<String, CachedAddress> addresses = new ConcurrentHashMap<>();
+
+	/** Pids found for main class patterns, valid as long as their address is. */
+	@Nonnull private final ConcurrentMap<String, String> pids = new ConcurrentHashMap<>();
+
+	@Nonnull
+	public JMXServiceURL getJMXServiceURL(@Nonnull String pid) throws IOException {
+		Long startTime = readStartTime(pid);
+		CachedAddress cached = addresses.get(pid);
+		if (cached != null && cached.isValidFor(startTime)) {
+			return cached.url;
+		}
+
+		logger.debug("Resolving local connector address of process {}", pid);
+		JMXServiceURL url = new JMXServiceURL(attachAndGetConnectorAddress(pid));
+		addresses.put(pid, new CachedAddress(url, startTime));
+		return url;
+	}
+
+	/**
+	 * Resolves the address of the single local JVM whose display name matches
+	 * the given pattern, reusing the pid found by a previous call while the
+	 * address of its process is still valid.
+	 */
+	@Nonnull
+	public JMXServiceURL getJMXServiceURL(@Nonnull Pattern displayNamePattern) throws IOException {
+		String pid = pids.get(displayNamePattern.pattern());
+		if (pid != null) {
+			CachedAddress cached = addresses.get(pid);
+			if (cached != null && cached.isValidFor(readStartTime(pid))) {
+				return cached.url;
+			}
+		}
+
+		pid = findPid(displayNamePattern);
+		pids.put(displayNamePattern.pattern(), pid);
+		return getJMXServiceURL(pid);
+	}
+
+	/**
+	 * Forget the pid(s) resolved to this address, the next lookup will attach
+	 * to the process again.
+	 */
+	public void invalidate(@Nonnull JMXServiceURL url) {
+		for (Map.Entry<String, CachedAddress> entry : addresses.entrySet()) {
+			if (entry.getValue().url.equals(url) && addresses.remove(entry.getKey(), entry.getValue())) {
+				logger.debug("Invalidated local connector address of process {}", entry.getKey());
+			}
+		}
+	}
+
+	/**
+	 * Finds the pid of the single local JVM whose display name (main class or
+	 * jar, followed by its arguments) matches the given pattern.
+	 */
+	@Nonnull
+	public String findPid(@Nonnull Pattern displayNamePattern) throws IOException {
+		List<String> pids = new ArrayList<>();
+		for (VirtualMachineDescriptor descriptor : listVirtualMachines()) {
+			if (displayNamePattern.matcher(descriptor.displayName()).find()) {
+				pids.add(descriptor.id());
+			}
+		}
+
+		if (pids.isEmpty()) {
+			throw new IOException("No local JVM matches [" + displayNamePattern + "]");
+		}
+		if (pids.size() > 1) {
+			throw new IOException("Multiple local JVMs match [" + displayNamePattern + "]: " + Joiner.on(", ").join(pids));
+		}
+		return pids.get(0);
+	}
+
+	@VisibleForTesting
+	int size() {
+		return addresses.size();
+	}
+
+	@VisibleForTesting
+	List<VirtualMachineDescriptor> listVirtualMachines() {
+		return VirtualMachine.list();
+	}
+
+	@VisibleForTesting
+	String attachAndGetConnectorAddress(String pid) throws IOException {
+		try {
+			VirtualMachine vm = VirtualMachine.attach(pid);
+
+			try {
+				String connectorAddress = vm.getAgentProperties().getProperty(CONNECTOR_ADDRESS);
+
+				if (connectorAddress == null) {
+					String agent = vm.getSystemProperties().getProperty("java.home") +
+							File.separator + "lib" + File.separator + "management-agent.jar";
+					vm.loadAgent(agent);
+
+					connectorAddress = vm.getAgentProperties().getProperty(CONNECTOR_ADDRESS);
+				}
+
+				return connectorAddress;
+			} finally {
+				vm.detach();
+			}
+		}
+		catch(Exception e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * @return the start time of the process, in clock ticks since boot, or null
+	 * if it cannot be determined on this platform.
+	 */
+	@Nullable
+	@VisibleForTesting
+	Long readStartTime(String pid) {
+		Path stat = PROC.resolve(pid).resolve("stat");
+		try {
+			return parseStartTime(new String(Files.readAllBytes(stat), US_ASCII));
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException | RuntimeException e) {
+			logger.debug("Could not read start time of process {}", pid, e);
+			return null;
+		}
+	}
+
+	@Nullable
+	@VisibleForTesting
+	static Long parseStartTime(String stat) {
+		// the command name is enclosed in parenthesis and may contain spaces
+		int endOfCommand = stat.lastIndexOf(')');
+		if (endOfCommand < 0) {
+			return null;
+		}
+		String[] fields = stat.substring(endOfCommand + 1).trim().split(" ");
+		if (fields.length <= START_TIME_FIELD) {
+			return null;
+		}
+		return Long.valueOf(fields[START_TIME_FIELD]);
+	}
+
+	private static final class CachedAddress {
+		@Nonnull private final JMXServiceURL url;
+		@Nullable private final Long startTime;
+
+		private CachedAddress(@Nonnull JMXServiceURL url, @Nullable Long startTime) {
+			this.url = url;
+			this.startTime = startTime;
+		}
+
+		private boolean isValidFor(@Nullable Long currentStartTime) {
+			if (startTime == null) {
+				return true;
+			}
+			return startTime.equals(currentStartTime);
+		}
+	}
+}
@@ -40,6 +40,8 @@ import com.googlecode.jmxtrans.executors.CommonExecutorRepository;
 import com.googlecode.jmxtrans.executors.ExecutorFactory;
 import com.googlecode.jmxtrans.executors.ExecutorRepository;
 import com.googlecode.jmxtrans.executors.SeparateExecutorRepository;
+import com.googlecode.jmxtrans.model.results.CounterRates;
+import com.googlecode.jmxtrans.model.results.SeriesRegistry;
 import com.googlecode.jmxtrans.monitoring.ManagedGenericKeyedObjectPool;
 import org.apache.commons.pool.KeyedObjectPool;
 import org.apache.commons.pool.KeyedPoolableObjectFactory;
@@ -55,6 +57,7 @@ import java.util.concurrent.ScheduledExecutorService;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 public class JmxTransModule extends AbstractModule {
 
@@ -85,6 +88,22 @@ public class JmxTransModule extends AbstractModule {
 				ExecutorFactory.threadFactory("scheduler"));
 	}
 
+	@Provides
+	@Singleton
+	CounterRates counterRates() {
+		return new CounterRates(
+				configuration.getCounterRatesMaxSeries(),
+				SECONDS.toMillis(configuration.getCounterRatesExpirySeconds()));
+	}
+
+	@Provides
+	@Singleton
+	SeriesRegistry seriesRegistry() {
+		return new SeriesRegistry(
+				configuration.getSeriesRegistryMaxSize(),
+				SECONDS.toMillis(configuration.getSeriesRegistryExpirySeconds()));
+	}
+
 	@Provides
 	@Singleton
 	@Named("queryExecutorRepository")
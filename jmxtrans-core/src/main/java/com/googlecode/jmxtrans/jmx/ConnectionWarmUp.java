@@ -0,0 +1,132 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.jmx;
+
+import com.google.common.base.Stopwatch;
+import com.google.inject.Inject;
+import com.googlecode.jmxtrans.cli.JmxTransConfiguration;
+import com.googlecode.jmxtrans.executors.ExecutorFactory;
+import com.googlecode.jmxtrans.model.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Establishes the JMX connections of servers before they are scheduled, so
+ * that the first run after startup or after a configuration reload is not
+ * delayed for all servers at once.
+ * <p/>
+ * Servers still having an idle connection in the pool are skipped. Failures
+ * are only logged, the connection will be attempted again when the server
+ * is run.
+ */
+@ThreadSafe
+public class ConnectionWarmUp {
+
+	private static final Logger log = LoggerFactory.getLogger(ConnectionWarmUp.class);
+
+	/** Progress is logged each time this percentage of servers is done. */
+	private static final int PROGRESS_STEP_PERCENT = 10;
+
+	private final int poolSize;
+	private final int timeoutSeconds;
+
+	@Inject
+	public ConnectionWarmUp(@Nonnull JmxTransConfiguration configuration) {
+		this(configuration.getConnectionWarmUpPoolSize(), configuration.getConnectionWarmUpTimeoutSeconds());
+	}
+
+	public ConnectionWarmUp(int poolSize, int timeoutSeconds) {
+		this.poolSize = poolSize;
+		this.timeoutSeconds = timeoutSeconds;
+	}
+
+	/**
+	 * Blocks until connections to all servers are established, or until the
+	 * warm up times out.
+	 */
+	public void warmUp(@Nonnull final Collection<Server> servers) throws InterruptedException {
+		if (poolSize <= 0 || servers.isEmpty()) {
+			return;
+		}
+
+		log.info("Warming up JMX connections to {} servers", servers.size());
+		Stopwatch stopwatch = Stopwatch.createStarted();
+
+		final AtomicInteger done = new AtomicInteger();
+		final AtomicInteger established = new AtomicInteger();
+		final AtomicInteger failed = new AtomicInteger();
+
+		ExecutorService executor = Executors.newFixedThreadPool(
+				Math.min(poolSize, servers.size()),
+				ExecutorFactory.threadFactory("connection-warm-up"));
+		try {
+			for (final Server server : servers) {
+				executor.submit(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							if (server.warmUpConnection()) {
+								established.incrementAndGet();
+							}
+						} catch (Exception e) {
+							failed.incrementAndGet();
+							log.warn("Could not warm up connection to server {}: {}", server, e.getMessage());
+							log.debug("Connection warm up failure", e);
+						}
+						logProgress(done.incrementAndGet(), servers.size());
+					}
+				});
+			}
+			executor.shutdown();
+			if (!executor.awaitTermination(timeoutSeconds, SECONDS)) {
+				log.warn("Connection warm up did not complete in {}s, {} servers will connect on their first run",
+						timeoutSeconds, servers.size() - done.get());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		log.info("Warmed up JMX connections in {}ms: {} established, {} reused, {} failed",
+				stopwatch.elapsed(MILLISECONDS),
+				established.get(),
+				done.get() - established.get() - failed.get(),
+				failed.get());
+	}
+
+	private static void logProgress(int done, int total) {
+		int step = Math.max(1, total * PROGRESS_STEP_PERCENT / 100);
+		if (done % step == 0 || done == total) {
+			log.info("Connection warm up progress: {}/{}", done, total);
+		}
+	}
+}
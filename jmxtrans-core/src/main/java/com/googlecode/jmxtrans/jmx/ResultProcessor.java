@@ -29,6 +29,10 @@ import com.googlecode.jmxtrans.model.OutputWriter;
 import com.googlecode.jmxtrans.model.Query;
 import com.googlecode.jmxtrans.model.Result;
 import com.googlecode.jmxtrans.model.Server;
+import com.googlecode.jmxtrans.model.results.CounterRates;
+import com.googlecode.jmxtrans.model.results.ResultValuesTransformer;
+import com.googlecode.jmxtrans.model.results.SeriesRegistry;
+import com.googlecode.jmxtrans.model.results.ValueTransformerChain;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,16 +47,25 @@ public class ResultProcessor {
 	private final Logger logger = LoggerFactory.getLogger(ResultProcessor.class);
 
 	@Nonnull private final ExecutorRepository resultExecutorRepository;
+	@Nonnull private final SeriesRegistry seriesRegistry;
+	@Nonnull private final CounterRates counterRates;
 
 	@Inject
 	public ResultProcessor(
-			@Nonnull @Named("resultExecutorRepository") ExecutorRepository resultExecutorRepository
+			@Nonnull @Named("resultExecutorRepository") ExecutorRepository resultExecutorRepository,
+			@Nonnull SeriesRegistry seriesRegistry,
+			@Nonnull CounterRates counterRates
 	) {
 		this.resultExecutorRepository = resultExecutorRepository;
+		this.seriesRegistry = seriesRegistry;
+		this.counterRates = counterRates;
 	}
 
-	public void submit(@Nonnull final Server server, @Nonnull final Query query, @Nonnull final Iterable<Result> results) {
+	public void submit(@Nonnull final Server server, @Nonnull final Query query, @Nonnull Iterable<Result> collectedResults) {
 		final ThreadPoolExecutor executor = resultExecutorRepository.getExecutor(server);
+		// computed once, transformed values, series ids and rates of counters are shared by all output writers
+		final Iterable<Result> results = counterRates.apply(server, query,
+				seriesRegistry.register(server, query, transformValues(query, collectedResults)));
 
 		for (final OutputWriter writer : concat(query.getOutputWriterInstances(), server.getOutputWriters())) {
 			try {
@@ -71,4 +84,15 @@ public class ResultProcessor {
 			}
 		}
 	}
+
+	/**
+	 * Applies the value transformers of the query. Results are returned as is
+	 * when there is none.
+	 */
+	static Iterable<Result> transformValues(@Nonnull Query query, @Nonnull Iterable<Result> results) {
+		if (query.getValueTransformers().isEmpty()) {
+			return results;
+		}
+		return new ResultValuesTransformer(ValueTransformerChain.of(query.getValueTransformers())).transform(results);
+	}
 }
@@ -25,7 +25,9 @@ package com.googlecode.jmxtrans.model;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.googlecode.jmxtrans.model.results.SeriesIds;
 
+import javax.annotation.Nullable;
 import javax.management.Attribute;
 import javax.management.ObjectInstance;
 import javax.management.ObjectName;
@@ -46,13 +48,22 @@ public class JmxResultProcessor {
 	private final String className;
 	private final String objDomain;
 	private final List<Attribute> attributes;
+	@Nullable private final SeriesIds seriesIds;
 
 	public JmxResultProcessor(Query query, ObjectInstance objectInstance, List<Attribute> attributes, String className, String objDomain) {
+		this(query, objectInstance, attributes, className, objDomain, null);
+	}
+
+	/**
+	 * @param seriesIds assigns their series id to the results, none is assigned when null.
+	 */
+	public JmxResultProcessor(Query query, ObjectInstance objectInstance, List<Attribute> attributes, String className, String objDomain, @Nullable SeriesIds seriesIds) {
 		this.query = query;
 		this.objectInstance = objectInstance;
 		this.className = className;
 		this.objDomain = objDomain;
 		this.attributes = attributes;
+		this.seriesIds = seriesIds;
 	}
 
 	public ImmutableList<Result> getResults() {
@@ -189,7 +200,10 @@ public class JmxResultProcessor {
 		 * Create and add a new result.
 		 */
 		private void addNew(String attributeName, ImmutableList.Builder<String> valuePath, Object value) {
-			accumulator.add(new Result(epoch, attributeName, className, objDomain, query.getResultAlias(), objectInstance.getObjectName().getKeyPropertyListString(), valuePath.build(), value));
+			String typeName = objectInstance.getObjectName().getKeyPropertyListString();
+			ImmutableList<String> path = valuePath.build();
+			long seriesId = seriesIds == null ? 0 : seriesIds.idOf(objDomain, typeName, attributeName, path);
+			accumulator.add(new Result(epoch, attributeName, className, objDomain, query.getResultAlias(), typeName, path, value, seriesId));
 		}
 
 		/**
@@ -34,4 +34,13 @@ import static com.fasterxml.jackson.annotation.JsonTypeInfo.Id;
 @JsonTypeInfo(use = Id.CLASS, include = As.PROPERTY, property = "@class")
 public interface OutputWriterFactory<T extends OutputWriter> {
 	@Nonnull T create();
+
+	/**
+	 * @param concurrency number of threads writing results, factories pooling
+	 *                    connections may size their pools after it.
+	 */
+	@Nonnull
+	default T create(int concurrency) {
+		return create();
+	}
 }
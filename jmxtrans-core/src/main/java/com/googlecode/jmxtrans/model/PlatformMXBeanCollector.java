@@ -0,0 +1,362 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.googlecode.jmxtrans.model.results.SeriesIds;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanServerConnection;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+/**
+ * Reads the well known platform MXBeans of the current JVM through their Java
+ * interfaces, bypassing the conversion to and from open types done by the
+ * MBean server.
+ * <p/>
+ * Only queries listing explicitly their attributes, all of them supported, are
+ * collected this way. The results are the same as the ones produced by
+ * {@link JmxResultProcessor}, so output writers see no difference. Anything
+ * else returns null and should be fetched through the generic path.
+ */
+@ThreadSafe
+public class PlatformMXBeanCollector {
+
+	private static final String JAVA_LANG_DOMAIN = "java.lang";
+
+	private static final ImmutableList<String> MEMORY_USAGE_KEYS = ImmutableList.of("committed", "init", "max", "used");
+
+	@Nonnull private final MemoryMXBean memory;
+	@Nonnull private final ThreadMXBean threads;
+	@Nonnull private final OperatingSystemMXBean operatingSystem;
+	@Nonnull private final ImmutableList<GarbageCollectorMXBean> garbageCollectors;
+
+	public PlatformMXBeanCollector() {
+		this(
+				ManagementFactory.getMemoryMXBean(),
+				ManagementFactory.getThreadMXBean(),
+				ManagementFactory.getOperatingSystemMXBean(),
+				ManagementFactory.getGarbageCollectorMXBeans());
+	}
+
+	PlatformMXBeanCollector(
+			@Nonnull MemoryMXBean memory,
+			@Nonnull ThreadMXBean threads,
+			@Nonnull OperatingSystemMXBean operatingSystem,
+			@Nonnull List<GarbageCollectorMXBean> garbageCollectors) {
+		this.memory = memory;
+		this.threads = threads;
+		this.operatingSystem = operatingSystem;
+		this.garbageCollectors = ImmutableList.copyOf(garbageCollectors);
+	}
+
+	/**
+	 * @return the results of the query for this MBean, or null if the MBean or
+	 * one of the requested attributes is not supported.
+	 */
+	@Nullable
+	public ImmutableList<Result> fetchResults(
+			@Nonnull MBeanServerConnection mbeanServer,
+			@Nonnull Query query,
+			@Nonnull ObjectName queryName) throws InstanceNotFoundException, IOException {
+		return fetchResults(mbeanServer, query, queryName, null);
+	}
+
+	/**
+	 * @param seriesIds assigns their series id to the results, none is assigned when null.
+	 */
+	@Nullable
+	public ImmutableList<Result> fetchResults(
+			@Nonnull MBeanServerConnection mbeanServer,
+			@Nonnull Query query,
+			@Nonnull ObjectName queryName,
+			@Nullable SeriesIds seriesIds) throws InstanceNotFoundException, IOException {
+		if (query.getAttr().isEmpty()) {
+			// all attributes are requested, their list depends on the JVM
+			return null;
+		}
+
+		AttributeReader reader = readerFor(queryName);
+		if (reader == null || !reader.getSupportedAttributes().containsAll(query.getAttr())) {
+			return null;
+		}
+
+		String className = mbeanServer.getObjectInstance(queryName).getClassName();
+		ResultsBuilder results = new ResultsBuilder(query, queryName, className, seriesIds);
+		for (String attribute : query.getAttr()) {
+			reader.read(attribute, results);
+		}
+		return results.build();
+	}
+
+	@Nullable
+	private AttributeReader readerFor(@Nonnull ObjectName name) {
+		if (name.isPattern() || !JAVA_LANG_DOMAIN.equals(name.getDomain())) {
+			return null;
+		}
+		if (memory.getObjectName().equals(name)) {
+			return new MemoryReader(memory);
+		}
+		if (threads.getObjectName().equals(name)) {
+			return new ThreadReader(threads);
+		}
+		if (operatingSystem.getObjectName().equals(name)) {
+			return new OperatingSystemReader(operatingSystem);
+		}
+		for (GarbageCollectorMXBean garbageCollector : garbageCollectors) {
+			if (garbageCollector.getObjectName().equals(name)) {
+				return new GarbageCollectorReader(garbageCollector);
+			}
+		}
+		return null;
+	}
+
+	private interface AttributeReader {
+		ImmutableSet<String> getSupportedAttributes();
+
+		void read(String attribute, ResultsBuilder results);
+	}
+
+	private static final class MemoryReader implements AttributeReader {
+		private static final ImmutableSet<String> ATTRIBUTES = ImmutableSet.of(
+				"HeapMemoryUsage", "NonHeapMemoryUsage", "ObjectPendingFinalizationCount", "Verbose");
+
+		private final MemoryMXBean bean;
+
+		private MemoryReader(MemoryMXBean bean) {
+			this.bean = bean;
+		}
+
+		@Override
+		public ImmutableSet<String> getSupportedAttributes() {
+			return ATTRIBUTES;
+		}
+
+		@Override
+		public void read(String attribute, ResultsBuilder results) {
+			switch (attribute) {
+				case "HeapMemoryUsage":
+					results.add(attribute, bean.getHeapMemoryUsage());
+					break;
+				case "NonHeapMemoryUsage":
+					results.add(attribute, bean.getNonHeapMemoryUsage());
+					break;
+				case "ObjectPendingFinalizationCount":
+					results.add(attribute, bean.getObjectPendingFinalizationCount());
+					break;
+				case "Verbose":
+					results.add(attribute, bean.isVerbose());
+					break;
+				default:
+					throw new IllegalArgumentException("Unsupported attribute " + attribute);
+			}
+		}
+	}
+
+	private static final class ThreadReader implements AttributeReader {
+		private static final ImmutableSet<String> ATTRIBUTES = ImmutableSet.of(
+				"ThreadCount", "PeakThreadCount", "DaemonThreadCount", "TotalStartedThreadCount");
+
+		private final ThreadMXBean bean;
+
+		private ThreadReader(ThreadMXBean bean) {
+			this.bean = bean;
+		}
+
+		@Override
+		public ImmutableSet<String> getSupportedAttributes() {
+			return ATTRIBUTES;
+		}
+
+		@Override
+		public void read(String attribute, ResultsBuilder results) {
+			switch (attribute) {
+				case "ThreadCount":
+					results.add(attribute, bean.getThreadCount());
+					break;
+				case "PeakThreadCount":
+					results.add(attribute, bean.getPeakThreadCount());
+					break;
+				case "DaemonThreadCount":
+					results.add(attribute, bean.getDaemonThreadCount());
+					break;
+				case "TotalStartedThreadCount":
+					results.add(attribute, bean.getTotalStartedThreadCount());
+					break;
+				default:
+					throw new IllegalArgumentException("Unsupported attribute " + attribute);
+			}
+		}
+	}
+
+	private static final class OperatingSystemReader implements AttributeReader {
+		private static final ImmutableSet<String> ATTRIBUTES = ImmutableSet.of(
+				"AvailableProcessors", "SystemLoadAverage", "Arch", "Name", "Version");
+
+		private final OperatingSystemMXBean bean;
+
+		private OperatingSystemReader(OperatingSystemMXBean bean) {
+			this.bean = bean;
+		}
+
+		@Override
+		public ImmutableSet<String> getSupportedAttributes() {
+			return ATTRIBUTES;
+		}
+
+		@Override
+		public void read(String attribute, ResultsBuilder results) {
+			switch (attribute) {
+				case "AvailableProcessors":
+					results.add(attribute, bean.getAvailableProcessors());
+					break;
+				case "SystemLoadAverage":
+					results.add(attribute, bean.getSystemLoadAverage());
+					break;
+				case "Arch":
+					results.add(attribute, bean.getArch());
+					break;
+				case "Name":
+					results.add(attribute, bean.getName());
+					break;
+				case "Version":
+					results.add(attribute, bean.getVersion());
+					break;
+				default:
+					throw new IllegalArgumentException("Unsupported attribute " + attribute);
+			}
+		}
+	}
+
+	private static final class GarbageCollectorReader implements AttributeReader {
+		private static final ImmutableSet<String> ATTRIBUTES = ImmutableSet.of(
+				"CollectionCount", "CollectionTime", "Name", "Valid");
+
+		private final GarbageCollectorMXBean bean;
+
+		private GarbageCollectorReader(GarbageCollectorMXBean bean) {
+			this.bean = bean;
+		}
+
+		@Override
+		public ImmutableSet<String> getSupportedAttributes() {
+			return ATTRIBUTES;
+		}
+
+		@Override
+		public void read(String attribute, ResultsBuilder results) {
+			switch (attribute) {
+				case "CollectionCount":
+					results.add(attribute, bean.getCollectionCount());
+					break;
+				case "CollectionTime":
+					results.add(attribute, bean.getCollectionTime());
+					break;
+				case "Name":
+					results.add(attribute, bean.getName());
+					break;
+				case "Valid":
+					results.add(attribute, bean.isValid());
+					break;
+				default:
+					throw new IllegalArgumentException("Unsupported attribute " + attribute);
+			}
+		}
+	}
+
+	/**
+	 * Builds results the same way {@link JmxResultProcessor} does.
+	 */
+	private static final class ResultsBuilder {
+		private final ImmutableList.Builder<Result> accumulator = ImmutableList.builder();
+		private final long epoch = System.currentTimeMillis();
+		private final Query query;
+		private final String className;
+		private final String objDomain;
+		private final String typeName;
+		@Nullable private final SeriesIds seriesIds;
+
+		private ResultsBuilder(Query query, ObjectName objectName, String className, @Nullable SeriesIds seriesIds) {
+			this.query = query;
+			this.className = className;
+			this.objDomain = objectName.getDomain();
+			this.typeName = objectName.getKeyPropertyListString();
+			this.seriesIds = seriesIds;
+		}
+
+		private void add(String attributeName, @Nullable Object value) {
+			if (value != null) {
+				addNew(attributeName, ImmutableList.<String>of(), value);
+			}
+		}
+
+		/** Memory usages are exposed as composite data, with one result per key. */
+		private void add(String attributeName, @Nullable MemoryUsage usage) {
+			if (usage == null) {
+				return;
+			}
+			for (String key : MEMORY_USAGE_KEYS) {
+				if (!query.getKeys().isEmpty() && !query.getKeys().contains(key)) {
+					continue;
+				}
+				addNew(attributeName, ImmutableList.of(key), memoryUsageValue(usage, key));
+			}
+		}
+
+		private static long memoryUsageValue(MemoryUsage usage, String key) {
+			switch (key) {
+				case "committed":
+					return usage.getCommitted();
+				case "init":
+					return usage.getInit();
+				case "max":
+					return usage.getMax();
+				case "used":
+					return usage.getUsed();
+				default:
+					throw new IllegalArgumentException("Unknown memory usage key " + key);
+			}
+		}
+
+		private void addNew(String attributeName, ImmutableList<String> valuePath, Object value) {
+			long seriesId = seriesIds == null ? 0 : seriesIds.idOf(objDomain, typeName, attributeName, valuePath);
+			accumulator.add(new Result(epoch, attributeName, className, objDomain, query.getResultAlias(), typeName, valuePath, value, seriesId));
+		}
+
+		private ImmutableList<Result> build() {
+			return accumulator.build();
+		}
+	}
+}
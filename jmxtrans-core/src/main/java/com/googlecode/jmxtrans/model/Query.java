@@ -31,6 +31,8 @@ import com.google.common.collect.ImmutableSet;
 import com.googlecode.jmxtrans.model.naming.typename.PrependingTypeNameValuesStringBuilder;
 import com.googlecode.jmxtrans.model.naming.typename.TypeNameValuesStringBuilder;
 import com.googlecode.jmxtrans.model.naming.typename.UseAllTypeNameValuesStringBuilder;
+import com.googlecode.jmxtrans.model.results.SeriesIds;
+import com.googlecode.jmxtrans.model.results.ValueTransformer;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
@@ -40,6 +42,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 import javax.annotation.concurrent.ThreadSafe;
 import javax.management.AttributeList;
@@ -72,7 +75,7 @@ import static java.util.Arrays.asList;
  * @author jon
  */
 @JsonInclude(JsonInclude.Include.NON_NULL)
-@JsonPropertyOrder(value = {"obj", "attr", "typeNames", "resultAlias", "keys", "allowDottedKeys", "useAllTypeNames", "outputWriters"})
+@JsonPropertyOrder(value = {"obj", "attr", "typeNames", "resultAlias", "keys", "allowDottedKeys", "useAllTypeNames", "valueTransformers", "counters", "outputWriters"})
 @ThreadSafe
 @EqualsAndHashCode(exclude = {"outputWriters", "outputWriterInstances"})
 @ToString(exclude = {"outputWriters", "typeNameValuesStringBuilder"})
@@ -114,12 +117,39 @@ public class Query {
 	@Getter private final boolean useObjDomainAsKey;
 	@Getter private final boolean allowDottedKeys;
 	@Getter private final boolean useAllTypeNames;
+
+	/**
+	 * Transformations applied, in order, to the values of all results of this
+	 * query before they are sent to output writers.
+	 */
+	@Nonnull @Getter private final ImmutableList<ValueTransformer> valueTransformers;
+
+	/**
+	 * Attributes of this query that are monotonically increasing counters.
+	 * Their per second rates are sent instead of their values.
+	 */
+	@Nonnull @Getter private final ImmutableSet<String> counters;
 	@Nonnull @Getter private final ImmutableList<OutputWriterFactory> outputWriters;
 	@Nonnull @Getter private final Iterable<OutputWriter> outputWriterInstances;
 	private final TypeNameValuesStringBuilder typeNameValuesStringBuilder;
 
-	@JsonCreator
 	public Query(
+			String obj,
+			List<String> keys,
+			List<String> attr,
+			List<String> typeNames,
+			String resultAlias,
+			boolean useObjDomainAsKey,
+			boolean allowDottedKeys,
+			boolean useAllTypeNames,
+			List<OutputWriterFactory> outputWriters
+	) {
+		this(obj, keys, attr, typeNames, resultAlias, useObjDomainAsKey, allowDottedKeys, useAllTypeNames,
+				ImmutableList.<ValueTransformer>of(), ImmutableList.<String>of(), outputWriters);
+	}
+
+	@JsonCreator
+	private Query(
 			@JsonProperty("obj") String obj,
 			@JsonProperty("keys") List<String> keys,
 			@JsonProperty("attr") List<String> attr,
@@ -128,12 +158,14 @@ public class Query {
 			@JsonProperty("useObjDomainAsKey") boolean useObjDomainAsKey,
 			@JsonProperty("allowDottedKeys") boolean allowDottedKeys,
 			@JsonProperty("useAllTypeNames") boolean useAllTypeNames,
+			@JsonProperty("valueTransformers") List<ValueTransformer> valueTransformers,
+			@JsonProperty("counters") List<String> counters,
 			@JsonProperty("outputWriters") List<OutputWriterFactory> outputWriters
 	) {
 		// For typeName, note the using copyOf does not change the order of
 		// the elements.
 		this(obj, keys, attr, ImmutableSet.copyOf(firstNonNull(typeNames, Collections.<String>emptySet())), resultAlias, useObjDomainAsKey, allowDottedKeys, useAllTypeNames,
-				outputWriters, ImmutableList.<OutputWriter>of());
+				valueTransformers, counters, outputWriters, ImmutableList.<OutputWriter>of());
 	}
 
 	public Query(
@@ -148,7 +180,7 @@ public class Query {
 			List<OutputWriterFactory> outputWriters
 	) {
 		this(obj, keys, attr, typeNames, resultAlias, useObjDomainAsKey, allowDottedKeys, useAllTypeNames,
-				outputWriters, ImmutableList.<OutputWriter>of());
+				ImmutableList.<ValueTransformer>of(), ImmutableList.<String>of(), outputWriters, ImmutableList.<OutputWriter>of());
 	}
 
 	public Query(
@@ -163,7 +195,7 @@ public class Query {
 			ImmutableList<OutputWriter> outputWriters
 	) {
 		this(obj, keys, attr, typeNames, resultAlias, useObjDomainAsKey, allowDottedKeys, useAllTypeNames,
-				ImmutableList.<OutputWriterFactory>of(), outputWriters);
+				ImmutableList.<ValueTransformer>of(), ImmutableList.<String>of(), ImmutableList.<OutputWriterFactory>of(), outputWriters);
 	}
 
 	private Query(
@@ -175,6 +207,8 @@ public class Query {
 			boolean useObjDomainAsKey,
 			boolean allowDottedKeys,
 			boolean useAllTypeNames,
+			List<ValueTransformer> valueTransformers,
+			Collection<String> counters,
 			List<OutputWriterFactory> outputWriterFactories,
 			List<OutputWriter> outputWriters
 	) {
@@ -189,6 +223,8 @@ public class Query {
 		this.keys = copyOf(firstNonNull(keys, Collections.<String>emptyList()));
 		this.allowDottedKeys = allowDottedKeys;
 		this.useAllTypeNames = useAllTypeNames;
+		this.valueTransformers = copyOf(firstNonNull(valueTransformers, ImmutableList.<ValueTransformer>of()));
+		this.counters = ImmutableSet.copyOf(firstNonNull(counters, Collections.<String>emptySet()));
 		this.outputWriters = copyOf(firstNonNull(outputWriterFactories, ImmutableList.<OutputWriterFactory>of()));
 		// We need to preserve the order of typeNames. So note that copyOf
 		// does not mess with the order.
@@ -208,6 +244,13 @@ public class Query {
 	}
 
 	public Iterable<Result> fetchResults(MBeanServerConnection mbeanServer, ObjectName queryName) throws InstanceNotFoundException, IntrospectionException, ReflectionException, IOException {
+		return fetchResults(mbeanServer, queryName, null);
+	}
+
+	/**
+	 * @param seriesIds assigns their series id to the results, none is assigned when null.
+	 */
+	public Iterable<Result> fetchResults(MBeanServerConnection mbeanServer, ObjectName queryName, @Nullable SeriesIds seriesIds) throws InstanceNotFoundException, IntrospectionException, ReflectionException, IOException {
 		ObjectInstance oi = mbeanServer.getObjectInstance(queryName);
 
 		List<String> attributes;
@@ -227,7 +270,7 @@ public class Query {
 
 				AttributeList al = mbeanServer.getAttributes(queryName, attributes.toArray(new String[attributes.size()]));
 
-				return new JmxResultProcessor(this, oi, al.asList(), oi.getClassName(), queryName.getDomain()).getResults();
+				return new JmxResultProcessor(this, oi, al.asList(), oi.getClassName(), queryName.getDomain(), seriesIds).getResults();
 			}
 		} catch (UnmarshalException ue) {
 			if ((ue.getCause() != null) && (ue.getCause() instanceof ClassNotFoundException)) {
@@ -277,6 +320,8 @@ public class Query {
 		@Setter private boolean useObjDomainAsKey;
 		@Setter private boolean allowDottedKeys;
 		@Setter private boolean useAllTypeNames;
+		private final List<ValueTransformer> valueTransformers = newArrayList();
+		private final Set<String> counters = newLinkedHashSet();
 		private final List<OutputWriterFactory> outputWriterFactories = newArrayList();
 		private final List<OutputWriter> outputWriters = newArrayList();
 		// We need to pick an order preserving Set implementation here to
@@ -295,6 +340,8 @@ public class Query {
 			this.allowDottedKeys = query.allowDottedKeys;
 			this.useAllTypeNames = query.useAllTypeNames;
 			this.typeNames.addAll(query.typeNames);
+			this.valueTransformers.addAll(query.valueTransformers);
+			this.counters.addAll(query.counters);
 		}
 
 		public Builder addAttr(String... attr) {
@@ -311,6 +358,16 @@ public class Query {
 			return this;
 		}
 
+		public Builder addValueTransformers(ValueTransformer... valueTransformers) {
+			this.valueTransformers.addAll(asList(valueTransformers));
+			return this;
+		}
+
+		public Builder addCounters(String... counters) {
+			this.counters.addAll(asList(counters));
+			return this;
+		}
+
 		public Builder addOutputWriterFactory(OutputWriterFactory outputWriterFactory) {
 			return addOutputWriterFactories(outputWriterFactory);
 		}
@@ -341,7 +398,10 @@ public class Query {
 						this.useObjDomainAsKey,
 						this.allowDottedKeys,
 						this.useAllTypeNames,
-						this.outputWriterFactories
+						this.valueTransformers,
+						this.counters,
+						this.outputWriterFactories,
+						ImmutableList.<OutputWriter>of()
 				);
 			}
 			return new Query(
@@ -353,7 +413,10 @@ public class Query {
 					this.useObjDomainAsKey,
 					this.allowDottedKeys,
 					this.useAllTypeNames,
-					copyOf(this.outputWriters)
+					this.valueTransformers,
+					this.counters,
+					ImmutableList.<OutputWriterFactory>of(),
+					this.outputWriters
 			);
 		}
 
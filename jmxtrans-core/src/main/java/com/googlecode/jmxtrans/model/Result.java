@@ -22,6 +22,7 @@
  */
 package com.googlecode.jmxtrans.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.google.common.collect.ImmutableList;
 import com.googlecode.jmxtrans.model.naming.typename.TypeNameValue;
@@ -42,7 +43,7 @@ import java.util.Map;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 @ThreadSafe
 @Immutable
-@EqualsAndHashCode
+@EqualsAndHashCode(exclude = "seriesId")
 @ToString
 public class Result {
 	@Getter private final String attributeName;
@@ -54,10 +55,22 @@ public class Result {
 	@Getter private final long epoch;
 	/** Specified as part of the query. */
 	@Getter private final String keyAlias;
+	/**
+	 * Identifies the series of this result, assigned by
+	 * {@link com.googlecode.jmxtrans.model.results.SeriesRegistry}. 0 when
+	 * not assigned yet.
+	 */
+	@JsonIgnore @Getter private final long seriesId;
 
 	public Result(
 			long epoch, String attributeName, String className, String objDomain, String keyAlias, String typeName,
 			@Nonnull ImmutableList<String> valuePath, Object value) {
+		this(epoch, attributeName, className, objDomain, keyAlias, typeName, valuePath, value, 0);
+	}
+
+	public Result(
+			long epoch, String attributeName, String className, String objDomain, String keyAlias, String typeName,
+			@Nonnull ImmutableList<String> valuePath, Object value, long seriesId) {
 		this.className = className;
 		this.objDomain = objDomain;
 		this.typeName = typeName;
@@ -66,10 +79,26 @@ public class Result {
 		this.epoch = epoch;
 		this.attributeName = attributeName;
 		this.keyAlias = keyAlias;
+		this.seriesId = seriesId;
+	}
+
+	/**
+	 * @return a result of the same series, with another value.
+	 */
+	@Nonnull
+	public Result withValue(Object value) {
+		return new Result(epoch, attributeName, className, objDomain, keyAlias, typeName, valuePath, value, seriesId);
+	}
+
+	@Nonnull
+	public Result withSeriesId(long seriesId) {
+		return new Result(epoch, attributeName, className, objDomain, keyAlias, typeName, valuePath, value, seriesId);
 	}
 
 	/**
 	 * Get typeName split into a Map
+	 *
+	 * @return an unmodifiable map, see {@link TypeNameValue#extractMap(String)}.
      */
 	public Map<String, String> getTypeNameMap() {
 		return TypeNameValue.extractMap(this.typeName);
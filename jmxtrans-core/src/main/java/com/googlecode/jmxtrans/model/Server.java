@@ -34,7 +34,8 @@ import com.google.common.collect.ImmutableSet;
 import com.google.inject.name.Named;
 import com.googlecode.jmxtrans.connections.JMXConnection;
 import com.googlecode.jmxtrans.connections.JmxConnectionProvider;
-import com.sun.tools.attach.VirtualMachine;
+import com.googlecode.jmxtrans.connections.LocalConnectorAddressCache;
+import com.googlecode.jmxtrans.model.results.SeriesIds;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
@@ -55,7 +56,6 @@ import javax.management.ObjectName;
 import javax.management.remote.JMXConnector;
 import javax.management.remote.JMXConnectorFactory;
 import javax.management.remote.JMXServiceURL;
-import java.io.File;
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.net.InetAddress;
@@ -64,6 +64,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
 
 import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -86,6 +89,7 @@ import static javax.naming.Context.SECURITY_PRINCIPAL;
 		"alias",
 		"local",
 		"pid",
+		"mainClassPattern",
 		"host",
 		"port",
 		"username",
@@ -95,17 +99,19 @@ import static javax.naming.Context.SECURITY_PRINCIPAL;
 })
 @Immutable
 @ThreadSafe
-@EqualsAndHashCode(exclude = {"queries", "pool", "outputWriters", "outputWriterFactories"})
-@ToString(of = {"pid", "host", "port", "url", "cronExpression"})
+@EqualsAndHashCode(exclude = {"queries", "pool", "outputWriters", "outputWriterFactories", "mainClass", "seriesIds"})
+@ToString(of = {"pid", "mainClassPattern", "host", "port", "url", "cronExpression"})
 public class Server implements JmxConnectionProvider {
 
-	private static final String CONNECTOR_ADDRESS = "com.sun.management.jmxremote.localConnectorAddress";
 	private static final String FRONT = "service:jmx:rmi:///jndi/rmi://";
 	private static final String BACK = "/jmxrmi";
 	private static final int DEFAULT_SOCKET_SO_TIMEOUT_MILLIS = 10000;
 
 	private static final Logger logger = LoggerFactory.getLogger(Server.class);
 
+	/** Fast path for the platform MXBeans of local servers. */
+	private static final PlatformMXBeanCollector platformMXBeanCollector = new PlatformMXBeanCollector();
+
 	/** Returns id for internal logic */
 	@Getter private final String id;
 
@@ -117,6 +123,14 @@ public class Server implements JmxConnectionProvider {
 
 	/** Returns the pid of the local process jmxtrans will attach to. */
 	@Getter private final String pid;
+	/**
+	 * Regular expression used to find the local process jmxtrans will attach
+	 * to, matched against the main class (or jar) and arguments of the local
+	 * JVMs. The pid is looked up again once the process it was found for is
+	 * gone, so the process can be restarted without reloading the configuration.
+	 */
+	@Getter private final String mainClassPattern;
+	@Nullable private final Pattern mainClass;
 	private final String host;
 	private final String port;
 	@Getter private final String username;
@@ -162,27 +176,28 @@ public class Server implements JmxConnectionProvider {
 	@Nonnull private final KeyedObjectPool<JmxConnectionProvider, JMXConnection> pool;
 	@Nonnull @Getter private final ImmutableList<OutputWriterFactory> outputWriterFactories;
 
-	@JsonCreator
+	/** Series ids of the results of each query, assigned when results are built. */
+	@Nonnull private final ConcurrentMap<Query, SeriesIds> seriesIds = new ConcurrentHashMap<>();
+
 	public Server(
-			@JsonProperty("alias") String alias,
-			@JsonProperty("pid") String pid,
-			@JsonProperty("host") String host,
-			@JsonProperty("port") String port,
-			@JsonProperty("username") String username,
-			@JsonProperty("password") String password,
-			@JsonProperty("protocolProviderPackages") String protocolProviderPackages,
-			@JsonProperty("url") String url,
-			@JsonProperty("cronExpression") String cronExpression,
-			@JsonProperty("runPeriodSeconds") Integer runPeriodSeconds,
-			@JsonProperty("local") boolean local,
-			@JsonProperty("ssl") boolean ssl,
-			@JsonProperty("queries") List<Query> queries,
-			@JsonProperty("outputWriters") List<OutputWriterFactory> outputWriters,
-			@JacksonInject @Named("mbeanPool") KeyedObjectPool<JmxConnectionProvider, JMXConnection> pool) {
+			String alias,
+			String pid,
+			String host,
+			String port,
+			String username,
+			String password,
+			String protocolProviderPackages,
+			String url,
+			String cronExpression,
+			Integer runPeriodSeconds,
+			boolean local,
+			boolean ssl,
+			List<Query> queries,
+			List<OutputWriterFactory> outputWriters,
+			KeyedObjectPool<JmxConnectionProvider, JMXConnection> pool) {
 
-		this(alias, pid, host, port, username, password, protocolProviderPackages, url, cronExpression,
-				runPeriodSeconds, local, ssl, queries, outputWriters, ImmutableList.<OutputWriter>of(),
-				pool);
+		this(alias, pid, null, host, port, username, password, protocolProviderPackages, url, cronExpression,
+				runPeriodSeconds, local, ssl, queries, outputWriters, pool);
 	}
 
 	public Server(
@@ -202,14 +217,39 @@ public class Server implements JmxConnectionProvider {
 			ImmutableList<OutputWriter> outputWriters,
 			KeyedObjectPool<JmxConnectionProvider, JMXConnection> pool) {
 
-		this(alias, pid, host, port, username, password, protocolProviderPackages, url, cronExpression,
+		this(alias, pid, null, host, port, username, password, protocolProviderPackages, url, cronExpression,
 				runPeriodSeconds, local, ssl, queries, ImmutableList.<OutputWriterFactory>of(),
 				outputWriters, pool);
 	}
 
+	@JsonCreator
+	private Server(
+			@JsonProperty("alias") String alias,
+			@JsonProperty("pid") String pid,
+			@JsonProperty("mainClassPattern") String mainClassPattern,
+			@JsonProperty("host") String host,
+			@JsonProperty("port") String port,
+			@JsonProperty("username") String username,
+			@JsonProperty("password") String password,
+			@JsonProperty("protocolProviderPackages") String protocolProviderPackages,
+			@JsonProperty("url") String url,
+			@JsonProperty("cronExpression") String cronExpression,
+			@JsonProperty("runPeriodSeconds") Integer runPeriodSeconds,
+			@JsonProperty("local") boolean local,
+			@JsonProperty("ssl") boolean ssl,
+			@JsonProperty("queries") List<Query> queries,
+			@JsonProperty("outputWriters") List<OutputWriterFactory> outputWriters,
+			@JacksonInject @Named("mbeanPool") KeyedObjectPool<JmxConnectionProvider, JMXConnection> pool) {
+
+		this(alias, pid, mainClassPattern, host, port, username, password, protocolProviderPackages, url, cronExpression,
+				runPeriodSeconds, local, ssl, queries, outputWriters, ImmutableList.<OutputWriter>of(),
+				pool);
+	}
+
 	private Server(
 			String alias,
 			String pid,
+			String mainClassPattern,
 			String host,
 			String port,
 			String username,
@@ -225,13 +265,18 @@ public class Server implements JmxConnectionProvider {
 			List<OutputWriter> outputWriters,
 			KeyedObjectPool<JmxConnectionProvider, JMXConnection> pool) {
 
-		checkArgument(pid != null || url != null || host != null,
-				"You must provide the pid or the [url|host and port]");
-		checkArgument(!(pid != null && (url != null || host != null)),
+		checkArgument(pid != null || mainClassPattern != null || url != null || host != null,
+				"You must provide the pid, the mainClassPattern or the [url|host and port]");
+		checkArgument(!(pid != null && mainClassPattern != null),
+				"You must provide the pid OR the mainClassPattern, not both");
+		checkArgument(!((pid != null || mainClassPattern != null) && (url != null || host != null)),
 				"You must provide the pid OR the url, not both");
 
 		this.alias = alias;
 		this.pid = pid;
+		this.mainClassPattern = mainClassPattern;
+		// compiled once, invalid regular expressions fail early
+		this.mainClass = mainClassPattern == null ? null : Pattern.compile(mainClassPattern);
 		this.port = port;
 		this.username = username;
 		this.password = password;
@@ -248,7 +293,7 @@ public class Server implements JmxConnectionProvider {
 		this.queries = copyOf(queries);
 
 		// when connecting in local, we cache the host after retrieving it from the network card
-		if(pid != null) {
+		if(pid != null || mainClassPattern != null) {
 			try {
 				this.host = InetAddress.getLocalHost().getHostName();
 			} catch (UnknownHostException e) {
@@ -262,7 +307,7 @@ public class Server implements JmxConnectionProvider {
 		this.pool = checkNotNull(pool);
 		this.outputWriterFactories = ImmutableList.copyOf(firstNonNull(outputWriterFactories, ImmutableList.<OutputWriterFactory>of()));
 		this.outputWriters = ImmutableList.copyOf(firstNonNull(outputWriters, ImmutableList.<OutputWriter>of()));
-		this.id = String.format("%s_%s_%s", host, port, pid);
+		this.id = String.format("%s_%s_%s", host, port, firstNonNull(pid, String.valueOf(mainClassPattern)));
 	}
 
 	public Collection<Result> execute(Query query) throws Exception {
@@ -271,9 +316,19 @@ public class Server implements JmxConnectionProvider {
 			jmxConnection = pool.borrowObject(this);
 			ImmutableList.Builder<Result> results = ImmutableList.builder();
 			MBeanServerConnection connection = jmxConnection.getMBeanServerConnection();
+			// only looked up once the query matched MBeans
+			SeriesIds querySeriesIds = null;
 
 			for (ObjectName queryName : query.queryNames(connection)) {
-				results.addAll(query.fetchResults(connection, queryName));
+				if (querySeriesIds == null) querySeriesIds = seriesIds(query);
+				ImmutableList<Result> platformResults = local
+						? platformMXBeanCollector.fetchResults(connection, query, queryName, querySeriesIds)
+						: null;
+				if (platformResults != null) {
+					results.addAll(platformResults);
+				} else {
+					results.addAll(query.fetchResults(connection, queryName, querySeriesIds));
+				}
 			}
 
 			return results.build();
@@ -291,6 +346,31 @@ public class Server implements JmxConnectionProvider {
 		}
 	}
 
+	@Nonnull
+	private SeriesIds seriesIds(@Nonnull Query query) {
+		SeriesIds ids = seriesIds.get(query);
+		if (ids == null) {
+			ids = seriesIds.computeIfAbsent(query, q -> new SeriesIds(this, q));
+		}
+		return ids;
+	}
+
+	/**
+	 * Establishes a connection to this server if none is idle in the pool, so
+	 * that the first query does not have to pay for it. Connections kept in the
+	 * pool (for example across a configuration reload) are reused.
+	 *
+	 * @return true if a new connection has been established.
+	 */
+	public boolean warmUpConnection() throws Exception {
+		if (pool.getNumIdle(this) > 0) {
+			return false;
+		}
+		JMXConnection jmxConnection = pool.borrowObject(this);
+		pool.returnObject(this, jmxConnection);
+		return true;
+	}
+
 	/**
 	 * Generates the proper username/password environment for JMX connections.
 	 */
@@ -336,7 +416,15 @@ public class Server implements JmxConnectionProvider {
 	@JsonIgnore
 	public JMXConnector getServerConnection() throws IOException {
 		JMXServiceURL url = getJmxServiceURL();
-		return JMXConnectorFactory.connect(url, this.getEnvironment());
+		try {
+			return JMXConnectorFactory.connect(url, this.getEnvironment());
+		} catch (IOException e) {
+			if (pid != null || mainClassPattern != null) {
+				// the local process might have been restarted, resolve its address again on next connection
+				JMXServiceURLFactory.invalidate(url);
+			}
+			throw e;
+		}
 	}
 
 	@Override
@@ -418,6 +506,9 @@ public class Server implements JmxConnectionProvider {
 		if(this.pid != null) {
 			return JMXServiceURLFactory.extractJMXServiceURLFromPid(this.pid);
 		}
+		if(this.mainClass != null) {
+			return JMXServiceURLFactory.extractJMXServiceURLFromMainClass(this.mainClass);
+		}
 		return new JMXServiceURL(getUrl());
 	}
 
@@ -431,35 +522,26 @@ public class Server implements JmxConnectionProvider {
 	/**
 	 * Factory to create a JMXServiceURL from a pid. Inner class to prevent class
 	 * loader issues when tools.jar isn't present.
+	 * <p/>
+	 * Resolved addresses are cached per pid, as attaching to a process is
+	 * expensive and would otherwise be done on each new connection.
 	 */
 	private static class JMXServiceURLFactory {
 
+		private static final LocalConnectorAddressCache addresses = new LocalConnectorAddressCache();
+
 		private JMXServiceURLFactory() {}
 
 		public static JMXServiceURL extractJMXServiceURLFromPid(String pid) throws IOException {
+			return addresses.getJMXServiceURL(pid);
+		}
 
-			try {
-				VirtualMachine vm = VirtualMachine.attach(pid);
-
-				try {
-					String connectorAddress = vm.getAgentProperties().getProperty(CONNECTOR_ADDRESS);
-
-					if (connectorAddress == null) {
-						String agent = vm.getSystemProperties().getProperty("java.home") +
-								File.separator + "lib" + File.separator + "management-agent.jar";
-						vm.loadAgent(agent);
-
-						connectorAddress = vm.getAgentProperties().getProperty(CONNECTOR_ADDRESS);
-					}
+		public static JMXServiceURL extractJMXServiceURLFromMainClass(Pattern mainClass) throws IOException {
+			return addresses.getJMXServiceURL(mainClass);
+		}
 
-					return new JMXServiceURL(connectorAddress);
-				} finally {
-					vm.detach();
-				}
-			}
-			catch(Exception e) {
-				throw new IOException(e);
-			}
+		public static void invalidate(JMXServiceURL url) {
+			addresses.invalidate(url);
 		}
 
 	}
@@ -477,6 +559,7 @@ public class Server implements JmxConnectionProvider {
 	public static final class Builder {
 		@Setter private String alias;
 		@Setter private String pid;
+		@Setter private String mainClassPattern;
 		@Setter private String host;
 		@Setter private String port;
 		@Setter private String username;
@@ -497,7 +580,9 @@ public class Server implements JmxConnectionProvider {
 		private Builder(Server server) {
 			this.alias = server.alias;
 			this.pid = server.pid;
-			this.host = server.pid != null ? null : server.host; // let the host be deduced in the constructor
+			this.mainClassPattern = server.mainClassPattern;
+			// let the host be deduced in the constructor
+			this.host = server.pid != null || server.mainClassPattern != null ? null : server.host;
 			this.port = server.port;
 			this.username = server.username;
 			this.password = server.password;
@@ -547,6 +632,7 @@ public class Server implements JmxConnectionProvider {
 				return new Server(
 						alias,
 						pid,
+						mainClassPattern,
 						host,
 						port,
 						username,
@@ -559,11 +645,13 @@ public class Server implements JmxConnectionProvider {
 						ssl,
 						queries,
 						outputWriterFactories,
+						ImmutableList.<OutputWriter>of(),
 						pool);
 			}
 			return new Server(
 					alias,
 					pid,
+					mainClassPattern,
 					host,
 					port,
 					username,
@@ -575,6 +663,7 @@ public class Server implements JmxConnectionProvider {
 					local,
 					ssl,
 					queries,
+					ImmutableList.<OutputWriterFactory>of(),
 					ImmutableList.copyOf(outputWriters),
 					pool);
 
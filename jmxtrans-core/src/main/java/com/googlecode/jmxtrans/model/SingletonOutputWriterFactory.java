@@ -36,8 +36,16 @@ public class SingletonOutputWriterFactory<T extends OutputWriter> implements Out
 	@Nonnull private final OutputWriterFactory<T> outputWriterFactory;
 
 	public SingletonOutputWriterFactory(@Nonnull OutputWriterFactory<T> outputWriterFactory) {
+		this(outputWriterFactory, outputWriterFactory.create());
+	}
+
+	/**
+	 * Wraps an output writer previously created by this factory, so that it can
+	 * be reused (for example across a configuration reload).
+	 */
+	public SingletonOutputWriterFactory(@Nonnull OutputWriterFactory<T> outputWriterFactory, @Nonnull T outputWriter) {
 		this.outputWriterFactory = outputWriterFactory;
-		outputWriter = outputWriterFactory.create();
+		this.outputWriter = outputWriter;
 	}
 
 	@Override
@@ -0,0 +1,165 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.naming;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.util.Arrays;
+
+/**
+ * Removes or replaces characters of a string in a single pass, deciding what
+ * to do with each character through a lookup table.
+ * <p/>
+ * Strings needing no change are returned as is, without any allocation. This
+ * replaces chains of regular expressions on the hot path of output writers.
+ */
+@Immutable
+public final class CharSanitizer {
+
+	public static final String LETTERS_AND_DIGITS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+	private static final int TABLE_SIZE = 128;
+
+	private static final byte KEEP = 0;
+	private static final byte DROP = 1;
+	private static final byte REPLACE = 2;
+
+	/** Action for each ASCII character. */
+	@Nonnull private final byte[] actions;
+	/** Action for characters out of the ASCII range. */
+	private final byte otherAction;
+	@Nonnull private final char[] replacement;
+
+	private CharSanitizer(@Nonnull byte[] actions, byte otherAction, @Nonnull String replacement) {
+		this.actions = actions;
+		this.otherAction = otherAction;
+		this.replacement = replacement.toCharArray();
+	}
+
+	@Nullable
+	public String sanitize(@Nullable String input) {
+		if (input == null) {
+			return null;
+		}
+		int length = input.length();
+		int start = 0;
+		while (start < length && action(input.charAt(start)) == KEEP) {
+			start++;
+		}
+		if (start == length) {
+			return input;
+		}
+
+		char[] output = new char[length * Math.max(1, replacement.length)];
+		input.getChars(0, start, output, 0);
+		int position = start;
+		for (int i = start; i < length; i++) {
+			char c = input.charAt(i);
+			switch (action(c)) {
+				case KEEP:
+					output[position++] = c;
+					break;
+				case REPLACE:
+					System.arraycopy(replacement, 0, output, position, replacement.length);
+					position += replacement.length;
+					// a surrogate pair is a single character
+					if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(input.charAt(i + 1))) {
+						i++;
+					}
+					break;
+				default:
+					break;
+			}
+		}
+		return new String(output, 0, position);
+	}
+
+	private byte action(char c) {
+		return c < TABLE_SIZE ? actions[c] : otherAction;
+	}
+
+	@Nonnull
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	@NotThreadSafe
+	public static final class Builder {
+		private final byte[] actions = new byte[TABLE_SIZE];
+		private final boolean[] configured = new boolean[TABLE_SIZE];
+		private byte defaultAction = KEEP;
+		private String replacement = "_";
+
+		private Builder() {}
+
+		/** Keeps the given characters, whatever the default action is. */
+		public Builder keep(@Nonnull String chars) {
+			return set(chars, KEEP);
+		}
+
+		/** Removes the given characters. */
+		public Builder drop(@Nonnull String chars) {
+			return set(chars, DROP);
+		}
+
+		/** Replaces the given characters by the replacement. */
+		public Builder replace(@Nonnull String chars) {
+			return set(chars, REPLACE);
+		}
+
+		/** Replaces all characters not explicitly kept or dropped, including non ASCII ones. */
+		public Builder replaceOthers() {
+			defaultAction = REPLACE;
+			return this;
+		}
+
+		public Builder replacement(@Nonnull String replacement) {
+			this.replacement = replacement;
+			return this;
+		}
+
+		private Builder set(String chars, byte action) {
+			for (int i = 0; i < chars.length(); i++) {
+				char c = chars.charAt(i);
+				if (c >= TABLE_SIZE) {
+					throw new IllegalArgumentException("Only ASCII characters can be configured, got " + c);
+				}
+				actions[c] = action;
+				configured[c] = true;
+			}
+			return this;
+		}
+
+		public CharSanitizer build() {
+			byte[] result = Arrays.copyOf(actions, TABLE_SIZE);
+			for (int c = 0; c < TABLE_SIZE; c++) {
+				if (!configured[c]) {
+					result[c] = defaultAction;
+				}
+			}
+			return new CharSanitizer(result, defaultAction, replacement);
+		}
+	}
+}
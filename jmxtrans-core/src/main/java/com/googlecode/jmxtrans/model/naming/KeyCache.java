@@ -0,0 +1,125 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.naming;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.googlecode.jmxtrans.model.Query;
+import com.googlecode.jmxtrans.model.Result;
+import com.googlecode.jmxtrans.model.Server;
+import lombok.EqualsAndHashCode;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of the keys computed by {@link KeyUtils}.
+ * <p/>
+ * Results of the same attributes come back at each run with the same names,
+ * computing their keys (cleaning up class names, type names and attribute
+ * names) is done only once for each of them. Entries are keyed by all the
+ * server, query, writer and result properties used to build the key, and
+ * evicted when the cache is full or when they were not used for a while.
+ */
+@ThreadSafe
+public class KeyCache {
+
+	@Nonnull private final Cache<Key, String> keys;
+
+	public KeyCache(long maximumSize, long expireAfterAccess, @Nonnull TimeUnit unit) {
+		this.keys = CacheBuilder.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterAccess(expireAfterAccess, unit)
+				.recordStats()
+				.build();
+	}
+
+	@Nullable
+	String get(@Nonnull Key key) {
+		return keys.getIfPresent(key);
+	}
+
+	void put(@Nonnull Key key, @Nonnull String value) {
+		keys.put(key, value);
+	}
+
+	public long size() {
+		return keys.size();
+	}
+
+	@Nonnull
+	public CacheStats stats() {
+		return keys.stats();
+	}
+
+	public void invalidateAll() {
+		keys.invalidateAll();
+	}
+
+	@Immutable
+	@EqualsAndHashCode
+	static final class Key {
+		private final boolean withServer;
+		@Nullable private final String alias;
+		@Nullable private final String host;
+		@Nullable private final String port;
+		@Nullable private final String rootPrefix;
+		@Nullable private final List<String> typeNames;
+		@Nonnull private final ImmutableSet<String> queryTypeNames;
+		private final boolean allowDottedKeys;
+		private final boolean useAllTypeNames;
+		private final boolean useObjDomainAsKey;
+		@Nullable private final String keyAlias;
+		@Nullable private final String objDomain;
+		@Nullable private final String className;
+		@Nullable private final String typeName;
+		@Nullable private final String attributeName;
+		@Nonnull private final ImmutableList<String> valuePath;
+
+		Key(@Nullable Server server, @Nonnull Query query, @Nonnull Result result, @Nullable List<String> typeNames, @Nullable String rootPrefix) {
+			this.withServer = server != null;
+			this.alias = server == null ? null : server.getAlias();
+			this.host = server == null ? null : server.getHost();
+			this.port = server == null ? null : server.getPort();
+			this.rootPrefix = rootPrefix;
+			this.typeNames = typeNames;
+			this.queryTypeNames = query.getTypeNames();
+			this.allowDottedKeys = query.isAllowDottedKeys();
+			this.useAllTypeNames = query.isUseAllTypeNames();
+			this.useObjDomainAsKey = query.isUseObjDomainAsKey();
+			this.keyAlias = result.getKeyAlias();
+			this.objDomain = result.getObjDomain();
+			this.className = result.getClassName();
+			this.typeName = result.getTypeName();
+			this.attributeName = result.getAttributeName();
+			this.valuePath = result.getValuePath();
+		}
+	}
+}
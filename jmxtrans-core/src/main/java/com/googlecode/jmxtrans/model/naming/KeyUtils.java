@@ -29,9 +29,21 @@ import com.googlecode.jmxtrans.model.Server;
 
 import java.util.List;
 
+import static java.util.concurrent.TimeUnit.HOURS;
+
 public final class KeyUtils {
 
+	private static final KeyCache KEY_CACHE = new KeyCache(100_000, 1, HOURS);
+
 	private KeyUtils() {}
+
+	/**
+	 * @return the cache of keys returned by {@link #getKeyString}.
+	 */
+	public static KeyCache getKeyCache() {
+		return KEY_CACHE;
+	}
+
 	/**
 	 * Gets the key string.
 	 *
@@ -44,6 +56,16 @@ public final class KeyUtils {
 	 * @return the key string
 	 */
 	public static String getKeyString(Server server, Query query, Result result, List<String> typeNames, String rootPrefix) {
+		KeyCache.Key cacheKey = new KeyCache.Key(server, query, result, typeNames, rootPrefix);
+		String key = KEY_CACHE.get(cacheKey);
+		if (key == null) {
+			key = buildKeyString(server, query, result, typeNames, rootPrefix);
+			KEY_CACHE.put(cacheKey, key);
+		}
+		return key;
+	}
+
+	private static String buildKeyString(Server server, Query query, Result result, List<String> typeNames, String rootPrefix) {
 		StringBuilder sb = new StringBuilder();
 		addRootPrefix(rootPrefix, sb);
 		addAlias(server, sb);
@@ -64,6 +86,16 @@ public final class KeyUtils {
 	 * @return the key string
 	 */
 	public static String getKeyString(Query query, Result result, List<String> typeNames) {
+		KeyCache.Key cacheKey = new KeyCache.Key(null, query, result, typeNames, null);
+		String key = KEY_CACHE.get(cacheKey);
+		if (key == null) {
+			key = buildKeyString(query, result, typeNames);
+			KEY_CACHE.put(cacheKey, key);
+		}
+		return key;
+	}
+
+	private static String buildKeyString(Query query, Result result, List<String> typeNames) {
 		StringBuilder sb = new StringBuilder();
 		addMBeanIdentifier(query, result, sb);
 		addSeparator(sb);
@@ -22,12 +22,16 @@
  */
 package com.googlecode.jmxtrans.model.naming;
 
-import java.util.regex.Pattern;
-
 public final class StringUtils {
-	private static final Pattern DOT_SLASH_UNDERSCORE_PAT = Pattern.compile("[./]");
-	private static final Pattern SLASH_UNDERSCORE_PAT = Pattern.compile("/", Pattern.LITERAL);
-	private static final Pattern SPACE_PAT = Pattern.compile("[ \"']+");
+	private static final String SPACES_AND_QUOTES = " \"'";
+	private static final CharSanitizer DOT_SLASH_SANITIZER = CharSanitizer.builder()
+			.replace("./")
+			.drop(SPACES_AND_QUOTES)
+			.build();
+	private static final CharSanitizer SLASH_SANITIZER = CharSanitizer.builder()
+			.replace("/")
+			.drop(SPACES_AND_QUOTES)
+			.build();
 
 	private StringUtils() {}
 
@@ -48,16 +52,21 @@ public final class StringUtils {
 		if (name == null) {
 			return null;
 		}
-		Pattern pattern;
-		if (!allowDottedKeys) {
-			pattern = DOT_SLASH_UNDERSCORE_PAT;
-		} else {
-			pattern = SLASH_UNDERSCORE_PAT;
-		}
-		String clean = pattern.matcher(name).replaceAll("_");
-		clean = SPACE_PAT.matcher(clean).replaceAll("");
-		clean = org.apache.commons.lang.StringUtils.chomp(clean, ".");
-		clean = org.apache.commons.lang.StringUtils.chomp(clean, "_");
+		CharSanitizer sanitizer = allowDottedKeys ? SLASH_SANITIZER : DOT_SLASH_SANITIZER;
+		String clean = sanitizer.sanitize(name);
+		clean = chomp(clean, '.');
+		clean = chomp(clean, '_');
 		return clean;
 	}
+
+	/**
+	 * Removes one trailing occurrence of the separator.
+	 */
+	private static String chomp(String s, char separator) {
+		int length = s.length();
+		if (length > 0 && s.charAt(length - 1) == separator) {
+			return s.substring(0, length - 1);
+		}
+		return s;
+	}
 }
@@ -0,0 +1,203 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.naming;
+
+import com.google.common.collect.ImmutableList;
+import com.googlecode.jmxtrans.model.NamingStrategy;
+import com.googlecode.jmxtrans.model.Result;
+import com.googlecode.jmxtrans.model.naming.typename.TypeNameValue;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Map;
+
+/**
+ * Naming strategy formatting names from a template such as
+ * <code>{alias}.{typename.name}.{attribute}</code>.
+ * <p/>
+ * The template is compiled once into a list of literals and fields, names are
+ * then rendered without any interpretation. It supports the variables of
+ * {@link JexlNamingStrategy}, as fields between braces:
+ * <dl>
+ * <dt>{alias}</dt>
+ * <dd>the classname alias of the MBean.</dd>
+ * <dt>{attribute}</dt>
+ * <dd>the name of the attribute of the MBean queried.</dd>
+ * <dt>{class}</dt>
+ * <dd>the effective classname of the MBean (uses {alias} if not null, otherwise uses {realclass}).</dd>
+ * <dt>{realclass}</dt>
+ * <dd>the class name of the MBean.</dd>
+ * <dt>{typename.<i>key</i>}</dt>
+ * <dd>the value of <i>key</i> in the type name of the MBean.</dd>
+ * </dl>
+ * Missing values are rendered as empty strings.
+ */
+@ThreadSafe
+@EqualsAndHashCode(of = "template")
+@ToString(of = "template")
+public class TemplateNamingStrategy implements NamingStrategy {
+
+	private static final String TYPENAME_PREFIX = JexlNamingStrategy.VAR_TYPENAME + ".";
+
+	@Nonnull @Getter private final String template;
+	@Nonnull private final ImmutableList<Part> parts;
+	private final boolean usesTypeName;
+
+	private final ThreadLocal<StringBuilder> buffers = new ThreadLocal<StringBuilder>() {
+		@Override
+		protected StringBuilder initialValue() {
+			return new StringBuilder();
+		}
+	};
+
+	public TemplateNamingStrategy(@Nonnull String template) {
+		this.template = template;
+		this.parts = compile(template);
+		boolean typeName = false;
+		for (Part part : parts) {
+			typeName |= part instanceof TypeNamePart;
+		}
+		this.usesTypeName = typeName;
+	}
+
+	@Override
+	public String formatName(Result result) {
+		Map<String, String> typeNames = usesTypeName ? TypeNameValue.extractMap(result.getTypeName()) : null;
+		StringBuilder buffer = buffers.get();
+		buffer.setLength(0);
+		for (Part part : parts) {
+			part.appendTo(buffer, result, typeNames);
+		}
+		return buffer.toString();
+	}
+
+	private static ImmutableList<Part> compile(String template) {
+		ImmutableList.Builder<Part> parts = ImmutableList.builder();
+		int position = 0;
+		while (position < template.length()) {
+			int start = template.indexOf('{', position);
+			if (start < 0) {
+				parts.add(new LiteralPart(template.substring(position)));
+				break;
+			}
+			if (start > position) {
+				parts.add(new LiteralPart(template.substring(position, start)));
+			}
+			int end = template.indexOf('}', start);
+			if (end < 0) {
+				throw new IllegalArgumentException("Unclosed field at position " + start + " in naming template " + template);
+			}
+			parts.add(field(template.substring(start + 1, end), template));
+			position = end + 1;
+		}
+		return parts.build();
+	}
+
+	private static Part field(String name, String template) {
+		switch (name) {
+			case JexlNamingStrategy.VAR_CLASSNAME_ALIAS:
+				return new AliasPart();
+			case JexlNamingStrategy.VAR_ATTRIBUTE_NAME:
+				return new AttributePart();
+			case JexlNamingStrategy.VAR_EFFECTIVE_CLASSNAME:
+				return new EffectiveClassPart();
+			case JexlNamingStrategy.VAR_CLASSNAME:
+				return new ClassPart();
+			default:
+				if (name.startsWith(TYPENAME_PREFIX) && name.length() > TYPENAME_PREFIX.length()) {
+					return new TypeNamePart(name.substring(TYPENAME_PREFIX.length()));
+				}
+				throw new IllegalArgumentException("Unknown field {" + name + "} in naming template " + template);
+		}
+	}
+
+	private interface Part {
+		void appendTo(StringBuilder buffer, Result result, @Nullable Map<String, String> typeNames);
+	}
+
+	private static void appendNonNull(StringBuilder buffer, @Nullable String value) {
+		if (value != null) {
+			buffer.append(value);
+		}
+	}
+
+	private static final class LiteralPart implements Part {
+		private final String literal;
+
+		private LiteralPart(String literal) {
+			this.literal = literal;
+		}
+
+		@Override
+		public void appendTo(StringBuilder buffer, Result result, @Nullable Map<String, String> typeNames) {
+			buffer.append(literal);
+		}
+	}
+
+	private static final class AliasPart implements Part {
+		@Override
+		public void appendTo(StringBuilder buffer, Result result, @Nullable Map<String, String> typeNames) {
+			appendNonNull(buffer, result.getKeyAlias());
+		}
+	}
+
+	private static final class AttributePart implements Part {
+		@Override
+		public void appendTo(StringBuilder buffer, Result result, @Nullable Map<String, String> typeNames) {
+			appendNonNull(buffer, result.getAttributeName());
+		}
+	}
+
+	private static final class EffectiveClassPart implements Part {
+		@Override
+		public void appendTo(StringBuilder buffer, Result result, @Nullable Map<String, String> typeNames) {
+			appendNonNull(buffer, result.getKeyAlias() != null ? result.getKeyAlias() : result.getClassName());
+		}
+	}
+
+	private static final class ClassPart implements Part {
+		@Override
+		public void appendTo(StringBuilder buffer, Result result, @Nullable Map<String, String> typeNames) {
+			appendNonNull(buffer, result.getClassName());
+		}
+	}
+
+	private static final class TypeNamePart implements Part {
+		private final String key;
+
+		private TypeNamePart(String key) {
+			this.key = key;
+		}
+
+		@Override
+		public void appendTo(StringBuilder buffer, Result result, @Nullable Map<String, String> typeNames) {
+			if (typeNames != null) {
+				appendNonNull(buffer, typeNames.get(key));
+			}
+		}
+	}
+}
@@ -22,17 +22,30 @@
  */
 package com.googlecode.jmxtrans.model.naming.typename;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 import static com.google.common.collect.Maps.newHashMap;
 
 @EqualsAndHashCode
 public class TypeNameValue {
+	/**
+	 * Parsed type names, the same type names coming back for every result of
+	 * every run.
+	 */
+	private static final Cache<String, Map<String, String>> PARSED_TYPE_NAMES = CacheBuilder.newBuilder()
+			.maximumSize(10_000)
+			.build();
+
 	@Getter private String key;
 	@Getter private String value;
 
@@ -65,47 +78,74 @@ public class TypeNameValue {
 	 * "name"  =>  "PS Eden Space"
 	 * "type"  =>  "MemoryPool"
 	 *
+	 * The map returned is unmodifiable and shared between calls with the same
+	 * type name: unlike the HashMap returned by previous versions, callers
+	 * must copy it before modifying it.
+	 *
 	 * @param typeNameStr the type name str
 	 * @return Map<String, String> of type-name-key / value pairs.
 	 */
-	public static Map<String, String> extractMap(String typeNameStr) {
+	public static Map<String, String> extractMap(final String typeNameStr) {
 		if (typeNameStr == null) {
 			return Collections.emptyMap();
 		}
 
+		try {
+			return PARSED_TYPE_NAMES.get(typeNameStr, new Callable<Map<String, String>>() {
+				@Override
+				public Map<String, String> call() {
+					return parseMap(typeNameStr);
+				}
+			});
+		} catch (ExecutionException e) {
+			// parsing throws no checked exception
+			throw new IllegalStateException("Could not parse type name " + typeNameStr, e.getCause());
+		}
+	}
+
+	private static Map<String, String> parseMap(String typeNameStr) {
 		Map<String, String> result = newHashMap();
 		for (TypeNameValue typeNameValue : extract(typeNameStr)) {
 			result.put(typeNameValue.getKey(), typeNameValue.getValue());
 		}
-		return result;
+		return Collections.unmodifiableMap(result);
 	}
 
+	/**
+	 * Iterates over the comma separated key=value pairs by index, skipping
+	 * empty pairs.
+	 */
 	private static class TypeNameValuesIterator implements Iterator<TypeNameValue> {
 
-		private String[] tokens;
-		private int iterator;
+		private final String typeNameStr;
+		/** Start of the next pair, or the length of the string when done. */
+		private int position;
 
 		TypeNameValuesIterator(String typeNameStr) {
-			this.tokens = typeNameStr.split(",");
-			this.iterator = 0;
+			this.typeNameStr = typeNameStr;
+			this.position = 0;
 			skipEmpty();
 		}
 
 		@Override
 		public boolean hasNext() {
-			return iterator < tokens.length;
+			return position < typeNameStr.length();
 		}
 
 		@Override
 		public TypeNameValue next() {
-			String[] keyVal = tokens[iterator].split("=", 2);
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			int end = pairEnd();
+			int equals = typeNameStr.indexOf('=', position);
 			TypeNameValue result;
-			if (keyVal.length > 1) {
-				result = new TypeNameValue(keyVal[0], keyVal[1]);
+			if (equals >= 0 && equals < end) {
+				result = new TypeNameValue(typeNameStr.substring(position, equals), typeNameStr.substring(equals + 1, end));
 			} else {
-				result = new TypeNameValue(keyVal[0]);
+				result = new TypeNameValue(typeNameStr.substring(position, end));
 			}
-			++iterator;
+			position = end;
 			skipEmpty();
 			return result;
 		}
@@ -115,9 +155,14 @@ public class TypeNameValue {
 			throw new UnsupportedOperationException("remove");
 		}
 
+		private int pairEnd() {
+			int comma = typeNameStr.indexOf(',', position);
+			return comma < 0 ? typeNameStr.length() : comma;
+		}
+
 		private void skipEmpty() {
-			while (iterator < tokens.length && tokens[iterator].isEmpty()) {
-				++iterator;
+			while (position < typeNameStr.length() && typeNameStr.charAt(position) == ',') {
+				++position;
 			}
 		}
 	}
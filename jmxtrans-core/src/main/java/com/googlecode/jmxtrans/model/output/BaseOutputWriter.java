@@ -36,7 +36,6 @@ import com.googlecode.jmxtrans.model.naming.typename.TypeNameValuesStringBuilder
 import com.googlecode.jmxtrans.model.results.BooleanAsNumberValueTransformer;
 import com.googlecode.jmxtrans.model.results.IdentityValueTransformer;
 import com.googlecode.jmxtrans.model.results.ResultValuesTransformer;
-import com.googlecode.jmxtrans.model.results.ValueTransformer;
 import lombok.Getter;
 import lombok.ToString;
 import org.slf4j.Logger;
@@ -47,10 +46,8 @@ import javax.annotation.concurrent.NotThreadSafe;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.StreamSupport;
 
 import static com.google.common.collect.ImmutableList.copyOf;
-import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableMap.copyOf;
 import static com.googlecode.jmxtrans.model.output.Settings.getBooleanSetting;
 
@@ -79,7 +76,7 @@ public abstract class BaseOutputWriter implements OutputWriter, OutputWriterFact
 	@Getter private ImmutableList<String> typeNames;
 	@Getter	private boolean debugEnabled;
 	private Map<String, Object> settings;
-	private final ValueTransformer valueTransformer;
+	private final ResultValuesTransformer resultValuesTransformer;
 
 	@JsonCreator
 	public BaseOutputWriter(
@@ -111,9 +108,9 @@ public abstract class BaseOutputWriter implements OutputWriter, OutputWriterFact
 		booleanAsNumber = getBooleanSetting(this.settings, BOOLEAN_AS_NUMBER, booleanAsNumber);
 
 		if (booleanAsNumber) {
-			this.valueTransformer = new BooleanAsNumberValueTransformer(1, 0);
+			this.resultValuesTransformer = new ResultValuesTransformer(new BooleanAsNumberValueTransformer(1, 0));
 		} else {
-			this.valueTransformer = new IdentityValueTransformer();
+			this.resultValuesTransformer = new ResultValuesTransformer(new IdentityValueTransformer());
 		}
 	}
 
@@ -165,9 +162,8 @@ public abstract class BaseOutputWriter implements OutputWriter, OutputWriterFact
 
 	@Override
 	public final void doWrite(Server server, Query query, Iterable<Result> results) throws Exception {
-		internalWrite(server, query, StreamSupport.stream(results.spliterator(), false)
-				.map(new ResultValuesTransformer(valueTransformer))
-				.collect(toImmutableList()));
+		// no copy is made when results are already an immutable list and no value is transformed
+		internalWrite(server, query, copyOf(resultValuesTransformer.transform(results)));
 	}
 
 	protected abstract void internalWrite(Server server, Query query, ImmutableList<Result> results) throws Exception;
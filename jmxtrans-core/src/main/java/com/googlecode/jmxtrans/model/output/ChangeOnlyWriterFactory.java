@@ -0,0 +1,88 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.googlecode.jmxtrans.model.OutputWriter;
+import com.googlecode.jmxtrans.model.OutputWriterFactory;
+import com.googlecode.jmxtrans.model.output.support.ChangeOnlyOutputWriter;
+import com.googlecode.jmxtrans.model.results.ChangedValuesFilter;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static com.google.common.base.MoreObjects.firstNonNull;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Wraps another output writer, sending it only the values which changed
+ * since the last value sent for the same series.
+ * <p/>
+ * Values within the absolute or relative deadband of the last value sent
+ * are considered unchanged. Each series is sent anyway every
+ * {@code heartbeatCycles} runs.
+ */
+@ThreadSafe
+@EqualsAndHashCode
+@ToString
+public class ChangeOnlyWriterFactory implements OutputWriterFactory<ChangeOnlyOutputWriter<OutputWriter>> {
+
+	@Nonnull private final OutputWriterFactory<?> writer;
+	private final double absoluteDeadband;
+	private final double relativeDeadband;
+	private final int heartbeatCycles;
+	private final int maxSeries;
+
+	@JsonCreator
+	public ChangeOnlyWriterFactory(
+			@JsonProperty("writer") OutputWriterFactory<?> writer,
+			@JsonProperty("absoluteDeadband") Double absoluteDeadband,
+			@JsonProperty("relativeDeadband") Double relativeDeadband,
+			@JsonProperty("heartbeatCycles") Integer heartbeatCycles,
+			@JsonProperty("maxSeries") Integer maxSeries) {
+		this.writer = checkNotNull(writer, "Writer cannot be null.");
+		this.absoluteDeadband = firstNonNull(absoluteDeadband, 0.0);
+		this.relativeDeadband = firstNonNull(relativeDeadband, 0.0);
+		this.heartbeatCycles = firstNonNull(heartbeatCycles, 30);
+		this.maxSeries = firstNonNull(maxSeries, 100000);
+	}
+
+	@Nonnull
+	@Override
+	public ChangeOnlyOutputWriter<OutputWriter> create() {
+		return new ChangeOnlyOutputWriter<OutputWriter>(
+				new ChangedValuesFilter(absoluteDeadband, relativeDeadband, heartbeatCycles, maxSeries),
+				writer.create());
+	}
+
+	@Nonnull
+	@Override
+	public ChangeOnlyOutputWriter<OutputWriter> create(int concurrency) {
+		return new ChangeOnlyOutputWriter<OutputWriter>(
+				new ChangedValuesFilter(absoluteDeadband, relativeDeadband, heartbeatCycles, maxSeries),
+				writer.create(concurrency));
+	}
+}
@@ -0,0 +1,82 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.googlecode.jmxtrans.exceptions.LifecycleException;
+import com.googlecode.jmxtrans.model.OutputWriter;
+import com.googlecode.jmxtrans.model.OutputWriterAdapter;
+import com.googlecode.jmxtrans.model.Query;
+import com.googlecode.jmxtrans.model.Result;
+import com.googlecode.jmxtrans.model.Server;
+import com.googlecode.jmxtrans.model.ValidationException;
+import com.googlecode.jmxtrans.model.results.ChangedValuesFilter;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+
+/**
+ * Sends to the target writer only the results whose value changed, see
+ * {@link ChangedValuesFilter}. Values are only recorded as sent once the
+ * target writer wrote them.
+ */
+public class ChangeOnlyOutputWriter<T extends OutputWriter> extends OutputWriterAdapter {
+
+	@Nonnull private final ChangedValuesFilter filter;
+	@Nonnull private final T target;
+
+	public ChangeOnlyOutputWriter(@Nonnull ChangedValuesFilter filter, @Nonnull T target) {
+		this.filter = filter;
+		this.target = target;
+	}
+
+	@Override
+	public void start() throws LifecycleException {
+		target.start();
+	}
+
+	@Override
+	public void validateSetup(Server server, Query query) throws ValidationException {
+		target.validateSetup(server, query);
+	}
+
+	@Override
+	public void doWrite(Server server, Query query, Iterable<Result> results) throws Exception {
+		List<Result> changed = filter.select(server, query, results);
+		if (!changed.isEmpty()) {
+			target.doWrite(server, query, changed);
+			// only recorded as sent once written, a failed write is retried at next cycle
+			filter.commit(server, query, changed);
+		}
+	}
+
+	@Override
+	public void close() throws LifecycleException {
+		target.close();
+	}
+
+	@VisibleForTesting
+	T getTarget() {
+		return target;
+	}
+}
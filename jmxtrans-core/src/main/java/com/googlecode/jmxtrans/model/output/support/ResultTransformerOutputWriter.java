@@ -33,9 +33,12 @@ import com.googlecode.jmxtrans.model.Server;
 import com.googlecode.jmxtrans.model.results.BooleanAsNumberValueTransformer;
 import com.googlecode.jmxtrans.model.results.IdentityValueTransformer;
 import com.googlecode.jmxtrans.model.results.ResultValuesTransformer;
+import com.googlecode.jmxtrans.model.results.ValueTransformer;
+import com.googlecode.jmxtrans.model.results.ValueTransformerChain;
 
 import javax.annotation.Nonnull;
-import java.util.stream.StreamSupport;
+import javax.annotation.Nullable;
+import java.util.List;
 
 public class ResultTransformerOutputWriter<T extends OutputWriter> extends OutputWriterAdapter {
 
@@ -47,14 +50,14 @@ public class ResultTransformerOutputWriter<T extends OutputWriter> extends Outpu
 		this.target = target;
 	}
 
+	@Override
+	public void start() throws LifecycleException {
+		target.start();
+	}
+
 	@Override
 	public void doWrite(Server server, Query query, Iterable<Result> results) throws Exception {
-		target.doWrite(
-				server,
-				query,
-				StreamSupport.stream(results.spliterator(), false)
-						.map(resultValuesTransformer)
-						.collect(ImmutableList.toImmutableList()));
+		target.doWrite(server, query, resultValuesTransformer.transform(results));
 	}
 
 	public static <T extends OutputWriter> ResultTransformerOutputWriter<T> booleanToNumber(boolean booleanToNumber, T target) {
@@ -62,6 +65,24 @@ public class ResultTransformerOutputWriter<T extends OutputWriter> extends Outpu
 		return identity(target);
 	}
 
+	/**
+	 * Transforms values with the given transformers, in a single pass, after
+	 * converting booleans to numbers if requested.
+	 */
+	public static <T extends OutputWriter> ResultTransformerOutputWriter<T> transformValues(
+			boolean booleanToNumber,
+			@Nullable List<ValueTransformer> valueTransformers,
+			T target) {
+		ImmutableList.Builder<ValueTransformer> transformers = ImmutableList.builder();
+		if (booleanToNumber) {
+			transformers.add(new BooleanAsNumberValueTransformer(1, 0));
+		}
+		if (valueTransformers != null) {
+			transformers.addAll(valueTransformers);
+		}
+		return new ResultTransformerOutputWriter<>(new ResultValuesTransformer(ValueTransformerChain.of(transformers.build())), target);
+	}
+
 	public static <T extends OutputWriter> ResultTransformerOutputWriter<T> booleanToNumber(T target) {
 		return new ResultTransformerOutputWriter<>(new ResultValuesTransformer(new BooleanAsNumberValueTransformer(1, 0)), target);
 	}
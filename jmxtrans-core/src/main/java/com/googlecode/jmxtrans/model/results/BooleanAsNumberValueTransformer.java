@@ -22,14 +22,27 @@
  */
 package com.googlecode.jmxtrans.model.results;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import static com.google.common.base.MoreObjects.firstNonNull;
+
+@EqualsAndHashCode
+@ToString
 public class BooleanAsNumberValueTransformer implements ValueTransformer {
 
-	private final Number valueForTrue;
-	private final Number valueForFalse;
+	@Getter private final Number valueForTrue;
+	@Getter private final Number valueForFalse;
 
-	public BooleanAsNumberValueTransformer(Number valueForTrue, Number valueForFalse) {
-		this.valueForTrue = valueForTrue;
-		this.valueForFalse = valueForFalse;
+	@JsonCreator
+	public BooleanAsNumberValueTransformer(
+			@JsonProperty("valueForTrue") Number valueForTrue,
+			@JsonProperty("valueForFalse") Number valueForFalse) {
+		this.valueForTrue = firstNonNull(valueForTrue, 1);
+		this.valueForFalse = firstNonNull(valueForFalse, 0);
 	}
 
 	@Override
@@ -22,32 +22,71 @@
  */
 package com.googlecode.jmxtrans.model.results;
 
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Replaces NaN and infinite values by null and values too small to be
+ * represented in C (absolute value below 1E-308) by 0.
+ * <p/>
+ * Values are compared as primitives when their type allows it, only
+ * {@link BigDecimal} and unknown {@link Number} types are compared as
+ * decimals.
+ */
+@EqualsAndHashCode
+@ToString
 public class CPrecisionValueTransformer implements ValueTransformer {
 
 	private static final BigDecimal C_PRECISION = new BigDecimal("1E-308");
 
+	/**
+	 * The double closest to {@link #C_PRECISION}. Doubles and floats print to
+	 * a decimal rounding back to themselves, so comparing them to this double
+	 * is the same as comparing their decimal representation to
+	 * {@link #C_PRECISION}.
+	 */
+	private static final double C_PRECISION_DOUBLE = 1E-308;
+
 	@Nullable
 	@Override
 	public Object apply(Object input) {
-		if (input == null) return null;
-		if (!Number.class.isAssignableFrom(input.getClass())) return input;
-
-		if (Double.isNaN(((Number) input).doubleValue())) {
-			return null;
-		}
+		if (!(input instanceof Number)) return input;
 
-		if (Double.isInfinite(((Number) input).doubleValue())) {
+		Number number = (Number) input;
+		double value = number.doubleValue();
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
 			return null;
 		}
 
-		BigDecimal inputNumber = new BigDecimal(input.toString());
-
-		if (inputNumber.abs().compareTo(C_PRECISION) < 0) return 0;
+		if (isBelowPrecision(number, value)) return 0;
 
 		return input;
 	}
 
+	private static boolean isBelowPrecision(@Nonnull Number number, double value) {
+		if (number instanceof Double || number instanceof Float) {
+			return Math.abs(value) < C_PRECISION_DOUBLE;
+		}
+		if (number instanceof Integer
+				|| number instanceof Long
+				|| number instanceof Short
+				|| number instanceof Byte
+				|| number instanceof AtomicInteger
+				|| number instanceof AtomicLong) {
+			return number.longValue() == 0;
+		}
+		if (number instanceof BigInteger) {
+			return ((BigInteger) number).signum() == 0;
+		}
+		BigDecimal decimal = number instanceof BigDecimal ? (BigDecimal) number : new BigDecimal(number.toString());
+		return decimal.abs().compareTo(C_PRECISION) < 0;
+	}
+
 }
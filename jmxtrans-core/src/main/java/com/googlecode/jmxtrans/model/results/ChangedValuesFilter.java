@@ -0,0 +1,184 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.results;
+
+import com.google.common.collect.ImmutableList;
+import com.googlecode.jmxtrans.model.Query;
+import com.googlecode.jmxtrans.model.Result;
+import com.googlecode.jmxtrans.model.Server;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.concurrent.TimeUnit.HOURS;
+
+/**
+ * Drops the results of series whose value did not change since the last
+ * value sent.
+ * <p/>
+ * A value is unchanged when it differs from the last value sent by at most
+ * the absolute deadband, or by at most the relative deadband times the last
+ * value. Booleans are compared as 0 and 1, other non numeric values are
+ * always sent. The value of each series is sent anyway every heartbeat
+ * cycles, so that backends still see series which never change.
+ * <p/>
+ * State is bounded to a maximum number of series, results of series beyond
+ * it are always sent. Series not collected for an hour are forgotten.
+ */
+@ThreadSafe
+public class ChangedValuesFilter {
+
+	private static final long EXPIRY_MILLIS = HOURS.toMillis(1);
+
+	private final double absoluteDeadband;
+	private final double relativeDeadband;
+	private final int heartbeatCycles;
+
+	@GuardedBy("this") private final SeriesStates states;
+	@GuardedBy("this") private long lastEviction = Long.MIN_VALUE;
+
+	public ChangedValuesFilter(double absoluteDeadband, double relativeDeadband, int heartbeatCycles, int maxSeries) {
+		checkArgument(absoluteDeadband >= 0, "Absolute deadband cannot be negative");
+		checkArgument(relativeDeadband >= 0, "Relative deadband cannot be negative");
+		checkArgument(heartbeatCycles >= 1, "Heartbeat cycles must be at least 1");
+		this.absoluteDeadband = absoluteDeadband;
+		this.relativeDeadband = relativeDeadband;
+		this.heartbeatCycles = heartbeatCycles;
+		this.states = new SeriesStates(maxSeries);
+	}
+
+	/**
+	 * Selects the results to send and records them as sent.
+	 *
+	 * @return the results which changed, or are due for a heartbeat.
+	 */
+	@Nonnull
+	public ImmutableList<Result> filter(@Nonnull Server server, @Nonnull Query query, @Nonnull Iterable<Result> results) {
+		ImmutableList<Result> changed = select(server, query, results);
+		commit(server, query, changed);
+		return changed;
+	}
+
+	/**
+	 * Selects the results to send, without recording them as sent: until
+	 * {@link #commit(Server, Query, Iterable)} is called, later values are
+	 * still compared to the previous value sent.
+	 *
+	 * @return the results which changed, or are due for a heartbeat.
+	 */
+	@Nonnull
+	public ImmutableList<Result> select(@Nonnull Server server, @Nonnull Query query, @Nonnull Iterable<Result> results) {
+		ImmutableList.Builder<Result> changed = ImmutableList.builder();
+		synchronized (this) {
+			for (Result result : results) {
+				Double value = numericValue(result);
+				if (value == null
+						|| isChanged(SeriesRegistry.seriesId(server, query, result), value, result.getEpoch())) {
+					changed.add(result);
+				}
+			}
+		}
+		return changed.build();
+	}
+
+	/**
+	 * Records selected results as sent, once they were written.
+	 */
+	public void commit(@Nonnull Server server, @Nonnull Query query, @Nonnull Iterable<Result> sent) {
+		synchronized (this) {
+			for (Result result : sent) {
+				Double value = numericValue(result);
+				if (value != null) {
+					recordSent(SeriesRegistry.seriesId(server, query, result), value, result.getEpoch());
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the value compared to the last value sent, or null when the
+	 * value is always sent.
+	 */
+	@Nullable
+	private static Double numericValue(Result result) {
+		Object value = result.getValue();
+		if (value instanceof Number) {
+			return ((Number) value).doubleValue();
+		}
+		if (value instanceof Boolean) {
+			return (Boolean) value ? 1.0 : 0.0;
+		}
+		return null;
+	}
+
+	@GuardedBy("this")
+	private boolean isChanged(long seriesId, double value, long epoch) {
+		evictExpired(epoch);
+
+		int slot = states.indexOf(seriesId);
+		if (slot < 0) {
+			return true;
+		}
+
+		int suppressed = states.countAt(slot);
+		if (suppressed + 1 < heartbeatCycles && isUnchanged(value, states.valueAt(slot))) {
+			states.setCount(slot, suppressed + 1);
+			states.touch(slot, epoch);
+			return false;
+		}
+		return true;
+	}
+
+	@GuardedBy("this")
+	private void recordSent(long seriesId, double value, long epoch) {
+		int slot = states.indexOf(seriesId);
+		if (slot < 0) {
+			// sent even when the series cannot be tracked
+			states.insert(seriesId, value, epoch);
+			return;
+		}
+		states.update(slot, value, epoch);
+		states.setCount(slot, 0);
+	}
+
+	private boolean isUnchanged(double value, double lastSent) {
+		if (Double.compare(value, lastSent) == 0) {
+			return true;
+		}
+		double difference = Math.abs(value - lastSent);
+		return difference <= absoluteDeadband || difference <= relativeDeadband * Math.abs(lastSent);
+	}
+
+	@GuardedBy("this")
+	private void evictExpired(long epoch) {
+		if (lastEviction == Long.MIN_VALUE) {
+			lastEviction = epoch;
+		} else if (epoch - lastEviction >= EXPIRY_MILLIS / 2) {
+			states.removeOlderThan(epoch - EXPIRY_MILLIS);
+			lastEviction = epoch;
+		}
+	}
+}
@@ -0,0 +1,66 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.results;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Limits values to a range. Either bound can be omitted.
+ */
+@Immutable
+@EqualsAndHashCode(callSuper = false, of = {"min", "max"})
+@ToString(of = {"min", "max"})
+public class ClampValueTransformer extends NumericValueTransformer {
+
+	@Nullable @Getter private final Double min;
+	@Nullable @Getter private final Double max;
+	private final double lowerBound;
+	private final double upperBound;
+
+	@JsonCreator
+	public ClampValueTransformer(
+			@JsonProperty("min") Double min,
+			@JsonProperty("max") Double max) {
+		checkArgument(min == null || max == null || min <= max, "Minimum %s is greater than maximum %s", min, max);
+		this.min = min;
+		this.max = max;
+		this.lowerBound = min == null ? Double.NEGATIVE_INFINITY : min;
+		this.upperBound = max == null ? Double.POSITIVE_INFINITY : max;
+	}
+
+	@Override
+	public double transform(double value) {
+		if (value < lowerBound) return lowerBound;
+		if (value > upperBound) return upperBound;
+		return value;
+	}
+}
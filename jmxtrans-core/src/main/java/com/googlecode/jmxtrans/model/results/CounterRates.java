@@ -0,0 +1,194 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.results;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.googlecode.jmxtrans.model.Query;
+import com.googlecode.jmxtrans.model.Result;
+import com.googlecode.jmxtrans.model.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replaces the values of counters by their per second rate, computed from the
+ * previous value collected for the same series.
+ * <p/>
+ * Counters are the attributes listed in {@link Query#getCounters()}. The first
+ * value of a series only initializes its state and is not sent. A value lower
+ * than the previous one is a counter reset (usually a restart of the
+ * monitored server): the counter is assumed to have restarted from 0.
+ * <p/>
+ * Series are identified by their id, see {@link SeriesRegistry}. Their state
+ * is bounded to a maximum number of series. Series that are not collected
+ * anymore are forgotten once they expire. Once the maximum is reached, the
+ * values of new counters are sent unchanged, as they are collected, until
+ * other series expire.
+ * <p/>
+ * States are split in stripes by series id, each with its own lock, so that
+ * threads processing results rarely wait for each other.
+ */
+@ThreadSafe
+public class CounterRates {
+
+	private static final Logger log = LoggerFactory.getLogger(CounterRates.class);
+
+	private static final int MAX_STRIPES = 16;
+
+	private final int maxSeries;
+	private final long expiryMillis;
+
+	@Nonnull private final Stripe[] stripes;
+	private final AtomicLong lastEviction = new AtomicLong(Long.MIN_VALUE);
+
+	public CounterRates(int maxSeries, long expiryMillis) {
+		this.maxSeries = maxSeries;
+		this.expiryMillis = expiryMillis;
+		// a power of two, each stripe being able to hold at least one series
+		int stripeCount = Integer.highestOneBit(Math.max(1, Math.min(MAX_STRIPES, maxSeries)));
+		this.stripes = new Stripe[stripeCount];
+		for (int i = 0; i < stripeCount; i++) {
+			stripes[i] = new Stripe(maxSeries / stripeCount + (i < maxSeries % stripeCount ? 1 : 0));
+		}
+	}
+
+	/**
+	 * @return the results, values of counters being replaced by their rates.
+	 */
+	@Nonnull
+	public Iterable<Result> apply(@Nonnull Server server, @Nonnull Query query, @Nonnull Iterable<Result> results) {
+		if (query.getCounters().isEmpty()) {
+			return results;
+		}
+
+		ImmutableList.Builder<Result> transformed = ImmutableList.builder();
+		for (Result result : results) {
+			Object value = result.getValue();
+			if (!query.getCounters().contains(result.getAttributeName()) || !(value instanceof Number)) {
+				transformed.add(result);
+				continue;
+			}
+			evictExpired(result.getEpoch());
+			long seriesId = SeriesRegistry.seriesId(server, query, result);
+			Result rate = stripe(seriesId).rate(seriesId, result, ((Number) value).doubleValue());
+			if (rate != null) {
+				transformed.add(rate);
+			}
+		}
+		return transformed.build();
+	}
+
+	@VisibleForTesting
+	int getSeriesCount() {
+		int count = 0;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				count += stripe.states.size();
+			}
+		}
+		return count;
+	}
+
+	private void evictExpired(long epoch) {
+		long last = lastEviction.get();
+		if (last == Long.MIN_VALUE) {
+			lastEviction.compareAndSet(last, epoch);
+			return;
+		}
+		// a single thread evicts, the others go on
+		if (epoch - last < expiryMillis / 2 || !lastEviction.compareAndSet(last, epoch)) {
+			return;
+		}
+		int removed = 0;
+		for (Stripe stripe : stripes) {
+			removed += stripe.removeOlderThan(epoch - expiryMillis);
+		}
+		if (removed > 0) {
+			log.debug("Forgot {} expired counters", removed);
+		}
+	}
+
+	@Nonnull
+	private Stripe stripe(long seriesId) {
+		// the low bits of ids select their slot in the tables of states
+		return stripes[(int) (seriesId >>> 60) & (stripes.length - 1)];
+	}
+
+	private final class Stripe {
+		@GuardedBy("this") private final SeriesStates states;
+		@GuardedBy("this") private boolean full;
+
+		private Stripe(int maxSize) {
+			this.states = new SeriesStates(maxSize);
+		}
+
+		/**
+		 * @return the result with the rate per second since the previous value,
+		 * the result itself if its series cannot be tracked, null if there is
+		 * no previous value.
+		 */
+		@Nullable
+		synchronized Result rate(long seriesId, @Nonnull Result result, double value) {
+			long epoch = result.getEpoch();
+			int slot = states.indexOf(seriesId);
+			if (slot < 0) {
+				return track(seriesId, value, epoch) ? null : result;
+			}
+
+			double previousValue = states.valueAt(slot);
+			long previousEpoch = states.epochAt(slot);
+			if (epoch <= previousEpoch) {
+				// same collection sent again, or out of order
+				return null;
+			}
+			states.update(slot, value, epoch);
+
+			double delta = value >= previousValue ? value - previousValue : value;
+			return result.withValue(delta * 1000 / (epoch - previousEpoch));
+		}
+
+		@GuardedBy("this")
+		private boolean track(long seriesId, double value, long epoch) {
+			if (states.insert(seriesId, value, epoch)) {
+				full = false;
+				return true;
+			}
+			if (!full) {
+				full = true;
+				log.warn("Rates of at most {} counters are computed, values of new counters are sent unchanged until others expire",
+						maxSeries);
+			}
+			return false;
+		}
+
+		synchronized int removeOlderThan(long epoch) {
+			return states.removeOlderThan(epoch);
+		}
+	}
+}
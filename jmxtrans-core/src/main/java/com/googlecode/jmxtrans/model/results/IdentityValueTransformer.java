@@ -22,6 +22,11 @@
  */
 package com.googlecode.jmxtrans.model.results;
 
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+@EqualsAndHashCode
+@ToString
 public class IdentityValueTransformer implements ValueTransformer {
 	@Override
 	public Object apply(Object input) {
@@ -0,0 +1,81 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.results;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transformation of numeric values, working on primitive doubles.
+ * <p/>
+ * Consecutive numeric transformers of a {@link ValueTransformerChain} are
+ * applied to the same primitive value, which is boxed only once at the end.
+ * Values that are not numbers are returned unchanged.
+ */
+public abstract class NumericValueTransformer implements ValueTransformer {
+
+	private static final double LONG_RANGE = 0x1p63;
+
+	/**
+	 * @return the transformed value, NaN when the value should be dropped.
+	 */
+	public abstract double transform(double value);
+
+	@Nullable
+	@Override
+	public Object apply(Object input) {
+		if (!(input instanceof Number)) return input;
+		Number number = (Number) input;
+		return box(number, transform(number.doubleValue()));
+	}
+
+	/**
+	 * Converts a transformed value back to an object.
+	 * <p/>
+	 * The input is returned when its value is left unchanged, null when the
+	 * transformed value is NaN. Integral inputs stay integral (as a Long) when
+	 * the transformed value has no fractional part, other values are Doubles.
+	 */
+	@Nullable
+	static Object box(@Nonnull Number input, double value) {
+		if (Double.isNaN(value)) return null;
+		if (Double.compare(value, input.doubleValue()) == 0) return input;
+		if (isIntegral(input) && value == Math.rint(value) && Math.abs(value) < LONG_RANGE) {
+			return (long) value;
+		}
+		return value;
+	}
+
+	private static boolean isIntegral(@Nonnull Number number) {
+		return number instanceof Integer
+				|| number instanceof Long
+				|| number instanceof Short
+				|| number instanceof Byte
+				|| number instanceof AtomicInteger
+				|| number instanceof AtomicLong
+				|| number instanceof BigInteger;
+	}
+}
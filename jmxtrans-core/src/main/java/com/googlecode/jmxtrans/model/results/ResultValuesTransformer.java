@@ -22,8 +22,11 @@
  */
 package com.googlecode.jmxtrans.model.results;
 
+import com.google.common.collect.ImmutableList;
 import com.googlecode.jmxtrans.model.Result;
 
+import javax.annotation.Nonnull;
+import java.util.List;
 import java.util.function.Function;
 
 public class ResultValuesTransformer implements Function<Result, Result> {
@@ -39,16 +42,43 @@ public class ResultValuesTransformer implements Function<Result, Result> {
 		if (input == null) {
 			return null;
 		}
-		return new Result(
-				input.getEpoch(),
-				input.getAttributeName(),
-				input.getClassName(),
-				input.getObjDomain(),
-				input.getKeyAlias(),
-				input.getTypeName(),
-				input.getValuePath(),
-				valueTransformer.apply(input.getValue())
-		);
+		Object value = input.getValue();
+		Object transformedValue = valueTransformer.apply(value);
+		if (transformedValue == value) {
+			// results are immutable, no need to copy an unchanged one
+			return input;
+		}
+		return input.withValue(transformedValue);
+	}
+
+	public boolean isIdentity() {
+		return valueTransformer instanceof IdentityValueTransformer;
+	}
+
+	/**
+	 * Transforms the values of the results, once: writers can iterate the
+	 * results returned as many times as they need.
+	 * <p/>
+	 * Only results whose value is transformed are copied. Results are
+	 * returned as is by an identity transformation, or when they are a list
+	 * and no value is transformed.
+	 */
+	@Nonnull
+	public Iterable<Result> transform(@Nonnull Iterable<Result> results) {
+		if (isIdentity()) {
+			return results;
+		}
+		ImmutableList.Builder<Result> transformed = ImmutableList.builder();
+		boolean changed = false;
+		for (Result result : results) {
+			Result transformedResult = apply(result);
+			changed |= transformedResult != result;
+			transformed.add(transformedResult);
+		}
+		if (!changed && results instanceof List) {
+			return results;
+		}
+		return transformed.build();
 	}
 
 }
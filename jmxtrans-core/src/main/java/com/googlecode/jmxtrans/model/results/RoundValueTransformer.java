@@ -0,0 +1,62 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.results;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import javax.annotation.concurrent.Immutable;
+
+import static com.google.common.base.MoreObjects.firstNonNull;
+
+/**
+ * Rounds values half up to a number of decimals, 0 by default.
+ */
+@Immutable
+@EqualsAndHashCode(callSuper = false, exclude = "scale")
+@ToString(exclude = "scale")
+public class RoundValueTransformer extends NumericValueTransformer {
+
+	/** Doubles above this value have no fractional part. */
+	private static final double MAX_FRACTIONAL = 0x1p52;
+
+	@Getter private final int decimals;
+	private final double scale;
+
+	@JsonCreator
+	public RoundValueTransformer(@JsonProperty("decimals") Integer decimals) {
+		this.decimals = firstNonNull(decimals, 0);
+		this.scale = Math.pow(10, this.decimals);
+	}
+
+	@Override
+	public double transform(double value) {
+		double scaled = value * scale;
+		// large values have no decimals to round, NaN and infinite values stay as they are
+		if (!(Math.abs(scaled) < MAX_FRACTIONAL)) return value;
+		return Math.round(scaled) / scale;
+	}
+}
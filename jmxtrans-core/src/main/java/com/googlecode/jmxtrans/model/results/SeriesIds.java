@@ -0,0 +1,100 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.results;
+
+import com.google.common.collect.ImmutableList;
+import com.googlecode.jmxtrans.model.Query;
+import com.googlecode.jmxtrans.model.Server;
+import lombok.EqualsAndHashCode;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Series ids of the results of one query of one server, interned the first
+ * time a series is collected so that results are built with their id.
+ * <p/>
+ * Ids are the ones computed by {@link SeriesRegistry#seriesId(Server, Query, com.googlecode.jmxtrans.model.Result)},
+ * the hash is only computed for new series. Up to {@link #MAX_SIZE} ids are
+ * kept, the ids of further series are computed each time.
+ */
+@ThreadSafe
+public class SeriesIds {
+
+	static final int MAX_SIZE = 10000;
+
+	@Nonnull private final String serverId;
+	@Nullable private final String queryName;
+	@Nullable private final String keyAlias;
+
+	@Nonnull private final ConcurrentMap<SeriesKey, Long> ids = new ConcurrentHashMap<>();
+
+	public SeriesIds(@Nonnull Server server, @Nonnull Query query) {
+		this.serverId = server.getId();
+		this.queryName = query.getObjectName() == null ? null : query.getObjectName().getCanonicalName();
+		this.keyAlias = query.getResultAlias();
+	}
+
+	public long idOf(
+			@Nullable String objDomain,
+			@Nullable String typeName,
+			@Nullable String attributeName,
+			@Nonnull ImmutableList<String> valuePath) {
+		SeriesKey key = new SeriesKey(objDomain, typeName, attributeName, valuePath);
+		Long id = ids.get(key);
+		if (id != null) {
+			return id;
+		}
+		long seriesId = SeriesRegistry.seriesId(serverId, queryName, keyAlias, objDomain, typeName, attributeName, valuePath);
+		if (ids.size() < MAX_SIZE) {
+			ids.putIfAbsent(key, seriesId);
+		}
+		return seriesId;
+	}
+
+	int size() {
+		return ids.size();
+	}
+
+	@EqualsAndHashCode
+	private static final class SeriesKey {
+		@Nullable private final String objDomain;
+		@Nullable private final String typeName;
+		@Nullable private final String attributeName;
+		@Nonnull private final ImmutableList<String> valuePath;
+
+		private SeriesKey(
+				@Nullable String objDomain,
+				@Nullable String typeName,
+				@Nullable String attributeName,
+				@Nonnull ImmutableList<String> valuePath) {
+			this.objDomain = objDomain;
+			this.typeName = typeName;
+			this.attributeName = attributeName;
+			this.valuePath = valuePath;
+		}
+	}
+}
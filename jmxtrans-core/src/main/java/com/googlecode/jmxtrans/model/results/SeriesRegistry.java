@@ -0,0 +1,197 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.results;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.googlecode.jmxtrans.model.Query;
+import com.googlecode.jmxtrans.model.Result;
+import com.googlecode.jmxtrans.model.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static com.google.common.base.Charsets.UTF_8;
+
+/**
+ * Assigns to each collected result the 64 bits id of its series, identified
+ * by server, query, object name, attribute and value path.
+ * <p/>
+ * Ids are derived from a hash of the series identity, so the same series
+ * always gets the same id and downstream stages can index their state by a
+ * primitive long instead of building string keys. Results are usually built
+ * with their id, interned by {@link SeriesIds}, the hash is only computed
+ * here for the others. Ids are computed before locking, only the tracking
+ * of the series is serialized. The registry keeps track
+ * of the series seen recently to report their number and churn; series not
+ * collected anymore are forgotten once they expire. Ids are assigned even
+ * when the registry is full.
+ */
+@ThreadSafe
+public class SeriesRegistry {
+
+	private static final Logger log = LoggerFactory.getLogger(SeriesRegistry.class);
+
+	private static final HashFunction SERIES_HASH = Hashing.murmur3_128();
+
+	private final long expiryMillis;
+
+	@GuardedBy("this") private final SeriesStates series;
+	@GuardedBy("this") private long lastEviction = Long.MIN_VALUE;
+	@GuardedBy("this") private long registeredCount;
+	@GuardedBy("this") private long expiredCount;
+	@GuardedBy("this") private long untrackedCount;
+
+	public SeriesRegistry(int maxSize, long expiryMillis) {
+		this.series = new SeriesStates(maxSize);
+		this.expiryMillis = expiryMillis;
+	}
+
+	/**
+	 * @return the results, with their series id.
+	 */
+	@Nonnull
+	public ImmutableList<Result> register(@Nonnull Server server, @Nonnull Query query, @Nonnull Iterable<Result> results) {
+		// copies lazy views once, results already holding their id are not copied
+		ImmutableList<Result> registered = ImmutableList.copyOf(results);
+		long[] seriesIds = new long[registered.size()];
+		boolean assigned = true;
+		for (int i = 0; i < seriesIds.length; i++) {
+			Result result = registered.get(i);
+			seriesIds[i] = seriesId(server, query, result);
+			assigned &= result.getSeriesId() == seriesIds[i];
+		}
+
+		synchronized (this) {
+			for (int i = 0; i < seriesIds.length; i++) {
+				track(seriesIds[i], registered.get(i).getEpoch());
+			}
+		}
+
+		if (assigned) {
+			return registered;
+		}
+		ImmutableList.Builder<Result> withIds = ImmutableList.builder();
+		for (int i = 0; i < seriesIds.length; i++) {
+			Result result = registered.get(i);
+			withIds.add(result.getSeriesId() == seriesIds[i] ? result : result.withSeriesId(seriesIds[i]));
+		}
+		return withIds.build();
+	}
+
+	/**
+	 * @return the series id of the result, computed if it was not assigned yet.
+	 */
+	public static long seriesId(@Nonnull Server server, @Nonnull Query query, @Nonnull Result result) {
+		if (result.getSeriesId() != 0) {
+			return result.getSeriesId();
+		}
+		return seriesId(server.getId(), query.getObjectName().getCanonicalName(), result.getKeyAlias(),
+				result.getObjDomain(), result.getTypeName(), result.getAttributeName(), result.getValuePath());
+	}
+
+	static long seriesId(
+			@Nullable String serverId,
+			@Nullable String queryName,
+			@Nullable String keyAlias,
+			@Nullable String objDomain,
+			@Nullable String typeName,
+			@Nullable String attributeName,
+			@Nonnull Iterable<String> valuePath) {
+		Hasher hasher = SERIES_HASH.newHasher();
+		putString(hasher, serverId);
+		putString(hasher, queryName);
+		putString(hasher, keyAlias);
+		putString(hasher, objDomain);
+		putString(hasher, typeName);
+		putString(hasher, attributeName);
+		for (String path : valuePath) {
+			putString(hasher, path);
+		}
+		long seriesId = hasher.hash().asLong();
+		// 0 means not assigned
+		return seriesId == 0 ? 1 : seriesId;
+	}
+
+	/** Number of series currently tracked. */
+	public synchronized int size() {
+		return series.size();
+	}
+
+	/** Number of new series seen since startup. */
+	public synchronized long getRegisteredCount() {
+		return registeredCount;
+	}
+
+	/** Number of series forgotten since startup, as they were not collected anymore. */
+	public synchronized long getExpiredCount() {
+		return expiredCount;
+	}
+
+	/** Number of results whose series could not be tracked, the registry being full. */
+	public synchronized long getUntrackedCount() {
+		return untrackedCount;
+	}
+
+	@GuardedBy("this")
+	private void track(long seriesId, long epoch) {
+		evictExpired(epoch);
+
+		int slot = series.indexOf(seriesId);
+		if (slot >= 0) {
+			if (epoch > series.epochAt(slot)) {
+				series.touch(slot, epoch);
+			}
+		} else if (series.insert(seriesId, 0, epoch)) {
+			registeredCount++;
+		} else {
+			if (untrackedCount == 0) {
+				log.warn("Series registry is full with {} series, new series are not tracked until others expire", series.size());
+			}
+			untrackedCount++;
+		}
+	}
+
+	@GuardedBy("this")
+	private void evictExpired(long epoch) {
+		if (lastEviction == Long.MIN_VALUE) {
+			lastEviction = epoch;
+		} else if (epoch - lastEviction >= expiryMillis / 2) {
+			expiredCount += series.removeOlderThan(epoch - expiryMillis);
+			lastEviction = epoch;
+		}
+	}
+
+	private static void putString(@Nonnull Hasher hasher, @Nullable String value) {
+		if (value != null) {
+			hasher.putString(value, UTF_8);
+		}
+		hasher.putByte((byte) 0);
+	}
+}
@@ -0,0 +1,173 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.results;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Last value, timestamp and a cycle count of series, indexed by 64 bits
+ * series id.
+ * <p/>
+ * Open addressing hash table over primitive arrays, 28 bytes per slot and no
+ * object per series. The table is kept at most half full and never holds
+ * more than a maximum number of series.
+ */
+@NotThreadSafe
+final class SeriesStates {
+
+	private static final long EMPTY = 0;
+	private static final int MIN_CAPACITY = 16;
+
+	private final int maxSize;
+	private long[] ids;
+	private double[] values;
+	private long[] epochs;
+	private int[] counts;
+	private int size;
+
+	SeriesStates(int maxSize) {
+		this.maxSize = maxSize;
+		allocate(MIN_CAPACITY);
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @return the slot of the series, or -1 if it is not known.
+	 */
+	int indexOf(long id) {
+		long key = key(id);
+		int mask = ids.length - 1;
+		for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+			if (ids[i] == key) return i;
+			if (ids[i] == EMPTY) return -1;
+		}
+	}
+
+	double valueAt(int slot) {
+		return values[slot];
+	}
+
+	long epochAt(int slot) {
+		return epochs[slot];
+	}
+
+	void update(int slot, double value, long epoch) {
+		values[slot] = value;
+		epochs[slot] = epoch;
+	}
+
+	void touch(int slot, long epoch) {
+		epochs[slot] = epoch;
+	}
+
+	int countAt(int slot) {
+		return counts[slot];
+	}
+
+	void setCount(int slot, int count) {
+		counts[slot] = count;
+	}
+
+	/**
+	 * Adds a series that is not known yet.
+	 *
+	 * @return false if the maximum number of series is reached.
+	 */
+	boolean insert(long id, double value, long epoch) {
+		if (size >= maxSize) return false;
+		if ((size + 1) * 2 > ids.length) {
+			rehash(ids.length * 2, Long.MIN_VALUE);
+		}
+		put(key(id), value, epoch, 0);
+		size++;
+		return true;
+	}
+
+	/**
+	 * Removes the series last updated before the given epoch.
+	 *
+	 * @return the number of series removed.
+	 */
+	int removeOlderThan(long epoch) {
+		int live = 0;
+		for (int i = 0; i < ids.length; i++) {
+			if (ids[i] != EMPTY && epochs[i] >= epoch) live++;
+		}
+		int removed = size - live;
+		if (removed > 0) {
+			// rebuilding the table keeps probe sequences valid without tombstones
+			rehash(capacityFor(live), epoch);
+		}
+		return removed;
+	}
+
+	private void rehash(int capacity, long minEpoch) {
+		long[] oldIds = ids;
+		double[] oldValues = values;
+		long[] oldEpochs = epochs;
+		int[] oldCounts = counts;
+		allocate(capacity);
+		size = 0;
+		for (int i = 0; i < oldIds.length; i++) {
+			if (oldIds[i] != EMPTY && oldEpochs[i] >= minEpoch) {
+				put(oldIds[i], oldValues[i], oldEpochs[i], oldCounts[i]);
+				size++;
+			}
+		}
+	}
+
+	private void put(long key, double value, long epoch, int count) {
+		int mask = ids.length - 1;
+		int i = slot(key, mask);
+		while (ids[i] != EMPTY) {
+			i = (i + 1) & mask;
+		}
+		ids[i] = key;
+		values[i] = value;
+		epochs[i] = epoch;
+		counts[i] = count;
+	}
+
+	private void allocate(int capacity) {
+		ids = new long[capacity];
+		values = new double[capacity];
+		epochs = new long[capacity];
+		counts = new int[capacity];
+	}
+
+	private static int capacityFor(int size) {
+		return Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, size) * 2 - 1) << 1);
+	}
+
+	/** Series ids are hashes already, 0 is reserved for empty slots. */
+	private static long key(long id) {
+		return id == EMPTY ? 1 : id;
+	}
+
+	private static int slot(long key, int mask) {
+		return (int) (key ^ (key >>> 32)) & mask;
+	}
+}
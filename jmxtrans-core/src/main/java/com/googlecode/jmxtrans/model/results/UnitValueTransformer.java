@@ -0,0 +1,107 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.results;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import java.util.Locale;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Converts values from a unit to another one of the same kind, for example
+ * from bytes to megabytes or from nanoseconds to milliseconds.
+ * <p/>
+ * Data units are binary multiples (1 kilobyte is 1024 bytes).
+ */
+@Immutable
+@EqualsAndHashCode(callSuper = false, exclude = "factor")
+@ToString(exclude = "factor")
+public class UnitValueTransformer extends NumericValueTransformer {
+
+	public enum Unit {
+		BYTES(Kind.DATA, 1),
+		KILOBYTES(Kind.DATA, 1L << 10),
+		MEGABYTES(Kind.DATA, 1L << 20),
+		GIGABYTES(Kind.DATA, 1L << 30),
+		TERABYTES(Kind.DATA, 1L << 40),
+		NANOSECONDS(Kind.TIME, 1),
+		MICROSECONDS(Kind.TIME, 1000L),
+		MILLISECONDS(Kind.TIME, 1000L * 1000),
+		SECONDS(Kind.TIME, 1000L * 1000 * 1000),
+		MINUTES(Kind.TIME, 60L * 1000 * 1000 * 1000),
+		HOURS(Kind.TIME, 60L * 60 * 1000 * 1000 * 1000),
+		DAYS(Kind.TIME, 24L * 60 * 60 * 1000 * 1000 * 1000);
+
+		private enum Kind { DATA, TIME }
+
+		private final Kind kind;
+		private final long size;
+
+		Unit(Kind kind, long size) {
+			this.kind = kind;
+			this.size = size;
+		}
+
+		@Nonnull
+		static Unit parse(@Nonnull String name) {
+			try {
+				return valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Unknown unit " + name, e);
+			}
+		}
+	}
+
+	@Nonnull @Getter private final Unit from;
+	@Nonnull @Getter private final Unit to;
+	private final double factor;
+
+	@JsonCreator
+	public UnitValueTransformer(
+			@JsonProperty("from") String from,
+			@JsonProperty("to") String to) {
+		this(
+				Unit.parse(checkNotNull(from, "Unit to convert from cannot be null.")),
+				Unit.parse(checkNotNull(to, "Unit to convert to cannot be null.")));
+	}
+
+	public UnitValueTransformer(@Nonnull Unit from, @Nonnull Unit to) {
+		checkArgument(from.kind == to.kind, "Cannot convert %s to %s", from, to);
+		this.from = from;
+		this.to = to;
+		this.factor = (double) from.size / to.size;
+	}
+
+	@Override
+	public double transform(double value) {
+		return value * factor;
+	}
+}
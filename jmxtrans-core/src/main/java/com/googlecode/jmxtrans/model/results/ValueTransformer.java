@@ -22,7 +22,17 @@
  */
 package com.googlecode.jmxtrans.model.results;
 
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
 import java.util.function.Function;
 
+/**
+ * Transforms the value of results before they are written.
+ * <p/>
+ * Transformers can be configured on queries and output writers, as a list
+ * applied in order, see {@link ValueTransformerChain}. Each of them has an
+ * @class attribute naming an implementation of this interface.
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY, property = "@class")
 public interface ValueTransformer extends Function<Object, Object> {
 }
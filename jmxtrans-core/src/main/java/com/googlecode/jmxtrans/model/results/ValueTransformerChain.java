@@ -0,0 +1,102 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.results;
+
+import com.google.common.collect.ImmutableList;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import java.util.List;
+
+/**
+ * Applies a list of value transformers in a single pass.
+ * <p/>
+ * Runs of consecutive {@link NumericValueTransformer}s work on the same
+ * primitive double, no intermediate value is boxed. The transformation stops
+ * as soon as a value is dropped (null).
+ */
+@Immutable
+@EqualsAndHashCode(of = "transformers")
+@ToString(of = "transformers")
+public final class ValueTransformerChain implements ValueTransformer {
+
+	@Nonnull @Getter private final ImmutableList<ValueTransformer> transformers;
+	@Nonnull private final ValueTransformer[] stages;
+
+	private ValueTransformerChain(@Nonnull ImmutableList<ValueTransformer> transformers) {
+		this.transformers = transformers;
+		this.stages = transformers.toArray(new ValueTransformer[transformers.size()]);
+	}
+
+	/**
+	 * @param transformers value transformers, as configured on queries or
+	 *                     output writers.
+	 * @return a transformer applying the given ones in order, an
+	 * {@link IdentityValueTransformer} when there is none.
+	 */
+	@Nonnull
+	public static ValueTransformer of(@Nonnull List<? extends ValueTransformer> transformers) {
+		ImmutableList.Builder<ValueTransformer> flattened = ImmutableList.builder();
+		for (ValueTransformer transformer : transformers) {
+			if (transformer instanceof ValueTransformerChain) {
+				flattened.addAll(((ValueTransformerChain) transformer).transformers);
+			} else if (!(transformer instanceof IdentityValueTransformer)) {
+				flattened.add(transformer);
+			}
+		}
+		ImmutableList<ValueTransformer> stages = flattened.build();
+		if (stages.isEmpty()) {
+			return new IdentityValueTransformer();
+		}
+		if (stages.size() == 1) {
+			return stages.get(0);
+		}
+		return new ValueTransformerChain(stages);
+	}
+
+	@Nullable
+	@Override
+	public Object apply(Object input) {
+		Object value = input;
+		int i = 0;
+		while (i < stages.length && value != null) {
+			if (value instanceof Number && stages[i] instanceof NumericValueTransformer) {
+				Number number = (Number) value;
+				double primitive = number.doubleValue();
+				do {
+					primitive = ((NumericValueTransformer) stages[i]).transform(primitive);
+					i++;
+				} while (i < stages.length && stages[i] instanceof NumericValueTransformer);
+				value = NumericValueTransformer.box(number, primitive);
+			} else {
+				value = stages[i].apply(value);
+				i++;
+			}
+		}
+		return value;
+	}
+}
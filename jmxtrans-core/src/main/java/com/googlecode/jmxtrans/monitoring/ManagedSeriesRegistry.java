@@ -0,0 +1,65 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.monitoring;
+
+import com.googlecode.jmxtrans.model.results.SeriesRegistry;
+import lombok.Getter;
+
+import javax.annotation.Nonnull;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+/**
+ * Exposes the number of series and their churn: the number of new series
+ * registered and of series expired since startup.
+ */
+public class ManagedSeriesRegistry implements SeriesRegistryMXBean {
+
+	@Nonnull private final SeriesRegistry seriesRegistry;
+	@Getter @Nonnull private final ObjectName objectName;
+
+	public ManagedSeriesRegistry(@Nonnull SeriesRegistry seriesRegistry) throws MalformedObjectNameException {
+		this.seriesRegistry = seriesRegistry;
+		this.objectName = new ObjectName("com.googlecode.jmxtrans:Type=SeriesRegistry");
+	}
+
+	@Override
+	public long getSize() {
+		return seriesRegistry.size();
+	}
+
+	@Override
+	public long getRegisteredCount() {
+		return seriesRegistry.getRegisteredCount();
+	}
+
+	@Override
+	public long getExpiredCount() {
+		return seriesRegistry.getExpiredCount();
+	}
+
+	@Override
+	public long getUntrackedCount() {
+		return seriesRegistry.getUntrackedCount();
+	}
+}
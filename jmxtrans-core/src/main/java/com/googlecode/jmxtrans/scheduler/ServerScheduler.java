@@ -64,10 +64,13 @@ public class ServerScheduler {
 	}
 
 	private static class ScheduledServerCommand {
+		/** Server as given to the scheduler, before defaults are applied. */
+		private final Server server;
 		private final ServerCommand serverCommand;
 		private final ScheduledFuture<?> scheduledFuture;
 
-		private ScheduledServerCommand(ServerCommand serverCommand, ScheduledFuture<?> scheduledFuture) {
+		private ScheduledServerCommand(Server server, ServerCommand serverCommand, ScheduledFuture<?> scheduledFuture) {
+			this.server = server;
 			this.serverCommand = serverCommand;
 			this.scheduledFuture = scheduledFuture;
 		}
@@ -82,20 +85,37 @@ public class ServerScheduler {
 	}
 
 	public void schedule(Server server) {
+		Server scheduledServer = server;
 		// Apply default runPeriodSeconds on server when undefined
 		if (server.getRunPeriodSeconds() == null || server.getRunPeriodSeconds().intValue() <= 0) {
-			server = Server.builder(server).setRunPeriodSeconds(configuration.getRunPeriod()).build();
+			scheduledServer = Server.builder(server).setRunPeriodSeconds(configuration.getRunPeriod()).build();
 		}
-		ServerCommand serverCommand = new ServerCommand(server, queryExecutorRepository, resultProcessor);
-		long runPeriod = server.getRunPeriodSeconds();
+		ServerCommand serverCommand = new ServerCommand(scheduledServer, queryExecutorRepository, resultProcessor);
+		long runPeriod = scheduledServer.getRunPeriodSeconds();
 		ScheduledFuture<?> scheduledFuture = scheduledExecutor.scheduleAtFixedRate(serverCommand, runPeriod, runPeriod, TimeUnit.SECONDS);
 		synchronized (this.scheduledServerCommands) {
-			this.scheduledServerCommands.add(new ScheduledServerCommand(serverCommand, scheduledFuture));
+			this.scheduledServerCommands.add(new ScheduledServerCommand(server, serverCommand, scheduledFuture));
 		}
 
 		log.debug("Scheduled job for server {} every {}s", serverCommand.getName(), runPeriod);
 	}
 
+	/**
+	 * Cancels the jobs scheduled for the given server, matched by equality.
+	 */
+	public void unschedule(Server server) {
+		synchronized (this.scheduledServerCommands) {
+			for (Iterator<ScheduledServerCommand> commandsIterator = scheduledServerCommands.iterator(); commandsIterator.hasNext(); ) {
+				ScheduledServerCommand command = commandsIterator.next();
+				if (command.server.equals(server)) {
+					command.cancel();
+					commandsIterator.remove();
+					log.debug("Deleted scheduled job for server {}", command.getName());
+				}
+			}
+		}
+	}
+
 	public void unscheduleAll() {
 		synchronized (this.scheduledServerCommands) {
 			for (Iterator<ScheduledServerCommand> commandsIterator = scheduledServerCommands.iterator(); commandsIterator.hasNext(); ) {
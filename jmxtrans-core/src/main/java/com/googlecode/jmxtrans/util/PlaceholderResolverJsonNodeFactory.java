@@ -37,8 +37,11 @@ public class PlaceholderResolverJsonNodeFactory extends JsonNodeFactory {
 
 	@Override
 	public TextNode textNode(String text) {
-		return super.textNode(propertyResolver.resolveProps(text));
+		return super.textNode(resolvePlaceholders(text));
 	}
 
+	public String resolvePlaceholders(String text) {
+		return propertyResolver.resolveProps(text);
+	}
 
 }
@@ -24,6 +24,7 @@ package com.googlecode.jmxtrans.util;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.Files;
 import com.google.inject.Inject;
 import com.googlecode.jmxtrans.guice.JsonFormat;
 import com.googlecode.jmxtrans.guice.YamlFormat;
@@ -39,6 +40,8 @@ public class ProcessConfigUtils {
 
 	@Nonnull private final ObjectMapper yamlMapper;
 
+	@Nonnull private final PlaceholderResolverJsonNodeFactory placeholderResolverJsonNodeFactory;
+
 	@Inject
 	public ProcessConfigUtils(
 			@Nonnull @JsonFormat ObjectMapper jsonMapper,
@@ -46,6 +49,7 @@ public class ProcessConfigUtils {
 			@Nonnull PlaceholderResolverJsonNodeFactory placeholderResolverJsonNodeFactory) {
 		this.jsonMapper = jsonMapper;
 		this.yamlMapper = yamlMapper;
+		this.placeholderResolverJsonNodeFactory = placeholderResolverJsonNodeFactory;
 		// configuring mapper here is dead ugly, but I do not yet understand how ObjectMapperModule works to do it properly
 		this.jsonMapper.setNodeFactory(placeholderResolverJsonNodeFactory);
 		this.yamlMapper.setNodeFactory(placeholderResolverJsonNodeFactory);
@@ -56,11 +60,26 @@ public class ProcessConfigUtils {
 	 * tree representation of that json.
 	 */
 	public JmxProcess parseProcess(File file) throws IOException {
-		String fileName = file.getName();
+		return parseProcess(file.getName(), Files.toByteArray(file));
+	}
+
+	/**
+	 * Parses configuration already read from a file, the format is chosen from
+	 * the file name.
+	 */
+	public JmxProcess parseProcess(String fileName, byte[] content) throws IOException {
 		ObjectMapper mapper = fileName.endsWith(".yml") || fileName.endsWith(".yaml") ? yamlMapper : jsonMapper;
-		JsonNode jsonNode = mapper.readTree(file);
+		JsonNode jsonNode = mapper.readTree(content);
 		JmxProcess jmx = mapper.treeToValue(jsonNode, JmxProcess.class);
 		jmx.setName(fileName);
 		return jmx;
 	}
+
+	/**
+	 * Replaces the placeholders of a text with their current values, as done
+	 * for the text values of parsed configuration.
+	 */
+	public String resolvePlaceholders(String text) {
+		return placeholderResolverJsonNodeFactory.resolvePlaceholders(text);
+	}
 }
@@ -23,6 +23,7 @@
 package com.googlecode.jmxtrans;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
 import com.googlecode.jmxtrans.cli.JmxTransConfiguration;
 import com.googlecode.jmxtrans.exceptions.LifecycleException;
 import com.googlecode.jmxtrans.model.Query;
@@ -32,10 +33,13 @@ import com.googlecode.jmxtrans.model.ValidationException;
 import com.googlecode.jmxtrans.test.RequiresIO;
 import com.googlecode.jmxtrans.util.ProcessConfigUtils;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.List;
@@ -44,17 +48,29 @@ import static com.google.common.collect.ImmutableList.of;
 import static com.googlecode.jmxtrans.guice.JmxTransModule.createInjector;
 import static com.googlecode.jmxtrans.model.ServerFixtures.createPool;
 import static com.googlecode.jmxtrans.model.ServerFixtures.dummyServer;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @Category(RequiresIO.class)
 public class ConfigurationParserTest {
 
+	@Rule
+	public TemporaryFolder configurationDirectory = new TemporaryFolder();
+
+	private ProcessConfigUtils processConfigUtils;
+
 	private ConfigurationParser configurationParser;
 
 	@Before
 	public void configureParser() {
-		ProcessConfigUtils processConfigUtils = createInjector(new JmxTransConfiguration()).getInstance(ProcessConfigUtils.class);
-		configurationParser = new ConfigurationParser(processConfigUtils);
+		processConfigUtils = spy(createInjector(new JmxTransConfiguration()).getInstance(ProcessConfigUtils.class));
+		configurationParser = new ConfigurationParser(processConfigUtils, 4);
 	}
 
 	@Test
@@ -89,6 +105,116 @@ public class ConfigurationParserTest {
 		assertThat(servers).hasSize(1);
 	}
 
+	@Test
+	public void manyFilesAreParsedInParallel() throws IOException, LifecycleException {
+		List<File> files = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			files.add(writeConfiguration("server-" + i + ".json", "host" + i));
+		}
+
+		ImmutableList<Server> servers = configurationParser.parseServers(files, false);
+
+		assertThat(servers).hasSize(1000);
+		assertThat(configurationParser.getParsedFilesCount()).isEqualTo(1000);
+	}
+
+	@Test
+	public void onlyModifiedFilesAreParsedAgain() throws IOException, LifecycleException {
+		File unchanged = writeConfiguration("unchanged.json", "host1");
+		File modified = writeConfiguration("modified.json", "host2");
+		configurationParser.parseServers(of(unchanged, modified), false);
+
+		writeConfiguration("modified.json", "host3");
+		assertThat(modified.setLastModified(modified.lastModified() + 2000)).isTrue();
+		ImmutableList<Server> servers = configurationParser.parseServers(of(unchanged, modified), false);
+
+		assertThat(servers).extracting("host").containsOnly("host1", "host3");
+		verify(processConfigUtils, times(1)).parseProcess(eq("unchanged.json"), any(byte[].class));
+		verify(processConfigUtils, times(2)).parseProcess(eq("modified.json"), any(byte[].class));
+	}
+
+	@Test
+	public void touchedFilesAreNotParsedAgain() throws IOException, LifecycleException {
+		File touched = writeConfiguration("touched.json", "host1");
+		configurationParser.parseServers(of(touched), false);
+
+		assertThat(touched.setLastModified(touched.lastModified() + 2000)).isTrue();
+		ImmutableList<Server> servers = configurationParser.parseServers(of(touched), false);
+
+		assertThat(servers).hasSize(1);
+		verify(processConfigUtils, times(1)).parseProcess(eq("touched.json"), any(byte[].class));
+	}
+
+	@Test
+	public void filesRewrittenWithSameSizeAndModificationTimeAreParsedAgain() throws IOException, LifecycleException {
+		File rewritten = writeConfiguration("rewritten.json", "host1");
+		long lastModified = rewritten.lastModified();
+		configurationParser.parseServers(of(rewritten), false);
+
+		writeConfiguration("rewritten.json", "host2");
+		assertThat(rewritten.setLastModified(lastModified)).isTrue();
+		ImmutableList<Server> servers = configurationParser.parseServers(of(rewritten), false);
+
+		assertThat(servers).extracting("host").containsOnly("host2");
+	}
+
+	@Test
+	public void filesAreParsedAgainWhenTheirPlaceholdersChange() throws IOException, LifecycleException {
+		String property = "jmxtrans.test.placeholder.host";
+		File file = writeConfiguration("placeholder.json", "${" + property + "}");
+		try {
+			System.setProperty(property, "host1");
+			configurationParser.parseServers(of(file), false);
+			configurationParser.parseServers(of(file), false);
+
+			System.setProperty(property, "host2");
+			ImmutableList<Server> servers = configurationParser.parseServers(of(file), false);
+
+			assertThat(servers).extracting("host").containsOnly("host2");
+			verify(processConfigUtils, times(2)).parseProcess(eq("placeholder.json"), any(byte[].class));
+		} finally {
+			System.clearProperty(property);
+		}
+	}
+
+	@Test
+	public void failureToAddServersOfFileIsReported() throws IOException {
+		File file = writeConfiguration("server.json", "host1");
+		ServerListBuilder serverListBuilder = new ServerListBuilder() {
+			@Override
+			public ServerListBuilder add(Iterable<Server> servers) {
+				throw new IllegalStateException("Could not add servers");
+			}
+		};
+
+		try {
+			configurationParser.parseServers(of(file), false, serverListBuilder);
+			fail("Servers should not be added");
+		} catch (LifecycleException expected) {
+			assertThat(expected).hasCauseInstanceOf(IllegalStateException.class);
+		}
+	}
+
+	@Test
+	public void deletedFilesAreRemovedFromCache() throws IOException, LifecycleException {
+		File first = writeConfiguration("first.json", "host1");
+		File second = writeConfiguration("second.json", "host2");
+		configurationParser.parseServers(of(first, second), false);
+
+		configurationParser.parseServers(of(first), false);
+
+		assertThat(configurationParser.getParsedFilesCount()).isEqualTo(1);
+	}
+
+	private File writeConfiguration(String fileName, String host) throws IOException {
+		File file = new File(configurationDirectory.getRoot(), fileName);
+		String configuration = "{\"servers\":[{\"host\":\"" + host + "\",\"port\":\"1099\","
+				+ "\"queries\":[{\"obj\":\"java.lang:type=Memory\",\"attr\":[\"HeapMemoryUsage\"],"
+				+ "\"outputWriters\":[{\"@class\":\"com.googlecode.jmxtrans.model.output.StdOutWriter\"}]}]}]}";
+		Files.write(configuration, file, UTF_8);
+		return file;
+	}
+
 	@Test
 	public void mergeAlreadyExistingServerDoesNotModifyList() throws ValidationException {
 		List<Server> existingServers = new ArrayList<Server>();
@@ -60,6 +60,6 @@ public class JmxTransformerTest {
 	}
 
 	private JmxTransformer createJmxTransformer(JmxTransConfiguration configuration) {
-		return new JmxTransformer(null, configuration, null, null, mock(ExecutorRepository.class), mock(ExecutorRepository.class), null);
+		return new JmxTransformer(null, null, configuration, null, null, mock(ExecutorRepository.class), mock(ExecutorRepository.class), null, null);
 	}
 }
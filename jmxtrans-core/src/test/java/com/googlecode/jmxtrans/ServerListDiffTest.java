@@ -0,0 +1,105 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans;
+
+import com.google.common.collect.ImmutableList;
+import com.googlecode.jmxtrans.model.OutputWriter;
+import com.googlecode.jmxtrans.model.OutputWriterAdapter;
+import com.googlecode.jmxtrans.model.Query;
+import com.googlecode.jmxtrans.model.Result;
+import com.googlecode.jmxtrans.model.Server;
+import org.junit.Test;
+
+import static com.googlecode.jmxtrans.model.ServerFixtures.serverWithNoQuery;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ServerListDiffTest {
+
+	private final OutputWriter writer = new DummyOutputWriter();
+
+	@Test
+	public void identicalServersAreUnchanged() {
+		Server previous = server("host1", "myQuery:key=val", writer);
+		Server current = server("host1", "myQuery:key=val", writer);
+
+		ServerListDiff diff = ServerListDiff.compute(ImmutableList.of(previous), ImmutableList.of(current));
+
+		assertThat(diff.isEmpty()).isTrue();
+		assertThat(diff.getUnchanged()).hasSize(1);
+		assertThat(diff.getUnchanged().get(0)).isSameAs(previous);
+		assertThat(diff.getServersToSchedule()).isEmpty();
+	}
+
+	@Test
+	public void serversAreAddedAndRemoved() {
+		Server previous = server("host1", "myQuery:key=val", writer);
+		Server current = server("host2", "myQuery:key=val", writer);
+
+		ServerListDiff diff = ServerListDiff.compute(ImmutableList.of(previous), ImmutableList.of(current));
+
+		assertThat(diff.getAdded()).containsExactly(current);
+		assertThat(diff.getRemoved()).containsExactly(previous);
+		assertThat(diff.getServers()).containsExactly(current);
+	}
+
+	@Test
+	public void serverWithDifferentQueriesIsChanged() {
+		Server previous = server("host1", "myQuery:key=val", writer);
+		Server current = server("host1", "myQuery:key=other", writer);
+
+		ServerListDiff diff = ServerListDiff.compute(ImmutableList.of(previous), ImmutableList.of(current));
+
+		assertThat(diff.getChanged()).hasSize(1);
+		assertThat(diff.getChanged().get(0)).isSameAs(current);
+		assertThat(diff.getAdded()).isEmpty();
+		assertThat(diff.getRemoved()).isEmpty();
+	}
+
+	@Test
+	public void serverWithOtherWriterInstanceIsChanged() {
+		Server previous = server("host1", "myQuery:key=val", writer);
+		Server current = server("host1", "myQuery:key=val", new DummyOutputWriter());
+
+		ServerListDiff diff = ServerListDiff.compute(ImmutableList.of(previous), ImmutableList.of(current));
+
+		assertThat(diff.getChanged()).containsExactly(current);
+		assertThat(diff.getServersToSchedule()).containsExactly(current);
+	}
+
+	private static Server server(String host, String queryObject, OutputWriter writer) {
+		return Server.builder(serverWithNoQuery())
+				.setHost(host)
+				.addQuery(Query.builder()
+						.setObj(queryObject)
+						.addOutputWriters(singletonList(writer))
+						.build())
+				.build();
+	}
+
+	private static final class DummyOutputWriter extends OutputWriterAdapter {
+		@Override
+		public void doWrite(Server server, Query query, Iterable<Result> results) throws Exception {
+		}
+	}
+}
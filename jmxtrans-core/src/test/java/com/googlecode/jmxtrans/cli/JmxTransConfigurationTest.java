@@ -48,6 +48,12 @@ public class JmxTransConfigurationTest {
 			assertThat(configuration.getResultProcessorExecutorPoolSize()).isEqualTo(8);
 			assertThat(configuration.getResultProcessorExecutorWorkQueueCapacity()).isEqualTo(2000);
 			assertThat(configuration.getAdditionalJars()).containsExactly(new File("lib1.jar"), new File("lib2.jar"));
+			assertThat(configuration.getConnectionWarmUpPoolSize()).isEqualTo(5);
+			assertThat(configuration.getConnectionWarmUpTimeoutSeconds()).isEqualTo(15);
+			assertThat(configuration.getCounterRatesMaxSeries()).isEqualTo(5000);
+			assertThat(configuration.getCounterRatesExpirySeconds()).isEqualTo(600);
+			assertThat(configuration.getSeriesRegistryMaxSize()).isEqualTo(20000);
+			assertThat(configuration.getSeriesRegistryExpirySeconds()).isEqualTo(1800);
 		}
 	}
 
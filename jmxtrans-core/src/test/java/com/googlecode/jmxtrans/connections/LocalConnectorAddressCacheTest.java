@@ -0,0 +1,194 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.connections;
+
+import com.google.common.collect.ImmutableList;
+import com.sun.tools.attach.VirtualMachineDescriptor;
+import org.junit.Test;
+
+import javax.management.remote.JMXServiceURL;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LocalConnectorAddressCacheTest {
+
+	private static final String ADDRESS = "service:jmx:rmi://127.0.0.1/stub/rO0ABXNyAC5qYXZheC5tYW5hZ2VtZW50";
+
+	private final FakeAddressCache cache = new FakeAddressCache();
+
+	@Test
+	public void addressIsResolvedOnlyOnce() throws IOException {
+		cache.startTimes.put("42", 1000L);
+
+		JMXServiceURL first = cache.getJMXServiceURL("42");
+		JMXServiceURL second = cache.getJMXServiceURL("42");
+
+		assertThat(first).isEqualTo(new JMXServiceURL(ADDRESS));
+		assertThat(second).isSameAs(first);
+		assertThat(cache.attachCount).isEqualTo(1);
+	}
+
+	@Test
+	public void addressIsResolvedAgainWhenPidIsReused() throws IOException {
+		cache.startTimes.put("42", 1000L);
+		cache.getJMXServiceURL("42");
+
+		cache.startTimes.put("42", 2000L);
+		cache.getJMXServiceURL("42");
+
+		assertThat(cache.attachCount).isEqualTo(2);
+	}
+
+	@Test
+	public void addressIsCachedWhenStartTimeIsUnknown() throws IOException {
+		cache.getJMXServiceURL("42");
+		cache.getJMXServiceURL("42");
+
+		assertThat(cache.attachCount).isEqualTo(1);
+	}
+
+	@Test
+	public void addressIsResolvedAgainAfterInvalidation() throws IOException {
+		JMXServiceURL url = cache.getJMXServiceURL("42");
+
+		cache.invalidate(url);
+		assertThat(cache.size()).isEqualTo(0);
+
+		cache.getJMXServiceURL("42");
+		assertThat(cache.attachCount).isEqualTo(2);
+	}
+
+	@Test
+	public void pidIsFoundByMainClass() throws IOException {
+		cache.virtualMachines = ImmutableList.of(
+				descriptor("1", "org.apache.zookeeper.server.quorum.QuorumPeerMain /etc/zookeeper.cfg"),
+				descriptor("2", "kafka.Kafka /etc/kafka/server.properties"));
+
+		assertThat(cache.findPid(Pattern.compile("^kafka\\.Kafka"))).isEqualTo("2");
+	}
+
+	@Test
+	public void pidFoundByMainClassIsCachedWithItsAddress() throws IOException {
+		cache.virtualMachines = ImmutableList.of(descriptor("2", "kafka.Kafka /etc/kafka/server.properties"));
+		Pattern pattern = Pattern.compile("^kafka\\.Kafka");
+
+		JMXServiceURL url = cache.getJMXServiceURL(pattern);
+		cache.getJMXServiceURL(pattern);
+		assertThat(cache.listCount).isEqualTo(1);
+		assertThat(cache.attachCount).isEqualTo(1);
+
+		cache.invalidate(url);
+		cache.getJMXServiceURL(pattern);
+		assertThat(cache.listCount).isEqualTo(2);
+		assertThat(cache.attachCount).isEqualTo(2);
+	}
+
+	@Test
+	public void pidIsFoundAgainWhenProcessIsRestarted() throws IOException {
+		cache.virtualMachines = ImmutableList.of(descriptor("2", "kafka.Kafka"));
+		cache.startTimes.put("2", 1000L);
+		Pattern pattern = Pattern.compile("kafka");
+		cache.getJMXServiceURL(pattern);
+
+		cache.virtualMachines = ImmutableList.of(descriptor("3", "kafka.Kafka"));
+		cache.startTimes.remove("2");
+		cache.startTimes.put("3", 2000L);
+		cache.getJMXServiceURL(pattern);
+
+		assertThat(cache.listCount).isEqualTo(2);
+		assertThat(cache.attachCount).isEqualTo(2);
+	}
+
+	@Test(expected = IOException.class)
+	public void noMatchingProcessIsAnError() throws IOException {
+		cache.virtualMachines = ImmutableList.of(descriptor("1", "org.example.Main"));
+
+		cache.findPid(Pattern.compile("kafka"));
+	}
+
+	@Test
+	public void multipleMatchingProcessesIsAnError() {
+		cache.virtualMachines = ImmutableList.of(
+				descriptor("1", "kafka.Kafka /etc/kafka/server1.properties"),
+				descriptor("2", "kafka.Kafka /etc/kafka/server2.properties"));
+
+		try {
+			cache.findPid(Pattern.compile("kafka\\.Kafka"));
+			fail("Ambiguous pattern should not match");
+		} catch (IOException e) {
+			assertThat(e.getMessage()).contains("1, 2");
+		}
+	}
+
+	@Test
+	public void startTimeIsParsedFromProcStat() {
+		String stat = "4242 (java (main)) S 1 4242 4242 0 -1 4194560 32931 0 3 0 217 52 0 0 20 0 42 0 123456 6053588992 49366";
+
+		assertThat(LocalConnectorAddressCache.parseStartTime(stat)).isEqualTo(123456L);
+	}
+
+	@Test
+	public void truncatedProcStatIsIgnored() {
+		assertThat(LocalConnectorAddressCache.parseStartTime("4242 (java) S 1")).isNull();
+		assertThat(LocalConnectorAddressCache.parseStartTime("")).isNull();
+	}
+
+	private static VirtualMachineDescriptor descriptor(String id, String displayName) {
+		VirtualMachineDescriptor descriptor = mock(VirtualMachineDescriptor.class);
+		when(descriptor.id()).thenReturn(id);
+		when(descriptor.displayName()).thenReturn(displayName);
+		return descriptor;
+	}
+
+	private static class FakeAddressCache extends LocalConnectorAddressCache {
+		private final Map<String, Long> startTimes = new HashMap<>();
+		private List<VirtualMachineDescriptor> virtualMachines = ImmutableList.of();
+		private int attachCount = 0;
+		private int listCount = 0;
+
+		@Override
+		String attachAndGetConnectorAddress(String pid) {
+			attachCount++;
+			return ADDRESS;
+		}
+
+		@Override
+		Long readStartTime(String pid) {
+			return startTimes.get(pid);
+		}
+
+		@Override
+		List<VirtualMachineDescriptor> listVirtualMachines() {
+			listCount++;
+			return virtualMachines;
+		}
+	}
+}
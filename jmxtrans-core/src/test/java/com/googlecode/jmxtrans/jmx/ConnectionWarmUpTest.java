@@ -0,0 +1,88 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.jmx;
+
+import com.google.common.collect.ImmutableList;
+import com.googlecode.jmxtrans.connections.JMXConnection;
+import com.googlecode.jmxtrans.connections.JmxConnectionProvider;
+import com.googlecode.jmxtrans.model.Server;
+import org.apache.commons.pool.KeyedObjectPool;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static com.googlecode.jmxtrans.model.ServerFixtures.createPool;
+import static com.googlecode.jmxtrans.model.ServerFixtures.localServer;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConnectionWarmUpTest {
+
+	@Test
+	public void connectionsAreEstablishedForAllServers() throws Exception {
+		Server first = mock(Server.class);
+		Server second = mock(Server.class);
+
+		new ConnectionWarmUp(2, 10).warmUp(ImmutableList.of(first, second));
+
+		verify(first).warmUpConnection();
+		verify(second).warmUpConnection();
+	}
+
+	@Test
+	public void failuresDoNotPreventWarmUpOfOtherServers() throws Exception {
+		Server failing = mock(Server.class);
+		Server working = mock(Server.class);
+		when(failing.warmUpConnection()).thenThrow(new IOException("Connection refused"));
+
+		new ConnectionWarmUp(1, 10).warmUp(ImmutableList.of(failing, working));
+
+		verify(working).warmUpConnection();
+	}
+
+	@Test
+	public void warmUpCanBeDisabled() throws Exception {
+		Server server = mock(Server.class);
+
+		new ConnectionWarmUp(0, 10).warmUp(ImmutableList.of(server));
+
+		verify(server, never()).warmUpConnection();
+	}
+
+	@Test
+	public void idleConnectionIsReused() throws Exception {
+		KeyedObjectPool<JmxConnectionProvider, JMXConnection> pool = createPool();
+		Server server = Server.builder(localServer()).setPool(pool).build();
+
+		assertThat(server.warmUpConnection()).isTrue();
+		assertThat(pool.getNumIdle(server)).isEqualTo(1);
+
+		// same identity, as rebuilt by a configuration reload
+		Server reloaded = Server.builder(server).build();
+		assertThat(reloaded.warmUpConnection()).isFalse();
+		assertThat(pool.getNumIdle(reloaded)).isEqualTo(1);
+	}
+}
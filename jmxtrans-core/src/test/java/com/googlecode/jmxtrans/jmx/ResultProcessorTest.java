@@ -0,0 +1,57 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.jmx;
+
+import com.google.common.collect.ImmutableList;
+import com.googlecode.jmxtrans.model.Query;
+import com.googlecode.jmxtrans.model.Result;
+import com.googlecode.jmxtrans.model.results.ScaleValueTransformer;
+import org.junit.Test;
+
+import static com.googlecode.jmxtrans.model.ResultFixtures.numericResult;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResultProcessorTest {
+
+	@Test
+	public void valuesAreTransformed() {
+		Query query = Query.builder()
+				.setObj("obj:key=val")
+				.addValueTransformers(new ScaleValueTransformer(0.5))
+				.build();
+
+		Iterable<Result> results = ResultProcessor.transformValues(query, ImmutableList.of(numericResult(10)));
+
+		assertThat(results.iterator().next().getValue()).isEqualTo(5L);
+	}
+
+	@Test
+	public void resultsAreNotCopiedWithoutValueTransformers() {
+		Query query = Query.builder()
+				.setObj("obj:key=val")
+				.build();
+		ImmutableList<Result> results = ImmutableList.of(numericResult(10));
+
+		assertThat(ResultProcessor.transformValues(query, results)).isSameAs(results);
+	}
+}
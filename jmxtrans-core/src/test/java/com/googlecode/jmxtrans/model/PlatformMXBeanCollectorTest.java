@@ -0,0 +1,150 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PlatformMXBeanCollectorTest {
+
+	private final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+
+	private final PlatformMXBeanCollector collector = new PlatformMXBeanCollector();
+
+	@Test
+	public void memoryResultsAreTheSameAsGenericPath() throws Exception {
+		Query query = Query.builder()
+				.setObj("java.lang:type=Memory")
+				.addAttr("HeapMemoryUsage", "ObjectPendingFinalizationCount", "Verbose")
+				.setResultAlias("memory")
+				.build();
+
+		assertSameResults(query, new ObjectName("java.lang:type=Memory"));
+	}
+
+	@Test
+	public void compositeKeysAreFiltered() throws Exception {
+		Query query = Query.builder()
+				.setObj("java.lang:type=Memory")
+				.addAttr("HeapMemoryUsage", "NonHeapMemoryUsage")
+				.addKeys("used", "max")
+				.build();
+
+		ImmutableList<Result> results = collector.fetchResults(mbeanServer, query, new ObjectName("java.lang:type=Memory"));
+
+		assertThat(results).hasSize(4);
+		for (Result result : results) {
+			assertThat(result.getValuePath()).isIn(ImmutableList.of("max"), ImmutableList.of("used"));
+		}
+	}
+
+	@Test
+	public void threadingResultsAreTheSameAsGenericPath() throws Exception {
+		Query query = Query.builder()
+				.setObj("java.lang:type=Threading")
+				.addAttr("ThreadCount", "TotalStartedThreadCount")
+				.build();
+
+		assertSameResults(query, new ObjectName("java.lang:type=Threading"));
+	}
+
+	@Test
+	public void operatingSystemResultsAreTheSameAsGenericPath() throws Exception {
+		Query query = Query.builder()
+				.setObj("java.lang:type=OperatingSystem")
+				.addAttr("AvailableProcessors", "Arch", "Name")
+				.build();
+
+		ObjectName objectName = new ObjectName("java.lang:type=OperatingSystem");
+		assertSameResults(query, objectName);
+
+		ImmutableList<Result> results = collector.fetchResults(mbeanServer, query, objectName);
+		assertThat(results.get(0).getValue()).isEqualTo(Runtime.getRuntime().availableProcessors());
+	}
+
+	@Test
+	public void garbageCollectorResultsAreTheSameAsGenericPath() throws Exception {
+		GarbageCollectorMXBean garbageCollector = ManagementFactory.getGarbageCollectorMXBeans().get(0);
+		Query query = Query.builder()
+				.setObj("java.lang:type=GarbageCollector,name=*")
+				.addAttr("CollectionCount", "CollectionTime", "Name")
+				.build();
+
+		assertSameResults(query, garbageCollector.getObjectName());
+	}
+
+	@Test
+	public void unsupportedAttributesAreNotCollected() throws Exception {
+		Query query = Query.builder()
+				.setObj("java.lang:type=Memory")
+				.addAttr("HeapMemoryUsage", "ObjectName")
+				.build();
+
+		assertThat(collector.fetchResults(mbeanServer, query, new ObjectName("java.lang:type=Memory"))).isNull();
+	}
+
+	@Test
+	public void queriesWithoutAttributesAreNotCollected() throws Exception {
+		Query query = Query.builder()
+				.setObj("java.lang:type=Memory")
+				.build();
+
+		assertThat(collector.fetchResults(mbeanServer, query, new ObjectName("java.lang:type=Memory"))).isNull();
+	}
+
+	@Test
+	public void unknownMBeansAreNotCollected() throws Exception {
+		Query query = Query.builder()
+				.setObj("java.lang:type=ClassLoading")
+				.addAttr("LoadedClassCount")
+				.build();
+
+		assertThat(collector.fetchResults(mbeanServer, query, new ObjectName("java.lang:type=ClassLoading"))).isNull();
+	}
+
+	private void assertSameResults(Query query, ObjectName objectName) throws Exception {
+		ImmutableList<Result> expected = ImmutableList.copyOf(query.fetchResults(mbeanServer, objectName));
+		ImmutableList<Result> actual = collector.fetchResults(mbeanServer, query, objectName);
+
+		assertThat(actual).hasSameSizeAs(expected);
+		for (int i = 0; i < expected.size(); i++) {
+			Result expectedResult = expected.get(i);
+			Result actualResult = actual.get(i);
+			assertThat(actualResult.getAttributeName()).isEqualTo(expectedResult.getAttributeName());
+			assertThat(actualResult.getClassName()).isEqualTo(expectedResult.getClassName());
+			assertThat(actualResult.getObjDomain()).isEqualTo(expectedResult.getObjDomain());
+			assertThat(actualResult.getTypeName()).isEqualTo(expectedResult.getTypeName());
+			assertThat(actualResult.getKeyAlias()).isEqualTo(expectedResult.getKeyAlias());
+			assertThat(actualResult.getValuePath()).isEqualTo(expectedResult.getValuePath());
+			// values of counters and gauges may change between calls, their type should not
+			assertThat(actualResult.getValue()).isInstanceOf(expectedResult.getValue().getClass());
+		}
+	}
+}
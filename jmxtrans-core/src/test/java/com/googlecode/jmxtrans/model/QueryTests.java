@@ -22,6 +22,8 @@
  */
 package com.googlecode.jmxtrans.model;
 
+import com.google.common.collect.ImmutableList;
+import com.googlecode.jmxtrans.model.results.ValueTransformer;
 import org.junit.Test;
 
 import java.util.List;
@@ -111,4 +113,28 @@ public class QueryTests {
 
 		assertThat(actual).isEqualTo("BAR_FOO");
 	}
+
+	@Test
+	public void valueTransformersAreCopiedByBuilder() {
+		ValueTransformer transformer = value -> value;
+		Query query = Query.builder()
+				.setObj("obj:key=val")
+				.addValueTransformers(transformer)
+				.build();
+
+		assertThat(Query.builder(query).build()).isEqualTo(query);
+		assertThat(Query.builder(query).build().getValueTransformers()).containsExactly(transformer);
+	}
+
+	@Test
+	public void countersAreCopiedByBuilder() {
+		Query query = Query.builder()
+				.setObj("obj:key=val")
+				.addAttr("CollectionCount", "CollectionTime")
+				.addCounters("CollectionCount")
+				.build();
+
+		assertThat(Query.builder(query).build()).isEqualTo(query);
+		assertThat(Query.builder(query).build().getCounters()).containsExactly("CollectionCount");
+	}
 }
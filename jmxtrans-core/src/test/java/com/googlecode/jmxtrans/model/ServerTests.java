@@ -164,6 +164,41 @@ public class ServerTests {
 		assertNotEquals(s1, s2);
 	}
 
+	@Test
+	public void testEquals_forMainClassPattern() {
+		Server s1 = Server.builder()
+				.setMainClassPattern("kafka\\.Kafka")
+				.setPool(createPool())
+				.build();
+		Server s2 = Server.builder()
+				.setMainClassPattern("QuorumPeerMain")
+				.setPool(createPool())
+				.build();
+		Server s3 = Server.builder(s1)
+				.build();
+
+		assertEquals(s1, s3);
+		assertNotEquals(s1, s2);
+		assertEquals(s1.getHost(), s3.getHost());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void pidAndMainClassPatternCannotBeBothDefined() {
+		Server.builder()
+				.setPid("1")
+				.setMainClassPattern("kafka\\.Kafka")
+				.setPool(createPool())
+				.build();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidMainClassPatternIsRejected() {
+		Server.builder()
+				.setMainClassPattern("kafka(")
+				.setPool(createPool())
+				.build();
+	}
+
 	@Test
 	public void testHashCode() {
 		Server s1 = Server.builder()
@@ -0,0 +1,85 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.naming;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CharSanitizerTest {
+
+	private final CharSanitizer openTsdbLike = CharSanitizer.builder()
+			.keep("-_./" + CharSanitizer.LETTERS_AND_DIGITS)
+			.drop("\"'")
+			.replaceOthers()
+			.build();
+
+	@Test
+	public void unchangedStringIsReturnedAsIs() {
+		String input = "java.lang.Memory-Heap_Usage/used";
+
+		assertThat(openTsdbLike.sanitize(input)).isSameAs(input);
+	}
+
+	@Test
+	public void charactersAreDroppedAndReplacedInOnePass() {
+		assertThat(openTsdbLike.sanitize("\"name\":value with spaces")).isEqualTo("name_value_with_spaces");
+	}
+
+	@Test
+	public void sameResultsAsRegularExpressions() {
+		String[] inputs = {"", "abc", "a'b\"c", "a b:c|d", "élan", "emoji😀end", "type=GarbageCollector,name=PS Scavenge"};
+		for (String input : inputs) {
+			String expected = input.replaceAll("[\"']", "").replaceAll("[^-_./a-zA-Z0-9]", "_");
+			assertThat(openTsdbLike.sanitize(input)).isEqualTo(expected);
+		}
+	}
+
+	@Test
+	public void nonAsciiCharactersAreKeptByDefault() {
+		CharSanitizer sanitizer = CharSanitizer.builder().replace(":|").build();
+
+		assertThat(sanitizer.sanitize("temp:°C|é")).isEqualTo("temp_°C_é");
+	}
+
+	@Test
+	public void replacementCanBeLongerOrEmpty() {
+		assertThat(CharSanitizer.builder().replace(":|").replacement("--").build().sanitize("a:b|c")).isEqualTo("a--b--c");
+		assertThat(CharSanitizer.builder().replace(":|").replacement("").build().sanitize("a:b|c")).isEqualTo("abc");
+	}
+
+	@Test
+	public void replacementIsLiteral() {
+		assertThat(CharSanitizer.builder().replace(":").replacement("$1").build().sanitize("a:b")).isEqualTo("a$1b");
+	}
+
+	@Test
+	public void nullIsNotSanitized() {
+		assertThat(openTsdbLike.sanitize(null)).isNull();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void onlyAsciiCharactersCanBeConfigured() {
+		CharSanitizer.builder().drop("é");
+	}
+}
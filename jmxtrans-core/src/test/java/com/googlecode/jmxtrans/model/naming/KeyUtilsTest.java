@@ -23,6 +23,8 @@
 package com.googlecode.jmxtrans.model.naming;
 
 import com.google.common.collect.ImmutableList;
+import com.googlecode.jmxtrans.model.Query;
+import com.googlecode.jmxtrans.model.Server;
 import org.junit.Test;
 
 import static com.googlecode.jmxtrans.model.QueryFixtures.dummyQuery;
@@ -32,6 +34,7 @@ import static com.googlecode.jmxtrans.model.ServerFixtures.SERVER_ALIAS;
 import static com.googlecode.jmxtrans.model.ServerFixtures.dummyServerBuilder;
 import static com.googlecode.jmxtrans.model.ServerFixtures.serverWithAliasAndNoQuery;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 public class KeyUtilsTest {
 
@@ -73,4 +76,30 @@ public class KeyUtilsTest {
 						ImmutableList.of("typeName"),
 						""));
 	}
+
+	@Test
+	public void keysAreCached() {
+		Server server = serverWithAliasAndNoQuery();
+		Query query = dummyQueryWithResultAlias();
+		String first = KeyUtils.getKeyString(server, query, numericResult(), ImmutableList.of("typeName"), "rootPrefix");
+		long hits = KeyUtils.getKeyCache().stats().hitCount();
+
+		String second = KeyUtils.getKeyString(server, query, numericResult(), ImmutableList.of("typeName"), "rootPrefix");
+
+		assertSame(first, second);
+		assertEquals(hits + 1, KeyUtils.getKeyCache().stats().hitCount());
+	}
+
+	@Test
+	public void cachedKeysDependOnWriterSettings() {
+		Server server = serverWithAliasAndNoQuery();
+		Query query = dummyQueryWithResultAlias();
+
+		assertEquals("rootPrefix." + SERVER_ALIAS + ".MemoryAlias.ObjectPendingFinalizationCount",
+				KeyUtils.getKeyString(server, query, numericResult(), ImmutableList.of("typeName"), "rootPrefix"));
+		assertEquals("otherPrefix." + SERVER_ALIAS + ".MemoryAlias.ObjectPendingFinalizationCount",
+				KeyUtils.getKeyString(server, query, numericResult(), ImmutableList.of("typeName"), "otherPrefix"));
+		assertEquals("MemoryAlias.ObjectPendingFinalizationCount",
+				KeyUtils.getKeyString(query, numericResult(), ImmutableList.of("typeName")));
+	}
 }
@@ -0,0 +1,86 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.naming;
+
+import com.google.common.collect.ImmutableList;
+import com.googlecode.jmxtrans.model.Result;
+import org.junit.Test;
+
+import static com.googlecode.jmxtrans.model.ResultFixtures.numericResult;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TemplateNamingStrategyTest {
+
+	private final Result result = new Result(
+			0,
+			"CollectionCount",
+			"sun.management.GarbageCollectorImpl",
+			"java.lang",
+			null,
+			"type=GarbageCollector,name=PS Scavenge",
+			ImmutableList.<String>of(),
+			10);
+
+	@Test
+	public void namesAreTheSameAsWithJexl() {
+		assertSameAsJexl("{class}.{attribute}", "class + \".\" + attribute");
+		assertSameAsJexl("{realclass}.{typename.name}.{attribute}", "realclass + \".\" + typename.name + \".\" + attribute");
+		assertSameAsJexl("jvm.gc.{typename.type}", "\"jvm.gc.\" + typename.type");
+	}
+
+	@Test
+	public void aliasIsUsedAsClass() {
+		Result aliased = numericResult("MemoryAlias", 10);
+
+		assertThat(new TemplateNamingStrategy("{class}.{attribute}").formatName(aliased))
+				.isEqualTo("MemoryAlias.ObjectPendingFinalizationCount");
+		assertThat(new TemplateNamingStrategy("{alias}-{realclass}").formatName(aliased))
+				.isEqualTo("MemoryAlias-sun.management.MemoryImpl");
+	}
+
+	@Test
+	public void missingValuesAreEmpty() {
+		assertThat(new TemplateNamingStrategy("{alias}.{typename.missing}.{attribute}").formatName(result))
+				.isEqualTo("..CollectionCount");
+	}
+
+	@Test
+	public void templateWithoutFieldsIsConstant() {
+		assertThat(new TemplateNamingStrategy("constant").formatName(result)).isEqualTo("constant");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownFieldsAreRejected() {
+		new TemplateNamingStrategy("{class}.{unknown}");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unclosedFieldsAreRejected() {
+		new TemplateNamingStrategy("{class}.{attribute");
+	}
+
+	private void assertSameAsJexl(String template, String expression) {
+		assertThat(new TemplateNamingStrategy(template).formatName(result))
+				.isEqualTo(new JexlNamingStrategy(expression).formatName(result));
+	}
+}
@@ -101,4 +101,16 @@ public class TypeNameValueTest {
         assertThat(TypeNameValue.extractMap("x-key1-x=x-value1-x,y-key2-y,yy-key2.5-yy=a=1,z-key3-z=z-value3-z"))
                 .isEqualTo(ImmutableMap.of("x-key1-x", "x-value1-x", "y-key2-y", "", "yy-key2.5-yy", "a=1", "z-key3-z", "z-value3-z"));
     }
+
+    @Test
+    public void testExtractMapIsCached() {
+        String typeName = "type=MemoryPool,name=PS Eden Space";
+
+        assertThat(TypeNameValue.extractMap(typeName)).isSameAs(TypeNameValue.extractMap(new String(typeName)));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testExtractMapIsImmutable() {
+        TypeNameValue.extractMap("type=MemoryPool").put("name", "PS Eden Space");
+    }
 }
@@ -95,6 +95,47 @@ public class BaseOutputWriterTests {
 		assertThat(processedResults.get(1).getValue()).isEqualTo(false);
 	}
 
+	@Test
+	public void resultsAreNotCopiedWhenNotTransformed() throws Exception {
+		final ArrayList<ImmutableList<Result>> writtenResults = Lists.newArrayList();
+		BaseOutputWriter outputWriter = new BaseOutputWriter(
+				ImmutableList.<String>of(), false, false, Maps.<String, Object>newHashMap()) {
+			@Override
+			protected void internalWrite(Server server, Query query, ImmutableList<Result> results) throws Exception {
+				writtenResults.add(results);
+			}
+			@Override
+			public void validateSetup(Server server, Query query) throws ValidationException {
+			}
+		};
+		ImmutableList<Result> results = ImmutableList.of(newBooleanResult(true), newBooleanResult(false));
+		outputWriter.doWrite(null, null, results);
+
+		assertThat(writtenResults).hasSize(1);
+		assertThat(writtenResults.get(0)).isSameAs(results);
+	}
+
+	@Test
+	public void resultsWithUnchangedValuesAreNotCopied() throws Exception {
+		final ArrayList<Result> processedResults = Lists.newArrayList();
+		BaseOutputWriter outputWriter = new BaseOutputWriter(
+				ImmutableList.<String>of(), true, false, Maps.<String, Object>newHashMap()) {
+			@Override
+			protected void internalWrite(Server server, Query query, ImmutableList<Result> results) throws Exception {
+				processedResults.addAll(results);
+			}
+			@Override
+			public void validateSetup(Server server, Query query) throws ValidationException {
+			}
+		};
+		Result numeric = new Result(0, "", "", "", "", "", ImmutableList.<String>of(), 10);
+		outputWriter.doWrite(null, null, ImmutableList.of(newBooleanResult(true), numeric));
+
+		assertThat(processedResults).hasSize(2);
+		assertThat(processedResults.get(0).getValue()).isEqualTo(1);
+		assertThat(processedResults.get(1)).isSameAs(numeric);
+	}
+
 	@After
 	public void removeSystemProperties() {
 		System.clearProperty("myHost");
@@ -24,6 +24,11 @@ package com.googlecode.jmxtrans.model.results;
 
 import org.junit.Test;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class CPrecisionValueTransformerTests {
@@ -116,4 +121,68 @@ public class CPrecisionValueTransformerTests {
 		assertThat(transformed).isNull();
 	}
 
+	@Test
+	public void zeroIsTransformedToIntegerZero() {
+		ValueTransformer transformer = new CPrecisionValueTransformer();
+
+		assertThat(transformer.apply(0L)).isEqualTo(0);
+		assertThat(transformer.apply(-0.0d)).isEqualTo(0);
+		assertThat(transformer.apply(BigInteger.ZERO)).isEqualTo(0);
+	}
+
+	@Test
+	public void precisionLimitIsNotTransformed() {
+		ValueTransformer transformer = new CPrecisionValueTransformer();
+
+		assertThat(transformer.apply(1E-308)).isEqualTo(1E-308);
+		assertThat(transformer.apply(Math.nextDown(1E-308))).isEqualTo(0);
+		assertThat(transformer.apply(new BigDecimal("1E-308"))).isEqualTo(new BigDecimal("1E-308"));
+		assertThat(transformer.apply(new BigDecimal("0.99999999999999999999E-308"))).isEqualTo(0);
+	}
+
+	@Test
+	public void resultsAreTheSameAsDecimalComparison() {
+		ValueTransformer transformer = new CPrecisionValueTransformer();
+		Random random = new Random(42);
+
+		for (int i = 0; i < 100000; i++) {
+			for (Number value : randomValues(random)) {
+				assertThat(transformer.apply(value))
+						.as("transformation of %s %s", value.getClass().getSimpleName(), value)
+						.isEqualTo(decimalTransformation(value));
+			}
+		}
+	}
+
+	private static Number[] randomValues(Random random) {
+		double aroundPrecision = 1E-308;
+		for (int steps = random.nextInt(1000) - 500; steps != 0; steps -= Integer.signum(steps)) {
+			aroundPrecision = steps > 0 ? Math.nextUp(aroundPrecision) : Math.nextDown(aroundPrecision);
+		}
+		return new Number[] {
+				Double.longBitsToDouble(random.nextLong()),
+				// subnormal doubles
+				Double.longBitsToDouble(random.nextLong() & 0x800FFFFFFFFFFFFFL),
+				aroundPrecision,
+				-aroundPrecision,
+				Float.intBitsToFloat(random.nextInt()),
+				random.nextLong() >> random.nextInt(64),
+				random.nextInt() >> random.nextInt(32),
+				new AtomicLong(random.nextInt(3) - 1),
+				BigInteger.valueOf(random.nextInt(3) - 1),
+				new BigDecimal(new BigInteger(64, random), random.nextInt(40) + 300)
+		};
+	}
+
+	/** Reference implementation, comparing decimal representations of values. */
+	private static Object decimalTransformation(Number input) {
+		if (Double.isNaN(input.doubleValue()) || Double.isInfinite(input.doubleValue())) {
+			return null;
+		}
+		if (new BigDecimal(input.toString()).abs().compareTo(new BigDecimal("1E-308")) < 0) {
+			return 0;
+		}
+		return input;
+	}
+
 }
@@ -0,0 +1,120 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.results;
+
+import com.google.common.collect.ImmutableList;
+import com.googlecode.jmxtrans.model.Query;
+import com.googlecode.jmxtrans.model.Result;
+import com.googlecode.jmxtrans.model.Server;
+import org.junit.Test;
+
+import static com.googlecode.jmxtrans.model.ServerFixtures.dummyServer;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ChangedValuesFilterTest {
+
+	private final Server server = dummyServer();
+	private final Query query = Query.builder().setObj("java.lang:type=Memory").build();
+
+	@Test
+	public void unchangedValuesAreNotSent() {
+		ChangedValuesFilter filter = new ChangedValuesFilter(0, 0, 100, 1000);
+
+		assertThat(filter.filter(server, query, ImmutableList.of(heapUsage(0, 10)))).hasSize(1);
+		assertThat(filter.filter(server, query, ImmutableList.of(heapUsage(1000, 10)))).isEmpty();
+		assertThat(filter.filter(server, query, ImmutableList.of(heapUsage(2000, 11)))).containsExactly(heapUsage(2000, 11));
+	}
+
+	@Test
+	public void valuesWithinAbsoluteDeadbandAreNotSent() {
+		ChangedValuesFilter filter = new ChangedValuesFilter(5, 0, 100, 1000);
+		filter.filter(server, query, ImmutableList.of(heapUsage(0, 100)));
+
+		assertThat(filter.filter(server, query, ImmutableList.of(heapUsage(1000, 104)))).isEmpty();
+		// compared to the last value sent, not to the last value collected
+		assertThat(filter.filter(server, query, ImmutableList.of(heapUsage(2000, 108)))).hasSize(1);
+	}
+
+	@Test
+	public void valuesWithinRelativeDeadbandAreNotSent() {
+		ChangedValuesFilter filter = new ChangedValuesFilter(0, 0.1, 100, 1000);
+		filter.filter(server, query, ImmutableList.of(heapUsage(0, 1000)));
+
+		assertThat(filter.filter(server, query, ImmutableList.of(heapUsage(1000, 1090)))).isEmpty();
+		assertThat(filter.filter(server, query, ImmutableList.of(heapUsage(2000, 890)))).hasSize(1);
+	}
+
+	@Test
+	public void unchangedValuesAreSentAtHeartbeat() {
+		ChangedValuesFilter filter = new ChangedValuesFilter(0, 0, 3, 1000);
+
+		int sent = 0;
+		for (int cycle = 0; cycle < 9; cycle++) {
+			sent += filter.filter(server, query, ImmutableList.of(heapUsage(cycle * 1000, 10))).size();
+		}
+
+		assertThat(sent).isEqualTo(3);
+	}
+
+	@Test
+	public void booleansAreFiltered() {
+		ChangedValuesFilter filter = new ChangedValuesFilter(0, 0, 100, 1000);
+		filter.filter(server, query, ImmutableList.of(verbose(0, false)));
+
+		assertThat(filter.filter(server, query, ImmutableList.of(verbose(1000, false)))).isEmpty();
+		assertThat(filter.filter(server, query, ImmutableList.of(verbose(2000, true)))).hasSize(1);
+	}
+
+	@Test
+	public void seriesBeyondMaximumAreSent() {
+		ChangedValuesFilter filter = new ChangedValuesFilter(0, 0, 100, 1);
+		filter.filter(server, query, ImmutableList.of(heapUsage(0, 10)));
+		filter.filter(server, query, ImmutableList.of(verbose(0, false)));
+
+		assertThat(filter.filter(server, query, ImmutableList.of(heapUsage(1000, 10), verbose(1000, false))))
+				.containsExactly(verbose(1000, false));
+	}
+
+	@Test
+	public void selectedValuesAreOnlyRecordedOnceCommitted() {
+		ChangedValuesFilter filter = new ChangedValuesFilter(0, 0, 100, 1000);
+		filter.filter(server, query, ImmutableList.of(heapUsage(0, 10)));
+
+		// selected but not committed, as when the write failed
+		assertThat(filter.select(server, query, ImmutableList.of(heapUsage(1000, 11)))).hasSize(1);
+		assertThat(filter.select(server, query, ImmutableList.of(heapUsage(2000, 11)))).hasSize(1);
+
+		filter.commit(server, query, ImmutableList.of(heapUsage(2000, 11)));
+		assertThat(filter.select(server, query, ImmutableList.of(heapUsage(3000, 11)))).isEmpty();
+	}
+
+	private static Result heapUsage(long epoch, long value) {
+		return new Result(epoch, "HeapMemoryUsage", "sun.management.MemoryImpl", "java.lang", null,
+				"type=Memory", ImmutableList.of("used"), value);
+	}
+
+	private static Result verbose(long epoch, boolean value) {
+		return new Result(epoch, "Verbose", "sun.management.MemoryImpl", "java.lang", null,
+				"type=Memory", ImmutableList.<String>of(), value);
+	}
+}
@@ -0,0 +1,139 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.results;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.googlecode.jmxtrans.model.Query;
+import com.googlecode.jmxtrans.model.Result;
+import com.googlecode.jmxtrans.model.Server;
+import org.junit.Test;
+
+import static com.googlecode.jmxtrans.model.ServerFixtures.DEFAULT_QUERY;
+import static com.googlecode.jmxtrans.model.ServerFixtures.createServerWithOneQuery;
+import static com.googlecode.jmxtrans.model.ServerFixtures.dummyServer;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CounterRatesTest {
+
+	private final Server server = dummyServer();
+	private final Query query = Query.builder()
+			.setObj("java.lang:type=GarbageCollector,name=*")
+			.addAttr("CollectionCount", "Name")
+			.addCounters("CollectionCount")
+			.build();
+
+	private final CounterRates counterRates = new CounterRates(100, MINUTES.toMillis(10));
+
+	@Test
+	public void firstValueIsNotSent() {
+		assertThat(counterRates.apply(server, query, ImmutableList.of(collectionCount(0, 100)))).isEmpty();
+	}
+
+	@Test
+	public void ratesArePerSecond() {
+		counterRates.apply(server, query, ImmutableList.of(collectionCount(0, 100)));
+
+		assertThat(rate(collectionCount(60000, 160))).isEqualTo(1.0);
+		assertThat(rate(collectionCount(90000, 175))).isEqualTo(0.5);
+	}
+
+	@Test
+	public void otherAttributesAreNotTransformed() {
+		Result name = new Result(0, "Name", "sun.management.GarbageCollectorImpl", "java.lang", null,
+				"type=GarbageCollector,name=G1 Young", ImmutableList.<String>of(), "G1 Young");
+
+		assertThat(counterRates.apply(server, query, ImmutableList.of(name))).containsExactly(name);
+	}
+
+	@Test
+	public void queriesWithoutCountersAreNotTransformed() {
+		Query withoutCounters = Query.builder().setObj(DEFAULT_QUERY).build();
+		ImmutableList<Result> results = ImmutableList.of(collectionCount(0, 100));
+
+		assertThat(counterRates.apply(server, withoutCounters, results)).isSameAs(results);
+		assertThat(counterRates.getSeriesCount()).isZero();
+	}
+
+	@Test
+	public void resetCountersStartFromZero() {
+		counterRates.apply(server, query, ImmutableList.of(collectionCount(0, 1000)));
+
+		assertThat(rate(collectionCount(10000, 50))).isEqualTo(5.0);
+		assertThat(rate(collectionCount(20000, 60))).isEqualTo(1.0);
+	}
+
+	@Test
+	public void valuesCollectedAgainAreNotSent() {
+		counterRates.apply(server, query, ImmutableList.of(collectionCount(0, 100)));
+		counterRates.apply(server, query, ImmutableList.of(collectionCount(10000, 110)));
+
+		assertThat(counterRates.apply(server, query, ImmutableList.of(collectionCount(10000, 110)))).isEmpty();
+	}
+
+	@Test
+	public void seriesOfServersAreSeparated() {
+		Server other = createServerWithOneQuery("other.example.net", "1234", DEFAULT_QUERY);
+		counterRates.apply(server, query, ImmutableList.of(collectionCount(0, 100)));
+
+		assertThat(counterRates.apply(other, query, ImmutableList.of(collectionCount(10000, 200)))).isEmpty();
+		assertThat(counterRates.getSeriesCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void expiredSeriesAreForgotten() {
+		counterRates.apply(server, query, ImmutableList.of(collectionCount(0, 100, "G1 Old")));
+		counterRates.apply(server, query, ImmutableList.of(collectionCount(0, 100, "G1 Young")));
+
+		for (long epoch = MINUTES.toMillis(1); epoch <= MINUTES.toMillis(20); epoch += MINUTES.toMillis(1)) {
+			counterRates.apply(server, query, ImmutableList.of(collectionCount(epoch, 100, "G1 Young")));
+		}
+
+		assertThat(counterRates.getSeriesCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void countersAreSentUnchangedOnceTheNumberOfSeriesIsReached() {
+		CounterRates bounded = new CounterRates(1, MINUTES.toMillis(10));
+		bounded.apply(server, query, ImmutableList.of(collectionCount(0, 100, "G1 Old")));
+		bounded.apply(server, query, ImmutableList.of(collectionCount(0, 100, "G1 Young")));
+
+		Result untracked = collectionCount(10000, 110, "G1 Young");
+		assertThat(bounded.apply(server, query, ImmutableList.of(untracked))).containsExactly(untracked);
+		assertThat(bounded.getSeriesCount()).isEqualTo(1);
+	}
+
+	private Object rate(Result result) {
+		return Iterables.getOnlyElement(counterRates.apply(server, query, ImmutableList.of(result))).getValue();
+	}
+
+	private static Result collectionCount(long epoch, long value) {
+		return collectionCount(epoch, value, "G1 Young");
+	}
+
+	private static Result collectionCount(long epoch, long value, String name) {
+		return new Result(epoch, "CollectionCount", "sun.management.GarbageCollectorImpl", "java.lang", null,
+				"type=GarbageCollector,name=" + name, ImmutableList.<String>of(), value);
+	}
+}
@@ -0,0 +1,70 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.results;
+
+import com.google.common.collect.ImmutableList;
+import com.googlecode.jmxtrans.model.Query;
+import com.googlecode.jmxtrans.model.Result;
+import com.googlecode.jmxtrans.model.Server;
+import org.junit.Test;
+
+import static com.googlecode.jmxtrans.model.ServerFixtures.dummyServer;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SeriesIdsTest {
+
+	private final Server server = dummyServer();
+	private final Query query = Query.builder().setObj("java.lang:type=Memory").build();
+
+	private final SeriesIds seriesIds = new SeriesIds(server, query);
+
+	@Test
+	public void idsAreTheOnesOfTheRegistry() {
+		long seriesId = seriesIds.idOf("java.lang", "type=Memory", "HeapMemoryUsage", ImmutableList.of("used"));
+
+		Result result = new Result(0, "HeapMemoryUsage", "sun.management.MemoryImpl", "java.lang", null,
+				"type=Memory", ImmutableList.of("used"), 10);
+		assertThat(seriesId).isEqualTo(SeriesRegistry.seriesId(server, query, result));
+	}
+
+	@Test
+	public void idsAreInternedOnFirstSight() {
+		long first = seriesIds.idOf("java.lang", "type=Memory", "HeapMemoryUsage", ImmutableList.of("used"));
+		long second = seriesIds.idOf("java.lang", "type=Memory", "HeapMemoryUsage", ImmutableList.of("used"));
+		long other = seriesIds.idOf("java.lang", "type=Memory", "HeapMemoryUsage", ImmutableList.of("max"));
+
+		assertThat(second).isEqualTo(first);
+		assertThat(other).isNotEqualTo(first);
+		assertThat(seriesIds.size()).isEqualTo(2);
+	}
+
+	@Test
+	public void idsAreComputedOnceFull() {
+		for (int i = 0; i < SeriesIds.MAX_SIZE + 10; i++) {
+			seriesIds.idOf("java.lang", "type=Memory", "Attribute" + i, ImmutableList.<String>of());
+		}
+
+		assertThat(seriesIds.size()).isEqualTo(SeriesIds.MAX_SIZE);
+		assertThat(seriesIds.idOf("java.lang", "type=Memory", "Other", ImmutableList.<String>of())).isNotZero();
+	}
+}
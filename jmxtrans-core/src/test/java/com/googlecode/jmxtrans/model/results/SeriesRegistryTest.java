@@ -0,0 +1,120 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.results;
+
+import com.google.common.collect.ImmutableList;
+import com.googlecode.jmxtrans.model.Query;
+import com.googlecode.jmxtrans.model.Result;
+import com.googlecode.jmxtrans.model.Server;
+import org.junit.Test;
+
+import static com.googlecode.jmxtrans.model.ServerFixtures.DEFAULT_QUERY;
+import static com.googlecode.jmxtrans.model.ServerFixtures.createServerWithOneQuery;
+import static com.googlecode.jmxtrans.model.ServerFixtures.dummyServer;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SeriesRegistryTest {
+
+	private final Server server = dummyServer();
+	private final Query query = Query.builder().setObj("java.lang:type=Memory").build();
+
+	private final SeriesRegistry registry = new SeriesRegistry(100, MINUTES.toMillis(10));
+
+	@Test
+	public void seriesIdsAreAssigned() {
+		ImmutableList<Result> results = registry.register(server, query, ImmutableList.of(heapUsage(0, "used", 10), heapUsage(0, "max", 100)));
+
+		assertThat(results.get(0).getSeriesId()).isNotZero();
+		assertThat(results.get(1).getSeriesId()).isNotZero().isNotEqualTo(results.get(0).getSeriesId());
+		assertThat(results).containsExactly(heapUsage(0, "used", 10), heapUsage(0, "max", 100));
+	}
+
+	@Test
+	public void seriesIdsAreStable() {
+		Result first = registry.register(server, query, ImmutableList.of(heapUsage(0, "used", 10))).get(0);
+		Result second = registry.register(server, query, ImmutableList.of(heapUsage(60000, "used", 20))).get(0);
+
+		assertThat(second.getSeriesId()).isEqualTo(first.getSeriesId());
+		assertThat(new SeriesRegistry(100, MINUTES.toMillis(10)).register(server, query, ImmutableList.of(heapUsage(0, "used", 30))).get(0).getSeriesId())
+				.isEqualTo(first.getSeriesId());
+		assertThat(registry.size()).isEqualTo(1);
+		assertThat(registry.getRegisteredCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void seriesOfServersAreSeparated() {
+		Server other = createServerWithOneQuery("other.example.net", "1234", DEFAULT_QUERY);
+
+		long first = registry.register(server, query, ImmutableList.of(heapUsage(0, "used", 10))).get(0).getSeriesId();
+		long second = registry.register(other, query, ImmutableList.of(heapUsage(0, "used", 10))).get(0).getSeriesId();
+
+		assertThat(first).isNotEqualTo(second);
+		assertThat(registry.size()).isEqualTo(2);
+	}
+
+	@Test
+	public void assignedSeriesIdsAreKept() {
+		Result result = heapUsage(0, "used", 10).withSeriesId(42);
+
+		assertThat(registry.register(server, query, ImmutableList.of(result)).get(0)).isSameAs(result);
+		assertThat(SeriesRegistry.seriesId(server, query, result.withValue(20))).isEqualTo(42);
+	}
+
+	@Test
+	public void resultsBuiltWithTheirIdAreNotCopied() {
+		ImmutableList<Result> results = ImmutableList.of(
+				heapUsage(0, "used", 10).withSeriesId(SeriesRegistry.seriesId(server, query, heapUsage(0, "used", 10))));
+
+		assertThat(registry.register(server, query, results)).isSameAs(results);
+		assertThat(registry.size()).isEqualTo(1);
+	}
+
+	@Test
+	public void expiredSeriesAreForgotten() {
+		registry.register(server, query, ImmutableList.of(heapUsage(0, "max", 100)));
+		for (long epoch = 0; epoch <= MINUTES.toMillis(20); epoch += MINUTES.toMillis(1)) {
+			registry.register(server, query, ImmutableList.of(heapUsage(epoch, "used", 10)));
+		}
+
+		assertThat(registry.size()).isEqualTo(1);
+		assertThat(registry.getRegisteredCount()).isEqualTo(2);
+		assertThat(registry.getExpiredCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void seriesIdsAreAssignedWhenFull() {
+		SeriesRegistry full = new SeriesRegistry(1, MINUTES.toMillis(10));
+
+		ImmutableList<Result> results = full.register(server, query, ImmutableList.of(heapUsage(0, "used", 10), heapUsage(0, "max", 100)));
+
+		assertThat(results.get(1).getSeriesId()).isEqualTo(SeriesRegistry.seriesId(server, query, heapUsage(0, "max", 100)));
+		assertThat(full.size()).isEqualTo(1);
+		assertThat(full.getUntrackedCount()).isEqualTo(1);
+	}
+
+	private static Result heapUsage(long epoch, String key, long value) {
+		return new Result(epoch, "HeapMemoryUsage", "sun.management.MemoryImpl", "java.lang", null,
+				"type=Memory", ImmutableList.of(key), value);
+	}
+}
@@ -0,0 +1,83 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.results;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SeriesStatesTest {
+
+	@Test
+	public void statesAreFoundById() {
+		SeriesStates states = new SeriesStates(10000);
+		Random random = new Random(42);
+		long[] ids = new long[5000];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = random.nextLong();
+			assertThat(states.insert(ids[i], i, i)).isTrue();
+		}
+
+		assertThat(states.size()).isEqualTo(ids.length);
+		for (int i = 0; i < ids.length; i++) {
+			int slot = states.indexOf(ids[i]);
+			assertThat(states.valueAt(slot)).isEqualTo(i);
+			assertThat(states.epochAt(slot)).isEqualTo(i);
+		}
+		assertThat(states.indexOf(random.nextLong())).isEqualTo(-1);
+	}
+
+	@Test
+	public void zeroIsAValidId() {
+		SeriesStates states = new SeriesStates(10);
+		states.insert(0, 12.5, 1);
+
+		assertThat(states.valueAt(states.indexOf(0))).isEqualTo(12.5);
+	}
+
+	@Test
+	public void oldStatesAreRemoved() {
+		SeriesStates states = new SeriesStates(1000);
+		for (int i = 0; i < 1000; i++) {
+			states.insert(i + 1, i, i);
+		}
+
+		assertThat(states.removeOlderThan(900)).isEqualTo(900);
+		assertThat(states.size()).isEqualTo(100);
+		assertThat(states.indexOf(900)).isEqualTo(-1);
+		assertThat(states.valueAt(states.indexOf(1000))).isEqualTo(999);
+		assertThat(states.insert(1001, 0, 0)).isTrue();
+	}
+
+	@Test
+	public void sizeIsBounded() {
+		SeriesStates states = new SeriesStates(2);
+
+		assertThat(states.insert(1, 0, 0)).isTrue();
+		assertThat(states.insert(2, 0, 0)).isTrue();
+		assertThat(states.insert(3, 0, 0)).isFalse();
+		assertThat(states.size()).isEqualTo(2);
+	}
+}
@@ -0,0 +1,130 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.results;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import static com.googlecode.jmxtrans.model.results.UnitValueTransformer.Unit.BYTES;
+import static com.googlecode.jmxtrans.model.results.UnitValueTransformer.Unit.MEGABYTES;
+import static com.googlecode.jmxtrans.model.results.UnitValueTransformer.Unit.MILLISECONDS;
+import static com.googlecode.jmxtrans.model.results.UnitValueTransformer.Unit.NANOSECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ValueTransformerChainTest {
+
+	@Test
+	public void emptyChainIsIdentity() {
+		assertThat(ValueTransformerChain.of(ImmutableList.<ValueTransformer>of())).isInstanceOf(IdentityValueTransformer.class);
+	}
+
+	@Test
+	public void singleTransformerIsNotWrapped() {
+		ValueTransformer scale = new ScaleValueTransformer(2.0);
+
+		assertThat(ValueTransformerChain.of(ImmutableList.of(new IdentityValueTransformer(), scale))).isSameAs(scale);
+	}
+
+	@Test
+	public void transformersAreAppliedInOrder() {
+		ValueTransformer chain = ValueTransformerChain.of(ImmutableList.of(
+				new UnitValueTransformer(BYTES, MEGABYTES),
+				new RoundValueTransformer(1),
+				new ClampValueTransformer(null, 10.0)));
+
+		assertThat(chain.apply(3 * 1024 * 1024 / 2)).isEqualTo(1.5);
+		assertThat(chain.apply(1024L * 1024 * 1024)).isEqualTo(10L);
+		assertThat(chain.apply(123456)).isEqualTo(0.1);
+	}
+
+	@Test
+	public void booleansCanBeConvertedBeforeNumericTransformations() {
+		ValueTransformer chain = ValueTransformerChain.of(ImmutableList.of(
+				new BooleanAsNumberValueTransformer(1, 0),
+				new ScaleValueTransformer(100.0)));
+
+		assertThat(chain.apply(true)).isEqualTo(100L);
+		assertThat(chain.apply(false)).isEqualTo(0);
+	}
+
+	@Test
+	public void integralValuesStayIntegral() {
+		ValueTransformer chain = ValueTransformerChain.of(ImmutableList.of(
+				new UnitValueTransformer(NANOSECONDS, MILLISECONDS),
+				new RoundValueTransformer(0)));
+
+		assertThat(chain.apply(2_600_000L)).isEqualTo(3L);
+		assertThat(chain.apply(2_600_000.0)).isEqualTo(3.0);
+	}
+
+	@Test
+	public void unchangedValuesAreReturnedAsIs() {
+		ValueTransformer chain = ValueTransformerChain.of(ImmutableList.of(
+				new ClampValueTransformer(0.0, 100.0),
+				new RoundValueTransformer(2)));
+		Long value = 42L;
+
+		assertThat(chain.apply(value)).isSameAs(value);
+		assertThat(chain.apply("not a number")).isEqualTo("not a number");
+	}
+
+	@Test
+	public void nanValuesAreDropped() {
+		ValueTransformer chain = ValueTransformerChain.of(ImmutableList.of(
+				new ScaleValueTransformer(2.0),
+				new RoundValueTransformer(1)));
+
+		assertThat(new ScaleValueTransformer(2.0).apply(Double.NaN)).isNull();
+		assertThat(chain.apply(Float.NaN)).isNull();
+	}
+
+	@Test
+	public void nullStopsTheChain() {
+		ValueTransformer chain = ValueTransformerChain.of(ImmutableList.of(
+				new CPrecisionValueTransformer(),
+				new BooleanAsNumberValueTransformer(1, 0)));
+
+		assertThat(chain.apply(Double.NaN)).isNull();
+		assertThat(chain.apply(null)).isNull();
+	}
+
+	@Test
+	public void roundingIsHalfUp() {
+		RoundValueTransformer round = new RoundValueTransformer(1);
+
+		assertThat(round.transform(0.25)).isEqualTo(0.3);
+		assertThat(round.transform(-0.25)).isEqualTo(-0.2);
+		assertThat(round.transform(0x1p60 + 1024)).isEqualTo(0x1p60 + 1024);
+		assertThat(round.transform(Double.POSITIVE_INFINITY)).isEqualTo(Double.POSITIVE_INFINITY);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unitsMustBeOfTheSameKind() {
+		new UnitValueTransformer("bytes", "seconds");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void clampBoundsMustBeOrdered() {
+		new ClampValueTransformer(10.0, 1.0);
+	}
+}
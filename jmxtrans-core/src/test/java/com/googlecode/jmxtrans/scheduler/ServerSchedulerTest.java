@@ -103,6 +103,28 @@ public class ServerSchedulerTest {
 		verify(executor, timeout(6000L).atLeast(2)).submit(any(Runnable.class));
 	}
 
+	@Test
+	public void testUnschedule() throws InterruptedException {
+		// Given
+		when(configuration.getRunPeriod()).thenReturn(1);
+		Server server = Server.builder()
+				.setPid("3")
+				.setPool(mock(KeyedObjectPool.class))
+				.addQueries(sampleQueries())
+				.build();
+		ThreadPoolExecutor executor = queryExecutorRepository.initExecutor(server);
+		serverScheduler.schedule(server);
+		verify(executor, timeout(4000L).atLeast(1)).submit(any(Runnable.class));
+		// When
+		serverScheduler.unschedule(Server.builder(server).build());
+		// let a run in progress complete
+		Thread.sleep(200L);
+		reset(executor);
+		// Then
+		Thread.sleep(2500L);
+		verify(executor, never()).submit(any(Runnable.class));
+	}
+
 	private ImmutableSet<Query> sampleQueries() {
 		return ImmutableSet.<Query>of(Query.builder().setObj("namespace:type=T,name=N").build());
 	}
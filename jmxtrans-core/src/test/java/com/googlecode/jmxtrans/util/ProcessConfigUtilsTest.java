@@ -30,6 +30,10 @@ import com.googlecode.jmxtrans.guice.JmxTransModule;
 import com.googlecode.jmxtrans.model.JmxProcess;
 import com.googlecode.jmxtrans.model.Query;
 import com.googlecode.jmxtrans.model.Server;
+import com.googlecode.jmxtrans.model.output.ChangeOnlyWriterFactory;
+import com.googlecode.jmxtrans.model.output.support.ChangeOnlyOutputWriter;
+import com.googlecode.jmxtrans.model.results.RoundValueTransformer;
+import com.googlecode.jmxtrans.model.results.UnitValueTransformer;
 import com.googlecode.jmxtrans.test.RequiresIO;
 import com.googlecode.jmxtrans.test.ResetableSystemProperty;
 import org.junit.After;
@@ -88,6 +92,28 @@ public class ProcessConfigUtilsTest {
 		loadFromFile("exampleWithVariables.yaml");
 	}
 
+	@Test
+	public void valueTransformersAreLoaded() throws Exception {
+		File input = new File(ProcessConfigUtilsTest.class.getResource("/config/valueTransformers.json").toURI());
+
+		Query query = processConfigUtils.parseProcess(input).getServers().get(0).getQueries().iterator().next();
+
+		assertThat(query.getValueTransformers()).containsExactly(
+				new UnitValueTransformer(UnitValueTransformer.Unit.BYTES, UnitValueTransformer.Unit.MEGABYTES),
+				new RoundValueTransformer(1));
+	}
+
+	@Test
+	public void changeOnlyWritersAreLoaded() throws Exception {
+		File input = new File(ProcessConfigUtilsTest.class.getResource("/config/changeOnly.json").toURI());
+
+		Query query = processConfigUtils.parseProcess(input).getServers().get(0).getQueries().iterator().next();
+
+		assertThat(query.getOutputWriters()).hasSize(1);
+		assertThat(query.getOutputWriters().get(0)).isInstanceOf(ChangeOnlyWriterFactory.class);
+		assertThat(query.getOutputWriters().get(0).create()).isInstanceOf(ChangeOnlyOutputWriter.class);
+	}
+
 	private void loadFromFile(String file) throws URISyntaxException, IOException, MalformedObjectNameException {
 		File input = new File(ProcessConfigUtilsTest.class.getResource("/" + file).toURI());
 
@@ -41,6 +41,7 @@ import com.googlecode.jmxtrans.model.Result;
 import com.googlecode.jmxtrans.model.Server;
 import com.googlecode.jmxtrans.model.naming.KeyUtils;
 import com.googlecode.jmxtrans.model.output.support.ResultTransformerOutputWriter;
+import com.googlecode.jmxtrans.model.results.ValueTransformer;
 import com.googlecode.jmxtrans.util.ObjectToDouble;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,6 +52,7 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.MoreObjects.firstNonNull;
@@ -71,16 +73,30 @@ public class CloudWatchWriter implements OutputWriterFactory {
 	private final Collection<Map<String, Object>> dimensions;
 
 	private final boolean booleanAsNumber;
+	private final ImmutableList<ValueTransformer> valueTransformers;
+
+	public CloudWatchWriter(
+			ImmutableList<String> typeNames,
+			boolean booleanAsNumber,
+			Boolean debugEnabled,
+			String namespace,
+			Collection<Map<String,Object>> dimensions,
+			Map<String, Object> settings) {
+		this(typeNames, booleanAsNumber, ImmutableList.<ValueTransformer>of(), debugEnabled, namespace,
+				dimensions, settings);
+	}
 
 	@JsonCreator
 	public CloudWatchWriter(
 			@JsonProperty("typeNames") ImmutableList<String> typeNames,
 			@JsonProperty("booleanAsNumber") boolean booleanAsNumber,
+			@JsonProperty("valueTransformers") List<ValueTransformer> valueTransformers,
 			@JsonProperty("debug") Boolean debugEnabled,
 			@JsonProperty("namespace") String namespace,
 			@JsonProperty("dimensions") Collection<Map<String,Object>> dimensions,
 			@JsonProperty("settings") Map<String, Object> settings) {
 		this.booleanAsNumber = booleanAsNumber;
+		this.valueTransformers = valueTransformers == null ? ImmutableList.<ValueTransformer>of() : ImmutableList.copyOf(valueTransformers);
 		this.namespace = firstNonNull(namespace, (String) settings.get("namespace"));
 		checkArgument(!isNullOrEmpty(this.namespace), "namespace cannot be null or empty");
 
@@ -104,10 +120,31 @@ public class CloudWatchWriter implements OutputWriterFactory {
 		return dimensions.stream().map(MAP_ENTRY_TO_DIMENSION).collect(Collectors.toList());
 	}
 
+	/**
+	 * Factories parsed again from the same configuration are equal, so that
+	 * reloads keep the running writers.
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (!(o instanceof CloudWatchWriter)) return false;
+		CloudWatchWriter that = (CloudWatchWriter) o;
+		return booleanAsNumber == that.booleanAsNumber
+				&& Objects.equals(namespace, that.namespace)
+				&& Objects.equals(dimensions, that.dimensions)
+				&& Objects.equals(valueTransformers, that.valueTransformers);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(namespace, dimensions, booleanAsNumber, valueTransformers);
+	}
+
 	@Override
 	public OutputWriter create() {
-		return ResultTransformerOutputWriter.booleanToNumber(
+		return ResultTransformerOutputWriter.transformValues(
 				booleanAsNumber,
+				valueTransformers,
 				new Writer(namespace, createCloudWatchClient(), createDimensions(dimensions))
 		);
 	}
@@ -29,6 +29,7 @@ import com.googlecode.jmxtrans.model.Query;
 import com.googlecode.jmxtrans.model.Result;
 import com.googlecode.jmxtrans.model.Server;
 import com.googlecode.jmxtrans.model.ValidationException;
+import com.googlecode.jmxtrans.model.naming.CharSanitizer;
 import com.googlecode.jmxtrans.model.naming.KeyUtils;
 import com.googlecode.jmxtrans.util.OnlyOnceLogger;
 import lombok.EqualsAndHashCode;
@@ -65,6 +66,8 @@ public class GraphiteWriter extends BaseOutputWriter {
 
 	private static final String DEFAULT_ROOT_PREFIX = "servers";
 
+	private static final CharSanitizer PARENTHESES_SANITIZER = CharSanitizer.builder().replace("()").build();
+
 	private GenericKeyedObjectPool<InetSocketAddress, Socket> pool;
 
 	private final String rootPrefix;
@@ -122,8 +125,8 @@ public class GraphiteWriter extends BaseOutputWriter {
 				Object value = result.getValue();
 				if (isValidNumber(value)) {
 
-					String line = KeyUtils.getKeyString(server, query, result, typeNames, rootPrefix)
-							.replaceAll("[()]", "_") + " " + value.toString() + " "
+					String line = PARENTHESES_SANITIZER.sanitize(KeyUtils.getKeyString(server, query, result, typeNames, rootPrefix))
+							+ " " + value.toString() + " "
 							+ result.getEpoch() / 1000 + "\n";
 					log.debug("Graphite Message: {}", line);
 					writer.write(line);
@@ -26,6 +26,7 @@ import com.google.common.collect.ImmutableList;
 import com.googlecode.jmxtrans.model.Query;
 import com.googlecode.jmxtrans.model.Result;
 import com.googlecode.jmxtrans.model.Server;
+import com.googlecode.jmxtrans.model.naming.CharSanitizer;
 import com.googlecode.jmxtrans.model.naming.KeyUtils;
 import com.googlecode.jmxtrans.model.output.support.WriterBasedOutputWriter;
 import com.googlecode.jmxtrans.util.OnlyOnceLogger;
@@ -45,6 +46,8 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 @ThreadSafe
 public class GraphiteWriter2 implements WriterBasedOutputWriter {
 	private static final Logger log = LoggerFactory.getLogger(GraphiteWriter2.class);
+
+	private static final CharSanitizer PARENTHESES_SANITIZER = CharSanitizer.builder().replace("()").build();
 	private final OnlyOnceLogger onlyOnceLogger = new OnlyOnceLogger(log);
 
 	@Nonnull private final ImmutableList<String> typeNames;
@@ -67,8 +70,8 @@ public class GraphiteWriter2 implements WriterBasedOutputWriter {
 			Object value = result.getValue();
 			if (isValidNumber(value)) {
 
-				String line = KeyUtils.getKeyString(server, query, result, typeNames, rootPrefix)
-						.replaceAll("[()]", "_") + " " + value.toString() + " "
+				String line = PARENTHESES_SANITIZER.sanitize(KeyUtils.getKeyString(server, query, result, typeNames, rootPrefix))
+						+ " " + value.toString() + " "
 						+ SECONDS.convert(result.getEpoch(), MILLISECONDS) + "\n";
 				log.debug("Graphite Message: {}", line);
 				writer.write(line);
@@ -25,22 +25,32 @@ package com.googlecode.jmxtrans.model.output;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
+import com.googlecode.jmxtrans.model.OutputWriter;
 import com.googlecode.jmxtrans.model.OutputWriterFactory;
+import com.googlecode.jmxtrans.model.output.support.LoadBalancing;
 import com.googlecode.jmxtrans.model.output.support.ResultTransformerOutputWriter;
+import com.googlecode.jmxtrans.model.output.support.ServerAddresses;
+import com.googlecode.jmxtrans.model.output.support.SpoolingOutputWriter;
 import com.googlecode.jmxtrans.model.output.support.TcpOutputWriterBuilder;
 import com.googlecode.jmxtrans.model.output.support.UdpOutputWriterBuilder;
-import com.googlecode.jmxtrans.model.output.support.WriterPoolOutputWriter;
+import com.googlecode.jmxtrans.model.output.support.pool.Compression;
 import com.googlecode.jmxtrans.model.output.support.pool.FlushStrategy;
+import com.googlecode.jmxtrans.model.output.support.retry.OverflowPolicy;
+import com.googlecode.jmxtrans.model.output.support.spool.DiskSpool;
+import com.googlecode.jmxtrans.model.results.ValueTransformer;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
+import java.io.File;
 import java.net.InetSocketAddress;
+import java.util.List;
 
 import static com.google.common.base.Charsets.UTF_8;
 import static com.google.common.base.MoreObjects.firstNonNull;
-import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.googlecode.jmxtrans.model.output.support.pool.FlushStrategyUtils.createFlushStrategy;
 
 /**
@@ -58,14 +68,38 @@ public class GraphiteWriterFactory implements OutputWriterFactory {
 	private static final String DEFAULT_PROTOCOL = "tcp";
 
 	@Nonnull private final String rootPrefix;
-	@Nonnull private final InetSocketAddress graphiteServer;
+	/** Results are spread over the servers when there are several of them. */
+	@Nonnull private final ImmutableList<InetSocketAddress> graphiteServers;
 	@Nonnull private final ImmutableList<String> typeNames;
 	private final boolean booleanAsNumber;
+	private final ImmutableList<ValueTransformer> valueTransformers;
 	@Nonnull private final FlushStrategy flushStrategy;
 	private final int poolSize;
+	/**
+	 * Pools grow up to this size while writers are waited for. Unless sized,
+	 * they grow up to the number of threads writing results, when it is known.
+	 */
+	@Nullable private final Integer maxPoolSize;
+	/** Writers are given in turn to the threads waiting for them. */
+	private final boolean fairPool;
 	private final int socketTimeoutMs;
 	private final Integer poolClaimTimeoutSeconds;
 	private final int socketExpirationMs;
+	/** Sends metrics from a background thread, so that slow servers do not block result processing. */
+	private final boolean nonBlocking;
+	@Nonnull private final LoadBalancing loadBalancing;
+	private final int healthCheckIntervalSeconds;
+	/** Results that could not be sent are kept in this directory until they are, when set. */
+	@Nullable private final File spoolDirectory;
+	private final long spoolMaxBytes;
+	private final int spoolReplayBytesPerSecond;
+	/** Results that could not be sent are kept in memory up to this size, and sent again, when set. */
+	private final int retryBufferBytes;
+	@Nonnull private final OverflowPolicy retryOverflowPolicy;
+	/** Compression of the stream sent on each connection, the servers must expect it. */
+	@Nonnull private final Compression compression;
+	/** Sends over TLS with the default SSL context, the certificates of the servers must match their host names. */
+	private final boolean tls;
 
 	/**
 	 * protocol to use to send metrics to graphite server.
@@ -73,61 +107,133 @@ public class GraphiteWriterFactory implements OutputWriterFactory {
 	 */
 	private final String protocol;
 
+	public GraphiteWriterFactory(
+			ImmutableList<String> typeNames,
+			boolean booleanAsNumber,
+			String rootPrefix,
+			String host,
+			Integer port,
+			String flushStrategy,
+			Integer flushDelayInSeconds,
+			Integer poolSize,
+			Integer socketTimeoutMs,
+			Integer poolClaimTimeoutSeconds,
+			String protocol,
+			Integer socketExpirationMs) {
+		this(typeNames, booleanAsNumber, ImmutableList.<ValueTransformer>of(), rootPrefix, host, port,
+				flushStrategy, flushDelayInSeconds, null, poolSize, null, false,
+				socketTimeoutMs, poolClaimTimeoutSeconds, protocol, socketExpirationMs, false,
+				null, null, null, null, null, null, null, null, null, false);
+	}
+
 	@JsonCreator
 	public GraphiteWriterFactory(
 			@JsonProperty("typeNames") ImmutableList<String> typeNames,
 			@JsonProperty("booleanAsNumber") boolean booleanAsNumber,
+			@JsonProperty("valueTransformers") List<ValueTransformer> valueTransformers,
 			@JsonProperty("rootPrefix") String rootPrefix,
 			@JsonProperty("host") String host,
 			@JsonProperty("port") Integer port,
 			@JsonProperty("flushStrategy") String flushStrategy,
 			@JsonProperty("flushDelayInSeconds") Integer flushDelayInSeconds,
+			@JsonProperty("flushSize") Integer flushSize,
 			@JsonProperty("poolSize") Integer poolSize,
+			@JsonProperty("maxPoolSize") Integer maxPoolSize,
+			@JsonProperty("fairPool") boolean fairPool,
 			@JsonProperty("socketTimeoutMs") Integer socketTimeoutMs,
 			@JsonProperty("poolClaimTimeoutSeconds") Integer poolClaimTimeoutSeconds,
 			@JsonProperty("protocol") String protocol,
-			@JsonProperty("socketExpirationMs") Integer socketExpirationMs) {
+			@JsonProperty("socketExpirationMs") Integer socketExpirationMs,
+			@JsonProperty("nonBlocking") boolean nonBlocking,
+			@JsonProperty("endpoints") List<String> endpoints,
+			@JsonProperty("loadBalancing") String loadBalancing,
+			@JsonProperty("healthCheckIntervalSeconds") Integer healthCheckIntervalSeconds,
+			@JsonProperty("spoolDirectory") String spoolDirectory,
+			@JsonProperty("spoolMaxBytes") Long spoolMaxBytes,
+			@JsonProperty("spoolReplayBytesPerSecond") Integer spoolReplayBytesPerSecond,
+			@JsonProperty("retryBufferBytes") Integer retryBufferBytes,
+			@JsonProperty("retryOverflowPolicy") String retryOverflowPolicy,
+			@JsonProperty("compression") String compression,
+			@JsonProperty("tls") boolean tls) {
 
 		this.typeNames = typeNames;
 		this.booleanAsNumber = booleanAsNumber;
+		this.valueTransformers = valueTransformers == null ? ImmutableList.<ValueTransformer>of() : ImmutableList.copyOf(valueTransformers);
 		this.rootPrefix = firstNonNull(rootPrefix, DEFAULT_ROOT_PREFIX);
 
-		this.graphiteServer = new InetSocketAddress(
-				checkNotNull(host, "Host cannot be null."),
-				checkNotNull(port, "Port cannot be null."));
-		this.flushStrategy = createFlushStrategy(flushStrategy, flushDelayInSeconds);
+		this.graphiteServers = ServerAddresses.parse(host, port, endpoints);
+		this.flushStrategy = createFlushStrategy(flushStrategy, flushDelayInSeconds, flushSize);
 		this.poolSize = firstNonNull(poolSize, 1);
+		this.maxPoolSize = maxPoolSize == null && poolSize != null ? poolSize : maxPoolSize;
+		this.fairPool = fairPool;
 		this.socketTimeoutMs = firstNonNull(socketTimeoutMs, 200);
 		this.poolClaimTimeoutSeconds = firstNonNull(poolClaimTimeoutSeconds, 1);
 		this.protocol = firstNonNull(protocol, DEFAULT_PROTOCOL);
 		this.socketExpirationMs = firstNonNull(socketExpirationMs, 0);
+		this.nonBlocking = nonBlocking;
+		this.loadBalancing = LoadBalancing.fromName(loadBalancing);
+		this.healthCheckIntervalSeconds = firstNonNull(healthCheckIntervalSeconds, 10);
+		this.spoolDirectory = spoolDirectory == null ? null : new File(spoolDirectory);
+		this.spoolMaxBytes = firstNonNull(spoolMaxBytes, DiskSpool.DEFAULT_MAX_BYTES);
+		this.spoolReplayBytesPerSecond = firstNonNull(spoolReplayBytesPerSecond, SpoolingOutputWriter.DEFAULT_REPLAY_BYTES_PER_SECOND);
+		this.retryBufferBytes = firstNonNull(retryBufferBytes, 0);
+		this.retryOverflowPolicy = OverflowPolicy.fromName(retryOverflowPolicy);
+		this.compression = Compression.fromName(compression);
+		this.tls = tls;
+		checkArgument(graphiteServers.size() == 1 || !"udp".equals(this.protocol), "Several endpoints are only supported with tcp protocol.");
+		checkArgument(this.spoolDirectory == null || !"udp".equals(this.protocol), "Spooling is only supported with tcp protocol.");
+		checkArgument(this.retryBufferBytes <= 0 || !"udp".equals(this.protocol), "Retry buffer is only supported with tcp protocol.");
+		checkArgument(this.compression == Compression.NONE || !"udp".equals(this.protocol), "Compression is only supported with tcp protocol.");
+		checkArgument(!tls || !"udp".equals(this.protocol), "TLS is only supported with tcp protocol.");
+		checkArgument(this.spoolDirectory == null || this.retryBufferBytes <= 0, "Spooling and retry buffer cannot be used together.");
+		checkArgument(this.compression == Compression.NONE || !nonBlocking, "Compression is not supported by non blocking writers.");
+		checkArgument(!tls || !nonBlocking, "TLS is not supported by non blocking writers.");
+		checkArgument(this.spoolDirectory == null || !nonBlocking, "Spooling is not supported by non blocking writers.");
+		checkArgument(this.retryBufferBytes <= 0 || !nonBlocking, "Retry buffer is not supported by non blocking writers.");
 	}
 
 	@Override
-	public ResultTransformerOutputWriter<WriterPoolOutputWriter<GraphiteWriter2>> create() {
+	public ResultTransformerOutputWriter<OutputWriter> create() {
+		return create(0);
+	}
+
+	@Override
+	public ResultTransformerOutputWriter<OutputWriter> create(int concurrency) {
 
-		WriterPoolOutputWriter<GraphiteWriter2> writerPoolOutputWriter;
+		OutputWriter outputWriter;
 		// check if we want to use udp protocol or fallback on default tcp protocol
 		if ("udp".equals(this.protocol)) {
-			writerPoolOutputWriter = UdpOutputWriterBuilder.builder(graphiteServer, new GraphiteWriter2(typeNames, rootPrefix))
+			outputWriter = UdpOutputWriterBuilder.builder(graphiteServers.get(0), new GraphiteWriter2(typeNames, rootPrefix))
 					.setCharset(UTF_8)
 					.setFlushStrategy(flushStrategy)
 					.setPoolSize(poolSize)
 					.setPoolClaimTimeoutSeconds(poolClaimTimeoutSeconds)
 					.build();
 		} else {
-			writerPoolOutputWriter = TcpOutputWriterBuilder.builder(graphiteServer, new GraphiteWriter2(typeNames, rootPrefix))
+			TcpOutputWriterBuilder<GraphiteWriter2> builder = TcpOutputWriterBuilder.builder(graphiteServers, new GraphiteWriter2(typeNames, rootPrefix))
 					.setCharset(UTF_8)
 					.setFlushStrategy(flushStrategy)
 					.setPoolSize(poolSize)
+					.setMaxPoolSize(maxPoolSize == null ? Math.max(poolSize, concurrency) : maxPoolSize)
+					.setFairPool(fairPool)
 					.setSocketTimeoutMillis(socketTimeoutMs)
 					.setPoolClaimTimeoutSeconds(poolClaimTimeoutSeconds)
 					.setSocketExpirationMs(socketExpirationMs)
-					.build();
+					.setCompression(compression)
+					.setTls(tls)
+					.setNonBlocking(nonBlocking)
+					.setLoadBalancing(loadBalancing)
+					.setHealthCheckIntervalSeconds(healthCheckIntervalSeconds)
+					.setSpoolDirectory(spoolDirectory)
+					.setSpoolMaxBytes(spoolMaxBytes)
+					.setSpoolReplayBytesPerSecond(spoolReplayBytesPerSecond)
+					.setRetryBufferBytes(retryBufferBytes)
+					.setRetryOverflowPolicy(retryOverflowPolicy);
+			outputWriter = builder.buildWriter();
 
 		}
 
-		return ResultTransformerOutputWriter.booleanToNumber(booleanAsNumber, writerPoolOutputWriter);
+		return ResultTransformerOutputWriter.transformValues(booleanAsNumber, valueTransformers, outputWriter);
 
 	}
 
@@ -22,6 +22,7 @@
  */
 package com.googlecode.jmxtrans.model.output;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.Base64Variants;
 import com.fasterxml.jackson.core.JsonFactory;
@@ -30,6 +31,7 @@ import com.googlecode.jmxtrans.model.OutputWriterFactory;
 import com.googlecode.jmxtrans.model.output.support.HttpOutputWriter;
 import com.googlecode.jmxtrans.model.output.support.HttpUrlConnectionConfigurer;
 import com.googlecode.jmxtrans.model.output.support.ResultTransformerOutputWriter;
+import com.googlecode.jmxtrans.model.results.ValueTransformer;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
@@ -38,6 +40,7 @@ import javax.annotation.Nullable;
 import java.net.InetSocketAddress;
 import java.net.Proxy;
 import java.net.URL;
+import java.util.List;
 
 import static com.google.common.base.Charsets.US_ASCII;
 import static com.google.common.base.Charsets.UTF_8;
@@ -48,15 +51,31 @@ import static com.google.common.base.Preconditions.checkNotNull;
 @ToString
 public class LibratoWriterFactory implements OutputWriterFactory {
 	private final boolean booleanAsNumber;
+	private final ImmutableList<ValueTransformer> valueTransformers;
 	@Nonnull private final ImmutableList<String> typeNames;
 	@Nonnull private final URL url;
 	@Nullable private final Proxy proxy;
 	@Nonnull private final int readTimeoutInMillis;
 	@Nullable private final String authorization;
 
+	public LibratoWriterFactory(
+			ImmutableList<String> typeNames,
+			boolean booleanAsNumber,
+			URL url,
+			Integer readTimeoutInMillis,
+			String username,
+			String token,
+			String proxyHost,
+			Integer proxyPort) {
+		this(typeNames, booleanAsNumber, ImmutableList.<ValueTransformer>of(), url, readTimeoutInMillis,
+				username, token, proxyHost, proxyPort);
+	}
+
+	@JsonCreator
 	public LibratoWriterFactory(
 			@JsonProperty("typeNames") ImmutableList<String> typeNames,
 			@JsonProperty("booleanAsNumber") boolean booleanAsNumber,
+			@JsonProperty("valueTransformers") List<ValueTransformer> valueTransformers,
 			@JsonProperty("url") URL url,
 			@JsonProperty("libratoApiTimeoutInMillis") Integer readTimeoutInMillis,
 			@JsonProperty("username") String username,
@@ -64,6 +83,7 @@ public class LibratoWriterFactory implements OutputWriterFactory {
 			@JsonProperty("proxyHost") String proxyHost,
 			@JsonProperty("proxyPort") Integer proxyPort) {
 		this.booleanAsNumber = booleanAsNumber;
+		this.valueTransformers = valueTransformers == null ? ImmutableList.<ValueTransformer>of() : ImmutableList.copyOf(valueTransformers);
 		this.typeNames = firstNonNull(typeNames, ImmutableList.<String>of());
 		this.url = checkNotNull(url);
 		this.readTimeoutInMillis = firstNonNull(readTimeoutInMillis, 1000);
@@ -87,8 +107,9 @@ public class LibratoWriterFactory implements OutputWriterFactory {
 
 	@Override
 	public ResultTransformerOutputWriter<HttpOutputWriter<LibratoWriter2>> create() {
-		return ResultTransformerOutputWriter.booleanToNumber(
+		return ResultTransformerOutputWriter.transformValues(
 				booleanAsNumber,
+				valueTransformers,
 				new HttpOutputWriter<LibratoWriter2>(
 						new LibratoWriter2(
 								new JsonFactory(),
@@ -27,22 +27,33 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.googlecode.jmxtrans.exceptions.LifecycleException;
+import com.googlecode.jmxtrans.model.OutputWriter;
 import com.googlecode.jmxtrans.model.OutputWriterFactory;
+import com.googlecode.jmxtrans.model.output.support.LoadBalancing;
 import com.googlecode.jmxtrans.model.output.support.ResultTransformerOutputWriter;
+import com.googlecode.jmxtrans.model.output.support.ServerAddresses;
+import com.googlecode.jmxtrans.model.output.support.SpoolingOutputWriter;
 import com.googlecode.jmxtrans.model.output.support.TcpOutputWriterBuilder;
-import com.googlecode.jmxtrans.model.output.support.WriterPoolOutputWriter;
 import com.googlecode.jmxtrans.model.output.support.opentsdb.OpenTSDBMessageFormatter;
+import com.googlecode.jmxtrans.model.output.support.pool.Compression;
 import com.googlecode.jmxtrans.model.output.support.pool.FlushStrategy;
+import com.googlecode.jmxtrans.model.output.support.retry.OverflowPolicy;
+import com.googlecode.jmxtrans.model.output.support.spool.DiskSpool;
+import com.googlecode.jmxtrans.model.results.ValueTransformer;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
+import java.io.File;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.util.List;
 import java.util.Map;
 
 import static com.google.common.base.MoreObjects.firstNonNull;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.googlecode.jmxtrans.model.output.support.pool.FlushStrategyUtils.createFlushStrategy;
 
 @ThreadSafe
@@ -51,30 +62,88 @@ import static com.googlecode.jmxtrans.model.output.support.pool.FlushStrategyUti
 public class OpenTSDBWriterFactory implements OutputWriterFactory {
 
 	@Nonnull private final boolean booleanAsNumber;
-	@Nonnull private final InetSocketAddress server;
+	private final ImmutableList<ValueTransformer> valueTransformers;
+	/** Results are spread over the servers when there are several of them. */
+	@Nonnull private final ImmutableList<InetSocketAddress> servers;
 	@Nonnull private final OpenTSDBMessageFormatter messageFormatter;
 	@Nonnull private final FlushStrategy flushStrategy;
 	private final int poolSize;
+	/**
+	 * Pools grow up to this size while writers are waited for. Unless sized,
+	 * they grow up to the number of threads writing results, when it is known.
+	 */
+	@Nullable private final Integer maxPoolSize;
+	/** Writers are given in turn to the threads waiting for them. */
+	private final boolean fairPool;
+	@Nonnull private final LoadBalancing loadBalancing;
+	private final int healthCheckIntervalSeconds;
+	/** Results that could not be sent are kept in this directory until they are, when set. */
+	@Nullable private final File spoolDirectory;
+	private final long spoolMaxBytes;
+	private final int spoolReplayBytesPerSecond;
+	/** Results that could not be sent are kept in memory up to this size, and sent again, when set. */
+	private final int retryBufferBytes;
+	@Nonnull private final OverflowPolicy retryOverflowPolicy;
+	/** Compression of the stream sent on each connection, the servers must expect it. */
+	@Nonnull private final Compression compression;
+	/** Sends over TLS with the default SSL context, the certificates of the servers must match their host names. */
+	private final boolean tls;
+
+	public OpenTSDBWriterFactory(
+			ImmutableList<String> typeNames,
+			boolean booleanAsNumber,
+			String host,
+			Integer port,
+			Map<String, String> tags,
+			String tagName,
+			Boolean mergeTypeNamesTags,
+			String metricNamingExpression,
+			Boolean addHostnameTag,
+			String flushStrategy,
+			Integer flushDelayInSeconds,
+			Integer poolSize) throws LifecycleException, UnknownHostException {
+		this(typeNames, booleanAsNumber, ImmutableList.<ValueTransformer>of(), host, port, tags, tagName,
+				mergeTypeNamesTags, metricNamingExpression, null, addHostnameTag,
+				flushStrategy, flushDelayInSeconds, null, poolSize, null, false,
+				null, null, null, null, null, null, null, null, null, false);
+	}
 
 	@JsonCreator
 	public OpenTSDBWriterFactory(
 			@JsonProperty("typeNames") ImmutableList<String> typeNames,
 			@JsonProperty("booleanAsNumber") boolean booleanAsNumber,
+			@JsonProperty("valueTransformers") List<ValueTransformer> valueTransformers,
 			@JsonProperty("host") String host,
 			@JsonProperty("port") Integer port,
 			@JsonProperty("tags") Map<String, String> tags,
 			@JsonProperty("tagName") String tagName,
 			@JsonProperty("mergeTypeNamesTags") Boolean mergeTypeNamesTags,
 			@JsonProperty("metricNamingExpression") String metricNamingExpression,
+			@JsonProperty("metricNamingTemplate") String metricNamingTemplate,
 			@JsonProperty("addHostnameTag") Boolean addHostnameTag,
 			@JsonProperty("flushStrategy") String flushStrategy,
 			@JsonProperty("flushDelayInSeconds") Integer flushDelayInSeconds,
-			@JsonProperty("poolSize") Integer poolSize) throws LifecycleException, UnknownHostException {
+			@JsonProperty("flushSize") Integer flushSize,
+			@JsonProperty("poolSize") Integer poolSize,
+			@JsonProperty("maxPoolSize") Integer maxPoolSize,
+			@JsonProperty("fairPool") boolean fairPool,
+			@JsonProperty("endpoints") List<String> endpoints,
+			@JsonProperty("loadBalancing") String loadBalancing,
+			@JsonProperty("healthCheckIntervalSeconds") Integer healthCheckIntervalSeconds,
+			@JsonProperty("spoolDirectory") String spoolDirectory,
+			@JsonProperty("spoolMaxBytes") Long spoolMaxBytes,
+			@JsonProperty("spoolReplayBytesPerSecond") Integer spoolReplayBytesPerSecond,
+			@JsonProperty("retryBufferBytes") Integer retryBufferBytes,
+			@JsonProperty("retryOverflowPolicy") String retryOverflowPolicy,
+			@JsonProperty("compression") String compression,
+			@JsonProperty("tls") boolean tls) throws LifecycleException, UnknownHostException {
 
 		this.booleanAsNumber = booleanAsNumber;
-		this.server = new InetSocketAddress(
+		this.valueTransformers = valueTransformers == null ? ImmutableList.<ValueTransformer>of() : ImmutableList.copyOf(valueTransformers);
+		this.servers = ServerAddresses.parse(
 				firstNonNull(host, "localhost"),
-				firstNonNull(port, 3030));
+				firstNonNull(port, 3030),
+				endpoints);
 
 		ImmutableMap<String, String> immutableTags =
 				tags == null ? ImmutableMap.<String, String>of() : ImmutableMap.copyOf(tags);
@@ -83,21 +152,50 @@ public class OpenTSDBWriterFactory implements OutputWriterFactory {
 
 		messageFormatter = new OpenTSDBMessageFormatter(
 				(typeNames == null) ? ImmutableList.<String>of() : typeNames,
-				immutableTags, tagName, metricNamingExpression, mergeTypeNamesTags,
+				immutableTags, tagName, metricNamingExpression, metricNamingTemplate, mergeTypeNamesTags,
 				firstNonNull(addHostnameTag, false));
-		this.flushStrategy = createFlushStrategy(flushStrategy, flushDelayInSeconds);
+		this.flushStrategy = createFlushStrategy(flushStrategy, flushDelayInSeconds, flushSize);
 		this.poolSize = firstNonNull(poolSize, 1);
+		this.maxPoolSize = maxPoolSize == null && poolSize != null ? poolSize : maxPoolSize;
+		this.fairPool = fairPool;
+		this.loadBalancing = LoadBalancing.fromName(loadBalancing);
+		this.healthCheckIntervalSeconds = firstNonNull(healthCheckIntervalSeconds, 10);
+		this.spoolDirectory = spoolDirectory == null ? null : new File(spoolDirectory);
+		this.spoolMaxBytes = firstNonNull(spoolMaxBytes, DiskSpool.DEFAULT_MAX_BYTES);
+		this.spoolReplayBytesPerSecond = firstNonNull(spoolReplayBytesPerSecond, SpoolingOutputWriter.DEFAULT_REPLAY_BYTES_PER_SECOND);
+		this.retryBufferBytes = firstNonNull(retryBufferBytes, 0);
+		this.retryOverflowPolicy = OverflowPolicy.fromName(retryOverflowPolicy);
+		this.compression = Compression.fromName(compression);
+		this.tls = tls;
+		checkArgument(this.spoolDirectory == null || this.retryBufferBytes <= 0, "Spooling and retry buffer cannot be used together.");
+	}
+
+	@Override
+	public ResultTransformerOutputWriter<OutputWriter> create() {
+		return create(0);
 	}
 
 	@Override
-	public ResultTransformerOutputWriter<WriterPoolOutputWriter<OpenTSDBWriter2>> create() {
-		return ResultTransformerOutputWriter.booleanToNumber(
+	public ResultTransformerOutputWriter<OutputWriter> create(int concurrency) {
+		TcpOutputWriterBuilder<OpenTSDBWriter2> builder = TcpOutputWriterBuilder
+				.builder(servers, new OpenTSDBWriter2(messageFormatter))
+				.setFlushStrategy(flushStrategy)
+				.setPoolSize(poolSize)
+				.setMaxPoolSize(maxPoolSize == null ? Math.max(poolSize, concurrency) : maxPoolSize)
+				.setFairPool(fairPool)
+				.setCompression(compression)
+				.setTls(tls)
+				.setLoadBalancing(loadBalancing)
+				.setHealthCheckIntervalSeconds(healthCheckIntervalSeconds)
+				.setSpoolDirectory(spoolDirectory)
+				.setSpoolMaxBytes(spoolMaxBytes)
+				.setSpoolReplayBytesPerSecond(spoolReplayBytesPerSecond)
+				.setRetryBufferBytes(retryBufferBytes)
+				.setRetryOverflowPolicy(retryOverflowPolicy);
+		return ResultTransformerOutputWriter.<OutputWriter>transformValues(
 				booleanAsNumber,
-				TcpOutputWriterBuilder
-						.builder(server, new OpenTSDBWriter2(messageFormatter))
-						.setFlushStrategy(flushStrategy)
-						.setPoolSize(poolSize)
-						.build()
+				valueTransformers,
+				builder.buildWriter()
 		);
 	}
 }
@@ -22,6 +22,7 @@
  */
 package com.googlecode.jmxtrans.model.output;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.google.common.collect.ImmutableList;
@@ -30,12 +31,14 @@ import com.googlecode.jmxtrans.model.output.support.ResultTransformerOutputWrite
 import com.googlecode.jmxtrans.model.output.support.TcpOutputWriterBuilder;
 import com.googlecode.jmxtrans.model.output.support.WriterPoolOutputWriter;
 import com.googlecode.jmxtrans.model.output.support.pool.FlushStrategy;
+import com.googlecode.jmxtrans.model.results.ValueTransformer;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.net.InetSocketAddress;
+import java.util.List;
 
 import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.googlecode.jmxtrans.model.output.support.pool.FlushStrategyUtils.createFlushStrategy;
@@ -45,15 +48,31 @@ import static com.googlecode.jmxtrans.model.output.support.pool.FlushStrategyUti
 public class SensuWriterFactory implements OutputWriterFactory {
 
 	private final boolean booleanAsNumber;
+	private final ImmutableList<ValueTransformer> valueTransformers;
 	@Nonnull private final InetSocketAddress server;
 	@Nonnull private final ImmutableList<String> typeNames;
 	@Nullable private final String rootPrefix;
 	@Nonnull private final FlushStrategy flushStrategy;
 	private final int poolSize;
 
+	public SensuWriterFactory(
+			ImmutableList<String> typeNames,
+			boolean booleanAsNumber,
+			String host,
+			Integer port,
+			String rootPrefix,
+			String flushStrategy,
+			Integer flushDelayInSeconds,
+			Integer poolSize) {
+		this(typeNames, booleanAsNumber, ImmutableList.<ValueTransformer>of(), host, port, rootPrefix,
+				flushStrategy, flushDelayInSeconds, poolSize);
+	}
+
+	@JsonCreator
 	public SensuWriterFactory(
 			@JsonProperty("typeNames") ImmutableList<String> typeNames,
 			@JsonProperty("booleanAsNumber") boolean booleanAsNumber,
+			@JsonProperty("valueTransformers") List<ValueTransformer> valueTransformers,
 			@JsonProperty("host") String host,
 			@JsonProperty("port") Integer port,
 			@JsonProperty("rootPrefix") String rootPrefix,
@@ -63,6 +82,7 @@ public class SensuWriterFactory implements OutputWriterFactory {
 		this.rootPrefix = rootPrefix;
 		this.typeNames = firstNonNull(typeNames, ImmutableList.<String>of());
 		this.booleanAsNumber = booleanAsNumber;
+		this.valueTransformers = valueTransformers == null ? ImmutableList.<ValueTransformer>of() : ImmutableList.copyOf(valueTransformers);
 		this.server = new InetSocketAddress(
 				firstNonNull(host, "localhost"),
 				firstNonNull(port, 3030));
@@ -72,8 +92,9 @@ public class SensuWriterFactory implements OutputWriterFactory {
 
 	@Override
 	public ResultTransformerOutputWriter<WriterPoolOutputWriter<SensuWriter2>> create() {
-		return ResultTransformerOutputWriter.booleanToNumber(
+		return ResultTransformerOutputWriter.transformValues(
 				booleanAsNumber,
+				valueTransformers,
 				TcpOutputWriterBuilder.builder(
 						server,
 						new SensuWriter2(
@@ -32,6 +32,7 @@ import com.googlecode.jmxtrans.model.Query;
 import com.googlecode.jmxtrans.model.Result;
 import com.googlecode.jmxtrans.model.Server;
 import com.googlecode.jmxtrans.model.ValidationException;
+import com.googlecode.jmxtrans.model.naming.CharSanitizer;
 import com.googlecode.jmxtrans.model.naming.KeyUtils;
 import com.googlecode.jmxtrans.model.results.CPrecisionValueTransformer;
 import com.googlecode.jmxtrans.model.results.ValueTransformer;
@@ -54,7 +55,6 @@ import java.nio.ByteBuffer;
 import java.nio.channels.DatagramChannel;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.googlecode.jmxtrans.util.NumberUtils.isNumeric;
@@ -67,8 +67,8 @@ import static java.util.concurrent.TimeUnit.MINUTES;
  *
  * @author neilh
  */
-@EqualsAndHashCode(exclude = {"pool", "mbean"})
-@ToString
+@EqualsAndHashCode(exclude = {"pool", "mbean", "invalidCharSanitizer"})
+@ToString(exclude = "invalidCharSanitizer")
 public class StatsDWriter extends BaseOutputWriter {
 
 	private static final Logger log = LoggerFactory.getLogger(StatsDWriter.class);
@@ -76,13 +76,15 @@ public class StatsDWriter extends BaseOutputWriter {
 	private static final String BUCKET_TYPE = "bucketType";
 	private static final String STRING_VALUE_AS_KEY = "stringValuesAsKey";
 	private static final String STRING_VALUE_DEFAULT_COUNTER = "stringValueDefaultCount";
-	private static final Pattern STATSD_INVALID = Pattern.compile("[:|]");
+	/** These characters can mess with formatting. */
+	private static final String STATSD_INVALID = ":|";
 
 	private final ByteBuffer sendBuffer;
 
 	private final String bucketType;
 	private final String rootPrefix;
 	private final String replacementForInvalidChar;
+	private final CharSanitizer invalidCharSanitizer;
 	private final InetSocketAddress address;
 	private final DatagramChannel channel;
 	private final Boolean stringsValuesAsKey;
@@ -135,6 +137,10 @@ public class StatsDWriter extends BaseOutputWriter {
 			port = Settings.getIntegerSetting(getSettings(), PORT, null);
 		}
 		this.replacementForInvalidChar = MoreObjects.firstNonNull(replacementForInvalidChar, "_");
+		this.invalidCharSanitizer = CharSanitizer.builder()
+				.replace(STATSD_INVALID)
+				.replacement(this.replacementForInvalidChar)
+				.build();
 
 		checkNotNull(host, "Host cannot be null");
 		checkNotNull(port, "Port cannot be null");
@@ -194,8 +200,7 @@ public class StatsDWriter extends BaseOutputWriter {
 				continue;
 			}
 
-			// These characters can mess with formatting.
-			String line = STATSD_INVALID.matcher(key).replaceAll(this.replacementForInvalidChar)
+			String line = invalidCharSanitizer.sanitize(key)
 				+ computeActualValue(result.getValue()) + "|" + bucketType + "\n";
 
 			doSend(line.trim());
@@ -25,6 +25,7 @@ package com.googlecode.jmxtrans.model.output;
 import com.googlecode.jmxtrans.model.Query;
 import com.googlecode.jmxtrans.model.Result;
 import com.googlecode.jmxtrans.model.Server;
+import com.googlecode.jmxtrans.model.naming.CharSanitizer;
 import com.googlecode.jmxtrans.model.naming.KeyUtils;
 import com.googlecode.jmxtrans.model.output.support.WriterBasedOutputWriter;
 import com.googlecode.jmxtrans.model.results.CPrecisionValueTransformer;
@@ -36,7 +37,6 @@ import javax.annotation.Nonnull;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.List;
-import java.util.regex.Pattern;
 
 import static com.googlecode.jmxtrans.util.NumberUtils.isNumeric;
 
@@ -55,12 +55,13 @@ public class StatsDWriter2 implements WriterBasedOutputWriter {
 	@Nonnull
 	private final String stringValueDefaultCount;
 	@Nonnull
-	private final String replacementForInvalidChar;
+	private final CharSanitizer invalidCharSanitizer;
 
 	@Nonnull
 	private final ValueTransformer valueTransformer = new CPrecisionValueTransformer();
 
-	private static final Pattern STATSD_INVALID = Pattern.compile("[:|]");
+	/** These characters can mess with formatting. */
+	private static final String STATSD_INVALID = ":|";
 
 	public StatsDWriter2(
 			@Nonnull List<String> typeNames,
@@ -74,7 +75,10 @@ public class StatsDWriter2 implements WriterBasedOutputWriter {
 		this.stringsValuesAsKey = stringsValuesAsKey;
 		this.bucketType = bucketType;
 		this.stringValueDefaultCount = stringValueDefaultCount.toString();
-		this.replacementForInvalidChar = replacementForInvalidChar;
+		this.invalidCharSanitizer = CharSanitizer.builder()
+				.replace(STATSD_INVALID)
+				.replacement(replacementForInvalidChar)
+				.build();
 
 	}
 
@@ -87,8 +91,7 @@ public class StatsDWriter2 implements WriterBasedOutputWriter {
 				continue;
 			}
 
-			// These characters can mess with formatting.
-			String line = STATSD_INVALID.matcher(key).replaceAll(replacementForInvalidChar)
+			String line = invalidCharSanitizer.sanitize(key)
 				+ computeActualValue(result.getValue()) + "|" + bucketType + "\n";
 
 			writer.write(line);
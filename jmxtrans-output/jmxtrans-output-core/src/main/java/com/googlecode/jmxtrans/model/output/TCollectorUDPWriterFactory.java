@@ -33,6 +33,7 @@ import com.googlecode.jmxtrans.model.output.support.ResultTransformerOutputWrite
 import com.googlecode.jmxtrans.model.output.support.UdpOutputWriterBuilder;
 import com.googlecode.jmxtrans.model.output.support.opentsdb.OpenTSDBMessageFormatter;
 import com.googlecode.jmxtrans.model.output.support.pool.FlushStrategy;
+import com.googlecode.jmxtrans.model.results.ValueTransformer;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
@@ -40,6 +41,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.concurrent.ThreadSafe;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.util.List;
 import java.util.Map;
 
 import static com.google.common.base.MoreObjects.firstNonNull;
@@ -51,27 +53,49 @@ import static com.googlecode.jmxtrans.model.output.support.pool.FlushStrategyUti
 public class TCollectorUDPWriterFactory implements OutputWriterFactory {
 
 	@Nonnull private final boolean booleanAsNumber;
+	private final ImmutableList<ValueTransformer> valueTransformers;
 	@Nonnull private final InetSocketAddress server;
 	@Nonnull private final OpenTSDBMessageFormatter messageFormatter;
 	@Nonnull private final FlushStrategy flushStrategy;
 	private final int poolSize;
 
+	public TCollectorUDPWriterFactory(
+			ImmutableList<String> typeNames,
+			boolean booleanAsNumber,
+			String host,
+			Integer port,
+			Map<String, String> tags,
+			String tagName,
+			Boolean mergeTypeNamesTags,
+			String metricNamingExpression,
+			Boolean addHostnameTag,
+			String flushStrategy,
+			Integer flushDelayInSeconds,
+			Integer poolSize) throws LifecycleException, UnknownHostException {
+		this(typeNames, booleanAsNumber, ImmutableList.<ValueTransformer>of(), host, port, tags, tagName,
+				mergeTypeNamesTags, metricNamingExpression, null, addHostnameTag,
+				flushStrategy, flushDelayInSeconds, poolSize);
+	}
+
 	@JsonCreator
 	public TCollectorUDPWriterFactory(
 			@JsonProperty("typeNames") ImmutableList<String> typeNames,
 			@JsonProperty("booleanAsNumber") boolean booleanAsNumber,
+			@JsonProperty("valueTransformers") List<ValueTransformer> valueTransformers,
 			@JsonProperty("host") String host,
 			@JsonProperty("port") Integer port,
 			@JsonProperty("tags") Map<String, String> tags,
 			@JsonProperty("tagName") String tagName,
 			@JsonProperty("mergeTypeNamesTags") Boolean mergeTypeNamesTags,
 			@JsonProperty("metricNamingExpression") String metricNamingExpression,
+			@JsonProperty("metricNamingTemplate") String metricNamingTemplate,
 			@JsonProperty("addHostnameTag") Boolean addHostnameTag,
 			@JsonProperty("flushStrategy") String flushStrategy,
 			@JsonProperty("flushDelayInSeconds") Integer flushDelayInSeconds,
 			@JsonProperty("poolSize") Integer poolSize) throws LifecycleException, UnknownHostException {
 
 		this.booleanAsNumber = booleanAsNumber;
+		this.valueTransformers = valueTransformers == null ? ImmutableList.<ValueTransformer>of() : ImmutableList.copyOf(valueTransformers);
 		this.server = new InetSocketAddress(
 				firstNonNull(host, "localhost"),
 				firstNonNull(port, 3030));
@@ -80,15 +104,16 @@ public class TCollectorUDPWriterFactory implements OutputWriterFactory {
 				tags == null ? ImmutableMap.<String, String>of() : ImmutableMap.copyOf(tags);
 
 		messageFormatter = new OpenTSDBMessageFormatter(typeNames, immutableTags, tagName,
-				metricNamingExpression, mergeTypeNamesTags,
+				metricNamingExpression, metricNamingTemplate, mergeTypeNamesTags,
 				addHostnameTag);
 		this.flushStrategy = createFlushStrategy(flushStrategy, flushDelayInSeconds);
 		this.poolSize = firstNonNull(poolSize, 1);
 	}
 	@Override
 	public OutputWriter create() {
-		return ResultTransformerOutputWriter.booleanToNumber(
+		return ResultTransformerOutputWriter.transformValues(
 				booleanAsNumber,
+				valueTransformers,
 				UdpOutputWriterBuilder.builder(
 						server,
 						new TCollectorUDPWriter2(messageFormatter))
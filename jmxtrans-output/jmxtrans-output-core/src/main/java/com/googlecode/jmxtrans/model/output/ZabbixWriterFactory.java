@@ -22,6 +22,7 @@
  */
 package com.googlecode.jmxtrans.model.output;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.google.common.collect.ImmutableList;
@@ -30,12 +31,14 @@ import com.googlecode.jmxtrans.model.output.support.ResultTransformerOutputWrite
 import com.googlecode.jmxtrans.model.output.support.TcpOutputWriterBuilder;
 import com.googlecode.jmxtrans.model.output.support.WriterPoolOutputWriter;
 import com.googlecode.jmxtrans.model.output.support.pool.FlushStrategy;
+import com.googlecode.jmxtrans.model.results.ValueTransformer;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.ThreadSafe;
 import java.net.InetSocketAddress;
+import java.util.List;
 
 import static com.google.common.base.Charsets.UTF_8;
 import static com.google.common.base.MoreObjects.firstNonNull;
@@ -55,12 +58,27 @@ public class ZabbixWriterFactory implements OutputWriterFactory {
 	@Nonnull private final InetSocketAddress zabbixServer;
 	@Nonnull private final ImmutableList<String> typeNames;
 	private final boolean booleanAsNumber;
+	private final ImmutableList<ValueTransformer> valueTransformers;
 	@Nonnull private final FlushStrategy flushStrategy;
 	private final int poolSize;
 
+	public ZabbixWriterFactory(
+			ImmutableList<String> typeNames,
+			boolean booleanAsNumber,
+			String host,
+			Integer port,
+			String flushStrategy,
+			Integer flushDelayInSeconds,
+			Integer poolSize) {
+		this(typeNames, booleanAsNumber, ImmutableList.<ValueTransformer>of(), host, port,
+				flushStrategy, flushDelayInSeconds, poolSize);
+	}
+
+	@JsonCreator
 	public ZabbixWriterFactory(
 			@JsonProperty("typeNames") ImmutableList<String> typeNames,
 			@JsonProperty("booleanAsNumber") boolean booleanAsNumber,
+			@JsonProperty("valueTransformers") List<ValueTransformer> valueTransformers,
 			@JsonProperty("host") String host,
 			@JsonProperty("port") Integer port,
 			@JsonProperty("flushStrategy") String flushStrategy,
@@ -68,6 +86,7 @@ public class ZabbixWriterFactory implements OutputWriterFactory {
 			@JsonProperty("poolSize") Integer poolSize) {
 		this.typeNames = typeNames;
 		this.booleanAsNumber = booleanAsNumber;
+		this.valueTransformers = valueTransformers == null ? ImmutableList.<ValueTransformer>of() : ImmutableList.copyOf(valueTransformers);
 		this.zabbixServer = new InetSocketAddress(
 				checkNotNull(host, "Host cannot be null."),
 				checkNotNull(port, "Port cannot be null."));
@@ -77,8 +96,9 @@ public class ZabbixWriterFactory implements OutputWriterFactory {
 
 	@Override
 	public ResultTransformerOutputWriter<WriterPoolOutputWriter<ZabbixWriter>> create() {
-		return ResultTransformerOutputWriter.booleanToNumber(
+		return ResultTransformerOutputWriter.transformValues(
 				booleanAsNumber,
+				valueTransformers,
 				TcpOutputWriterBuilder.builder(
 						zabbixServer,
 						new ZabbixWriter(new JsonFactory(), typeNames)
@@ -0,0 +1,148 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support;
+
+import com.googlecode.jmxtrans.model.Query;
+import com.googlecode.jmxtrans.model.Result;
+import com.googlecode.jmxtrans.model.Server;
+import com.googlecode.jmxtrans.model.output.support.pool.NioTcpSenderMXBean;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A server of a {@link LoadBalancingOutputWriter}, with its pool of writers.
+ */
+@ThreadSafe
+class Endpoint<T extends WriterBasedOutputWriter> {
+
+	private static final Logger log = LoggerFactory.getLogger(Endpoint.class);
+
+	@Nonnull @Getter private final InetSocketAddress address;
+	@Nonnull @Getter private final WriterPoolOutputWriter<T> writer;
+	/** Sender of the writers when they are non blocking. */
+	@Nullable private final NioTcpSenderMXBean sender;
+
+	private final AtomicInteger writesInProgress = new AtomicInteger();
+	private final AtomicBoolean healthy = new AtomicBoolean(true);
+	private final AtomicLong senderFailures = new AtomicLong();
+	private final AtomicLong senderDroppedBytes = new AtomicLong();
+
+	Endpoint(@Nonnull InetSocketAddress address, @Nonnull WriterPoolOutputWriter<T> writer, @Nullable NioTcpSenderMXBean sender) {
+		this.address = address;
+		this.writer = writer;
+		this.sender = sender;
+	}
+
+	void write(@Nonnull Server server, @Nonnull Query query, @Nonnull Iterable<Result> results) throws Exception {
+		writesInProgress.incrementAndGet();
+		try {
+			writer.doWrite(server, query, results);
+		} finally {
+			writesInProgress.decrementAndGet();
+		}
+	}
+
+	void writePayload(@Nonnull String payload) throws Exception {
+		writesInProgress.incrementAndGet();
+		try {
+			writer.writePayload(payload);
+		} finally {
+			writesInProgress.decrementAndGet();
+		}
+	}
+
+	/**
+	 * @return the bytes waiting to be sent when non blocking, otherwise the
+	 * number of writes in progress.
+	 */
+	long outstanding() {
+		return sender != null ? sender.getQueuedBytes() : writesInProgress.get();
+	}
+
+	/**
+	 * Writes to a non blocking sender do not fail when the server is
+	 * unavailable, the messages are queued, or dropped once the queue is full.
+	 * Whether the connection of the sender was established is not enough
+	 * either, as it is only established when messages are queued.
+	 *
+	 * @return true if the sender failed to connect or send, or dropped
+	 * messages, since the previous call.
+	 */
+	boolean senderFailed() {
+		if (sender == null) return false;
+		long failures = sender.getConnectionFailureCount();
+		long droppedBytes = sender.getDroppedBytes();
+		boolean failed = senderFailures.getAndSet(failures) != failures;
+		boolean dropped = senderDroppedBytes.getAndSet(droppedBytes) != droppedBytes;
+		return failed || dropped;
+	}
+
+	boolean isHealthy() {
+		return healthy.get();
+	}
+
+	/**
+	 * @return true if the endpoint was unhealthy.
+	 */
+	boolean markHealthy() {
+		return healthy.compareAndSet(false, true);
+	}
+
+	/**
+	 * @return true if the endpoint was healthy.
+	 */
+	boolean markUnhealthy() {
+		return healthy.compareAndSet(true, false);
+	}
+
+	/**
+	 * @return true if the server accepts connections.
+	 */
+	boolean probe(int timeoutMillis) {
+		// create new InetSocketAddress to ensure name resolution is done again
+		InetSocketAddress serverAddress = new InetSocketAddress(address.getHostName(), address.getPort());
+		try (Socket socket = new Socket()) {
+			socket.connect(serverAddress, timeoutMillis);
+			return true;
+		} catch (IOException e) {
+			log.debug("Health check of {} failed", address, e);
+			return false;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return address.getHostString() + ":" + address.getPort();
+	}
+}
@@ -0,0 +1,62 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import static java.lang.String.format;
+
+/**
+ * How results are spread over the servers of a {@link LoadBalancingOutputWriter}.
+ */
+public enum LoadBalancing {
+	/** Each write goes to the next server. */
+	ROUND_ROBIN("roundRobin"),
+	/** Results of a series always go to the same server, as long as it is available. */
+	CONSISTENT_HASHING("consistentHashing"),
+	/** Each write goes to the server having the least messages waiting to be sent. */
+	LEAST_OUTSTANDING_BYTES("leastOutstandingBytes");
+
+	@Nonnull private final String name;
+
+	LoadBalancing(@Nonnull String name) {
+		this.name = name;
+	}
+
+	@Nonnull
+	public static LoadBalancing fromName(@Nullable String name) {
+		if (name == null) return ROUND_ROBIN;
+		for (LoadBalancing loadBalancing : values()) {
+			if (loadBalancing.name.equals(name)) return loadBalancing;
+		}
+		throw new IllegalArgumentException(format(
+				"Load balancing %s is not valid, supported values are 'roundRobin', 'consistentHashing' and 'leastOutstandingBytes'",
+				name));
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
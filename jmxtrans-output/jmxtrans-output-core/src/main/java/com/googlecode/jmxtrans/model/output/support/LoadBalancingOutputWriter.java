@@ -0,0 +1,313 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.googlecode.jmxtrans.exceptions.LifecycleException;
+import com.googlecode.jmxtrans.executors.ExecutorFactory;
+import com.googlecode.jmxtrans.model.OutputWriterAdapter;
+import com.googlecode.jmxtrans.model.Query;
+import com.googlecode.jmxtrans.model.Result;
+import com.googlecode.jmxtrans.model.Server;
+import com.googlecode.jmxtrans.model.results.SeriesRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Spreads results over several servers receiving the same messages, each of
+ * them having its own pool of writers.
+ * <p/>
+ * Servers are chosen according to the {@link LoadBalancing}. With consistent
+ * hashing, servers own points of a hash ring and each series goes to the
+ * server owning the next point after its id, so that adding or removing a
+ * server only moves the series around its points.
+ * <p/>
+ * Results that could not be written to a server are written to another one.
+ * The failing server is removed from the load balancing, and added again
+ * once it passes a health check (a TCP connection). When all servers are
+ * removed, they are still tried.
+ * <p/>
+ * Non blocking writers queue results instead of failing, so their server is
+ * removed once its sender failed to connect or dropped messages. The results
+ * queued until then are not written to another server. Blocking writers only
+ * fail when writing to the socket fails: results written to the socket buffer
+ * of a connection lost since are neither detected nor written again.
+ */
+@ThreadSafe
+public class LoadBalancingOutputWriter<T extends WriterBasedOutputWriter> extends OutputWriterAdapter implements PayloadWriter {
+
+	private static final Logger log = LoggerFactory.getLogger(LoadBalancingOutputWriter.class);
+
+	/** Points of each server on the hash ring, so that series are spread evenly. */
+	private static final int POINTS_PER_SERVER = 160;
+
+	private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+	@Nonnull private final ImmutableList<Endpoint<T>> endpoints;
+	@Nonnull private final LoadBalancing loadBalancing;
+	private final int healthCheckIntervalSeconds;
+	private final int healthCheckTimeoutMillis;
+
+	/** Sorted points of the hash ring, and the index of the endpoint owning each of them. */
+	@Nonnull private final long[] ringPoints;
+	@Nonnull private final int[] ringOwners;
+
+	private final AtomicInteger nextEndpoint = new AtomicInteger();
+	@Nullable private ScheduledExecutorService healthChecks;
+
+	/**
+	 * @param healthCheckIntervalSeconds no health checks are run if not positive.
+	 */
+	LoadBalancingOutputWriter(
+			@Nonnull ImmutableList<Endpoint<T>> endpoints,
+			@Nonnull LoadBalancing loadBalancing,
+			int healthCheckIntervalSeconds,
+			int healthCheckTimeoutMillis) {
+		checkArgument(!endpoints.isEmpty(), "At least one endpoint is required");
+		this.endpoints = endpoints;
+		this.loadBalancing = loadBalancing;
+		this.healthCheckIntervalSeconds = healthCheckIntervalSeconds;
+		this.healthCheckTimeoutMillis = healthCheckTimeoutMillis;
+
+		TreeMap<Long, Integer> ring = new TreeMap<>();
+		for (int i = 0; i < endpoints.size(); i++) {
+			for (int point = 0; point < POINTS_PER_SERVER; point++) {
+				ring.put(HASH_FUNCTION.newHasher()
+						.putString(endpoints.get(i).toString(), UTF_8)
+						.putInt(point)
+						.hash().asLong(), i);
+			}
+		}
+		this.ringPoints = new long[ring.size()];
+		this.ringOwners = new int[ring.size()];
+		int index = 0;
+		for (Map.Entry<Long, Integer> point : ring.entrySet()) {
+			ringPoints[index] = point.getKey();
+			ringOwners[index] = point.getValue();
+			index++;
+		}
+	}
+
+	@Override
+	public void start() throws LifecycleException {
+		for (Endpoint<T> endpoint : endpoints) {
+			endpoint.getWriter().start();
+		}
+		if (healthCheckIntervalSeconds > 0) {
+			healthChecks = Executors.newSingleThreadScheduledExecutor(ExecutorFactory.threadFactory("endpoint-health-check"));
+			healthChecks.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					checkHealth();
+				}
+			}, healthCheckIntervalSeconds, healthCheckIntervalSeconds, SECONDS);
+		}
+	}
+
+	@Override
+	public void doWrite(Server server, Query query, Iterable<Result> results) throws Exception {
+		boolean[] failed = new boolean[endpoints.size()];
+		Exception failure = null;
+		List<Result> pending = ImmutableList.copyOf(results);
+		while (!pending.isEmpty()) {
+			ListMultimap<Integer, Result> batches = route(server, query, pending, failed);
+			if (batches == null) throw failure;
+
+			ImmutableList.Builder<Result> failedResults = ImmutableList.builder();
+			for (Integer index : batches.keySet()) {
+				Endpoint<T> endpoint = endpoints.get(index);
+				List<Result> batch = batches.get(index);
+				try {
+					endpoint.write(server, query, batch);
+					checkSender(endpoint);
+				} catch (Exception e) {
+					failed[index] = true;
+					failure = e;
+					failedResults.addAll(batch);
+					if (endpoint.markUnhealthy()) {
+						log.warn("Could not write to {}, it is removed from load balancing: {}", endpoint, e.getMessage());
+					}
+				}
+			}
+			pending = failedResults.build();
+		}
+	}
+
+	private void checkSender(Endpoint<T> endpoint) {
+		if (endpoint.senderFailed() && endpoint.markUnhealthy()) {
+			log.warn("Could not send messages to {}, it is removed from load balancing", endpoint);
+		}
+	}
+
+	/**
+	 * Sends the payload to the servers in turn, as it is not tied to a series.
+	 */
+	@Override
+	public void writePayload(@Nonnull String payload) throws Exception {
+		boolean[] failed = new boolean[endpoints.size()];
+		while (true) {
+			int index = nextEndpoint(failed);
+			Endpoint<T> endpoint = endpoints.get(index);
+			try {
+				endpoint.writePayload(payload);
+				checkSender(endpoint);
+				return;
+			} catch (Exception e) {
+				failed[index] = true;
+				if (endpoint.markUnhealthy()) {
+					log.warn("Could not write to {}, it is removed from load balancing: {}", endpoint, e.getMessage());
+				}
+				if (nextEndpoint(failed) < 0) throw e;
+			}
+		}
+	}
+
+	/**
+	 * @return the results to write to each endpoint, null if all endpoints failed.
+	 */
+	@Nullable
+	private ListMultimap<Integer, Result> route(Server server, Query query, List<Result> results, boolean[] failed) {
+		ListMultimap<Integer, Result> batches = ArrayListMultimap.create();
+		if (loadBalancing == LoadBalancing.CONSISTENT_HASHING) {
+			for (Result result : results) {
+				int index = ringOwner(SeriesRegistry.seriesId(server, query, result), failed);
+				if (index < 0) return null;
+				batches.put(index, result);
+			}
+		} else {
+			int index = loadBalancing == LoadBalancing.ROUND_ROBIN ? nextEndpoint(failed) : leastOutstanding(failed);
+			if (index < 0) return null;
+			batches.putAll(index, results);
+		}
+		return batches;
+	}
+
+	/**
+	 * @return the index of the first available endpoint after the point of
+	 * the series on the ring, -1 if all endpoints failed.
+	 */
+	@VisibleForTesting
+	int ringOwner(long seriesId, boolean[] failed) {
+		int start = Arrays.binarySearch(ringPoints, seriesId);
+		if (start < 0) start = -start - 1;
+		int fallback = -1;
+		for (int i = 0; i < ringPoints.length; i++) {
+			int owner = ringOwners[(start + i) % ringPoints.length];
+			if (failed[owner]) continue;
+			if (endpoints.get(owner).isHealthy()) return owner;
+			if (fallback < 0) fallback = owner;
+		}
+		return fallback;
+	}
+
+	private int nextEndpoint(boolean[] failed) {
+		int start = Math.floorMod(nextEndpoint.getAndIncrement(), endpoints.size());
+		int fallback = -1;
+		for (int i = 0; i < endpoints.size(); i++) {
+			int index = (start + i) % endpoints.size();
+			if (failed[index]) continue;
+			if (endpoints.get(index).isHealthy()) return index;
+			if (fallback < 0) fallback = index;
+		}
+		return fallback;
+	}
+
+	private int leastOutstanding(boolean[] failed) {
+		// ties are broken in turn
+		int start = Math.floorMod(nextEndpoint.getAndIncrement(), endpoints.size());
+		int best = -1;
+		long bestOutstanding = Long.MAX_VALUE;
+		boolean bestHealthy = false;
+		for (int i = 0; i < endpoints.size(); i++) {
+			int index = (start + i) % endpoints.size();
+			if (failed[index]) continue;
+			Endpoint<T> endpoint = endpoints.get(index);
+			boolean healthy = endpoint.isHealthy();
+			if (bestHealthy && !healthy) continue;
+			long outstanding = endpoint.outstanding();
+			if (best < 0 || (healthy && !bestHealthy) || outstanding < bestOutstanding) {
+				best = index;
+				bestOutstanding = outstanding;
+				bestHealthy = healthy;
+			}
+		}
+		return best;
+	}
+
+	@VisibleForTesting
+	void checkHealth() {
+		for (Endpoint<T> endpoint : endpoints) {
+			if (endpoint.probe(healthCheckTimeoutMillis)) {
+				// failures of the sender before the check are not held against the endpoint
+				endpoint.senderFailed();
+				if (endpoint.markHealthy()) {
+					log.info("{} is available again, it is added back to load balancing", endpoint);
+				}
+			} else if (endpoint.markUnhealthy()) {
+				log.warn("{} failed its health check, it is removed from load balancing", endpoint);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws LifecycleException {
+		if (healthChecks != null) {
+			healthChecks.shutdownNow();
+		}
+		LifecycleException failure = null;
+		for (Endpoint<T> endpoint : endpoints) {
+			try {
+				endpoint.getWriter().close();
+			} catch (LifecycleException e) {
+				log.warn("Could not close writer of {}", endpoint, e);
+				failure = e;
+			}
+		}
+		if (failure != null) throw failure;
+	}
+
+	@VisibleForTesting
+	ImmutableList<Endpoint<T>> getEndpoints() {
+		return endpoints;
+	}
+}
@@ -0,0 +1,66 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Registers the statistics of output writers on the platform MBean server.
+ * Failures are logged, statistics not being available is not a reason to
+ * stop writing results.
+ */
+public final class MBeanUtils {
+
+	private static final Logger log = LoggerFactory.getLogger(MBeanUtils.class);
+
+	private MBeanUtils() {}
+
+	public static void registerMBean(@Nonnull Object mbean, @Nonnull ObjectName mbeanName) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, mbeanName);
+		} catch (JMException e) {
+			log.warn("Could not register MBean {}", mbeanName, e);
+		}
+	}
+
+	/**
+	 * Does nothing if no MBean is registered under the given name.
+	 */
+	public static void unregisterMBean(@Nonnull ObjectName mbeanName) {
+		MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+		try {
+			if (mbeanServer.isRegistered(mbeanName)) {
+				mbeanServer.unregisterMBean(mbeanName);
+			}
+		} catch (JMException e) {
+			log.warn("Could not unregister MBean {}", mbeanName, e);
+		}
+	}
+}
@@ -0,0 +1,317 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.googlecode.jmxtrans.exceptions.LifecycleException;
+import com.googlecode.jmxtrans.executors.ExecutorFactory;
+import com.googlecode.jmxtrans.model.OutputWriter;
+import com.googlecode.jmxtrans.model.OutputWriterAdapter;
+import com.googlecode.jmxtrans.model.Query;
+import com.googlecode.jmxtrans.model.Result;
+import com.googlecode.jmxtrans.model.Server;
+import com.googlecode.jmxtrans.model.output.support.retry.OverflowPolicy;
+import com.googlecode.jmxtrans.model.output.support.retry.RetryBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.googlecode.jmxtrans.model.output.support.MBeanUtils.registerMBean;
+import static com.googlecode.jmxtrans.model.output.support.MBeanUtils.unregisterMBean;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Keeps the results that could not be written in a bounded {@link RetryBuffer},
+ * and sends them again with an exponential backoff, so that short failures of
+ * the destination do not lose results.
+ * <p/>
+ * Results are buffered as the text sent to the destination. Once a write
+ * failed, results are buffered without trying the destination until the
+ * buffer is sent, so that they are sent in order and writing threads never
+ * wait for the destination. Buffered results are sent from a background
+ * thread, the delay between attempts doubling after each failure. When the
+ * buffer is full, results are dropped according to the {@link OverflowPolicy}.
+ * <p/>
+ * Writes and buffered records only count as sent once the destination
+ * flushed them, see {@link PayloadWriter} and
+ * {@link WriterPoolOutputWriter#withFlushedWrites()}.
+ */
+@ThreadSafe
+public class RetryingOutputWriter<W extends OutputWriter & PayloadWriter> extends OutputWriterAdapter implements RetryingOutputWriterMXBean {
+
+	private static final Logger log = LoggerFactory.getLogger(RetryingOutputWriter.class);
+
+	public static final long DEFAULT_MIN_BACKOFF_MILLIS = 250;
+	public static final long DEFAULT_MAX_BACKOFF_MILLIS = 8000;
+
+	@Nonnull private final W destination;
+	@Nonnull private final WriterBasedOutputWriter formatter;
+	@Nonnull private final Charset charset;
+	@Nonnull private final OverflowPolicy overflowPolicy;
+	private final long minBackoffMillis;
+	private final long maxBackoffMillis;
+	@Nonnull private final ObjectName mbeanName;
+
+	@GuardedBy("buffer") @Nonnull private final RetryBuffer buffer;
+	/** Whether results are buffered, until the buffer is sent. */
+	@GuardedBy("buffer") private boolean retrying;
+	/** Number of records removed from the buffer, identifying the oldest one. */
+	@GuardedBy("buffer") private long removedRecords;
+	@GuardedBy("buffer") private boolean overflowed;
+
+	private volatile long backoffMillis;
+	private final LongAdder retriedRecords = new LongAdder();
+	private final LongAdder retryFailures = new LongAdder();
+	private final LongAdder droppedRecords = new LongAdder();
+	private final LongAdder droppedBytes = new LongAdder();
+
+	@Nullable private volatile ScheduledExecutorService retryExecutor;
+
+	public RetryingOutputWriter(
+			@Nonnull W destination,
+			@Nonnull WriterBasedOutputWriter formatter,
+			@Nonnull Charset charset,
+			int bufferCapacity,
+			@Nonnull OverflowPolicy overflowPolicy,
+			long minBackoffMillis,
+			long maxBackoffMillis,
+			@Nonnull ObjectName mbeanName) {
+		checkArgument(minBackoffMillis > 0, "Minimum backoff %s must be positive", minBackoffMillis);
+		checkArgument(maxBackoffMillis >= minBackoffMillis, "Maximum backoff %s must not be lower than minimum backoff %s", maxBackoffMillis, minBackoffMillis);
+		this.destination = destination;
+		this.formatter = formatter;
+		this.charset = charset;
+		this.buffer = new RetryBuffer(bufferCapacity);
+		this.overflowPolicy = overflowPolicy;
+		this.minBackoffMillis = minBackoffMillis;
+		this.maxBackoffMillis = maxBackoffMillis;
+		this.backoffMillis = minBackoffMillis;
+		this.mbeanName = mbeanName;
+	}
+
+	@Override
+	public void start() throws LifecycleException {
+		destination.start();
+		registerMBean(this, mbeanName);
+		retryExecutor = Executors.newSingleThreadScheduledExecutor(ExecutorFactory.threadFactory("write-retry"));
+		synchronized (buffer) {
+			if (retrying) scheduleRetry();
+		}
+	}
+
+	@Override
+	public void doWrite(Server server, Query query, Iterable<Result> results) throws Exception {
+		if (!isRetrying()) {
+			try {
+				destination.doWrite(server, query, results);
+				return;
+			} catch (Exception e) {
+				log.warn("Could not write results, they are retried in {}ms: {}", backoffMillis, e.getMessage());
+			}
+		}
+		buffer(server, query, results);
+	}
+
+	private void buffer(Server server, Query query, Iterable<Result> results) throws IOException {
+		StringWriter payload = new StringWriter();
+		formatter.write(payload, server, query, results);
+		byte[] record = payload.toString().getBytes(charset);
+
+		synchronized (buffer) {
+			if (RetryBuffer.footprint(record) > buffer.capacity()) {
+				drop(record.length, "Results of query {} are larger than the retry buffer, they are dropped", query);
+				return;
+			}
+			while (!buffer.fits(record)) {
+				if (overflowPolicy == OverflowPolicy.DROP_NEWEST) {
+					drop(record.length, "Retry buffer is full, results are dropped until it is sent");
+					return;
+				}
+				drop(buffer.remove(), "Retry buffer is full, oldest results are dropped until it is sent");
+				removedRecords++;
+			}
+			buffer.offer(record);
+			if (!retrying) {
+				retrying = true;
+				scheduleRetry();
+			}
+		}
+	}
+
+	@GuardedBy("buffer")
+	private void drop(int length, String message, Object... arguments) {
+		droppedRecords.increment();
+		droppedBytes.add(length);
+		if (!overflowed) {
+			overflowed = true;
+			log.warn(message, arguments);
+		}
+	}
+
+	@GuardedBy("buffer")
+	private void scheduleRetry() {
+		ScheduledExecutorService executor = retryExecutor;
+		if (executor == null || executor.isShutdown()) return;
+		executor.schedule(new Runnable() {
+			@Override
+			public void run() {
+				retry();
+			}
+		}, backoffMillis, MILLISECONDS);
+	}
+
+	/**
+	 * Sends the buffered records, oldest first, until the buffer is empty or
+	 * the destination fails.
+	 */
+	@VisibleForTesting
+	void retry() {
+		while (true) {
+			byte[] record;
+			long sequence;
+			synchronized (buffer) {
+				record = buffer.peek();
+				if (record == null) {
+					retrying = false;
+					overflowed = false;
+					backoffMillis = minBackoffMillis;
+					log.info("Buffered results were sent, results are written again");
+					return;
+				}
+				sequence = removedRecords;
+			}
+
+			try {
+				destination.writePayload(new String(record, charset));
+			} catch (Exception e) {
+				retryFailures.increment();
+				backoffMillis = Math.min(backoffMillis * 2, maxBackoffMillis);
+				log.debug("Could not send buffered results, retrying in {}ms", backoffMillis, e);
+				synchronized (buffer) {
+					scheduleRetry();
+				}
+				return;
+			}
+
+			retriedRecords.increment();
+			synchronized (buffer) {
+				// the record may have been dropped while it was sent
+				if (sequence == removedRecords) {
+					buffer.remove();
+					removedRecords++;
+				}
+			}
+		}
+	}
+
+	@Override
+	public void close() throws LifecycleException {
+		ScheduledExecutorService executor = retryExecutor;
+		if (executor != null) {
+			executor.shutdownNow();
+			try {
+				executor.awaitTermination(maxBackoffMillis, MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		try {
+			destination.close();
+		} finally {
+			synchronized (buffer) {
+				if (!buffer.isEmpty()) {
+					log.warn("Closed writer before sending {} buffered results", buffer.records());
+				}
+			}
+			unregisterMBean(mbeanName);
+		}
+	}
+
+	@Nonnull
+	public W getDestination() {
+		return destination;
+	}
+
+	@Override
+	public boolean isRetrying() {
+		synchronized (buffer) {
+			return retrying;
+		}
+	}
+
+	@Override
+	public long getBackoffMillis() {
+		return backoffMillis;
+	}
+
+	@Override
+	public int getBufferCapacity() {
+		return buffer.capacity();
+	}
+
+	@Override
+	public int getBufferedBytes() {
+		synchronized (buffer) {
+			return buffer.size();
+		}
+	}
+
+	@Override
+	public int getBufferedRecordCount() {
+		synchronized (buffer) {
+			return buffer.records();
+		}
+	}
+
+	@Override
+	public long getRetriedRecordCount() {
+		return retriedRecords.sum();
+	}
+
+	@Override
+	public long getRetryFailureCount() {
+		return retryFailures.sum();
+	}
+
+	@Override
+	public long getDroppedRecordCount() {
+		return droppedRecords.sum();
+	}
+
+	@Override
+	public long getDroppedBytes() {
+		return droppedBytes.sum();
+	}
+}
@@ -0,0 +1,139 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Bounded queue of bytes stored in a direct ring buffer, so that it is not
+ * scanned by the garbage collector.
+ * <p/>
+ * Bytes are added entirely or not at all, and wrap around the end of the
+ * buffer when needed. All queued bytes are sent at once, with a single
+ * gathering write when they wrap around. Nothing is allocated when queuing
+ * or sending.
+ */
+@NotThreadSafe
+public class RingBuffer {
+
+	@Nonnull private final ByteBuffer buffer;
+	/** Views of the queued bytes, before and after the end of the buffer. */
+	@Nonnull private final ByteBuffer[] slices;
+
+	private int head;
+	private int size;
+
+	public RingBuffer(int capacity) {
+		checkArgument(capacity > 0, "Capacity %s must be positive", capacity);
+		this.buffer = ByteBuffer.allocateDirect(capacity);
+		this.slices = new ByteBuffer[] {buffer.duplicate(), buffer.duplicate()};
+	}
+
+	public int capacity() {
+		return buffer.capacity();
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return false if the remaining bytes of the source do not fit, nothing
+	 * being queued.
+	 */
+	public boolean offer(@Nonnull ByteBuffer source) {
+		int length = source.remaining();
+		if (length > capacity() - size) return false;
+
+		int tail = (head + size) % capacity();
+		int limit = source.limit();
+		source.limit(source.position() + Math.min(length, capacity() - tail));
+		buffer.clear();
+		buffer.position(tail);
+		buffer.put(source);
+		source.limit(limit);
+		if (source.hasRemaining()) {
+			buffer.position(0);
+			buffer.put(source);
+		}
+		size += length;
+		return true;
+	}
+
+	/**
+	 * Copies queued bytes, without removing them.
+	 *
+	 * @param offset position of the first byte copied, from the oldest one.
+	 */
+	public void get(int offset, @Nonnull byte[] destination) {
+		checkArgument(offset >= 0 && offset + destination.length <= size,
+				"Cannot get %s bytes at %s out of %s", destination.length, offset, size);
+		int position = (head + offset) % capacity();
+		int first = Math.min(destination.length, capacity() - position);
+		buffer.clear();
+		buffer.position(position);
+		buffer.get(destination, 0, first);
+		if (first < destination.length) {
+			buffer.position(0);
+			buffer.get(destination, first, destination.length - first);
+		}
+	}
+
+	/**
+	 * Removes the given number of bytes, the oldest ones.
+	 */
+	public void remove(int length) {
+		checkArgument(length >= 0 && length <= size, "Cannot remove %s bytes out of %s", length, size);
+		head = (head + length) % capacity();
+		size -= length;
+		if (size == 0) head = 0;
+	}
+
+	/**
+	 * @return the number of bytes sent, that are removed from the queue.
+	 */
+	public int drainTo(@Nonnull GatheringByteChannel channel) throws IOException {
+		if (size == 0) return 0;
+
+		int end = head + size;
+		slices[0].clear();
+		slices[0].limit(Math.min(end, capacity()));
+		slices[0].position(head);
+		slices[1].clear();
+		slices[1].limit(Math.max(0, end - capacity()));
+
+		int written = (int) channel.write(slices);
+		remove(written);
+		return written;
+	}
+}
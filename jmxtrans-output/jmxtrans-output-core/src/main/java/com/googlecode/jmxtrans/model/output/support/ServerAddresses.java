@@ -0,0 +1,63 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.net.HostAndPort;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public final class ServerAddresses {
+	private ServerAddresses() {}
+
+	/**
+	 * @param endpoints servers as "host:port", the port defaulting to the given
+	 *                  one. The host and port are used when there is none.
+	 */
+	@Nonnull
+	public static ImmutableList<InetSocketAddress> parse(
+			@Nullable String host,
+			@Nullable Integer port,
+			@Nullable List<String> endpoints) {
+		if (endpoints == null || endpoints.isEmpty()) {
+			return ImmutableList.of(new InetSocketAddress(
+					checkNotNull(host, "Host cannot be null."),
+					checkNotNull(port, "Port cannot be null.")));
+		}
+
+		ImmutableList.Builder<InetSocketAddress> addresses = ImmutableList.builder();
+		for (String endpoint : endpoints) {
+			HostAndPort hostAndPort = HostAndPort.fromString(endpoint);
+			if (port != null) hostAndPort = hostAndPort.withDefaultPort(port);
+			checkArgument(hostAndPort.hasPort(), "Port of endpoint %s cannot be null.", endpoint);
+			addresses.add(new InetSocketAddress(hostAndPort.getHost(), hostAndPort.getPort()));
+		}
+		return addresses.build();
+	}
+}
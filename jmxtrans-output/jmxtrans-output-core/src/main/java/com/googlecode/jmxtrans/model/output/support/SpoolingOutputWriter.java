@@ -0,0 +1,264 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.googlecode.jmxtrans.exceptions.LifecycleException;
+import com.googlecode.jmxtrans.executors.ExecutorFactory;
+import com.googlecode.jmxtrans.model.OutputWriter;
+import com.googlecode.jmxtrans.model.OutputWriterAdapter;
+import com.googlecode.jmxtrans.model.Query;
+import com.googlecode.jmxtrans.model.Result;
+import com.googlecode.jmxtrans.model.Server;
+import com.googlecode.jmxtrans.model.output.support.spool.DiskSpool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.googlecode.jmxtrans.model.output.support.MBeanUtils.registerMBean;
+import static com.googlecode.jmxtrans.model.output.support.MBeanUtils.unregisterMBean;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Keeps the results that could not be written in a {@link DiskSpool}, and
+ * sends them again once the destination is available.
+ * <p/>
+ * Results are spooled as the text sent to the destination. Once a write
+ * failed, results are spooled without trying the destination, until a
+ * spooled record is sent. Spooled records are sent from a background thread,
+ * oldest first, at a limited rate so that the destination is not flooded
+ * when it comes back.
+ * <p/>
+ * Results are delivered at least once. When a write fails after part of the
+ * results were sent, all of them are spooled, and a spooled record is sent
+ * again whole when sending it failed partway, so the destination can receive
+ * some results twice. Writes and replayed records only count as sent once
+ * the destination flushed them, see {@link PayloadWriter} and
+ * {@link WriterPoolOutputWriter#withFlushedWrites()}.
+ */
+@ThreadSafe
+public class SpoolingOutputWriter<W extends OutputWriter & PayloadWriter> extends OutputWriterAdapter implements SpoolingOutputWriterMXBean {
+
+	private static final Logger log = LoggerFactory.getLogger(SpoolingOutputWriter.class);
+
+	public static final int DEFAULT_REPLAY_BYTES_PER_SECOND = 256 * 1024;
+
+	private static final long REPLAY_INTERVAL_MILLIS = 1000;
+
+	@Nonnull private final W destination;
+	@Nonnull private final WriterBasedOutputWriter formatter;
+	@Nonnull private final Charset charset;
+	@Nonnull private final DiskSpool spool;
+	private final int replayBytesPerSecond;
+	@Nonnull private final ObjectName mbeanName;
+
+	private final AtomicBoolean destinationAvailable = new AtomicBoolean(true);
+	private final LongAdder spooledRecords = new LongAdder();
+	private final LongAdder oversizedRecords = new LongAdder();
+	private final LongAdder replayedRecords = new LongAdder();
+	private final LongAdder replayedBytes = new LongAdder();
+	private final LongAdder replayFailures = new LongAdder();
+
+	@Nullable private ScheduledExecutorService replayExecutor;
+
+	public SpoolingOutputWriter(
+			@Nonnull W destination,
+			@Nonnull WriterBasedOutputWriter formatter,
+			@Nonnull Charset charset,
+			@Nonnull DiskSpool spool,
+			int replayBytesPerSecond,
+			@Nonnull ObjectName mbeanName) {
+		this.destination = destination;
+		this.formatter = formatter;
+		this.charset = charset;
+		this.spool = spool;
+		this.replayBytesPerSecond = replayBytesPerSecond;
+		this.mbeanName = mbeanName;
+	}
+
+	/**
+	 * Opens the spool, replaying the records it holds once the destination
+	 * is started.
+	 */
+	@Override
+	public void start() throws LifecycleException {
+		try {
+			spool.open();
+		} catch (IOException e) {
+			throw new LifecycleException("Could not open spool", e);
+		}
+		destination.start();
+		registerMBean(this, mbeanName);
+		replayExecutor = Executors.newSingleThreadScheduledExecutor(ExecutorFactory.threadFactory("spool-replay"));
+		replayExecutor.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				replay();
+			}
+		}, REPLAY_INTERVAL_MILLIS, REPLAY_INTERVAL_MILLIS, MILLISECONDS);
+	}
+
+	@Override
+	public void doWrite(Server server, Query query, Iterable<Result> results) throws Exception {
+		if (destinationAvailable.get()) {
+			try {
+				destination.doWrite(server, query, results);
+				return;
+			} catch (Exception e) {
+				if (destinationAvailable.compareAndSet(true, false)) {
+					log.warn("Could not write results, they are spooled until they can be sent: {}", e.getMessage());
+				}
+			}
+		}
+		spool(server, query, results);
+	}
+
+	private void spool(Server server, Query query, Iterable<Result> results) throws IOException {
+		StringWriter payload = new StringWriter();
+		formatter.write(payload, server, query, results);
+		if (spool.append(payload.toString().getBytes(charset))) {
+			spooledRecords.increment();
+		} else {
+			oversizedRecords.increment();
+			log.warn("Results of query {} are too large to be spooled, they are dropped", query);
+		}
+	}
+
+	/**
+	 * Sends the oldest spooled records, up to the number of bytes allowed
+	 * for each interval.
+	 */
+	@VisibleForTesting
+	void replay() {
+		long budget = replayBytesPerSecond * REPLAY_INTERVAL_MILLIS / 1000;
+		byte[] record;
+		while (budget > 0 && (record = spool.peek()) != null) {
+			try {
+				destination.writePayload(new String(record, charset));
+			} catch (Exception e) {
+				replayFailures.increment();
+				destinationAvailable.set(false);
+				log.debug("Could not send spooled results", e);
+				return;
+			}
+			spool.remove(record);
+			replayedRecords.increment();
+			replayedBytes.add(record.length);
+			budget -= record.length;
+			if (destinationAvailable.compareAndSet(false, true)) {
+				log.info("Destination is available again, sending {} spooled bytes", spool.getBacklogBytes());
+			}
+		}
+		// nothing left to send, the destination is tried again by the next write
+		if (spool.isEmpty()) destinationAvailable.set(true);
+	}
+
+	@Override
+	public void close() throws LifecycleException {
+		if (replayExecutor != null) {
+			replayExecutor.shutdownNow();
+			try {
+				replayExecutor.awaitTermination(REPLAY_INTERVAL_MILLIS, MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		try {
+			destination.close();
+		} finally {
+			spool.close();
+			unregisterMBean(mbeanName);
+		}
+	}
+
+	@Nonnull
+	public W getDestination() {
+		return destination;
+	}
+
+	@Override
+	public boolean isDestinationAvailable() {
+		return destinationAvailable.get();
+	}
+
+	@Override
+	public long getBacklogBytes() {
+		return spool.getBacklogBytes();
+	}
+
+	@Override
+	public long getBacklogRecordCount() {
+		return spool.getBacklogRecordCount();
+	}
+
+	@Override
+	public int getSegmentCount() {
+		return spool.getSegmentCount();
+	}
+
+	@Override
+	public long getSpooledRecordCount() {
+		return spooledRecords.sum();
+	}
+
+	@Override
+	public long getOversizedRecordCount() {
+		return oversizedRecords.sum();
+	}
+
+	@Override
+	public long getEvictedRecordCount() {
+		return spool.getEvictedRecordCount();
+	}
+
+	@Override
+	public long getEvictedBytes() {
+		return spool.getEvictedBytes();
+	}
+
+	@Override
+	public long getReplayedRecordCount() {
+		return replayedRecords.sum();
+	}
+
+	@Override
+	public long getReplayedBytes() {
+		return replayedBytes.sum();
+	}
+
+	@Override
+	public long getReplayFailureCount() {
+		return replayFailures.sum();
+	}
+}
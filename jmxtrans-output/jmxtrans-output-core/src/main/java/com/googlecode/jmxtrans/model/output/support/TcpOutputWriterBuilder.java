@@ -23,58 +23,126 @@
 package com.googlecode.jmxtrans.model.output.support;
 
 import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.googlecode.jmxtrans.model.OutputWriter;
+import com.googlecode.jmxtrans.model.output.support.pool.Compression;
+import com.googlecode.jmxtrans.model.output.support.pool.CompressionStats;
 import com.googlecode.jmxtrans.model.output.support.pool.FlushStrategy;
 import com.googlecode.jmxtrans.model.output.support.pool.NeverFlush;
+import com.googlecode.jmxtrans.model.output.support.pool.NioTcpSender;
+import com.googlecode.jmxtrans.model.output.support.pool.NioTcpSenderAllocator;
+import com.googlecode.jmxtrans.model.output.support.pool.PoolUsage;
 import com.googlecode.jmxtrans.model.output.support.pool.RetryingAllocator;
 import com.googlecode.jmxtrans.model.output.support.pool.SocketAllocator;
 import com.googlecode.jmxtrans.model.output.support.pool.SocketExpiration;
 import com.googlecode.jmxtrans.model.output.support.pool.SocketPoolable;
+import com.googlecode.jmxtrans.model.output.support.pool.TlsConnector;
+import com.googlecode.jmxtrans.model.output.support.pool.TlsStats;
+import com.googlecode.jmxtrans.model.output.support.pool.WriterPoolable;
+import com.googlecode.jmxtrans.model.output.support.retry.OverflowPolicy;
+import com.googlecode.jmxtrans.model.output.support.spool.DiskSpool;
 import lombok.Setter;
 import lombok.experimental.Accessors;
 import stormpot.BlazePool;
 import stormpot.CompoundExpiration;
 import stormpot.Config;
 import stormpot.Expiration;
-import stormpot.LifecycledPool;
+import stormpot.LifecycledResizablePool;
 import stormpot.TimeExpiration;
 import stormpot.Timeout;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.net.ssl.SSLContext;
+import java.io.File;
 import java.net.InetSocketAddress;
 import java.nio.charset.Charset;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 @Accessors(chain = true)
 public class TcpOutputWriterBuilder<T extends WriterBasedOutputWriter> {
-	@Nonnull private final InetSocketAddress server;
+	/** Distinguishes the MBeans of writers sending to the same server. */
+	private static final AtomicInteger WRITER_IDS = new AtomicInteger();
+
+	@Nonnull private final ImmutableList<InetSocketAddress> servers;
 	@Nonnull private final T target;
 	@Nonnull @Setter private Charset charset = Charsets.UTF_8;
 	@Setter private int socketTimeoutMillis = 200;
 	@Setter private int poolClaimTimeoutSeconds = 1;
 	@Setter private int poolSize = 1;
+	/** Pools grow up to this size while claims wait, see {@link PoolUsage}. Never if not greater than poolSize. */
+	@Setter private int maxPoolSize;
+	/** Writers are claimed in turn, see {@link PoolUsage}. */
+	@Setter private boolean fairPool;
 	@Nonnull @Setter private FlushStrategy flushStrategy = new NeverFlush();
 	@Setter private int socketExpirationMs;
+	/** Compression of the stream sent on each connection, sync flushed as decided by the flush strategy. */
+	@Nonnull @Setter private Compression compression = Compression.NONE;
+	/** Sends over TLS, resuming sessions when connecting again, see {@link TlsConnector}. */
+	@Setter private boolean tls;
+	/** Context of the TLS connections, the default context when not set. */
+	@Nullable @Setter private SSLContext sslContext;
+	/** Sends messages from a background thread, see {@link NioTcpSender}. */
+	@Setter private boolean nonBlocking;
+	/** Size of the queue of messages waiting to be sent, when non blocking. */
+	@Setter private int writeQueueSize = 1024 * 1024;
+	/** How results are spread over the servers, when there are several of them. */
+	@Nonnull @Setter private LoadBalancing loadBalancing = LoadBalancing.ROUND_ROBIN;
+	@Setter private int healthCheckIntervalSeconds = 10;
+	/** Results that could not be sent are kept in this directory, see {@link SpoolingOutputWriter}. */
+	@Nullable @Setter private File spoolDirectory;
+	@Setter private long spoolMaxBytes = DiskSpool.DEFAULT_MAX_BYTES;
+	@Setter private int spoolSegmentBytes = DiskSpool.DEFAULT_SEGMENT_BYTES;
+	@Setter private int spoolReplayBytesPerSecond = SpoolingOutputWriter.DEFAULT_REPLAY_BYTES_PER_SECOND;
+	/** Results that could not be sent are kept in memory, up to this size, see {@link RetryingOutputWriter}. Never if not positive. */
+	@Setter private int retryBufferBytes;
+	@Nonnull @Setter private OverflowPolicy retryOverflowPolicy = OverflowPolicy.DROP_OLDEST;
+	@Setter private long retryMinBackoffMillis = RetryingOutputWriter.DEFAULT_MIN_BACKOFF_MILLIS;
+	@Setter private long retryMaxBackoffMillis = RetryingOutputWriter.DEFAULT_MAX_BACKOFF_MILLIS;
 
-	private TcpOutputWriterBuilder(@Nonnull InetSocketAddress server, @Nonnull T target) {
-		this.server = server;
+	private TcpOutputWriterBuilder(@Nonnull ImmutableList<InetSocketAddress> servers, @Nonnull T target) {
+		checkArgument(!servers.isEmpty(), "At least one server is required");
+		this.servers = servers;
 		this.target = target;
 	}
 
 	public static <T extends WriterBasedOutputWriter> TcpOutputWriterBuilder<T> builder(
 			@Nonnull InetSocketAddress server,
 			@Nonnull T target) {
-		return new TcpOutputWriterBuilder<>(server, target);
+		return new TcpOutputWriterBuilder<>(ImmutableList.of(server), target);
+	}
+
+	/**
+	 * Builder of writers sending to several servers, see {@link #buildLoadBalanced()}.
+	 */
+	public static <T extends WriterBasedOutputWriter> TcpOutputWriterBuilder<T> builder(
+			@Nonnull List<InetSocketAddress> servers,
+			@Nonnull T target) {
+		return new TcpOutputWriterBuilder<>(ImmutableList.copyOf(servers), target);
 	}
 
-	private LifecycledPool<SocketPoolable> createPool() {
+	private LifecycledResizablePool<SocketPoolable> createPool(
+			InetSocketAddress server,
+			CompressionStats compressionStats,
+			@Nullable TlsConnector tlsConnector) {
 		Config<SocketPoolable> config = new Config<SocketPoolable>()
 				.setAllocator(new RetryingAllocator<SocketPoolable>(new SocketAllocator(
 						server,
 						socketTimeoutMillis,
 						charset,
-						flushStrategy)))
+						flushStrategy,
+						compression,
+						compressionStats,
+						tlsConnector)))
 				.setExpiration(createSocketExpiration())
 				.setSize(poolSize);
 		return new BlazePool<>(config);
@@ -91,7 +159,123 @@ public class TcpOutputWriterBuilder<T extends WriterBasedOutputWriter> {
 	}
 
 	public WriterPoolOutputWriter<T> build() {
-		LifecycledPool<SocketPoolable> pool = createPool();
-		return new WriterPoolOutputWriter<>(target, pool, new Timeout(poolClaimTimeoutSeconds, SECONDS), socketTimeoutMillis);
+		checkState(servers.size() == 1, "Writers sending to %s servers are built with buildLoadBalanced()", servers.size());
+		InetSocketAddress server = servers.get(0);
+		if (nonBlocking) return buildNonBlocking(server, createSender(server));
+		return buildBlocking(server);
+	}
+
+	/**
+	 * @return a writer spreading results over all the servers.
+	 */
+	public LoadBalancingOutputWriter<T> buildLoadBalanced() {
+		ImmutableList.Builder<Endpoint<T>> endpoints = ImmutableList.builder();
+		for (InetSocketAddress server : servers) {
+			if (nonBlocking) {
+				NioTcpSender sender = createSender(server);
+				endpoints.add(new Endpoint<>(server, buildNonBlocking(server, sender), sender));
+			} else {
+				endpoints.add(new Endpoint<>(server, buildBlocking(server), null));
+			}
+		}
+		return new LoadBalancingOutputWriter<>(endpoints.build(), loadBalancing, healthCheckIntervalSeconds, socketTimeoutMillis);
+	}
+
+	/**
+	 * @return a writer sending to the server, or spreading results over the
+	 * servers, through a spool when a spool directory is set or through a
+	 * retry buffer when its size is set.
+	 */
+	public OutputWriter buildWriter() {
+		checkState(spoolDirectory == null || retryBufferBytes <= 0, "A writer cannot use both a spool and a retry buffer");
+		// non blocking writers queue messages and drop them when the queue is full, they never fail
+		checkState(spoolDirectory == null || !nonBlocking, "Spooling is not supported by non blocking writers");
+		checkState(retryBufferBytes <= 0 || !nonBlocking, "Retry buffer is not supported by non blocking writers");
+		if (servers.size() == 1) {
+			return wrapped(build());
+		}
+		return wrapped(buildLoadBalanced());
+	}
+
+	private <W extends OutputWriter & PayloadWriter> OutputWriter wrapped(W destination) {
+		if (spoolDirectory != null) return spooled(destination);
+		if (retryBufferBytes > 0) return retrying(destination);
+		return destination;
+	}
+
+	private <W extends OutputWriter & PayloadWriter> RetryingOutputWriter<W> retrying(W destination) {
+		return new RetryingOutputWriter<>(destination, target, charset, retryBufferBytes, retryOverflowPolicy,
+				retryMinBackoffMillis, retryMaxBackoffMillis,
+				mbeanName("OutputWriterRetryBuffer", servers.get(0), WRITER_IDS.incrementAndGet()));
+	}
+
+	private <W extends OutputWriter & PayloadWriter> SpoolingOutputWriter<W> spooled(W destination) {
+		// opened when the writer is started, once the writer it replaces released the directory
+		DiskSpool spool = new DiskSpool(spoolDirectory, spoolMaxBytes, (int) Math.min(spoolSegmentBytes, spoolMaxBytes));
+		return new SpoolingOutputWriter<>(destination, target, charset, spool, spoolReplayBytesPerSecond,
+				mbeanName("OutputWriterSpool", servers.get(0), WRITER_IDS.incrementAndGet()));
+	}
+
+	private WriterPoolOutputWriter<T> buildBlocking(InetSocketAddress server) {
+		CompressionStats compressionStats = new CompressionStats();
+		TlsStats tlsStats = new TlsStats();
+		TlsConnector tlsConnector = tls ? new TlsConnector(tlsContext(), socketTimeoutMillis, tlsStats) : null;
+		PoolUsage<SocketPoolable> poolUsage = new PoolUsage<>(createPool(server, compressionStats, tlsConnector), maxPoolSize, fairPool);
+		int id = WRITER_IDS.incrementAndGet();
+		WriterPoolOutputWriter<T> writer = new WriterPoolOutputWriter<>(target, poolUsage.getPool(), new Timeout(poolClaimTimeoutSeconds, SECONDS), socketTimeoutMillis)
+				.withPoolUsage(poolUsage)
+				.withMBean(mbeanName("TcpWriterPool", server, id), poolUsage);
+		if (spoolDirectory != null || retryBufferBytes > 0) {
+			// results are only removed from the spool or retry buffer, or not kept, once sent
+			writer.withFlushedWrites();
+		}
+		if (compression != Compression.NONE) {
+			writer.withMBean(mbeanName("TcpCompression", server, id), compressionStats);
+		}
+		if (tls) {
+			writer.withMBean(mbeanName("TcpTls", server, id), tlsStats);
+		}
+		return writer;
+	}
+
+	private SSLContext tlsContext() {
+		if (sslContext != null) return sslContext;
+		try {
+			// shared by all writers, so is its cache of sessions
+			return SSLContext.getDefault();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("Could not get default TLS context", e);
+		}
+	}
+
+	private NioTcpSender createSender(InetSocketAddress server) {
+		// messages of all writers share the queue of the sender, there is no stream per connection to compress
+		checkState(compression == Compression.NONE, "Compression is not supported by non blocking writers");
+		checkState(!tls, "TLS is not supported by non blocking writers");
+		return new NioTcpSender(server, socketTimeoutMillis, socketExpirationMs, writeQueueSize);
+	}
+
+	private WriterPoolOutputWriter<T> buildNonBlocking(InetSocketAddress server, NioTcpSender sender) {
+		Config<WriterPoolable> config = new Config<WriterPoolable>()
+				.setAllocator(new NioTcpSenderAllocator(sender, charset, flushStrategy))
+				.setSize(poolSize);
+		PoolUsage<WriterPoolable> poolUsage = new PoolUsage<>(new BlazePool<>(config), maxPoolSize, fairPool);
+		int id = WRITER_IDS.incrementAndGet();
+		return new WriterPoolOutputWriter<>(target, poolUsage.getPool(), new Timeout(poolClaimTimeoutSeconds, SECONDS), socketTimeoutMillis)
+				.withPoolUsage(poolUsage)
+				.withMBean(mbeanName("TcpOutputWriter", server, id), sender)
+				.withMBean(mbeanName("TcpWriterPool", server, id), poolUsage)
+				.withTransport(sender);
+	}
+
+	private static ObjectName mbeanName(String type, InetSocketAddress server, int id) {
+		try {
+			return new ObjectName("com.googlecode.jmxtrans:Type=" + type
+					+ ",Host=" + ObjectName.quote(server.getHostString())
+					+ ",Port=" + server.getPort()
+					+ ",Id=" + id);
+		} catch (MalformedObjectNameException e) {
+			throw new IllegalStateException("Invalid MBean name for server " + server, e);
+		}
 	}
 }
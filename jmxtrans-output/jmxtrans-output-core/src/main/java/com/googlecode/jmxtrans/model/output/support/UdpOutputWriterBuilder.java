@@ -28,6 +28,7 @@ import com.googlecode.jmxtrans.model.output.support.pool.DatagramChannelExpirati
 import com.googlecode.jmxtrans.model.output.support.pool.DatagramChannelPoolable;
 import com.googlecode.jmxtrans.model.output.support.pool.FlushStrategy;
 import com.googlecode.jmxtrans.model.output.support.pool.NeverFlush;
+import com.googlecode.jmxtrans.model.output.support.pool.PacketStats;
 import lombok.Setter;
 import lombok.experimental.Accessors;
 import stormpot.BlazePool;
@@ -36,16 +37,23 @@ import stormpot.LifecycledPool;
 import stormpot.Timeout;
 
 import javax.annotation.Nonnull;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
 import java.net.InetSocketAddress;
 import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 @Accessors(chain = true)
 public class UdpOutputWriterBuilder<T extends WriterBasedOutputWriter> {
+	/** Distinguishes the MBeans of writers sending to the same server. */
+	private static final AtomicInteger WRITER_IDS = new AtomicInteger();
+
 	@Nonnull private final InetSocketAddress server;
 	@Nonnull private final T target;
 	@Nonnull @Setter private Charset charset = Charsets.UTF_8;
+	/** Size of the packets, as many lines as fit are sent in each of them. */
 	@Setter private int bufferSize = 1472;
 	@Setter private int poolSize = 1;
 	@Nonnull @Setter private FlushStrategy flushStrategy = new NeverFlush();
@@ -62,20 +70,34 @@ public class UdpOutputWriterBuilder<T extends WriterBasedOutputWriter> {
 		return new UdpOutputWriterBuilder<>(server, target);
 	}
 
-	private LifecycledPool<DatagramChannelPoolable> createPool() {
+	private LifecycledPool<DatagramChannelPoolable> createPool(PacketStats stats) {
 		Config<DatagramChannelPoolable> config = new Config<DatagramChannelPoolable>()
 				.setAllocator(new DatagramChannelAllocator(
 						server,
 						bufferSize,
 						charset,
-						flushStrategy))
+						flushStrategy,
+						stats))
 				.setExpiration(new DatagramChannelExpiration())
 				.setSize(poolSize);
 		return new BlazePool<>(config);
 	}
 
 	public WriterPoolOutputWriter<T> build() {
-		LifecycledPool<DatagramChannelPoolable> pool = createPool();
-		return new WriterPoolOutputWriter<>(target, pool, new Timeout(poolClaimTimeoutSeconds, SECONDS));
+		PacketStats stats = new PacketStats();
+		LifecycledPool<DatagramChannelPoolable> pool = createPool(stats);
+		return new WriterPoolOutputWriter<>(target, pool, new Timeout(poolClaimTimeoutSeconds, SECONDS))
+				.withMBean(statsName(), stats);
+	}
+
+	private ObjectName statsName() {
+		try {
+			return new ObjectName("com.googlecode.jmxtrans:Type=UdpOutputWriter"
+					+ ",Host=" + ObjectName.quote(server.getHostString())
+					+ ",Port=" + server.getPort()
+					+ ",Id=" + WRITER_IDS.incrementAndGet());
+		} catch (MalformedObjectNameException e) {
+			throw new IllegalStateException("Invalid MBean name for server " + server, e);
+		}
 	}
 }
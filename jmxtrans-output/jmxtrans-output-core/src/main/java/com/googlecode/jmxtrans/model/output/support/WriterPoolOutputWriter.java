@@ -28,17 +28,27 @@ import com.googlecode.jmxtrans.model.OutputWriterAdapter;
 import com.googlecode.jmxtrans.model.Query;
 import com.googlecode.jmxtrans.model.Result;
 import com.googlecode.jmxtrans.model.Server;
+import com.googlecode.jmxtrans.model.output.support.pool.NioTcpSender;
+import com.googlecode.jmxtrans.model.output.support.pool.PoolUsage;
 import com.googlecode.jmxtrans.model.output.support.pool.WriterPoolable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import stormpot.Completion;
 import stormpot.LifecycledPool;
 import stormpot.Timeout;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.management.ObjectName;
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
-public class WriterPoolOutputWriter<T extends WriterBasedOutputWriter> extends OutputWriterAdapter{
+import static com.google.common.base.Preconditions.checkState;
+import static com.googlecode.jmxtrans.model.output.support.MBeanUtils.registerMBean;
+import static com.googlecode.jmxtrans.model.output.support.MBeanUtils.unregisterMBean;
+
+public class WriterPoolOutputWriter<T extends WriterBasedOutputWriter> extends OutputWriterAdapter implements PayloadWriter {
 
 	private static final Logger logger = LoggerFactory.getLogger(WriterPoolOutputWriter.class);
 
@@ -46,6 +56,14 @@ public class WriterPoolOutputWriter<T extends WriterBasedOutputWriter> extends O
 	@Nonnull private final LifecycledPool<? extends WriterPoolable> writerPool;
 	@Nonnull private final Timeout poolClaimTimeout;
 	@Nullable private int socketTimeoutMs;
+	/** Statistics of the writer, registered while it is started. */
+	@Nonnull private final Map<ObjectName, Object> mbeans = new LinkedHashMap<>();
+	/** Claims writers from the pool when set, see {@link PoolUsage}. */
+	@Nullable private PoolUsage<? extends WriterPoolable> poolUsage;
+	/** Sends the messages of the pooled writers, started with this writer and closed once they are deallocated. */
+	@Nullable private NioTcpSender transport;
+	/** Writes only succeed once flushed, see {@link #withFlushedWrites()}. */
+	private boolean flushedWrites;
 
 	public WriterPoolOutputWriter(@Nonnull T target, @Nonnull LifecycledPool<? extends WriterPoolable> writerPool, @Nonnull Timeout poolClaimTimeout) {
 		this.target = target;
@@ -61,30 +79,126 @@ public class WriterPoolOutputWriter<T extends WriterBasedOutputWriter> extends O
 	}
 
 
+	/**
+	 * Registers the given MBean when this writer is started.
+	 */
+	public WriterPoolOutputWriter<T> withMBean(@Nonnull ObjectName mbeanName, @Nonnull Object mbean) {
+		mbeans.put(mbeanName, mbean);
+		return this;
+	}
+
+	/**
+	 * Claims writers through the given usage, which must be the one of the pool
+	 * of this writer.
+	 */
+	public WriterPoolOutputWriter<T> withPoolUsage(@Nonnull PoolUsage<? extends WriterPoolable> poolUsage) {
+		this.poolUsage = poolUsage;
+		return this;
+	}
+
+	/**
+	 * Starts the given transport when this writer is started, and closes it
+	 * when this writer is closed, once the writers of the pool are deallocated.
+	 */
+	public WriterPoolOutputWriter<T> withTransport(@Nonnull NioTcpSender transport) {
+		this.transport = transport;
+		return this;
+	}
+
+	/**
+	 * Flushes the results written before releasing the writer, so that a
+	 * write only succeeds once they were sent, and fails if they could not
+	 * be. Payloads are always flushed.
+	 */
+	public WriterPoolOutputWriter<T> withFlushedWrites() {
+		this.flushedWrites = true;
+		return this;
+	}
+
+	@Override
+	public void start() throws LifecycleException {
+		if (transport != null) {
+			try {
+				transport.start();
+			} catch (IOException e) {
+				throw new LifecycleException("Could not start transport", e);
+			}
+		}
+		for (Map.Entry<ObjectName, Object> mbean : mbeans.entrySet()) {
+			registerMBean(mbean.getValue(), mbean.getKey());
+		}
+	}
+
 	@Override
 	public void doWrite(Server server, Query query, Iterable<Result> results) throws Exception {
 		WriterPoolable writerPoolable = claimWriter();
 		try {
 			target.write(writerPoolable.getWriter(), server, query, results);
+			if (flushedWrites) writerPoolable.getWriter().flush();
 		} catch (IOException ioe) {
 			writerPoolable.invalidate();
 			throw ioe;
 		} finally {
-			writerPoolable.release();
+			release(writerPoolable);
 		}
 
 	}
 
+	@Override
+	public void writePayload(@Nonnull String payload) throws Exception {
+		WriterPoolable writerPoolable = claimWriter();
+		try {
+			writerPoolable.getWriter().write(payload);
+			// flush failures on release are only logged, the payload would be considered sent
+			writerPoolable.getWriter().flush();
+		} catch (IOException ioe) {
+			writerPoolable.invalidate();
+			throw ioe;
+		} finally {
+			release(writerPoolable);
+		}
+	}
+
+	private void release(WriterPoolable writerPoolable) {
+		if (poolUsage == null) {
+			writerPoolable.release();
+		} else {
+			poolUsage.release(writerPoolable);
+		}
+	}
+
 	@Override
 	public void close() throws LifecycleException {
-		writerPool.shutdown();
+		Completion completion = writerPool.shutdown();
+		if (transport != null) {
+			closeTransport(completion);
+		}
+		for (ObjectName mbeanName : mbeans.keySet()) {
+			unregisterMBean(mbeanName);
+		}
+	}
+
+	private void closeTransport(Completion completion) throws LifecycleException {
+		try {
+			if (!completion.await(poolClaimTimeout)) {
+				logger.warn("Writers were not deallocated in time, their messages may not be sent");
+			}
+			transport.close();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new LifecycleException("Interrupted while waiting for writers to be deallocated", e);
+		} catch (IOException e) {
+			throw new LifecycleException("Could not close transport", e);
+		}
 	}
 
 	private WriterPoolable claimWriter() {
+		// messages of non blocking writers would be queued and never sent
+		checkState(transport == null || transport.isStarted(), "Non blocking writer must be started before writing");
 		WriterPoolable result = null;
 
 		try {
-			result = writerPool.claim(poolClaimTimeout);
+			result = poolUsage == null ? writerPool.claim(poolClaimTimeout) : poolUsage.claim(poolClaimTimeout);
 		} catch (InterruptedException ex) {
 			logger.error("Interrupted while attempting to claim writer from pool", ex);
 			Thread.currentThread().interrupt();
@@ -111,4 +225,10 @@ public class WriterPoolOutputWriter<T extends WriterBasedOutputWriter> extends O
 	public LifecycledPool<? extends WriterPoolable> getWriterPool() {
 		return writerPool;
 	}
+
+	@VisibleForTesting
+	@Nullable
+	public PoolUsage<? extends WriterPoolable> getPoolUsage() {
+		return poolUsage;
+	}
 }
@@ -22,10 +22,13 @@
  */
 package com.googlecode.jmxtrans.model.output.support.pool;
 
+import lombok.EqualsAndHashCode;
+
 import javax.annotation.Nonnull;
 import java.io.Flushable;
 import java.io.IOException;
 
+@EqualsAndHashCode
 public class AlwaysFlush implements FlushStrategy {
 	@Override
 	public void flush(@Nonnull Flushable flushable) throws IOException {
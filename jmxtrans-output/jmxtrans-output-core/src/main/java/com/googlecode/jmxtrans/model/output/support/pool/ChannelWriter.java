@@ -29,12 +29,32 @@ import javax.annotation.concurrent.ThreadSafe;
 import java.io.IOException;
 import java.io.Writer;
 import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Writer buffering characters, encoded with the given charset, before sending
+ * them to a channel.
+ * <p/>
+ * Characters are encoded directly in the buffer, no object is allocated when
+ * writing. A write that does not fit in the buffer triggers a flush of the
+ * previous writes first, so that messages are not split between datagrams.
+ * Only messages larger than the buffer are split. As with
+ * {@link String#getBytes(Charset)}, malformed and unmappable characters are
+ * replaced.
+ */
 @ThreadSafe
 public class ChannelWriter extends Writer {
-	@Nonnull private final Charset charset;
+	/** Characters are copied to the encoder by chunks of this size. */
+	private static final int CHUNK_SIZE = 1024;
+
+	@Nonnull private final CharsetEncoder encoder;
+	@Nonnull private final CharBuffer chars;
 	@Nonnull private final ByteBuffer buffer;
 	@Nonnull private final WritableByteChannel channel;
 
@@ -42,20 +62,63 @@ public class ChannelWriter extends Writer {
 			int bufferSize,
 			@Nonnull Charset charset,
 			@Nonnull WritableByteChannel channel) {
-		this.charset = charset;
+		this(bufferSize, charset, channel, false);
+	}
+
+	public ChannelWriter(
+			int bufferSize,
+			@Nonnull Charset charset,
+			@Nonnull WritableByteChannel channel,
+			boolean directBuffer) {
+		this.encoder = charset.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		// a surrogate pair must always fit in an empty buffer
+		checkArgument(bufferSize >= 2 * encoder.maxBytesPerChar(), "Buffer size %s is too small", bufferSize);
 		this.channel = channel;
-		buffer = ByteBuffer.allocate(bufferSize);
+		this.chars = CharBuffer.allocate(CHUNK_SIZE);
+		this.buffer = directBuffer ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
 	}
 
 	@Override
 	public void write(char[] cbuf, int off, int len) throws IOException {
 		synchronized (lock) {
-			byte[] bytes = new String(cbuf, off, len).getBytes(charset);
+			int messageStart = buffer.position();
+			if (encode(cbuf, off, len, false)) return;
 
-			if (buffer.remaining() < (bytes.length + 1)) flush();
+			// send the previous messages only, and start again in an empty buffer
+			buffer.position(messageStart);
+			flush();
+			encode(cbuf, off, len, true);
+		}
+	}
 
-			buffer.put(bytes, off, len);
+	/**
+	 * @return false if the buffer is full and the message cannot be split.
+	 */
+	private boolean encode(char[] cbuf, int off, int len, boolean split) throws IOException {
+		encoder.reset();
+		chars.clear();
+		int end = off + len;
+		boolean endOfInput = false;
+		while (!endOfInput) {
+			int count = Math.min(end - off, chars.remaining());
+			chars.put(cbuf, off, count);
+			off += count;
+			endOfInput = off == end;
+			chars.flip();
+			// a high surrogate at the end of a chunk is kept for the next one
+			while (encoder.encode(chars, buffer, endOfInput).isOverflow()) {
+				if (!split) return false;
+				flush();
+			}
+			chars.compact();
+		}
+		while (encoder.flush(buffer).isOverflow()) {
+			if (!split) return false;
+			flush();
 		}
+		return true;
 	}
 
 	@Override
@@ -69,8 +132,7 @@ public class ChannelWriter extends Writer {
 			// send and reset the buffer
 			buffer.flip();
 			channel.write(buffer);
-			buffer.limit(buffer.capacity());
-			buffer.rewind();
+			buffer.clear();
 		}
 	}
 
@@ -0,0 +1,134 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support.pool;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Stream compressing the bytes written to it, as a zlib or gzip stream.
+ * <p/>
+ * Each flush is a sync flush: all the bytes written so far are sent, ending on
+ * a byte boundary, so that the server can decompress them without waiting
+ * for the end of the stream. The time spent compressing is measured around
+ * the deflater only, not the writes to the underlying stream.
+ */
+@NotThreadSafe
+class CompressingOutputStream extends FilterOutputStream {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	/** Magic number, deflate method, no flags, no modification time, no extra flags, unknown OS. */
+	private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+	@Nonnull private final Deflater deflater;
+	/** Checksum of the uncompressed bytes, for the gzip trailer. */
+	@Nullable private final CRC32 crc;
+	@Nonnull private final CompressionStats stats;
+	@Nonnull private final byte[] buffer = new byte[BUFFER_SIZE];
+	private boolean closed;
+
+	CompressingOutputStream(@Nonnull OutputStream out, boolean gzip, @Nonnull CompressionStats stats) throws IOException {
+		super(out);
+		// gzip streams hold raw deflate data, between their own header and trailer
+		this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, gzip);
+		this.crc = gzip ? new CRC32() : null;
+		this.stats = stats;
+		if (gzip) {
+			out.write(GZIP_HEADER);
+			stats.recordCompressed(GZIP_HEADER.length, 0);
+		}
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[] {(byte) b}, 0, 1);
+	}
+
+	@Override
+	public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+		if (closed) throw new IOException("Stream closed");
+		if (len == 0) return;
+		if (crc != null) crc.update(b, off, len);
+		deflater.setInput(b, off, len);
+		while (!deflater.needsInput()) {
+			deflate(Deflater.NO_FLUSH);
+		}
+		stats.recordUncompressed(len);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		if (closed) return;
+		// output filling the whole buffer may not be complete
+		int length;
+		do {
+			length = deflate(Deflater.SYNC_FLUSH);
+		} while (length == buffer.length);
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) return;
+		closed = true;
+		try {
+			deflater.finish();
+			while (!deflater.finished()) {
+				deflate(Deflater.NO_FLUSH);
+			}
+			if (crc != null) {
+				byte[] trailer = new byte[8];
+				writeIntLittleEndian(trailer, 0, (int) crc.getValue());
+				writeIntLittleEndian(trailer, 4, (int) deflater.getBytesRead());
+				out.write(trailer);
+				stats.recordCompressed(trailer.length, 0);
+			}
+			out.flush();
+		} finally {
+			deflater.end();
+			out.close();
+		}
+	}
+
+	private int deflate(int flush) throws IOException {
+		long start = System.nanoTime();
+		int length = deflater.deflate(buffer, 0, buffer.length, flush);
+		stats.recordCompressed(length, System.nanoTime() - start);
+		if (length > 0) out.write(buffer, 0, length);
+		return length;
+	}
+
+	private static void writeIntLittleEndian(byte[] bytes, int offset, int value) {
+		bytes[offset] = (byte) value;
+		bytes[offset + 1] = (byte) (value >> 8);
+		bytes[offset + 2] = (byte) (value >> 16);
+		bytes[offset + 3] = (byte) (value >> 24);
+	}
+}
@@ -0,0 +1,82 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support.pool;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static java.lang.String.format;
+
+/**
+ * Compression of the stream of messages sent on each connection.
+ * <p/>
+ * Line protocols do not negotiate it, the server must expect the compressed
+ * stream, as carbon-c-relay does with {@code transport gzip}.
+ */
+public enum Compression {
+	NONE("none"),
+	/** Zlib stream, as read by {@link java.util.zip.InflaterInputStream}. */
+	DEFLATE("deflate"),
+	/** Gzip stream, as read by {@link java.util.zip.GZIPInputStream}. */
+	GZIP("gzip");
+
+	@Nonnull private final String name;
+
+	Compression(@Nonnull String name) {
+		this.name = name;
+	}
+
+	/**
+	 * @return a stream compressing the bytes written to the given stream, or
+	 * the given stream when there is no compression.
+	 */
+	@Nonnull
+	public OutputStream wrap(@Nonnull OutputStream out, @Nonnull CompressionStats stats) throws IOException {
+		switch (this) {
+			case DEFLATE:
+				return new CompressingOutputStream(out, false, stats);
+			case GZIP:
+				return new CompressingOutputStream(out, true, stats);
+			default:
+				return out;
+		}
+	}
+
+	@Nonnull
+	public static Compression fromName(@Nullable String name) {
+		if (name == null) return NONE;
+		for (Compression compression : values()) {
+			if (compression.name.equals(name)) return compression;
+		}
+		throw new IllegalArgumentException(format(
+				"Compression %s is not valid, supported values are 'none', 'deflate' and 'gzip'",
+				name));
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,76 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support.pool;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Bytes compressed by the connections of an output writer, and the time
+ * spent compressing them.
+ */
+@ThreadSafe
+public class CompressionStats implements CompressionStatsMXBean {
+
+	private final LongAdder uncompressedBytes = new LongAdder();
+	private final LongAdder compressedBytes = new LongAdder();
+	private final LongAdder compressionNanos = new LongAdder();
+
+	public void recordUncompressed(int length) {
+		uncompressedBytes.add(length);
+	}
+
+	public void recordCompressed(int length, long nanos) {
+		compressedBytes.add(length);
+		compressionNanos.add(nanos);
+	}
+
+	@Override
+	public long getUncompressedBytes() {
+		return uncompressedBytes.sum();
+	}
+
+	@Override
+	public long getCompressedBytes() {
+		return compressedBytes.sum();
+	}
+
+	@Override
+	public double getCompressionRatio() {
+		long compressed = getCompressedBytes();
+		return compressed == 0 ? 0 : (double) getUncompressedBytes() / compressed;
+	}
+
+	@Override
+	public long getCompressionTimeMillis() {
+		return NANOSECONDS.toMillis(compressionNanos.sum());
+	}
+
+	@Override
+	public double getCompressionNanosPerByte() {
+		long uncompressed = getUncompressedBytes();
+		return uncompressed == 0 ? 0 : (double) compressionNanos.sum() / uncompressed;
+	}
+}
@@ -38,24 +38,38 @@ public class DatagramChannelAllocator implements Allocator<DatagramChannelPoolab
 	private final int bufferSize;
 	@Nonnull private final Charset charset;
 	@Nonnull private final FlushStrategy flushStrategy;
+	@Nonnull private final PacketStats stats;
 
 	public DatagramChannelAllocator(
 			@Nonnull InetSocketAddress server,
 			int bufferSize,
 			@Nonnull Charset charset,
 			@Nonnull FlushStrategy flushStrategy) {
+		this(server, bufferSize, charset, flushStrategy, new PacketStats());
+	}
+
+	/**
+	 * @param bufferSize size of the packets, lines are packed up to this size.
+	 */
+	public DatagramChannelAllocator(
+			@Nonnull InetSocketAddress server,
+			int bufferSize,
+			@Nonnull Charset charset,
+			@Nonnull FlushStrategy flushStrategy,
+			@Nonnull PacketStats stats) {
 		this.server = server;
 		this.bufferSize = bufferSize;
 		this.charset = charset;
 		this.flushStrategy = flushStrategy;
+		this.stats = stats;
 	}
 
 	@Override
 	public DatagramChannelPoolable allocate(Slot slot) throws Exception {
 		DatagramChannel channel = DatagramChannel.open();
 		channel.connect(new InetSocketAddress(server.getHostName(), server.getPort()));
-		ChannelWriter writer = new ChannelWriter(bufferSize, charset, channel);
-		return new DatagramChannelPoolable(slot, writer, channel, flushStrategy);
+		DatagramPacketizer writer = new DatagramPacketizer(bufferSize, charset, channel, stats);
+		return new DatagramChannelPoolable(slot, writer, channel, flushStrategy, stats);
 	}
 
 	@Override
@@ -26,20 +26,40 @@ import lombok.Getter;
 import stormpot.Slot;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.Writer;
 import java.nio.channels.DatagramChannel;
 
 public class DatagramChannelPoolable extends WriterPoolable {
 
 	@Nonnull @Getter private final DatagramChannel channel;
+	@Nullable private final PacketStats stats;
 
 	public DatagramChannelPoolable(
 			@Nonnull Slot slot,
 			@Nonnull Writer writer,
 			@Nonnull DatagramChannel channel,
 			@Nonnull FlushStrategy flushStrategy) {
+		this(slot, writer, channel, flushStrategy, null);
+	}
+
+	public DatagramChannelPoolable(
+			@Nonnull Slot slot,
+			@Nonnull Writer writer,
+			@Nonnull DatagramChannel channel,
+			@Nonnull FlushStrategy flushStrategy,
+			@Nullable PacketStats stats) {
 		super(slot, writer, flushStrategy);
 		this.channel = channel;
+		this.stats = stats;
+	}
+
+	@Override
+	public void release() {
+		if (stats != null) {
+			stats.recordCycle();
+		}
+		super.release();
 	}
 
 }
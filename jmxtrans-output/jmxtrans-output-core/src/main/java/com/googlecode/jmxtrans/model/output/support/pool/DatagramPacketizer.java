@@ -0,0 +1,192 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support.pool;
+
+import com.google.common.io.Closer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Writer sending lines to a datagram channel, packing as many complete lines
+ * as fit in each packet.
+ * <p/>
+ * Packets are only cut at the end of lines, whatever the way lines are split
+ * between writes, so that no line is split between two datagrams. A line
+ * larger than the packet size is sent alone in a larger datagram. Only lines
+ * larger than the maximum size of a datagram are split.
+ * <p/>
+ * Characters are encoded directly in the packet buffer, no object is
+ * allocated when writing. Malformed and unmappable characters are replaced.
+ */
+@ThreadSafe
+public class DatagramPacketizer extends Writer {
+	/** Maximum payload of an UDP datagram over IPv4. */
+	static final int MAX_DATAGRAM_SIZE = 65507;
+	/** Characters are copied to the encoder by chunks of this size. */
+	private static final int CHUNK_SIZE = 1024;
+
+	private final int packetSize;
+	@Nonnull private final CharsetEncoder encoder;
+	@Nonnull private final CharBuffer chars;
+	@Nonnull private final ByteBuffer packet;
+	@Nonnull private final WritableByteChannel channel;
+	@Nonnull private final PacketStats stats;
+	/** End of the last complete line in the packet buffer. */
+	private int lineEnd;
+
+	public DatagramPacketizer(
+			int packetSize,
+			@Nonnull Charset charset,
+			@Nonnull WritableByteChannel channel,
+			@Nonnull PacketStats stats) {
+		this.encoder = charset.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		checkArgument(packetSize >= 2 * encoder.maxBytesPerChar(), "Packet size %s is too small", packetSize);
+		checkArgument(packetSize <= MAX_DATAGRAM_SIZE, "Packet size %s is larger than a datagram", packetSize);
+		this.packetSize = packetSize;
+		this.channel = channel;
+		this.stats = stats;
+		this.chars = CharBuffer.allocate(CHUNK_SIZE);
+		this.packet = ByteBuffer.allocateDirect(MAX_DATAGRAM_SIZE);
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		synchronized (lock) {
+			int end = off + len;
+			int start = off;
+			for (int i = off; i < end; i++) {
+				if (cbuf[i] == '\n') {
+					encode(cbuf, start, i + 1 - start);
+					endLine();
+					start = i + 1;
+				}
+			}
+			encode(cbuf, start, end - start);
+		}
+	}
+
+	private void encode(char[] cbuf, int off, int len) throws IOException {
+		int end = off + len;
+		while (off < end) {
+			int count = Math.min(end - off, chars.remaining());
+			chars.put(cbuf, off, count);
+			off += count;
+			chars.flip();
+			// a high surrogate at the end of the characters is kept for the next write
+			while (encoder.encode(chars, packet, false).isOverflow()) {
+				makeRoom();
+			}
+			chars.compact();
+		}
+	}
+
+	/** Makes room in a full packet buffer, for a line not complete yet. */
+	private void makeRoom() throws IOException {
+		if (lineEnd > 0) {
+			send(lineEnd);
+		} else {
+			// a line larger than a datagram cannot be sent whole
+			stats.recordOversizedLine();
+			send(packet.position());
+		}
+	}
+
+	/**
+	 * Sends the packet when the line which just ended does not fit in it.
+	 */
+	private void endLine() throws IOException {
+		if (packet.position() > packetSize && lineEnd > 0) {
+			// the line starts the next packet
+			send(lineEnd);
+		}
+		if (packet.position() > packetSize) {
+			stats.recordOversizedLine();
+			send(packet.position());
+		}
+		lineEnd = packet.position();
+	}
+
+	/**
+	 * Sends the first bytes of the packet buffer, and moves the remaining ones
+	 * at its beginning.
+	 */
+	private void send(int length) throws IOException {
+		int position = packet.position();
+		packet.position(0);
+		packet.limit(length);
+		channel.write(packet);
+		stats.recordPacket(length);
+
+		packet.limit(position);
+		packet.position(length);
+		packet.compact();
+		lineEnd = 0;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		synchronized (lock) {
+			chars.flip();
+			while (encoder.encode(chars, packet, true).isOverflow()) {
+				makeRoom();
+			}
+			chars.clear();
+			while (encoder.flush(packet).isOverflow()) {
+				makeRoom();
+			}
+			encoder.reset();
+
+			// whatever is left is considered as a complete line
+			endLine();
+			if (packet.position() > 0) {
+				send(packet.position());
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		Closer closer = Closer.create();
+		try {
+			closer.register(channel);
+			flush();
+		} catch (Throwable t) {
+			throw closer.rethrow(t);
+		} finally {
+			closer.close();
+		}
+	}
+}
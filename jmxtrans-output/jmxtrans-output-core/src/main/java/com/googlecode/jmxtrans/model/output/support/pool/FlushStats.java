@@ -0,0 +1,90 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support.pool;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Flushes of the writers following a {@link SizeOrTimeBasedFlush}.
+ * <p/>
+ * Flushes are triggered by the size of the buffered characters, by their
+ * age, or explicitly when writers are flushed or closed.
+ */
+@ThreadSafe
+public class FlushStats implements FlushStatsMXBean {
+
+	private final LongAdder flushes = new LongAdder();
+	private final LongAdder sizeFlushes = new LongAdder();
+	private final LongAdder timeFlushes = new LongAdder();
+	private final LongAdder chars = new LongAdder();
+	private final LongAccumulator maxFlushSize = new LongAccumulator(Math::max, 0);
+
+	public void recordSizeFlush(int size) {
+		sizeFlushes.increment();
+		recordFlush(size);
+	}
+
+	public void recordTimeFlush(int size) {
+		timeFlushes.increment();
+		recordFlush(size);
+	}
+
+	public void recordFlush(int size) {
+		flushes.increment();
+		chars.add(size);
+		maxFlushSize.accumulate(size);
+	}
+
+	@Override
+	public long getFlushCount() {
+		return flushes.sum();
+	}
+
+	@Override
+	public long getSizeFlushCount() {
+		return sizeFlushes.sum();
+	}
+
+	@Override
+	public long getTimeFlushCount() {
+		return timeFlushes.sum();
+	}
+
+	@Override
+	public long getFlushedCharCount() {
+		return chars.sum();
+	}
+
+	@Override
+	public long getMaxFlushSize() {
+		return maxFlushSize.get();
+	}
+
+	@Override
+	public double getCharsPerFlush() {
+		long flushCount = getFlushCount();
+		return flushCount == 0 ? 0 : (double) getFlushedCharCount() / flushCount;
+	}
+}
@@ -25,7 +25,19 @@ package com.googlecode.jmxtrans.model.output.support.pool;
 import javax.annotation.Nonnull;
 import java.io.Flushable;
 import java.io.IOException;
+import java.io.Writer;
 
 public interface FlushStrategy {
 	void flush(@Nonnull Flushable flushable) throws IOException;
+
+	/**
+	 * Called once for each writer of the pool, for strategies following the
+	 * writes.
+	 *
+	 * @return the writer to use instead of the given one.
+	 */
+	@Nonnull
+	default Writer track(@Nonnull Writer writer) {
+		return writer;
+	}
 }
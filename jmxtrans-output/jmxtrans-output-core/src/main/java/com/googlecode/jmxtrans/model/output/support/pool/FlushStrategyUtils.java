@@ -27,14 +27,26 @@ import com.googlecode.jmxtrans.util.SystemClock;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import static com.google.common.base.MoreObjects.firstNonNull;
 import static java.lang.String.format;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 public final class FlushStrategyUtils {
+	/** Characters buffered before flushing with the sizeOrTimeBased strategy, when no size is given. */
+	public static final int DEFAULT_FLUSH_SIZE = 4096;
+
 	private FlushStrategyUtils() {}
 
 	@Nonnull
 	public static FlushStrategy createFlushStrategy(@Nullable String strategy, @Nullable Integer flushDelayInSeconds) {
+		return createFlushStrategy(strategy, flushDelayInSeconds, null);
+	}
+
+	@Nonnull
+	public static FlushStrategy createFlushStrategy(
+			@Nullable String strategy,
+			@Nullable Integer flushDelayInSeconds,
+			@Nullable Integer flushSize) {
 		if (strategy == null) return new NeverFlush();
 		if (strategy.equals("never")) return new NeverFlush();
 		if (strategy.equals("always")) return new AlwaysFlush();
@@ -42,8 +54,13 @@ public final class FlushStrategyUtils {
 			if (flushDelayInSeconds == null) throw new IllegalArgumentException("flushDelayInSeconds cannot be null");
 			return new TimeBasedFlush(new SystemClock(), flushDelayInSeconds, SECONDS);
 		}
+		if (strategy.equals("sizeOrTimeBased")) {
+			if (flushDelayInSeconds == null) throw new IllegalArgumentException("flushDelayInSeconds cannot be null");
+			return new SizeOrTimeBasedFlush(new SystemClock(),
+					firstNonNull(flushSize, DEFAULT_FLUSH_SIZE), flushDelayInSeconds, SECONDS);
+		}
 		throw new IllegalArgumentException(
-				format("Strategy %s is not valid, supported values are 'never', 'always' and 'timeBased'", strategy));
+				format("Strategy %s is not valid, supported values are 'never', 'always', 'timeBased' and 'sizeOrTimeBased'", strategy));
 	}
 
 }
@@ -0,0 +1,374 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support.pool;
+
+import com.googlecode.jmxtrans.executors.ExecutorFactory;
+import com.googlecode.jmxtrans.model.output.support.RingBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.channels.SelectionKey.OP_CONNECT;
+import static java.nio.channels.SelectionKey.OP_READ;
+import static java.nio.channels.SelectionKey.OP_WRITE;
+
+/**
+ * Sends messages to a TCP server from a background thread, so that writers
+ * never block on the network.
+ * <p/>
+ * Messages are added to a bounded queue, shared by all the writers sending
+ * to the server. The queue is sent by a selector driven non blocking
+ * channel, as much of it as the socket accepts at once, so that messages of
+ * distinct writers are coalesced. Messages are dropped when the queue is full,
+ * for example while the server is unavailable.
+ * <p/>
+ * The connection is established when messages are queued, and established
+ * again after a failure. A message being sent when the connection fails may
+ * be truncated.
+ */
+@ThreadSafe
+public class NioTcpSender implements NioTcpSenderMXBean, Closeable {
+
+	private static final Logger log = LoggerFactory.getLogger(NioTcpSender.class);
+
+	/** Delay before connecting again after a failure. */
+	private static final long RECONNECT_DELAY_MILLIS = 1000;
+	/** Queued messages are still sent for this long once the sender is closed. */
+	private static final long CLOSE_TIMEOUT_MILLIS = 1000;
+
+	@Nonnull private final InetSocketAddress server;
+	private final int connectTimeoutMillis;
+	private final int connectionExpiryMillis;
+	/** Opened when the sender is started, only then are messages sent. */
+	@Nullable private volatile Selector selector;
+	@GuardedBy("this") @Nullable private Thread thread;
+	@Nonnull private final WritableByteChannel channel = new QueueChannel();
+
+	@GuardedBy("queue") @Nonnull private final RingBuffer queue;
+	@GuardedBy("queue") private boolean full;
+
+	private volatile boolean closed;
+	private volatile boolean connected;
+	private final LongAdder connections = new LongAdder();
+	private final LongAdder connectionFailures = new LongAdder();
+	private final LongAdder sentBytes = new LongAdder();
+	private final LongAdder droppedBytes = new LongAdder();
+
+	// only used by the sender thread
+	@Nullable private SocketChannel socketChannel;
+	@Nullable private SelectionKey key;
+	private long connectDeadline;
+	private long connectedAt;
+	private long nextConnectAt;
+	@Nonnull private final ByteBuffer readBuffer = ByteBuffer.allocate(256);
+
+	/**
+	 * @param connectionExpiryMillis age after which the connection is established
+	 *                               again, once the queue is sent. Never if not
+	 *                               positive.
+	 */
+	public NioTcpSender(
+			@Nonnull InetSocketAddress server,
+			int connectTimeoutMillis,
+			int connectionExpiryMillis,
+			int queueCapacity) {
+		this.server = server;
+		this.connectTimeoutMillis = connectTimeoutMillis;
+		this.connectionExpiryMillis = connectionExpiryMillis;
+		this.queue = new RingBuffer(queueCapacity);
+	}
+
+	/**
+	 * Opens the selector and starts the thread sending the queued messages.
+	 */
+	public synchronized void start() throws IOException {
+		checkState(thread == null && !closed, "Sender to %s was already started", server);
+		selector = Selector.open();
+		thread = ExecutorFactory.threadFactory("tcp-sender").newThread(new Runnable() {
+			@Override
+			public void run() {
+				runLoop();
+			}
+		});
+		thread.start();
+	}
+
+	public boolean isStarted() {
+		return selector != null;
+	}
+
+	/**
+	 * @return a channel adding the bytes written to the queue. Closing it does
+	 * not close the sender.
+	 */
+	@Nonnull
+	public WritableByteChannel channel() {
+		return channel;
+	}
+
+	/**
+	 * Adds the remaining bytes of the message to the queue, or drops them if
+	 * the queue is full.
+	 *
+	 * @return false if the message was dropped.
+	 * @throws IllegalStateException if the sender was not started.
+	 */
+	public boolean send(@Nonnull ByteBuffer message) throws ClosedChannelException {
+		if (closed) throw new ClosedChannelException();
+		checkState(selector != null, "Sender to %s was not started", server);
+
+		int length = message.remaining();
+		boolean wasEmpty;
+		synchronized (queue) {
+			wasEmpty = queue.isEmpty();
+			if (!queue.offer(message)) {
+				message.position(message.limit());
+				droppedBytes.add(length);
+				if (!full) {
+					full = true;
+					log.warn("Queue of messages to {} is full, messages are dropped until it is sent", server);
+				}
+				return false;
+			}
+			full = false;
+		}
+		Selector selector = this.selector;
+		if (wasEmpty && selector != null) selector.wakeup();
+		return true;
+	}
+
+	/**
+	 * Sends the queued messages, waiting at most {@value #CLOSE_TIMEOUT_MILLIS}ms,
+	 * and closes the connection. Nothing is sent if the sender was not started.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		closed = true;
+		if (thread == null) return;
+		selector.wakeup();
+		try {
+			thread.join(CLOSE_TIMEOUT_MILLIS + connectTimeoutMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void runLoop() {
+		long closeDeadline = 0;
+		while (true) {
+			long now = System.currentTimeMillis();
+			if (closed) {
+				if (closeDeadline == 0) closeDeadline = now + CLOSE_TIMEOUT_MILLIS;
+				if (getQueuedBytes() == 0 || now >= closeDeadline) break;
+			}
+			try {
+				if (socketChannel == null) {
+					if (getQueuedBytes() > 0 && now >= nextConnectAt) connect(now);
+				} else if (!connected && now >= connectDeadline) {
+					throw new IOException("Connection timed out after " + connectTimeoutMillis + "ms");
+				}
+				if (connected) sendQueue(now);
+
+				if (selector.select(selectTimeout(now, closeDeadline)) > 0) {
+					selector.selectedKeys().clear();
+					if (key != null && key.isValid()) handleReadyOps(key.readyOps());
+				}
+			} catch (IOException | RuntimeException e) {
+				disconnect(e);
+			}
+		}
+
+		int dropped = getQueuedBytes();
+		if (dropped > 0) {
+			droppedBytes.add(dropped);
+			log.warn("Closed sender to {} before sending {} queued bytes", server, dropped);
+		}
+		closeChannel();
+		try {
+			selector.close();
+		} catch (IOException e) {
+			log.debug("Could not close selector", e);
+		}
+	}
+
+	private void connect(long now) throws IOException {
+		// create new InetSocketAddress to ensure name resolution is done again
+		InetSocketAddress address = new InetSocketAddress(server.getHostName(), server.getPort());
+		if (address.isUnresolved()) throw new UnknownHostException(server.getHostName());
+
+		socketChannel = SocketChannel.open();
+		socketChannel.configureBlocking(false);
+		socketChannel.socket().setKeepAlive(false);
+		key = socketChannel.register(selector, OP_CONNECT);
+		connectDeadline = now + connectTimeoutMillis;
+		if (socketChannel.connect(address)) connected(now);
+	}
+
+	private void connected(long now) {
+		key.interestOps(OP_READ);
+		connected = true;
+		connectedAt = now;
+		connections.increment();
+		log.debug("Connected to {}", server);
+	}
+
+	private void handleReadyOps(int readyOps) throws IOException {
+		if ((readyOps & OP_CONNECT) != 0 && socketChannel.finishConnect()) {
+			connected(System.currentTimeMillis());
+		}
+		if ((readyOps & OP_READ) != 0) {
+			// the server is not expected to answer, only its end of stream matters
+			readBuffer.clear();
+			if (socketChannel.read(readBuffer) < 0) throw new EOFException("Connection closed by server");
+		}
+		if ((readyOps & OP_WRITE) != 0) {
+			sendQueue(System.currentTimeMillis());
+		}
+	}
+
+	private void sendQueue(long now) throws IOException {
+		int sent;
+		boolean empty;
+		synchronized (queue) {
+			sent = queue.drainTo(socketChannel);
+			empty = queue.isEmpty();
+		}
+		sentBytes.add(sent);
+
+		if (!empty) {
+			key.interestOps(OP_READ | OP_WRITE);
+		} else if (connectionExpiryMillis > 0 && now - connectedAt >= connectionExpiryMillis) {
+			log.debug("Connection to {} expired", server);
+			closeChannel();
+		} else {
+			key.interestOps(OP_READ);
+		}
+	}
+
+	/**
+	 * @return the maximum time to wait for the channel to be ready, 0 for no limit.
+	 */
+	private long selectTimeout(long now, long closeDeadline) {
+		long deadline = Long.MAX_VALUE;
+		if (socketChannel == null) {
+			if (getQueuedBytes() > 0) deadline = nextConnectAt;
+		} else if (!connected) {
+			deadline = connectDeadline;
+		}
+		if (closeDeadline != 0) deadline = Math.min(deadline, closeDeadline);
+		return deadline == Long.MAX_VALUE ? 0 : Math.max(1, deadline - now);
+	}
+
+	private void disconnect(Exception cause) {
+		log.warn("Could not send messages to {}, connecting again in {}ms: {}", server, RECONNECT_DELAY_MILLIS, cause.getMessage());
+		log.debug("Connection failure", cause);
+		connectionFailures.increment();
+		closeChannel();
+		nextConnectAt = System.currentTimeMillis() + RECONNECT_DELAY_MILLIS;
+	}
+
+	private void closeChannel() {
+		connected = false;
+		key = null;
+		if (socketChannel == null) return;
+		try {
+			socketChannel.close();
+		} catch (IOException e) {
+			log.debug("Could not close connection to {}", server, e);
+		}
+		socketChannel = null;
+	}
+
+	@Override
+	public boolean isConnected() {
+		return connected;
+	}
+
+	@Override
+	public long getConnectionCount() {
+		return connections.sum();
+	}
+
+	@Override
+	public long getConnectionFailureCount() {
+		return connectionFailures.sum();
+	}
+
+	@Override
+	public int getQueuedBytes() {
+		synchronized (queue) {
+			return queue.size();
+		}
+	}
+
+	@Override
+	public int getQueueCapacity() {
+		return queue.capacity();
+	}
+
+	@Override
+	public long getSentBytes() {
+		return sentBytes.sum();
+	}
+
+	@Override
+	public long getDroppedBytes() {
+		return droppedBytes.sum();
+	}
+
+	private class QueueChannel implements WritableByteChannel {
+		@Override
+		public int write(ByteBuffer src) throws IOException {
+			int length = src.remaining();
+			send(src);
+			return length;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return !closed;
+		}
+
+		@Override
+		public void close() {
+			// shared by all writers, the sender is closed on its own
+		}
+	}
+}
@@ -0,0 +1,66 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support.pool;
+
+import stormpot.Allocator;
+import stormpot.Slot;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.Charset;
+
+/**
+ * Allocates writers adding their messages to the queue of a {@link NioTcpSender}.
+ * <p/>
+ * Writers do not hold any connection, the sender is shared by all of them and
+ * must be closed once they are deallocated.
+ */
+public class NioTcpSenderAllocator implements Allocator<WriterPoolable> {
+
+	/** Same as the buffer of the writers of {@link SocketAllocator}. */
+	private static final int BUFFER_SIZE = 8192;
+
+	@Nonnull private final NioTcpSender sender;
+	@Nonnull private final Charset charset;
+	@Nonnull private final FlushStrategy flushStrategy;
+
+	public NioTcpSenderAllocator(
+			@Nonnull NioTcpSender sender,
+			@Nonnull Charset charset,
+			@Nonnull FlushStrategy flushStrategy) {
+		this.sender = sender;
+		this.charset = charset;
+		this.flushStrategy = flushStrategy;
+	}
+
+	@Override
+	public WriterPoolable allocate(Slot slot) throws Exception {
+		ChannelWriter writer = new ChannelWriter(BUFFER_SIZE, charset, sender.channel());
+		return new WriterPoolable(slot, writer, flushStrategy);
+	}
+
+	@Override
+	public void deallocate(WriterPoolable poolable) throws Exception {
+		// queues the remaining messages, the channel of the sender is not closed
+		poolable.getWriter().close();
+	}
+}
@@ -0,0 +1,86 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support.pool;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Packets sent by the datagram writers of an output writer.
+ * <p/>
+ * A cycle is the use of a writer from the pool to send the results of a
+ * query.
+ */
+@ThreadSafe
+public class PacketStats implements PacketStatsMXBean {
+
+	private final LongAdder cycles = new LongAdder();
+	private final LongAdder packets = new LongAdder();
+	private final LongAdder bytes = new LongAdder();
+	private final LongAdder oversizedLines = new LongAdder();
+
+	public void recordCycle() {
+		cycles.increment();
+	}
+
+	public void recordPacket(int size) {
+		packets.increment();
+		bytes.add(size);
+	}
+
+	public void recordOversizedLine() {
+		oversizedLines.increment();
+	}
+
+	@Override
+	public long getCycleCount() {
+		return cycles.sum();
+	}
+
+	@Override
+	public long getPacketCount() {
+		return packets.sum();
+	}
+
+	@Override
+	public long getByteCount() {
+		return bytes.sum();
+	}
+
+	@Override
+	public long getOversizedLineCount() {
+		return oversizedLines.sum();
+	}
+
+	@Override
+	public double getPacketsPerCycle() {
+		long cycleCount = getCycleCount();
+		return cycleCount == 0 ? 0 : (double) getPacketCount() / cycleCount;
+	}
+
+	@Override
+	public double getBytesPerPacket() {
+		long packetCount = getPacketCount();
+		return packetCount == 0 ? 0 : (double) getByteCount() / packetCount;
+	}
+}
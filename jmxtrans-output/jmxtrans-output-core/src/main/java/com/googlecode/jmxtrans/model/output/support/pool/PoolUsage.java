@@ -0,0 +1,236 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support.pool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import stormpot.LifecycledResizablePool;
+import stormpot.Poolable;
+import stormpot.Timeout;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Claims objects from a pool, keeping track of how long claims wait and of
+ * how many objects are in use.
+ * <p/>
+ * The pool grows, up to its maximum size, each time a claim had to wait for
+ * another thread to release an object: all objects were in use when the claim
+ * started, and still were if it timed out. Claims waiting for objects being
+ * allocated, slow to connect or failing to, do not grow the pool. It never
+ * shrinks, idle objects are expired by the pool itself.
+ * <p/>
+ * When fair, threads get objects in the order they claimed them: claims are
+ * queued on a fair semaphore having a permit per object of the pool. Else
+ * the pool serves waiting threads in no particular order.
+ */
+@ThreadSafe
+public class PoolUsage<T extends Poolable> implements PoolUsageMXBean {
+
+	private static final Logger log = LoggerFactory.getLogger(PoolUsage.class);
+
+	/** Claims waiting longer than this were waiting for an object to be released. */
+	private static final long GROW_WAIT_MICROS = 1000;
+
+	private static final long[] BUCKETS_MICROS = {10, 100, 1000, 10000, 100000, 1000000, Long.MAX_VALUE};
+
+	@Nonnull private final LifecycledResizablePool<T> pool;
+	private final int maxSize;
+	@Nullable private final Semaphore permits;
+
+	private final AtomicInteger size;
+	private final AtomicInteger inUse = new AtomicInteger();
+	private final LongAccumulator peakInUse = new LongAccumulator(Math::max, 0);
+	private final LongAdder claims = new LongAdder();
+	private final LongAdder timeouts = new LongAdder();
+	private final LongAdder waitMicros = new LongAdder();
+	private final LongAccumulator maxWaitMicros = new LongAccumulator(Math::max, 0);
+	private final LongAdder[] histogram = new LongAdder[BUCKETS_MICROS.length];
+
+	/**
+	 * @param maxSize the pool never grows if not greater than its current size.
+	 */
+	public PoolUsage(@Nonnull LifecycledResizablePool<T> pool, int maxSize, boolean fair) {
+		int initialSize = pool.getTargetSize();
+		checkArgument(initialSize > 0, "Pool size %s must be positive", initialSize);
+		this.pool = pool;
+		this.maxSize = Math.max(initialSize, maxSize);
+		this.size = new AtomicInteger(initialSize);
+		this.permits = fair ? new Semaphore(initialSize, true) : null;
+		for (int i = 0; i < histogram.length; i++) {
+			histogram[i] = new LongAdder();
+		}
+	}
+
+	@Nonnull
+	public LifecycledResizablePool<T> getPool() {
+		return pool;
+	}
+
+	/**
+	 * @return the object claimed, null if none was released in time.
+	 */
+	@Nullable
+	public T claim(@Nonnull Timeout timeout) throws InterruptedException {
+		boolean allInUse = isAllInUse();
+		long start = System.nanoTime();
+		T claimed = null;
+		try {
+			claimed = permits == null ? pool.claim(timeout) : claimInTurn(timeout, start);
+			return claimed;
+		} finally {
+			recordClaim(NANOSECONDS.toMicros(System.nanoTime() - start), claimed != null, allInUse);
+		}
+	}
+
+	@Nullable
+	private T claimInTurn(@Nonnull Timeout timeout, long start) throws InterruptedException {
+		if (!permits.tryAcquire(timeout.getTimeout(), timeout.getUnit())) return null;
+		T claimed = null;
+		try {
+			long remaining = timeout.getTimeoutInBaseUnit() - timeout.getBaseUnit().convert(System.nanoTime() - start, NANOSECONDS);
+			claimed = pool.claim(new Timeout(Math.max(0, remaining), timeout.getBaseUnit()));
+			return claimed;
+		} finally {
+			if (claimed == null) permits.release();
+		}
+	}
+
+	/**
+	 * Releases an object returned by {@link #claim(Timeout)} to the pool.
+	 */
+	public void release(@Nonnull Poolable poolable) {
+		inUse.decrementAndGet();
+		try {
+			poolable.release();
+		} finally {
+			if (permits != null) permits.release();
+		}
+	}
+
+	private boolean isAllInUse() {
+		return inUse.get() >= size.get();
+	}
+
+	private void recordClaim(long waitMicros, boolean claimed, boolean allInUse) {
+		claims.increment();
+		this.waitMicros.add(waitMicros);
+		maxWaitMicros.accumulate(waitMicros);
+		histogram[bucket(waitMicros)].increment();
+		if (claimed) {
+			peakInUse.accumulate(inUse.incrementAndGet());
+		} else {
+			timeouts.increment();
+		}
+		// timeouts while objects are free come from allocations failing, more objects would fail as well
+		if (allInUse && waitMicros >= GROW_WAIT_MICROS && (claimed || isAllInUse())) grow();
+	}
+
+	private void grow() {
+		int current = size.get();
+		if (current >= maxSize || !size.compareAndSet(current, current + 1)) return;
+		pool.setTargetSize(current + 1);
+		if (permits != null) permits.release();
+		log.debug("Claims are waiting, pool grown to {} objects", current + 1);
+	}
+
+	private static int bucket(long waitMicros) {
+		int bucket = 0;
+		while (waitMicros > BUCKETS_MICROS[bucket]) bucket++;
+		return bucket;
+	}
+
+	@Override
+	public int getPoolSize() {
+		return size.get();
+	}
+
+	@Override
+	public int getMaxPoolSize() {
+		return maxSize;
+	}
+
+	@Override
+	public boolean isFair() {
+		return permits != null;
+	}
+
+	@Override
+	public int getInUseCount() {
+		return inUse.get();
+	}
+
+	@Override
+	public int getPeakInUseCount() {
+		return (int) peakInUse.get();
+	}
+
+	@Override
+	public double getUtilization() {
+		return (double) getInUseCount() / getPoolSize();
+	}
+
+	@Override
+	public long getClaimCount() {
+		return claims.sum();
+	}
+
+	@Override
+	public long getClaimTimeoutCount() {
+		return timeouts.sum();
+	}
+
+	@Override
+	public double getMeanClaimWaitMicros() {
+		long claimCount = getClaimCount();
+		return claimCount == 0 ? 0 : (double) waitMicros.sum() / claimCount;
+	}
+
+	@Override
+	public long getMaxClaimWaitMicros() {
+		return maxWaitMicros.get();
+	}
+
+	@Override
+	public long[] getClaimWaitBucketsMicros() {
+		return BUCKETS_MICROS.clone();
+	}
+
+	@Override
+	public long[] getClaimWaitHistogram() {
+		long[] counts = new long[histogram.length];
+		for (int i = 0; i < histogram.length; i++) {
+			counts[i] = histogram[i].sum();
+		}
+		return counts;
+	}
+}
@@ -0,0 +1,244 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support.pool;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.googlecode.jmxtrans.executors.ExecutorFactory;
+import com.googlecode.jmxtrans.util.Clock;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.googlecode.jmxtrans.model.output.support.MBeanUtils.registerMBean;
+import static com.googlecode.jmxtrans.model.output.support.MBeanUtils.unregisterMBean;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Flushes writers once a number of characters are buffered, or once the
+ * oldest character not flushed has waited for a maximum delay.
+ * <p/>
+ * Writes are followed by each writer, so that the size is checked as soon as
+ * characters are written. A timer flushes the writers left idle in the pool
+ * with characters older than the delay. The state of each writer is kept in
+ * atomic fields, nothing is locked when writing.
+ * <p/>
+ * Characters are counted before encoding, they are the bytes sent for ASCII
+ * line protocols. Flushes are published as an MBean while writers are
+ * followed.
+ * <p/>
+ * Strategies are equal when they are configured alike, so that factories
+ * parsed again are equal to the ones which created the running writers.
+ */
+@ThreadSafe
+@EqualsAndHashCode(of = {"flushSize", "maxDelayMillis"})
+public class SizeOrTimeBasedFlush implements FlushStrategy {
+
+	private static final Logger log = LoggerFactory.getLogger(SizeOrTimeBasedFlush.class);
+
+	private static final AtomicInteger ids = new AtomicInteger();
+
+	/** Time of the first write of writers having nothing to flush. */
+	private static final long NO_WRITE = Long.MIN_VALUE;
+
+	@Nonnull private final Clock clock;
+	private final int flushSize;
+	private final long maxDelayMillis;
+	@Nonnull @Getter private final FlushStats stats = new FlushStats();
+	@Nonnull private final ObjectName mbeanName;
+
+	@Nonnull private final Set<TrackedWriter> writers = ConcurrentHashMap.newKeySet();
+	@GuardedBy("writers") @Nullable private ScheduledFuture<?> timer;
+
+	public SizeOrTimeBasedFlush(@Nonnull Clock clock, int flushSize, long maxDelay, @Nonnull TimeUnit unit) {
+		checkArgument(flushSize > 0, "Flush size %s must be positive", flushSize);
+		checkArgument(maxDelay > 0, "Flush delay %s must be positive", maxDelay);
+		this.clock = clock;
+		this.flushSize = flushSize;
+		this.maxDelayMillis = MILLISECONDS.convert(maxDelay, unit);
+		try {
+			this.mbeanName = new ObjectName("com.googlecode.jmxtrans:Type=FlushStrategy,Id=" + ids.incrementAndGet());
+		} catch (MalformedObjectNameException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Nonnull
+	@Override
+	public Writer track(@Nonnull Writer writer) {
+		TrackedWriter tracked = new TrackedWriter(writer);
+		synchronized (writers) {
+			writers.add(tracked);
+			if (timer == null) {
+				// idle writers are flushed at most a quarter of the delay late
+				long period = Math.max(1, maxDelayMillis / 4);
+				timer = Timer.EXECUTOR.scheduleAtFixedRate(this::flushIdleWriters, period, period, MILLISECONDS);
+				registerMBean(stats, mbeanName);
+			}
+		}
+		return tracked;
+	}
+
+	private void untrack(@Nonnull TrackedWriter writer) {
+		synchronized (writers) {
+			if (writers.remove(writer) && writers.isEmpty() && timer != null) {
+				timer.cancel(false);
+				timer = null;
+				unregisterMBean(mbeanName);
+			}
+		}
+	}
+
+	/**
+	 * Called when writers are released to the pool: flushes them if their
+	 * characters waited for too long.
+	 */
+	@Override
+	public void flush(@Nonnull Flushable flushable) throws IOException {
+		if (flushable instanceof TrackedWriter) {
+			((TrackedWriter) flushable).flushIfExpired(clock.currentTimeMillis());
+		} else {
+			flushable.flush();
+		}
+	}
+
+	@VisibleForTesting
+	void flushIdleWriters() {
+		long now = clock.currentTimeMillis();
+		for (TrackedWriter writer : writers) {
+			try {
+				writer.flushIfExpired(now);
+			} catch (IOException | RuntimeException e) {
+				// the writer is invalidated when it is released with the same failure
+				log.debug("Could not flush idle writer", e);
+			}
+		}
+	}
+
+	/** Shared by all strategies, only started once a strategy is used. */
+	private static final class Timer {
+		static final ScheduledExecutorService EXECUTOR =
+				Executors.newSingleThreadScheduledExecutor(ExecutorFactory.threadFactory("flush-timer"));
+	}
+
+	/**
+	 * Counts the characters written since the last flush.
+	 * <p/>
+	 * Counters are updated once characters are written and reset before
+	 * flushing, so that characters written while flushing are counted for
+	 * the next flush, at worst twice.
+	 */
+	private final class TrackedWriter extends Writer {
+
+		@Nonnull private final Writer writer;
+		private final AtomicInteger buffered = new AtomicInteger();
+		/** Time of the first write since the last flush. */
+		private final AtomicLong firstWriteMillis = new AtomicLong(NO_WRITE);
+
+		private TrackedWriter(@Nonnull Writer writer) {
+			this.writer = writer;
+		}
+
+		@Override
+		public void write(int c) throws IOException {
+			writer.write(c);
+			written(1);
+		}
+
+		@Override
+		public void write(@Nonnull char[] cbuf, int off, int len) throws IOException {
+			writer.write(cbuf, off, len);
+			written(len);
+		}
+
+		@Override
+		public void write(@Nonnull String str, int off, int len) throws IOException {
+			writer.write(str, off, len);
+			written(len);
+		}
+
+		private void written(int len) throws IOException {
+			if (firstWriteMillis.get() == NO_WRITE) firstWriteMillis.compareAndSet(NO_WRITE, clock.currentTimeMillis());
+			if (buffered.addAndGet(len) >= flushSize) {
+				int size = reset();
+				if (size > 0) {
+					writer.flush();
+					stats.recordSizeFlush(size);
+				}
+			}
+		}
+
+		private void flushIfExpired(long now) throws IOException {
+			long firstWrite = firstWriteMillis.get();
+			if (firstWrite == NO_WRITE || now - firstWrite < maxDelayMillis) return;
+			int size = reset();
+			if (size > 0) {
+				writer.flush();
+				stats.recordTimeFlush(size);
+			}
+		}
+
+		/**
+		 * @return the number of characters to flush, 0 if another thread
+		 * already flushed them.
+		 */
+		private int reset() {
+			firstWriteMillis.set(NO_WRITE);
+			return buffered.getAndSet(0);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			int size = reset();
+			writer.flush();
+			if (size > 0) stats.recordFlush(size);
+		}
+
+		@Override
+		public void close() throws IOException {
+			untrack(this);
+			int size = reset();
+			writer.close();
+			if (size > 0) stats.recordFlush(size);
+		}
+	}
+}
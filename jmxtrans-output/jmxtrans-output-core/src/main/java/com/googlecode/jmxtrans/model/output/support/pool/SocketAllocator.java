@@ -27,6 +27,7 @@ import stormpot.Allocator;
 import stormpot.Slot;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.BufferedWriter;
 import java.io.OutputStreamWriter;
 import java.net.InetSocketAddress;
@@ -40,16 +41,38 @@ public class SocketAllocator implements Allocator<SocketPoolable> {
 	private final int socketTimeoutMillis;
 	@Nonnull private final Charset charset;
 	@Nonnull private final FlushStrategy flushStrategy;
+	@Nonnull private final Compression compression;
+	@Nonnull private final CompressionStats compressionStats;
+	/** Sends over TLS when set. */
+	@Nullable private final TlsConnector tls;
 
 	public SocketAllocator(
 			@Nonnull InetSocketAddress server,
 			int socketTimeoutMillis,
 			@Nonnull Charset charset,
 			@Nonnull FlushStrategy flushStrategy) {
+		this(server, socketTimeoutMillis, charset, flushStrategy, Compression.NONE, new CompressionStats(), null);
+	}
+
+	/**
+	 * @param compression each connection sends its own compressed stream,
+	 *                    ended when the connection is closed.
+	 */
+	public SocketAllocator(
+			@Nonnull InetSocketAddress server,
+			int socketTimeoutMillis,
+			@Nonnull Charset charset,
+			@Nonnull FlushStrategy flushStrategy,
+			@Nonnull Compression compression,
+			@Nonnull CompressionStats compressionStats,
+			@Nullable TlsConnector tls) {
 		this.server = server;
 		this.socketTimeoutMillis = socketTimeoutMillis;
 		this.charset = charset;
 		this.flushStrategy = flushStrategy;
+		this.compression = compression;
+		this.compressionStats = compressionStats;
+		this.tls = tls;
 	}
 
 	@Override
@@ -59,8 +82,12 @@ public class SocketAllocator implements Allocator<SocketPoolable> {
 		Socket socket = new Socket();
 		socket.setKeepAlive(false);
 		socket.connect(serverAddress, socketTimeoutMillis);
+		if (tls != null) {
+			socket = tls.connect(socket, server);
+		}
 
-		BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), charset));
+		BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+				compression.wrap(socket.getOutputStream(), compressionStats), charset));
 
 		return new SocketPoolable(slot, socket, writer, flushStrategy);
 	}
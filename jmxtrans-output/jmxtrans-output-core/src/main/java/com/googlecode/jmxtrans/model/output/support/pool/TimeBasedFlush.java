@@ -23,6 +23,7 @@
 package com.googlecode.jmxtrans.model.output.support.pool;
 
 import com.googlecode.jmxtrans.util.Clock;
+import lombok.EqualsAndHashCode;
 
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.ThreadSafe;
@@ -33,6 +34,7 @@ import java.util.concurrent.TimeUnit;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 @ThreadSafe
+@EqualsAndHashCode(of = "flushPeriodMillisecond")
 public class TimeBasedFlush implements FlushStrategy {
 
 	@Nonnull private long lastFlush;
@@ -0,0 +1,120 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support.pool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
+/**
+ * Establishes TLS sessions over connected sockets, resuming the session of a
+ * previous connection to the same server when possible, so that connections
+ * established again do not cost a full handshake.
+ * <p/>
+ * Sessions are cached by the SSL context, by server host and port. With
+ * TLS 1.3, the server sends the tickets resuming sessions after the
+ * handshake. As writers never read from the connection, tickets are waited
+ * for before the socket is used. This wait, up to {@value #TICKET_WAIT_MILLIS}
+ * milliseconds, is paid by the allocation of every TLS 1.3 connection,
+ * resumed or not. Line protocol servers do not send anything else, data
+ * received while waiting is dropped and logged.
+ * <p/>
+ * Handshakes time out after the given timeout. Non positive timeouts, which
+ * would wait forever, are replaced by {@value #DEFAULT_HANDSHAKE_TIMEOUT_MILLIS}
+ * milliseconds.
+ * <p/>
+ * The server certificate must match its host name. A handshake is counted as
+ * resumed when its session was created before the handshake started.
+ */
+@ThreadSafe
+public class TlsConnector {
+
+	private static final Logger log = LoggerFactory.getLogger(TlsConnector.class);
+
+	private static final String TLS_1_3 = "TLSv1.3";
+	static final int TICKET_WAIT_MILLIS = 50;
+	static final int DEFAULT_HANDSHAKE_TIMEOUT_MILLIS = 1000;
+
+	@Nonnull private final SSLSocketFactory socketFactory;
+	private final int handshakeTimeoutMillis;
+	@Nonnull private final TlsStats stats;
+
+	public TlsConnector(@Nonnull SSLContext context, int handshakeTimeoutMillis, @Nonnull TlsStats stats) {
+		this.socketFactory = context.getSocketFactory();
+		this.handshakeTimeoutMillis = handshakeTimeoutMillis > 0 ? handshakeTimeoutMillis : DEFAULT_HANDSHAKE_TIMEOUT_MILLIS;
+		this.stats = stats;
+	}
+
+	/**
+	 * @return a socket sending over the given one, closing it when closed.
+	 */
+	@Nonnull
+	public SSLSocket connect(@Nonnull Socket socket, @Nonnull InetSocketAddress server) throws IOException {
+		SSLSocket sslSocket = (SSLSocket) socketFactory.createSocket(socket, server.getHostString(), server.getPort(), true);
+		try {
+			SSLParameters parameters = sslSocket.getSSLParameters();
+			parameters.setEndpointIdentificationAlgorithm("HTTPS");
+			sslSocket.setSSLParameters(parameters);
+			sslSocket.setSoTimeout(handshakeTimeoutMillis);
+
+			long startMillis = System.currentTimeMillis();
+			long start = System.nanoTime();
+			sslSocket.startHandshake();
+			SSLSession session = sslSocket.getSession();
+			stats.recordHandshake(System.nanoTime() - start, session.getCreationTime() < startMillis);
+
+			if (TLS_1_3.equals(session.getProtocol())) {
+				sslSocket.setSoTimeout(Math.min(handshakeTimeoutMillis, TICKET_WAIT_MILLIS));
+				awaitSessionTickets(sslSocket, server);
+			}
+			sslSocket.setSoTimeout(0);
+			return sslSocket;
+		} catch (IOException e) {
+			stats.recordFailure();
+			sslSocket.close();
+			throw e;
+		}
+	}
+
+	private static void awaitSessionTickets(SSLSocket socket, InetSocketAddress server) throws IOException {
+		try {
+			// tickets are processed while reading
+			if (socket.getInputStream().read() < 0) throw new EOFException("Connection closed by server");
+			log.warn("Dropped data sent by {} after the TLS handshake", server);
+		} catch (SocketTimeoutException e) {
+			// the connection can still be used
+		}
+	}
+}
@@ -0,0 +1,99 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support.pool;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * TLS handshakes of the connections of an output writer, see {@link TlsConnector}.
+ */
+@ThreadSafe
+public class TlsStats implements TlsStatsMXBean {
+
+	private final LongAdder fullHandshakes = new LongAdder();
+	private final LongAdder fullHandshakeNanos = new LongAdder();
+	private final LongAdder resumedHandshakes = new LongAdder();
+	private final LongAdder resumedHandshakeNanos = new LongAdder();
+	private final LongAdder failedHandshakes = new LongAdder();
+	private final LongAccumulator maxHandshakeNanos = new LongAccumulator(Math::max, 0);
+
+	public void recordHandshake(long nanos, boolean resumed) {
+		if (resumed) {
+			resumedHandshakes.increment();
+			resumedHandshakeNanos.add(nanos);
+		} else {
+			fullHandshakes.increment();
+			fullHandshakeNanos.add(nanos);
+		}
+		maxHandshakeNanos.accumulate(nanos);
+	}
+
+	public void recordFailure() {
+		failedHandshakes.increment();
+	}
+
+	@Override
+	public long getHandshakeCount() {
+		return fullHandshakes.sum() + resumedHandshakes.sum();
+	}
+
+	@Override
+	public long getResumedHandshakeCount() {
+		return resumedHandshakes.sum();
+	}
+
+	@Override
+	public long getFailedHandshakeCount() {
+		return failedHandshakes.sum();
+	}
+
+	@Override
+	public double getResumptionRate() {
+		long handshakes = getHandshakeCount();
+		return handshakes == 0 ? 0 : (double) getResumedHandshakeCount() / handshakes;
+	}
+
+	@Override
+	public double getAverageFullHandshakeMillis() {
+		return averageMillis(fullHandshakeNanos.sum(), fullHandshakes.sum());
+	}
+
+	@Override
+	public double getAverageResumedHandshakeMillis() {
+		return averageMillis(resumedHandshakeNanos.sum(), resumedHandshakes.sum());
+	}
+
+	@Override
+	public long getMaxHandshakeMillis() {
+		return NANOSECONDS.toMillis(maxHandshakeNanos.get());
+	}
+
+	private static double averageMillis(long nanos, long count) {
+		return count == 0 ? 0 : (double) nanos / count / MILLISECONDS.toNanos(1);
+	}
+}
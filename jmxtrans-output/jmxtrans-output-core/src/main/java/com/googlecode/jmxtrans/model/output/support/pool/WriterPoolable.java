@@ -44,7 +44,7 @@ public class WriterPoolable implements Poolable {
 
 	public WriterPoolable(@Nonnull Slot slot, @Nonnull Writer writer, @Nonnull FlushStrategy flushStrategy) {
 		this.slot = slot;
-		this.writer = writer;
+		this.writer = flushStrategy.track(writer);
 		this.flushStrategy = flushStrategy;
 	}
 
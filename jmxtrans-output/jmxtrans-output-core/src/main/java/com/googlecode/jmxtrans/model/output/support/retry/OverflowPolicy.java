@@ -0,0 +1,60 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support.retry;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import static java.lang.String.format;
+
+/**
+ * What a {@link RetryingOutputWriter} drops when its buffer is full.
+ */
+public enum OverflowPolicy {
+	/** The results being written are dropped, buffered results are kept. */
+	DROP_NEWEST("dropNewest"),
+	/** The oldest buffered results are dropped to make room for the results being written. */
+	DROP_OLDEST("dropOldest");
+
+	@Nonnull private final String name;
+
+	OverflowPolicy(@Nonnull String name) {
+		this.name = name;
+	}
+
+	@Nonnull
+	public static OverflowPolicy fromName(@Nullable String name) {
+		if (name == null) return DROP_OLDEST;
+		for (OverflowPolicy policy : values()) {
+			if (policy.name.equals(name)) return policy;
+		}
+		throw new IllegalArgumentException(format(
+				"Overflow policy %s is not valid, supported values are 'dropNewest' and 'dropOldest'",
+				name));
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,130 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support.retry;
+
+import com.googlecode.jmxtrans.model.output.support.RingBuffer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.nio.ByteBuffer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Bounded queue of records waiting to be sent again, stored in a
+ * {@link RingBuffer}.
+ * <p/>
+ * Each record is preceded by its length. The byte size of the buffer is its
+ * capacity, lengths included.
+ */
+@NotThreadSafe
+public class RetryBuffer {
+
+	private static final int LENGTH_SIZE = 4;
+
+	@Nonnull private final RingBuffer buffer;
+	@Nonnull private final ByteBuffer length = ByteBuffer.allocate(LENGTH_SIZE);
+
+	private int records;
+
+	public RetryBuffer(int capacity) {
+		checkArgument(capacity > LENGTH_SIZE, "Capacity %s must be greater than %s", capacity, LENGTH_SIZE);
+		this.buffer = new RingBuffer(capacity);
+	}
+
+	public int capacity() {
+		return buffer.capacity();
+	}
+
+	/**
+	 * @return the number of bytes used, lengths included.
+	 */
+	public int size() {
+		return buffer.size();
+	}
+
+	public int records() {
+		return records;
+	}
+
+	public boolean isEmpty() {
+		return records == 0;
+	}
+
+	/**
+	 * @return the number of bytes a record takes in the buffer.
+	 */
+	public static int footprint(@Nonnull byte[] record) {
+		return LENGTH_SIZE + record.length;
+	}
+
+	/**
+	 * @return whether the record fits in the free space of the buffer.
+	 */
+	public boolean fits(@Nonnull byte[] record) {
+		return footprint(record) <= capacity() - size();
+	}
+
+	/**
+	 * @return false if the record does not fit, nothing being added.
+	 */
+	public boolean offer(@Nonnull byte[] record) {
+		if (!fits(record)) return false;
+		length.clear();
+		length.putInt(0, record.length);
+		buffer.offer(length);
+		buffer.offer(ByteBuffer.wrap(record));
+		records++;
+		return true;
+	}
+
+	/**
+	 * @return the oldest record, null if the buffer is empty.
+	 */
+	@Nullable
+	public byte[] peek() {
+		if (records == 0) return null;
+		byte[] record = new byte[oldestLength()];
+		buffer.get(LENGTH_SIZE, record);
+		return record;
+	}
+
+	/**
+	 * Removes the oldest record.
+	 *
+	 * @return the length of the record removed, -1 if the buffer is empty.
+	 */
+	public int remove() {
+		if (records == 0) return -1;
+		int recordLength = oldestLength();
+		buffer.remove(LENGTH_SIZE + recordLength);
+		records--;
+		return recordLength;
+	}
+
+	private int oldestLength() {
+		buffer.get(0, length.array());
+		return length.getInt(0);
+	}
+}
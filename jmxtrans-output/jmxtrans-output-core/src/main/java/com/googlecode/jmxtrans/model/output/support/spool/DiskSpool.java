@@ -0,0 +1,264 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support.spool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.lang.String.format;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Records kept on disk, in a directory of memory mapped segment files, until
+ * they are read.
+ * <p/>
+ * Records are appended to the newest segment and read from the oldest one.
+ * Segments are deleted once read. When the total size of the segments would
+ * exceed the maximum size, the oldest segment is deleted with the records it
+ * holds. Segments found in the directory are recovered when the spool is
+ * opened, so that records survive restarts.
+ * <p/>
+ * The directory is locked while the spool is open, a directory can only be
+ * used by one spool at a time, in this process or in another one.
+ */
+@ThreadSafe
+public class DiskSpool implements Closeable {
+
+	private static final Logger log = LoggerFactory.getLogger(DiskSpool.class);
+
+	public static final long DEFAULT_MAX_BYTES = 64 * 1024 * 1024;
+	public static final int DEFAULT_SEGMENT_BYTES = 4 * 1024 * 1024;
+
+	private static final String SUFFIX = ".spool";
+	private static final String LOCK_FILE = ".lock";
+
+	@Nonnull private final File directory;
+	private final int segmentSize;
+	private final int maxSegments;
+
+	private final Deque<SpoolSegment> segments = new ArrayDeque<>();
+	private long nextSegmentId;
+
+	private long backlogBytes;
+	private long backlogRecords;
+	private long evictedRecords;
+	private long evictedBytes;
+
+	@Nullable private FileChannel lockChannel;
+	@Nullable private FileLock lock;
+	private boolean closed;
+
+	/**
+	 * Nothing is read or written until the spool is {@link #open() opened}.
+	 */
+	public DiskSpool(@Nonnull File directory, long maxBytes, int segmentSize) {
+		checkArgument(segmentSize > SpoolSegment.HEADER_SIZE + SpoolSegment.RECORD_OVERHEAD, "Segment size %s is too small", segmentSize);
+		checkArgument(maxBytes >= segmentSize, "Maximum size %s is smaller than segment size %s", maxBytes, segmentSize);
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.maxSegments = (int) Math.min(Integer.MAX_VALUE, maxBytes / segmentSize);
+	}
+
+	/**
+	 * Locks the directory and recovers the segments it holds. A spool is
+	 * opened once, a closed spool cannot be opened again.
+	 *
+	 * @throws IOException if the directory is used by another spool.
+	 */
+	public synchronized void open() throws IOException {
+		checkState(lock == null && !closed, "Spool %s was already opened", directory);
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Could not create spool directory " + directory);
+		}
+		FileChannel channel = FileChannel.open(new File(directory, LOCK_FILE).toPath(), CREATE, WRITE);
+		try {
+			FileLock fileLock = channel.tryLock();
+			if (fileLock == null) throw new IOException("Spool directory " + directory + " is used by another process");
+			lockChannel = channel;
+			lock = fileLock;
+		} catch (OverlappingFileLockException e) {
+			channel.close();
+			throw new IOException("Spool directory " + directory + " is used by another writer", e);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		recover();
+	}
+
+	private void recover() throws IOException {
+		File[] files = directory.listFiles();
+		if (files == null) throw new IOException("Could not list spool directory " + directory);
+		// names are zero padded ids, sorting them sorts segments by age
+		Arrays.sort(files);
+		for (File file : files) {
+			if (!file.getName().endsWith(SUFFIX)) continue;
+			nextSegmentId = Math.max(nextSegmentId, segmentId(file) + 1);
+			SpoolSegment segment = SpoolSegment.recover(file);
+			if (segment == null) {
+				log.warn("Ignoring invalid spool segment {}", file);
+			} else if (segment.isFullyRead()) {
+				delete(segment);
+			} else {
+				segments.addLast(segment);
+				backlogBytes += segment.size();
+				backlogRecords += segment.getRecords();
+			}
+		}
+		while (segments.size() > maxSegments) evictOldest();
+		if (backlogRecords > 0) {
+			log.info("Recovered {} spooled records ({} bytes) from {}", backlogRecords, backlogBytes, directory);
+		}
+	}
+
+	private static long segmentId(File file) {
+		String name = file.getName();
+		try {
+			return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * @return false if the record is larger than a segment, nothing being appended.
+	 */
+	public synchronized boolean append(@Nonnull byte[] record) throws IOException {
+		checkState(lock != null, "Spool %s is not open", directory);
+		if (record.length > SpoolSegment.maxRecordSize(segmentSize)) return false;
+
+		SpoolSegment segment = segments.peekLast();
+		if (segment == null || !segment.append(record)) {
+			if (segments.size() >= maxSegments) evictOldest();
+			segment = SpoolSegment.create(new File(directory, format("%020d%s", nextSegmentId++, SUFFIX)), segmentSize);
+			segments.addLast(segment);
+			segment.append(record);
+		}
+		backlogBytes += SpoolSegment.RECORD_OVERHEAD + record.length;
+		backlogRecords++;
+		return true;
+	}
+
+	/**
+	 * @return the oldest record, null if the spool is empty.
+	 */
+	@Nullable
+	public synchronized byte[] peek() {
+		SpoolSegment segment = segments.peekFirst();
+		return segment == null ? null : segment.peek();
+	}
+
+	/**
+	 * Removes the given record, if it is still the oldest one.
+	 */
+	public synchronized void remove(@Nonnull byte[] record) {
+		SpoolSegment segment = segments.peekFirst();
+		if (segment == null || segment.isFullyRead()) return;
+		// the record may have been evicted since it was peeked
+		if (!Arrays.equals(record, segment.peek())) return;
+
+		segment.remove();
+		backlogBytes -= SpoolSegment.RECORD_OVERHEAD + record.length;
+		backlogRecords--;
+		if (segment.isFullyRead()) {
+			segments.removeFirst();
+			delete(segment);
+		}
+	}
+
+	private void evictOldest() {
+		SpoolSegment oldest = segments.removeFirst();
+		backlogBytes -= oldest.size();
+		backlogRecords -= oldest.getRecords();
+		evictedBytes += oldest.size();
+		evictedRecords += oldest.getRecords();
+		log.warn("Spool {} is full, dropped {} oldest records", directory, oldest.getRecords());
+		delete(oldest);
+	}
+
+	private static void delete(SpoolSegment segment) {
+		if (!segment.delete()) log.warn("Could not delete spool segment {}", segment.getFile());
+	}
+
+	public synchronized boolean isEmpty() {
+		return backlogRecords == 0;
+	}
+
+	public synchronized long getBacklogBytes() {
+		return backlogBytes;
+	}
+
+	public synchronized long getBacklogRecordCount() {
+		return backlogRecords;
+	}
+
+	public synchronized int getSegmentCount() {
+		return segments.size();
+	}
+
+	public synchronized long getEvictedRecordCount() {
+		return evictedRecords;
+	}
+
+	public synchronized long getEvictedBytes() {
+		return evictedBytes;
+	}
+
+	/**
+	 * Writes the segments to disk and unlocks the directory. Records left are
+	 * recovered when the spool is opened again.
+	 */
+	@Override
+	public synchronized void close() {
+		closed = true;
+		for (SpoolSegment segment : segments) {
+			segment.force();
+		}
+		if (lockChannel != null) {
+			try {
+				// closing the channel releases the lock
+				lockChannel.close();
+			} catch (IOException e) {
+				log.warn("Could not unlock spool directory {}", directory, e);
+			}
+			lockChannel = null;
+			lock = null;
+		}
+	}
+}
@@ -0,0 +1,232 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support.spool;
+
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+
+/**
+ * A memory mapped file of records.
+ * <p/>
+ * The file starts with a header holding the offset of the next record to
+ * read. Each record is its length, the CRC32 of its content and its content.
+ * The length is written last, so that a record partially written when the
+ * process stopped has a zero length, or a wrong CRC if only some of its pages
+ * were written to disk. Records are recovered up to the first such record.
+ */
+@NotThreadSafe
+class SpoolSegment {
+
+	private static final Logger log = LoggerFactory.getLogger(SpoolSegment.class);
+
+	private static final int MAGIC = 0x4A4D5853;
+	static final int HEADER_SIZE = 8;
+	static final int RECORD_OVERHEAD = 8;
+
+	@Nonnull @Getter private final File file;
+	@Nonnull private final MappedByteBuffer buffer;
+	@Nonnull private final CRC32 crc = new CRC32();
+
+	@Getter private int readOffset;
+	private int writeOffset;
+	/** Number of records not read yet. */
+	@Getter private int records;
+
+	private SpoolSegment(@Nonnull File file, @Nonnull MappedByteBuffer buffer) {
+		this.file = file;
+		this.buffer = buffer;
+	}
+
+	static SpoolSegment create(@Nonnull File file, int capacity) throws IOException {
+		SpoolSegment segment = new SpoolSegment(file, map(file, capacity));
+		segment.buffer.putInt(0, MAGIC);
+		segment.setReadOffset(HEADER_SIZE);
+		segment.writeOffset = HEADER_SIZE;
+		return segment;
+	}
+
+	/**
+	 * @return the segment, null if the file is not a segment.
+	 */
+	@Nullable
+	static SpoolSegment recover(@Nonnull File file) throws IOException {
+		long length = file.length();
+		if (length < HEADER_SIZE || length > Integer.MAX_VALUE) return null;
+		SpoolSegment segment = new SpoolSegment(file, map(file, (int) length));
+		if (segment.buffer.getInt(0) != MAGIC) {
+			unmap(segment.buffer);
+			return null;
+		}
+
+		int readOffset = segment.buffer.getInt(4);
+		int offset = HEADER_SIZE;
+		int records = 0;
+		while (true) {
+			int recordLength = segment.validRecordLength(offset);
+			if (recordLength < 0) break;
+			if (offset >= readOffset) records++;
+			offset += RECORD_OVERHEAD + recordLength;
+		}
+		// clear what is left of partially written records, so that they are not taken for records later
+		for (int i = offset; i < segment.buffer.capacity(); i++) {
+			if (segment.buffer.get(i) != 0) segment.buffer.put(i, (byte) 0);
+		}
+		segment.writeOffset = offset;
+		segment.readOffset = Math.max(HEADER_SIZE, Math.min(readOffset, offset));
+		segment.records = records;
+		return segment;
+	}
+
+	private static MappedByteBuffer map(File file, int capacity) throws IOException {
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+			randomAccessFile.setLength(capacity);
+			// the mapping stays valid once the channel is closed
+			return randomAccessFile.getChannel().map(READ_WRITE, 0, capacity);
+		}
+	}
+
+	/**
+	 * @return the length of the record at the given offset, -1 if there is no
+	 * valid record.
+	 */
+	private int validRecordLength(int offset) {
+		if (offset + RECORD_OVERHEAD > buffer.capacity()) return -1;
+		int length = buffer.getInt(offset);
+		if (length <= 0 || length > buffer.capacity() - offset - RECORD_OVERHEAD) return -1;
+		crc.reset();
+		for (int i = 0; i < length; i++) {
+			crc.update(buffer.get(offset + RECORD_OVERHEAD + i));
+		}
+		return (int) crc.getValue() == buffer.getInt(offset + 4) ? length : -1;
+	}
+
+	static int maxRecordSize(int capacity) {
+		return capacity - HEADER_SIZE - RECORD_OVERHEAD;
+	}
+
+	int size() {
+		return writeOffset - readOffset;
+	}
+
+	boolean isFullyRead() {
+		return readOffset == writeOffset;
+	}
+
+	/**
+	 * @return false if the record does not fit in the segment.
+	 */
+	boolean append(@Nonnull byte[] record) {
+		if (RECORD_OVERHEAD + record.length > buffer.capacity() - writeOffset) return false;
+		crc.reset();
+		crc.update(record, 0, record.length);
+		buffer.putInt(writeOffset + 4, (int) crc.getValue());
+		buffer.position(writeOffset + RECORD_OVERHEAD);
+		buffer.put(record);
+		buffer.putInt(writeOffset, record.length);
+		writeOffset += RECORD_OVERHEAD + record.length;
+		records++;
+		return true;
+	}
+
+	/**
+	 * @return the next record to read, null if all records were read.
+	 */
+	@Nullable
+	byte[] peek() {
+		if (isFullyRead()) return null;
+		byte[] record = new byte[buffer.getInt(readOffset)];
+		buffer.position(readOffset + RECORD_OVERHEAD);
+		buffer.get(record);
+		return record;
+	}
+
+	/**
+	 * Marks the next record as read.
+	 */
+	void remove() {
+		if (isFullyRead()) return;
+		setReadOffset(readOffset + RECORD_OVERHEAD + buffer.getInt(readOffset));
+		records--;
+	}
+
+	private void setReadOffset(int readOffset) {
+		this.readOffset = readOffset;
+		buffer.putInt(4, readOffset);
+	}
+
+	void force() {
+		buffer.force();
+	}
+
+	/**
+	 * Releases the mapping and deletes the file. The segment must not be used afterwards.
+	 */
+	boolean delete() {
+		unmap(buffer);
+		return file.delete();
+	}
+
+	/**
+	 * Releases the mapping now instead of when the buffer is garbage collected,
+	 * so that deleted segments do not hold memory and disk space until then.
+	 * There is no public API for this, the cleaner of the buffer is called
+	 * through reflection when the JVM allows it.
+	 */
+	private static void unmap(@Nonnull MappedByteBuffer buffer) {
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Method invokeCleaner;
+			try {
+				invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			} catch (NoSuchMethodException e) {
+				// before Java 9, buffers expose their cleaner
+				Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+				cleanerMethod.setAccessible(true);
+				Object cleaner = cleanerMethod.invoke(buffer);
+				if (cleaner != null) cleaner.getClass().getMethod("clean").invoke(cleaner);
+				return;
+			}
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			invokeCleaner.invoke(theUnsafe.get(null), buffer);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			log.debug("Could not unmap spool segment, it will be unmapped once garbage collected", e);
+		}
+	}
+}
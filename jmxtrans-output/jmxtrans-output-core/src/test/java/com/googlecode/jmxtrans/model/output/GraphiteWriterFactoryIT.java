@@ -22,6 +22,8 @@
  */
 package com.googlecode.jmxtrans.model.output;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.guava.GuavaModule;
 import com.google.common.collect.ImmutableList;
 import com.google.common.io.Closer;
 import com.google.inject.Injector;
@@ -89,6 +91,15 @@ public class GraphiteWriterFactoryIT {
 		assertThat(outputWriter).isInstanceOf(ResultTransformerOutputWriter.class);
 	}
 
+	@Test
+	public void canBeParsedByPlainObjectMappers() throws IOException {
+		ObjectMapper mapper = new ObjectMapper().registerModule(new GuavaModule());
+		String json = "{\"@class\":\"" + GraphiteWriterFactory.class.getName() + "\",\"host\":\"localhost\",\"port\":2003}";
+		GraphiteWriterFactory factory = mapper.readValue(json, GraphiteWriterFactory.class);
+
+		assertThat(factory.toString()).contains("poolSize=1, maxPoolSize=null,");
+	}
+
 	private File file(String filename) throws URISyntaxException {
 		return new File(GraphiteWriterFactoryIT.class.getResource(filename).toURI());
 	}
@@ -23,17 +23,23 @@
 package com.googlecode.jmxtrans.model.output.support;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.inject.Injector;
 import com.googlecode.jmxtrans.ConfigurationParser;
+import com.googlecode.jmxtrans.ServerListBuilder;
 import com.googlecode.jmxtrans.cli.JmxTransConfiguration;
 import com.googlecode.jmxtrans.exceptions.LifecycleException;
 import com.googlecode.jmxtrans.guice.JmxTransModule;
 import com.googlecode.jmxtrans.model.OutputWriter;
+import com.googlecode.jmxtrans.model.OutputWriterFactory;
 import com.googlecode.jmxtrans.model.Query;
 import com.googlecode.jmxtrans.model.Server;
 import com.googlecode.jmxtrans.model.output.support.pool.DatagramChannelAllocator;
+import com.googlecode.jmxtrans.model.output.support.pool.NioTcpSenderAllocator;
+import com.googlecode.jmxtrans.model.output.support.pool.PoolUsage;
 import com.googlecode.jmxtrans.model.output.support.pool.RetryingAllocator;
 import com.googlecode.jmxtrans.model.output.support.pool.SocketExpiration;
+import com.googlecode.jmxtrans.util.ProcessConfigUtils;
 import com.googlecode.jmxtrans.test.IntegrationTest;
 import com.googlecode.jmxtrans.test.RequiresIO;
 import org.junit.Before;
@@ -54,12 +60,13 @@ import static org.junit.Assert.fail;
 @Category({IntegrationTest.class, RequiresIO.class})
 public class GraphiteWriterFactoryTest {
 
+	private Injector injector;
 	private ConfigurationParser configurationParser;
 
 	@Before
 	public void createConfigurationParser() {
 		JmxTransConfiguration configuration = new JmxTransConfiguration();
-		Injector injector = JmxTransModule.createInjector(configuration);
+		injector = JmxTransModule.createInjector(configuration);
 		configurationParser = injector.getInstance(ConfigurationParser.class);
 	}
 
@@ -181,6 +188,82 @@ public class GraphiteWriterFactoryTest {
 		}
 	}
 
+	@Test
+	public void nonBlockingWriterUsesSender() throws LifecycleException, URISyntaxException {
+		ImmutableList<Server> servers = configurationParser.parseServers(ImmutableList.of(file("/graphite-writer-factory-example-non-blocking.json")), false);
+
+		Query query = servers.get(0).getQueries().iterator().next();
+		ResultTransformerOutputWriter outputWriter = (ResultTransformerOutputWriter) query.getOutputWriterInstances().iterator().next();
+		WriterPoolOutputWriter target = (WriterPoolOutputWriter) outputWriter.getTarget();
+		BlazePool blazePool = (BlazePool) target.getWriterPool();
+		try {
+			Field allocator = blazePool.getClass().getDeclaredField("allocator");
+			allocator.setAccessible(true);
+			Object insideAllocator = allocator.get(blazePool);
+			Field allocatorLv2 = insideAllocator.getClass().getDeclaredField("allocator");
+			allocatorLv2.setAccessible(true);
+			Object level2Allocator = allocatorLv2.get(insideAllocator);
+			Field allocatorLv3 = level2Allocator.getClass().getDeclaredField("allocator");
+			allocatorLv3.setAccessible(true);
+			assertThat(allocatorLv3.get(level2Allocator)).isInstanceOf(NioTcpSenderAllocator.class);
+		} catch (IllegalAccessException | NoSuchFieldException e) {
+			fail();
+		} finally {
+			target.close();
+		}
+	}
+
+	@Test
+	public void endpointsAreLoadBalanced() throws LifecycleException, URISyntaxException {
+		ImmutableList<Server> servers = configurationParser.parseServers(ImmutableList.of(file("/graphite-writer-factory-example-load-balanced.json")), false);
+
+		Query query = servers.get(0).getQueries().iterator().next();
+		ResultTransformerOutputWriter outputWriter = (ResultTransformerOutputWriter) query.getOutputWriterInstances().iterator().next();
+		OutputWriter target = outputWriter.getTarget();
+
+		assertThat(target).isInstanceOf(LoadBalancingOutputWriter.class);
+		assertThat(((LoadBalancingOutputWriter) target).getEndpoints()).hasSize(2);
+	}
+
+	@Test
+	public void poolsGrowUpToResultProcessorConcurrencyByDefault() throws LifecycleException, URISyntaxException {
+		ImmutableList<Server> servers = configurationParser.parseServers(ImmutableList.of(file("/graphite-writer-factory-example2.json")), false,
+				new ServerListBuilder(ImmutableMap.<OutputWriterFactory, OutputWriter>of(), 10));
+
+		Query query = servers.get(0).getQueries().iterator().next();
+		ResultTransformerOutputWriter outputWriter = (ResultTransformerOutputWriter) query.getOutputWriterInstances().iterator().next();
+		PoolUsage poolUsage = ((WriterPoolOutputWriter) outputWriter.getTarget()).getPoolUsage();
+
+		assertThat(poolUsage.getPoolSize()).isEqualTo(1);
+		assertThat(poolUsage.getMaxPoolSize()).isEqualTo(10);
+		assertThat(poolUsage.isFair()).isFalse();
+	}
+
+	@Test
+	public void poolsDoNotGrowWithoutResultProcessorConcurrency() throws LifecycleException, URISyntaxException {
+		ImmutableList<Server> servers = configurationParser.parseServers(ImmutableList.of(file("/graphite-writer-factory-example2.json")), false);
+
+		Query query = servers.get(0).getQueries().iterator().next();
+		ResultTransformerOutputWriter outputWriter = (ResultTransformerOutputWriter) query.getOutputWriterInstances().iterator().next();
+		PoolUsage poolUsage = ((WriterPoolOutputWriter) outputWriter.getTarget()).getPoolUsage();
+
+		assertThat(poolUsage.getPoolSize()).isEqualTo(1);
+		assertThat(poolUsage.getMaxPoolSize()).isEqualTo(1);
+	}
+
+	@Test
+	public void sizedPoolsDoNotGrow() throws LifecycleException, URISyntaxException {
+		ImmutableList<Server> servers = configurationParser.parseServers(ImmutableList.of(file("/graphite-writer-factory-example-fair-pool.json")), false);
+
+		Query query = servers.get(0).getQueries().iterator().next();
+		ResultTransformerOutputWriter outputWriter = (ResultTransformerOutputWriter) query.getOutputWriterInstances().iterator().next();
+		PoolUsage poolUsage = ((WriterPoolOutputWriter) outputWriter.getTarget()).getPoolUsage();
+
+		assertThat(poolUsage.getPoolSize()).isEqualTo(4);
+		assertThat(poolUsage.getMaxPoolSize()).isEqualTo(4);
+		assertThat(poolUsage.isFair()).isTrue();
+	}
+
 	@Test
 	public void socketExpirationIsUsedByDefault() throws LifecycleException, URISyntaxException {
 		ImmutableList<Server> servers = configurationParser.parseServers(ImmutableList.of(file("/graphite-writer-factory-example2.json")), false);
@@ -239,6 +322,21 @@ public class GraphiteWriterFactoryTest {
 		}
 	}
 
+	@Test
+	public void writersAreReusedWhenTheSameConfigurationIsParsedAgain() throws LifecycleException, URISyntaxException {
+		ImmutableList<File> files = ImmutableList.of(file("/graphite-writer-factory-example-size-or-time-flush.json"));
+		ServerListBuilder previousBuilder = new ServerListBuilder();
+		ImmutableList<Server> previousServers = configurationParser.parseServers(files, false, previousBuilder);
+		OutputWriter previousWriter = previousServers.get(0).getQueries().iterator().next().getOutputWriterInstances().iterator().next();
+
+		// another parser, so that factories are parsed again instead of being taken from its cache
+		ConfigurationParser otherParser = new ConfigurationParser(injector.getInstance(ProcessConfigUtils.class));
+		ImmutableList<Server> servers = otherParser.parseServers(files, false, new ServerListBuilder(previousBuilder.getOutputWriters()));
+		OutputWriter writer = servers.get(0).getQueries().iterator().next().getOutputWriterInstances().iterator().next();
+
+		assertThat(writer).isSameAs(previousWriter);
+	}
+
 	private File file(String filename) throws URISyntaxException {
 		return new File(GraphiteWriterFactoryTest.class.getResource(filename).toURI());
 	}
@@ -0,0 +1,244 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support;
+
+import com.google.common.collect.ImmutableList;
+import com.googlecode.jmxtrans.model.Query;
+import com.googlecode.jmxtrans.model.Result;
+import com.googlecode.jmxtrans.model.Server;
+import com.googlecode.jmxtrans.model.output.support.pool.NioTcpSenderMXBean;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import static com.googlecode.jmxtrans.model.QueryFixtures.dummyQuery;
+import static com.googlecode.jmxtrans.model.ResultFixtures.numericResult;
+import static com.googlecode.jmxtrans.model.ServerFixtures.dummyServer;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LoadBalancingOutputWriterTest {
+
+	private final Server server = dummyServer();
+	private final Query query = dummyQuery();
+
+	private WriterPoolOutputWriter<DummyWriterBasedOutputWriter> first;
+	private WriterPoolOutputWriter<DummyWriterBasedOutputWriter> second;
+	private WriterPoolOutputWriter<DummyWriterBasedOutputWriter> third;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void createWriters() {
+		first = mock(WriterPoolOutputWriter.class);
+		second = mock(WriterPoolOutputWriter.class);
+		third = mock(WriterPoolOutputWriter.class);
+	}
+
+	@Test
+	public void writesAreSentToServersInTurn() throws Exception {
+		LoadBalancingOutputWriter<DummyWriterBasedOutputWriter> writer = writer(LoadBalancing.ROUND_ROBIN, first, second);
+		ImmutableList<Result> results = ImmutableList.of(numericResult());
+
+		writer.doWrite(server, query, results);
+		writer.doWrite(server, query, results);
+		writer.doWrite(server, query, results);
+
+		verify(first, times(2)).doWrite(server, query, results);
+		verify(second).doWrite(server, query, results);
+	}
+
+	@Test
+	public void failedWritesAreSentToAnotherServer() throws Exception {
+		LoadBalancingOutputWriter<DummyWriterBasedOutputWriter> writer = writer(LoadBalancing.ROUND_ROBIN, first, second);
+		ImmutableList<Result> results = ImmutableList.of(numericResult());
+		doThrow(new IOException("Connection refused")).when(first).doWrite(server, query, results);
+
+		writer.doWrite(server, query, results);
+		writer.doWrite(server, query, results);
+
+		verify(first).doWrite(server, query, results);
+		verify(second, times(2)).doWrite(server, query, results);
+		assertThat(writer.getEndpoints().get(0).isHealthy()).isFalse();
+	}
+
+	@Test(expected = IOException.class)
+	public void failureIsThrownWhenAllServersFail() throws Exception {
+		LoadBalancingOutputWriter<DummyWriterBasedOutputWriter> writer = writer(LoadBalancing.ROUND_ROBIN, first, second);
+		ImmutableList<Result> results = ImmutableList.of(numericResult());
+		doThrow(new IOException("Connection refused")).when(first).doWrite(server, query, results);
+		doThrow(new IOException("Connection refused")).when(second).doWrite(server, query, results);
+
+		writer.doWrite(server, query, results);
+	}
+
+	@Test
+	public void unhealthyServersAreUsedWhenNoOtherIsAvailable() throws Exception {
+		LoadBalancingOutputWriter<DummyWriterBasedOutputWriter> writer = writer(LoadBalancing.ROUND_ROBIN, first, second);
+		ImmutableList<Result> results = ImmutableList.of(numericResult());
+		writer.getEndpoints().get(0).markUnhealthy();
+		writer.getEndpoints().get(1).markUnhealthy();
+
+		writer.doWrite(server, query, results);
+
+		verify(first).doWrite(server, query, results);
+	}
+
+	@Test
+	public void seriesAlwaysGoToTheSameServer() throws Exception {
+		LoadBalancingOutputWriter<DummyWriterBasedOutputWriter> writer = writer(LoadBalancing.CONSISTENT_HASHING, first, second, third);
+		ImmutableList<Result> results = series(300);
+
+		writer.doWrite(server, query, results);
+		writer.doWrite(server, query, results);
+
+		List<Result> firstResults = written(first, 2);
+		List<Result> secondResults = written(second, 2);
+		List<Result> thirdResults = written(third, 2);
+		assertThat(firstResults.subList(0, firstResults.size() / 2))
+				.isEqualTo(firstResults.subList(firstResults.size() / 2, firstResults.size()));
+		assertThat(firstResults.size() + secondResults.size() + thirdResults.size()).isEqualTo(600);
+		// each server gets a fair share of the series
+		assertThat(firstResults.size()).isBetween(100, 300);
+		assertThat(secondResults.size()).isBetween(100, 300);
+		assertThat(thirdResults.size()).isBetween(100, 300);
+	}
+
+	@Test
+	public void onlySeriesOfUnavailableServerAreMoved() throws Exception {
+		LoadBalancingOutputWriter<DummyWriterBasedOutputWriter> writer = writer(LoadBalancing.CONSISTENT_HASHING, first, second, third);
+		boolean[] noFailure = new boolean[3];
+		boolean[] secondFailed = {false, true, false};
+
+		for (long seriesId = 1; seriesId <= 1000; seriesId++) {
+			int owner = writer.ringOwner(seriesId * 0x9E3779B97F4A7C15L, noFailure);
+			int ownerWithoutSecond = writer.ringOwner(seriesId * 0x9E3779B97F4A7C15L, secondFailed);
+			if (owner != 1) {
+				assertThat(ownerWithoutSecond).isEqualTo(owner);
+			} else {
+				assertThat(ownerWithoutSecond).isIn(0, 2);
+			}
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void writesAreSentToServerWithLeastQueuedBytes() throws Exception {
+		NioTcpSenderMXBean busySender = mock(NioTcpSenderMXBean.class);
+		NioTcpSenderMXBean idleSender = mock(NioTcpSenderMXBean.class);
+		when(busySender.getQueuedBytes()).thenReturn(4096);
+		when(idleSender.getQueuedBytes()).thenReturn(12);
+		LoadBalancingOutputWriter<DummyWriterBasedOutputWriter> writer = new LoadBalancingOutputWriter<>(
+				ImmutableList.of(
+						new Endpoint<>(new InetSocketAddress("localhost", 2003), first, busySender),
+						new Endpoint<>(new InetSocketAddress("localhost", 2004), second, idleSender)),
+				LoadBalancing.LEAST_OUTSTANDING_BYTES, 0, 100);
+		ImmutableList<Result> results = ImmutableList.of(numericResult());
+
+		writer.doWrite(server, query, results);
+		writer.doWrite(server, query, results);
+
+		verify(first, never()).doWrite(any(Server.class), any(Query.class), any(Iterable.class));
+		verify(second, times(2)).doWrite(server, query, results);
+	}
+
+	@Test
+	public void serversWhoseSenderFailsAreRemoved() throws Exception {
+		NioTcpSenderMXBean failingSender = mock(NioTcpSenderMXBean.class);
+		when(failingSender.getConnectionFailureCount()).thenReturn(1L);
+		LoadBalancingOutputWriter<DummyWriterBasedOutputWriter> writer = new LoadBalancingOutputWriter<>(
+				ImmutableList.of(
+						new Endpoint<>(new InetSocketAddress("localhost", 2003), first, failingSender),
+						new Endpoint<>(new InetSocketAddress("localhost", 2004), second, mock(NioTcpSenderMXBean.class))),
+				LoadBalancing.ROUND_ROBIN, 0, 100);
+		ImmutableList<Result> results = ImmutableList.of(numericResult());
+
+		writer.doWrite(server, query, results);
+		writer.doWrite(server, query, results);
+		writer.doWrite(server, query, results);
+
+		assertThat(writer.getEndpoints().get(0).isHealthy()).isFalse();
+		verify(first).doWrite(server, query, results);
+		verify(second, times(2)).doWrite(server, query, results);
+	}
+
+	@Test
+	public void serversWhoseSenderDropsMessagesAreRemoved() throws Exception {
+		NioTcpSenderMXBean droppingSender = mock(NioTcpSenderMXBean.class);
+		when(droppingSender.getDroppedBytes()).thenReturn(42L);
+		LoadBalancingOutputWriter<DummyWriterBasedOutputWriter> writer = new LoadBalancingOutputWriter<>(
+				ImmutableList.of(new Endpoint<>(new InetSocketAddress("localhost", 2003), first, droppingSender)),
+				LoadBalancing.ROUND_ROBIN, 0, 100);
+
+		writer.writePayload("payload");
+
+		assertThat(writer.getEndpoints().get(0).isHealthy()).isFalse();
+	}
+
+	@Test
+	public void allWritersAreClosed() throws Exception {
+		writer(LoadBalancing.ROUND_ROBIN, first, second).close();
+
+		verify(first).close();
+		verify(second).close();
+	}
+
+	@SafeVarargs
+	private static LoadBalancingOutputWriter<DummyWriterBasedOutputWriter> writer(
+			LoadBalancing loadBalancing,
+			WriterPoolOutputWriter<DummyWriterBasedOutputWriter>... writers) {
+		ImmutableList.Builder<Endpoint<DummyWriterBasedOutputWriter>> endpoints = ImmutableList.builder();
+		for (int i = 0; i < writers.length; i++) {
+			endpoints.add(new Endpoint<>(new InetSocketAddress("localhost", 2003 + i), writers[i], null));
+		}
+		return new LoadBalancingOutputWriter<>(endpoints.build(), loadBalancing, 0, 100);
+	}
+
+	private static ImmutableList<Result> series(int count) {
+		ImmutableList.Builder<Result> results = ImmutableList.builder();
+		for (int i = 0; i < count; i++) {
+			results.add(numericResult("series" + i, i));
+		}
+		return results.build();
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Result> written(WriterPoolOutputWriter<DummyWriterBasedOutputWriter> writer, int times) throws Exception {
+		ArgumentCaptor<Iterable> captor = ArgumentCaptor.forClass(Iterable.class);
+		verify(writer, times(times)).doWrite(any(Server.class), any(Query.class), captor.capture());
+		ImmutableList.Builder<Result> results = ImmutableList.builder();
+		for (Iterable<Result> batch : captor.getAllValues()) {
+			results.addAll(batch);
+		}
+		return results.build();
+	}
+}
@@ -27,6 +27,7 @@ import com.googlecode.jmxtrans.model.OutputWriter;
 import com.googlecode.jmxtrans.model.Query;
 import com.googlecode.jmxtrans.model.Result;
 import com.googlecode.jmxtrans.model.Server;
+import com.googlecode.jmxtrans.model.results.ValueTransformer;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
@@ -34,22 +35,30 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static com.googlecode.jmxtrans.model.QueryFixtures.dummyQuery;
+import static com.googlecode.jmxtrans.model.ResultFixtures.booleanTrueResult;
+import static com.googlecode.jmxtrans.model.ResultFixtures.numericResult;
 import static com.googlecode.jmxtrans.model.ResultFixtures.singleFalseResult;
 import static com.googlecode.jmxtrans.model.ResultFixtures.singleTrueResult;
 import static com.googlecode.jmxtrans.model.ServerFixtures.dummyServer;
 import static com.googlecode.jmxtrans.model.output.support.ResultTransformerOutputWriter.booleanToNumber;
 import static com.googlecode.jmxtrans.model.output.support.ResultTransformerOutputWriter.identity;
+import static com.googlecode.jmxtrans.model.output.support.ResultTransformerOutputWriter.transformValues;
 import static java.lang.Boolean.FALSE;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ResultTransformerOutputWriterTest {
 
 	@Mock private OutputWriter outputWriter;
-	@Captor private ArgumentCaptor<ImmutableList<Result>> resultsCaptor;
+	@Captor private ArgumentCaptor<List<Result>> resultsCaptor;
 
 	@Test
 	public void booleanValuesAreTransformed() throws Exception {
@@ -79,4 +88,50 @@ public class ResultTransformerOutputWriterTest {
 		assertThat(transformedResult.getValuePath()).isEmpty();
 	}
 
+	@Test
+	public void identityTransformerPassesResultsWithoutCopy() throws Exception {
+		ImmutableList<Result> results = singleFalseResult();
+		identity(outputWriter).doWrite(dummyServer(), dummyQuery(), results);
+
+		verify(outputWriter).doWrite(any(Server.class), any(Query.class), same(results));
+	}
+
+	@Test
+	public void resultsAreSharedBetweenWriters() throws Exception {
+		Result numeric = numericResult();
+		ImmutableList<Result> results = ImmutableList.of(booleanTrueResult(), numeric);
+
+		for (int i = 0; i < 5; i++) {
+			OutputWriter writer = mock(OutputWriter.class);
+			booleanToNumber(writer).doWrite(dummyServer(), dummyQuery(), results);
+
+			verify(writer).doWrite(any(Server.class), any(Query.class), resultsCaptor.capture());
+			List<Result> transformed = resultsCaptor.getValue();
+			assertThat(transformed).hasSize(2);
+			assertThat(transformed.get(0).getValue()).isEqualTo(1);
+			// only results whose value is transformed are allocated
+			assertThat(transformed.get(1)).isSameAs(numeric);
+		}
+	}
+
+	@Test
+	public void valuesAreTransformedOnceForWritersIteratingSeveralTimes() throws Exception {
+		final AtomicInteger transformations = new AtomicInteger();
+		ValueTransformer counting = new ValueTransformer() {
+			@Override
+			public Object apply(Object value) {
+				transformations.incrementAndGet();
+				return String.valueOf(value);
+			}
+		};
+		transformValues(false, ImmutableList.of(counting), outputWriter)
+				.doWrite(dummyServer(), dummyQuery(), singleTrueResult());
+
+		verify(outputWriter).doWrite(any(Server.class), any(Query.class), resultsCaptor.capture());
+		List<Result> transformed = resultsCaptor.getValue();
+		assertThat(transformed.get(0)).isSameAs(transformed.get(0));
+		assertThat(transformed).hasSize(1);
+		assertThat(transformations.get()).isEqualTo(1);
+	}
+
 }
@@ -0,0 +1,201 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support;
+
+import com.google.common.collect.ImmutableList;
+import com.googlecode.jmxtrans.model.Query;
+import com.googlecode.jmxtrans.model.Result;
+import com.googlecode.jmxtrans.model.Server;
+import com.googlecode.jmxtrans.model.output.support.retry.OverflowPolicy;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import javax.annotation.Nonnull;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.Writer;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.googlecode.jmxtrans.model.QueryFixtures.dummyQuery;
+import static com.googlecode.jmxtrans.model.ResultFixtures.numericResult;
+import static com.googlecode.jmxtrans.model.ServerFixtures.dummyServer;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class RetryingOutputWriterTest {
+
+	private final Server server = dummyServer();
+	private final Query query = dummyQuery();
+	private final ImmutableList<Result> results = ImmutableList.of(numericResult());
+
+	private WriterPoolOutputWriter<DummyWriterBasedOutputWriter> destination;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void createDestination() {
+		destination = mock(WriterPoolOutputWriter.class);
+	}
+
+	@Test
+	public void resultsAreWrittenToDestination() throws Exception {
+		RetryingOutputWriter<WriterPoolOutputWriter<DummyWriterBasedOutputWriter>> writer = writer(1024, OverflowPolicy.DROP_OLDEST);
+
+		writer.doWrite(server, query, results);
+
+		verify(destination).doWrite(server, query, results);
+		assertThat(writer.isRetrying()).isFalse();
+		assertThat(writer.getBufferedRecordCount()).isZero();
+	}
+
+	@Test
+	public void failedResultsAreBufferedAndRetried() throws Exception {
+		RetryingOutputWriter<WriterPoolOutputWriter<DummyWriterBasedOutputWriter>> writer = writer(1024, OverflowPolicy.DROP_OLDEST);
+		doThrow(new IOException("Connection reset")).when(destination).doWrite(server, query, results);
+
+		writer.doWrite(server, query, results);
+		assertThat(writer.getBufferedRecordCount()).isEqualTo(1);
+		assertThat(writer.isRetrying()).isTrue();
+
+		writer.retry();
+
+		verify(destination).writePayload("10");
+		assertThat(writer.getBufferedRecordCount()).isZero();
+		assertThat(writer.getRetriedRecordCount()).isEqualTo(1);
+		assertThat(writer.isRetrying()).isFalse();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void resultsAreBufferedInOrderWhileRetrying() throws Exception {
+		RetryingOutputWriter<WriterPoolOutputWriter<DummyWriterBasedOutputWriter>> writer = writer(1024, OverflowPolicy.DROP_OLDEST);
+		doThrow(new IOException("Connection reset")).when(destination).doWrite(any(Server.class), any(Query.class), any(Iterable.class));
+
+		write(writer, 1);
+		write(writer, 2);
+		writer.retry();
+
+		verify(destination, times(1)).doWrite(any(Server.class), any(Query.class), any(Iterable.class));
+		InOrder inOrder = inOrder(destination);
+		inOrder.verify(destination).writePayload("1");
+		inOrder.verify(destination).writePayload("2");
+	}
+
+	@Test
+	public void backoffDoublesUntilRetrySucceeds() throws Exception {
+		RetryingOutputWriter<WriterPoolOutputWriter<DummyWriterBasedOutputWriter>> writer = writer(1024, OverflowPolicy.DROP_OLDEST);
+		doThrow(new IOException("Connection reset")).when(destination).doWrite(server, query, results);
+		doThrow(new IOException("Connection refused")).when(destination).writePayload(anyString());
+
+		writer.doWrite(server, query, results);
+		writer.retry();
+		assertThat(writer.getBackoffMillis()).isEqualTo(200);
+		writer.retry();
+		writer.retry();
+		assertThat(writer.getBackoffMillis()).isEqualTo(500);
+		assertThat(writer.getBufferedRecordCount()).isEqualTo(1);
+		assertThat(writer.getRetryFailureCount()).isEqualTo(3);
+
+		doNothing().when(destination).writePayload(anyString());
+		writer.retry();
+
+		assertThat(writer.getBackoffMillis()).isEqualTo(100);
+		assertThat(writer.getBufferedRecordCount()).isZero();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void oldestResultsAreDroppedWhenBufferIsFull() throws Exception {
+		RetryingOutputWriter<WriterPoolOutputWriter<DummyWriterBasedOutputWriter>> writer = writer(10, OverflowPolicy.DROP_OLDEST);
+		doThrow(new IOException("Connection reset")).when(destination).doWrite(any(Server.class), any(Query.class), any(Iterable.class));
+
+		write(writer, 1);
+		write(writer, 2);
+		write(writer, 3);
+		writer.retry();
+
+		verify(destination, never()).writePayload("1");
+		verify(destination).writePayload("2");
+		verify(destination).writePayload("3");
+		assertThat(writer.getDroppedRecordCount()).isEqualTo(1);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void newestResultsAreDroppedWhenBufferIsFull() throws Exception {
+		RetryingOutputWriter<WriterPoolOutputWriter<DummyWriterBasedOutputWriter>> writer = writer(10, OverflowPolicy.DROP_NEWEST);
+		doThrow(new IOException("Connection reset")).when(destination).doWrite(any(Server.class), any(Query.class), any(Iterable.class));
+
+		write(writer, 1);
+		write(writer, 2);
+		write(writer, 3);
+		writer.retry();
+
+		verify(destination).writePayload("1");
+		verify(destination).writePayload("2");
+		verify(destination, never()).writePayload("3");
+		assertThat(writer.getDroppedRecordCount()).isEqualTo(1);
+		assertThat(writer.getDroppedBytes()).isEqualTo(1);
+	}
+
+	@Test
+	public void destinationIsClosed() throws Exception {
+		writer(1024, OverflowPolicy.DROP_OLDEST).close();
+
+		verify(destination).close();
+	}
+
+	private void write(RetryingOutputWriter<?> writer, int value) throws Exception {
+		writer.doWrite(server, query, ImmutableList.of(numericResult(value)));
+	}
+
+	private RetryingOutputWriter<WriterPoolOutputWriter<DummyWriterBasedOutputWriter>> writer(
+			int bufferCapacity,
+			OverflowPolicy overflowPolicy) throws Exception {
+		return new RetryingOutputWriter<>(
+				destination,
+				new ValueWriter(),
+				UTF_8,
+				bufferCapacity,
+				overflowPolicy,
+				100,
+				500,
+				new ObjectName("com.googlecode.jmxtrans:Type=OutputWriterRetryBuffer,Id=test"));
+	}
+
+	/** Writes the value of the first result. */
+	private static final class ValueWriter implements WriterBasedOutputWriter {
+		@Override
+		public void write(@Nonnull Writer writer, @Nonnull Server server, @Nonnull Query query, @Nonnull Iterable<Result> results) throws IOException {
+			writer.write(results.iterator().next().getValue().toString());
+		}
+	}
+}
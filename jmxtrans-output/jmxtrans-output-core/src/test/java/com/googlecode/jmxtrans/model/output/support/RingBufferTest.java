@@ -0,0 +1,154 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RingBufferTest {
+
+	@Test
+	public void queuedMessagesAreSentTogether() throws Exception {
+		RingBuffer queue = new RingBuffer(32);
+		SlowChannel channel = new SlowChannel(100);
+
+		assertThat(queue.offer(bytes("first\n"))).isTrue();
+		assertThat(queue.offer(bytes("second\n"))).isTrue();
+
+		assertThat(queue.drainTo(channel)).isEqualTo(13);
+		assertThat(channel.toString()).isEqualTo("first\nsecond\n");
+		assertThat(queue.isEmpty()).isTrue();
+	}
+
+	@Test
+	public void messagesThatDoNotFitAreRejected() throws Exception {
+		RingBuffer queue = new RingBuffer(10);
+		ByteBuffer message = bytes("0123456");
+
+		assertThat(queue.offer(message)).isTrue();
+		ByteBuffer rejected = bytes("abcd");
+		assertThat(queue.offer(rejected)).isFalse();
+
+		assertThat(rejected.remaining()).isEqualTo(4);
+		assertThat(queue.size()).isEqualTo(7);
+	}
+
+	@Test
+	public void partiallySentMessagesAreKept() throws Exception {
+		RingBuffer queue = new RingBuffer(10);
+		SlowChannel channel = new SlowChannel(4);
+
+		queue.offer(bytes("0123456"));
+
+		assertThat(queue.drainTo(channel)).isEqualTo(4);
+		assertThat(queue.size()).isEqualTo(3);
+		assertThat(queue.drainTo(channel)).isEqualTo(3);
+		assertThat(channel.toString()).isEqualTo("0123456");
+	}
+
+	@Test
+	public void messagesWrapAroundTheEndOfTheBuffer() throws Exception {
+		RingBuffer queue = new RingBuffer(10);
+		SlowChannel channel = new SlowChannel(6);
+
+		queue.offer(bytes("012345"));
+		queue.drainTo(channel);
+		queue.offer(bytes("abc"));
+		assertThat(queue.offer(bytes("defghij"))).isTrue();
+
+		assertThat(queue.size()).isEqualTo(10);
+		assertThat(queue.drainTo(channel)).isEqualTo(6);
+		assertThat(queue.drainTo(channel)).isEqualTo(4);
+		assertThat(channel.toString()).isEqualTo("012345abcdefghij");
+	}
+
+	@Test
+	public void bytesAreReadAcrossTheEndOfTheBuffer() {
+		RingBuffer queue = new RingBuffer(10);
+
+		queue.offer(bytes("012345"));
+		queue.remove(4);
+		queue.offer(bytes("abcdef"));
+
+		byte[] read = new byte[7];
+		queue.get(1, read);
+		assertThat(new String(read, UTF_8)).isEqualTo("5abcdef");
+		assertThat(queue.size()).isEqualTo(8);
+	}
+
+	private static ByteBuffer bytes(String message) {
+		return ByteBuffer.wrap(message.getBytes(UTF_8));
+	}
+
+	/** Accepts a limited number of bytes at each write. */
+	private static final class SlowChannel implements GatheringByteChannel {
+		private final int maxBytesPerWrite;
+		private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		private SlowChannel(int maxBytesPerWrite) {
+			this.maxBytesPerWrite = maxBytesPerWrite;
+		}
+
+		@Override
+		public long write(ByteBuffer[] srcs, int offset, int length) {
+			int written = 0;
+			for (int i = offset; i < offset + length; i++) {
+				while (srcs[i].hasRemaining() && written < maxBytesPerWrite) {
+					out.write(srcs[i].get());
+					written++;
+				}
+			}
+			return written;
+		}
+
+		@Override
+		public long write(ByteBuffer[] srcs) {
+			return write(srcs, 0, srcs.length);
+		}
+
+		@Override
+		public int write(ByteBuffer src) {
+			return (int) write(new ByteBuffer[] {src});
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public String toString() {
+			return new String(out.toByteArray(), UTF_8);
+		}
+	}
+}
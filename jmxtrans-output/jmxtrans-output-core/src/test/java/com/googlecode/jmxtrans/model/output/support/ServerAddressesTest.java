@@ -0,0 +1,58 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ServerAddressesTest {
+
+	@Test
+	public void hostAndPortAreUsedWithoutEndpoints() {
+		assertThat(ServerAddresses.parse("localhost", 2003, null))
+				.containsExactly(new InetSocketAddress("localhost", 2003));
+	}
+
+	@Test
+	public void endpointsAreParsed() {
+		assertThat(ServerAddresses.parse(null, 2003, ImmutableList.of("relay1:2013", "relay2", "[::1]:2023")))
+				.containsExactly(
+						new InetSocketAddress("relay1", 2013),
+						new InetSocketAddress("relay2", 2003),
+						new InetSocketAddress("::1", 2023));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void portOfEndpointsIsRequired() {
+		ServerAddresses.parse(null, null, ImmutableList.of("relay1"));
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void hostIsRequiredWithoutEndpoints() {
+		ServerAddresses.parse(null, 2003, ImmutableList.<String>of());
+	}
+}
@@ -0,0 +1,183 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support;
+
+import com.google.common.collect.ImmutableList;
+import com.googlecode.jmxtrans.exceptions.LifecycleException;
+import com.googlecode.jmxtrans.model.Query;
+import com.googlecode.jmxtrans.model.Result;
+import com.googlecode.jmxtrans.model.Server;
+import com.googlecode.jmxtrans.model.output.support.spool.DiskSpool;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.IOException;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.googlecode.jmxtrans.model.QueryFixtures.dummyQuery;
+import static com.googlecode.jmxtrans.model.ResultFixtures.numericResult;
+import static com.googlecode.jmxtrans.model.ServerFixtures.dummyServer;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class SpoolingOutputWriterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final Server server = dummyServer();
+	private final Query query = dummyQuery();
+	private final ImmutableList<Result> results = ImmutableList.of(numericResult());
+
+	private WriterPoolOutputWriter<DummyWriterBasedOutputWriter> destination;
+	private SpoolingOutputWriter<WriterPoolOutputWriter<DummyWriterBasedOutputWriter>> writer;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void createWriter() throws Exception {
+		destination = mock(WriterPoolOutputWriter.class);
+		writer = new SpoolingOutputWriter<>(
+				destination,
+				new DummyWriterBasedOutputWriter("message"),
+				UTF_8,
+				openSpool(folder.getRoot()),
+				1024,
+				new ObjectName("com.googlecode.jmxtrans:Type=OutputWriterSpool,Id=test"));
+	}
+
+	@Test
+	public void resultsAreWrittenToDestination() throws Exception {
+		writer.doWrite(server, query, results);
+
+		verify(destination).doWrite(server, query, results);
+		assertThat(writer.getBacklogRecordCount()).isZero();
+	}
+
+	@Test
+	public void failedResultsAreSpooledAndReplayed() throws Exception {
+		doThrow(new IOException("Connection refused")).when(destination).doWrite(server, query, results);
+
+		writer.doWrite(server, query, results);
+		assertThat(writer.getBacklogRecordCount()).isEqualTo(1);
+		assertThat(writer.isDestinationAvailable()).isFalse();
+
+		writer.replay();
+
+		verify(destination).writePayload("message");
+		assertThat(writer.getBacklogRecordCount()).isZero();
+		assertThat(writer.getReplayedRecordCount()).isEqualTo(1);
+		assertThat(writer.isDestinationAvailable()).isTrue();
+	}
+
+	@Test
+	public void resultsAreSpooledWithoutTryingUnavailableDestination() throws Exception {
+		doThrow(new IOException("Connection refused")).when(destination).doWrite(server, query, results);
+
+		writer.doWrite(server, query, results);
+		writer.doWrite(server, query, results);
+
+		verify(destination, times(1)).doWrite(server, query, results);
+		assertThat(writer.getSpooledRecordCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void recordsAreKeptWhenReplayFails() throws Exception {
+		doThrow(new IOException("Connection refused")).when(destination).doWrite(server, query, results);
+		doThrow(new IOException("Connection refused")).when(destination).writePayload(anyString());
+
+		writer.doWrite(server, query, results);
+		writer.doWrite(server, query, results);
+		writer.replay();
+
+		verify(destination, times(1)).writePayload(anyString());
+		assertThat(writer.getBacklogRecordCount()).isEqualTo(2);
+		assertThat(writer.getReplayFailureCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void replayIsLimitedByRate() throws Exception {
+		SpoolingOutputWriter<WriterPoolOutputWriter<DummyWriterBasedOutputWriter>> slowWriter = new SpoolingOutputWriter<>(
+				destination,
+				new DummyWriterBasedOutputWriter("message"),
+				UTF_8,
+				openSpool(folder.newFolder()),
+				10,
+				new ObjectName("com.googlecode.jmxtrans:Type=OutputWriterSpool,Id=slow"));
+		doThrow(new IOException("Connection refused")).when(destination).doWrite(server, query, results);
+
+		slowWriter.doWrite(server, query, results);
+		slowWriter.doWrite(server, query, results);
+		slowWriter.doWrite(server, query, results);
+		slowWriter.replay();
+
+		verify(destination, times(2)).writePayload("message");
+		assertThat(slowWriter.getBacklogRecordCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void spoolIsOpenedWhenWriterIsStarted() throws Exception {
+		File directory = folder.newFolder();
+		DiskSpool running = openSpool(directory);
+		SpoolingOutputWriter<WriterPoolOutputWriter<DummyWriterBasedOutputWriter>> replacement = new SpoolingOutputWriter<>(
+				destination,
+				new DummyWriterBasedOutputWriter("message"),
+				UTF_8,
+				new DiskSpool(directory, 1024, 256),
+				1024,
+				new ObjectName("com.googlecode.jmxtrans:Type=OutputWriterSpool,Id=replacement"));
+
+		try {
+			replacement.start();
+			fail("the directory is still used by the running spool");
+		} catch (LifecycleException expected) {
+			verify(destination, never()).start();
+		} finally {
+			running.close();
+		}
+	}
+
+	@Test
+	public void destinationIsClosed() throws Exception {
+		writer.close();
+
+		verify(destination).close();
+		verify(destination, never()).writePayload(anyString());
+	}
+
+	private static DiskSpool openSpool(File directory) throws IOException {
+		DiskSpool spool = new DiskSpool(directory, 1024, 256);
+		spool.open();
+		return spool;
+	}
+}
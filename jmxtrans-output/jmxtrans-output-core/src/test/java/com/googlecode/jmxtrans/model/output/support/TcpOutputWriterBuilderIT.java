@@ -22,6 +22,7 @@
  */
 package com.googlecode.jmxtrans.model.output.support;
 
+import com.googlecode.jmxtrans.model.output.support.pool.Compression;
 import com.googlecode.jmxtrans.test.IntegrationTest;
 import com.googlecode.jmxtrans.test.RequiresIO;
 import com.googlecode.jmxtrans.test.TCPEchoServer;
@@ -76,12 +77,54 @@ public class TcpOutputWriterBuilderIT {
 		assertThat(connectionsCreated).isGreaterThan(1);
 	}
 
+	@Test
+	public void messageIsSentWithoutBlocking() throws Exception {
+		// writers share the connection of the sender, messages are only told apart by their line ends
+		WriterPoolOutputWriter<DummySequenceWriterBasedOutputWriter> outputWriter = TcpOutputWriterBuilder.builder(
+				tcpEchoServer.getLocalSocketAddress(),
+				new DummySequenceWriterBasedOutputWriter("nonBlockingMessage"))
+				.setNonBlocking(true)
+				.setPoolSize(2)
+				.build();
+		outputWriter.start();
+
+		outputWriter.doWrite(dummyServer(), dummyQuery(), dummyResults());
+		outputWriter.doWrite(dummyServer(), dummyQuery(), dummyResults());
+		outputWriter.close();
+
+		await().atMost(200, MILLISECONDS).until(messageReceived("nonBlockingMessage0", "nonBlockingMessage1"));
+	}
+
+	@Test
+	public void messageIsSentCompressed() throws Exception {
+		TCPEchoServer gzipEchoServer = new TCPEchoServer(TCPEchoServer.Compression.GZIP);
+		gzipEchoServer.start();
+		try {
+			WriterPoolOutputWriter<DummyWriterBasedOutputWriter> outputWriter = TcpOutputWriterBuilder.builder(
+					gzipEchoServer.getLocalSocketAddress(),
+					new DummyWriterBasedOutputWriter("compressedMessage"))
+					.setCompression(Compression.GZIP)
+					.build();
+
+			outputWriter.doWrite(dummyServer(), dummyQuery(), dummyResults());
+			outputWriter.close();
+
+			await().atMost(200, MILLISECONDS).until(messageReceived(gzipEchoServer, "compressedMessage"));
+		} finally {
+			gzipEchoServer.stop();
+		}
+	}
+
 	private Callable<Boolean> messageReceived(final String... messages) {
+		return messageReceived(tcpEchoServer, messages);
+	}
+
+	private static Callable<Boolean> messageReceived(final TCPEchoServer echoServer, final String... messages) {
 		return new Callable<Boolean>() {
 			@Override
 			public Boolean call() throws Exception {
 				for (String message : messages) {
-					if (!tcpEchoServer.messageReceived(message)) {
+					if (!echoServer.messageReceived(message)) {
 						return false;
 					}
 				}
@@ -113,6 +113,35 @@ public class WriterPoolOutputWriterTest {
 		}
 	}
 
+	@Test(expected = IOException.class)
+	@Category(IntegrationTest.class)
+	public void payloadIsNotSentUnlessFlushed() throws Exception {
+		writer = new FailingFlushWriter();
+		pool = new BlazePool<>(new Config<WriterPoolable>().setAllocator(allocator));
+
+		WriterPoolOutputWriter<WriterBasedOutputWriter> outputWriter = new WriterPoolOutputWriter<>(target, pool, new Timeout(1, SECONDS));
+		try {
+			outputWriter.writePayload("payload");
+		} finally {
+			verify(allocator, timeout(500)).deallocate(any(WriterPoolable.class));
+		}
+	}
+
+	private static class FailingFlushWriter extends Writer {
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+		}
+
+		@Override
+		public void flush() throws IOException {
+			throw new IOException("Connection reset");
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
 	private class DummyAllocator implements Allocator<WriterPoolable> {
 		@Override
 		public WriterPoolable allocate(Slot slot) throws Exception {
@@ -283,6 +283,29 @@ public class OpenTSDBMessageFormatterTest {
 
 	}
 
+	@Test
+	public void testTemplateNaming() throws Exception {
+
+		OpenTSDBMessageFormatter formatter =
+				new OpenTSDBMessageFormatter(ImmutableList.of("Type", "Group", "Name", "Missing"),
+						ImmutableMap.<String, String>of(), OpenTSDBMessageFormatter.DEFAULT_TAG_NAME, null, "jvm.{typename.Group}.{attribute}", true, true);
+
+		Iterable<String> strings = formatter.formatResults(
+				ImmutableList.of(this.mockResult),
+				ServerFixtures.dummyServer());
+		Assert.assertEquals(1, Iterables.size(strings));
+		Assert.assertTrue(strings.iterator().next().matches("^jvm.x-group-x.X-ATT-X 0 120021.*"));
+
+	}
+
+	@Test(expected = LifecycleException.class)
+	public void testTemplateAndJexlNamingAreExclusive() throws Exception {
+
+		new OpenTSDBMessageFormatter(ImmutableList.of("Type", "Group", "Name", "Missing"),
+						ImmutableMap.<String, String>of(), OpenTSDBMessageFormatter.DEFAULT_TAG_NAME, "attribute", "{attribute}", true, true);
+
+	}
+
 	@Test(expected = LifecycleException.class)
 	public void testInvalidJexlNaming() throws Exception {
 
@@ -29,8 +29,12 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
 
+import static com.google.common.base.Charsets.ISO_8859_1;
 import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Strings.repeat;
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class ChannelWriterTest {
@@ -81,9 +85,95 @@ public class ChannelWriterTest {
 		assertThat(channel.toString()).isEqualTo("hello world 1" + "hello world 2");
 	}
 
+	@Test
+	public void nonAsciiMessagesAreEncoded() throws IOException {
+		MyByteChannel channel = new MyByteChannel(UTF_8);
+		ChannelWriter writer = new ChannelWriter(100, UTF_8, channel);
+
+		writer.write("mémoire.utilisée 42\n");
+		writer.write("内存.使用 1\n");
+		writer.write("emoji.\uD83D\uDE00 7\n");
+		writer.flush();
+
+		assertThat(channel.toString()).isEqualTo("mémoire.utilisée 42\n内存.使用 1\nemoji.\uD83D\uDE00 7\n");
+	}
+
+	@Test
+	public void offsetIsAppliedToCharacters() throws IOException {
+		MyByteChannel channel = new MyByteChannel(UTF_8);
+		ChannelWriter writer = new ChannelWriter(100, UTF_8, channel);
+
+		char[] message = "ééé hello àà".toCharArray();
+		writer.write(message, 4, 5);
+		writer.flush();
+
+		assertThat(channel.toString()).isEqualTo("hello");
+	}
+
+	@Test
+	public void nonAsciiMessagesAreNotSplitWhenBufferIsFull() throws IOException {
+		MyByteChannel channel = new MyByteChannel(UTF_8);
+		// "mémoire 1" is 9 characters but 10 bytes
+		ChannelWriter writer = new ChannelWriter(19, UTF_8, channel);
+
+		writer.write("mémoire 1");
+		writer.write("mémoire 2");
+		writer.flush();
+
+		assertThat(channel.getWrites()).containsExactly("mémoire 1", "mémoire 2");
+	}
+
+	@Test
+	public void messagesLargerThanBufferAreSplit() throws IOException {
+		MyByteChannel channel = new MyByteChannel(UTF_8);
+		ChannelWriter writer = new ChannelWriter(8, UTF_8, channel);
+
+		writer.write("héllo wörld");
+		writer.flush();
+
+		assertThat(channel.getWrites()).hasSize(2);
+		assertThat(channel.toString()).isEqualTo("héllo wörld");
+	}
+
+	@Test
+	public void surrogatePairsAreKeptAcrossChunks() throws IOException {
+		MyByteChannel channel = new MyByteChannel(UTF_8);
+		ChannelWriter writer = new ChannelWriter(8192, UTF_8, channel);
+		// the characters of one of the pairs are on both sides of a chunk boundary
+		String message = "a" + repeat("\uD83D\uDE00", 1000);
+
+		writer.write(message);
+		writer.flush();
+
+		assertThat(channel.toString()).isEqualTo(message);
+	}
+
+	@Test
+	public void unmappableCharactersAreReplaced() throws IOException {
+		MyByteChannel channel = new MyByteChannel(ISO_8859_1);
+		ChannelWriter writer = new ChannelWriter(20, ISO_8859_1, channel);
+
+		writer.write("mémoire 内存");
+		writer.flush();
+
+		assertThat(channel.toString()).isEqualTo("mémoire ??");
+	}
+
+	@Test
+	public void directBufferCanBeUsed() throws IOException {
+		MyByteChannel channel = new MyByteChannel(UTF_8);
+		ChannelWriter writer = new ChannelWriter(20, UTF_8, channel, true);
+
+		writer.write("mémoire 1");
+		writer.close();
+
+		assertThat(channel.toString()).isEqualTo("mémoire 1");
+	}
+
 	private static class MyByteChannel implements WritableByteChannel {
 
 		@Nonnull private final StringBuffer buffer = new StringBuffer();
+		@Nonnull private final List<String> writes = new ArrayList<>();
 		@Nonnull private final Charset charset;
 
 		public MyByteChannel(Charset charset) {
@@ -94,7 +184,9 @@ public class ChannelWriterTest {
 		public int write(ByteBuffer src) throws IOException {
 			byte[] bytes = new byte[src.remaining()];
 			src.get(bytes);
-			buffer.append(new String(bytes, charset));
+			String written = new String(bytes, charset);
+			buffer.append(written);
+			writes.add(written);
 			return 0;
 		}
 
@@ -107,6 +199,10 @@ public class ChannelWriterTest {
 		public void close() throws IOException {
 		}
 
+		public List<String> getWrites() {
+			return writes;
+		}
+
 		@Override
 		public String toString() {
 			return buffer.toString();
@@ -0,0 +1,112 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support.pool;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompressingOutputStreamTest {
+
+	private final CompressionStats stats = new CompressionStats();
+
+	@Test
+	public void deflateStreamCanBeDecompressed() throws Exception {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (OutputStream out = Compression.DEFLATE.wrap(compressed, stats)) {
+			out.write(bytes("servers.host.cpu 12 1500000000\n"));
+			out.write(bytes("servers.host.memory 34 1500000000\n"));
+		}
+
+		assertThat(decompress(new InflaterInputStream(new ByteArrayInputStream(compressed.toByteArray()))))
+				.isEqualTo("servers.host.cpu 12 1500000000\nservers.host.memory 34 1500000000\n");
+	}
+
+	@Test
+	public void gzipStreamCanBeDecompressed() throws Exception {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (OutputStream out = Compression.GZIP.wrap(compressed, stats)) {
+			out.write(bytes("servers.host.cpu 12 1500000000\n"));
+			out.flush();
+			out.write(bytes("servers.host.memory 34 1500000000\n"));
+		}
+
+		assertThat(decompress(new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))))
+				.isEqualTo("servers.host.cpu 12 1500000000\nservers.host.memory 34 1500000000\n");
+	}
+
+	@Test
+	public void flushedBytesCanBeDecompressedBeforeTheEndOfTheStream() throws Exception {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		OutputStream out = Compression.DEFLATE.wrap(compressed, stats);
+
+		out.write(bytes("servers.host.cpu 12 1500000000\n"));
+		out.flush();
+
+		Inflater inflater = new Inflater();
+		inflater.setInput(compressed.toByteArray());
+		byte[] decompressed = new byte[256];
+		int length = inflater.inflate(decompressed);
+		assertThat(new String(decompressed, 0, length, UTF_8)).isEqualTo("servers.host.cpu 12 1500000000\n");
+		assertThat(inflater.finished()).isFalse();
+	}
+
+	@Test
+	public void compressionIsMeasured() throws Exception {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (OutputStream out = Compression.GZIP.wrap(compressed, stats)) {
+			for (int i = 0; i < 1000; i++) {
+				out.write(bytes("servers.host.cpu " + i + " 1500000000\n"));
+			}
+		}
+
+		assertThat(stats.getCompressedBytes()).isEqualTo(compressed.size());
+		assertThat(stats.getUncompressedBytes()).isGreaterThan(compressed.size());
+		assertThat(stats.getCompressionRatio()).isGreaterThan(1);
+	}
+
+	@Test
+	public void streamIsNotWrappedWithoutCompression() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		assertThat(Compression.NONE.wrap(out, stats)).isSameAs(out);
+	}
+
+	private static String decompress(InputStream in) throws Exception {
+		return new String(ByteStreams.toByteArray(in), UTF_8);
+	}
+
+	private static byte[] bytes(String message) {
+		return message.getBytes(UTF_8);
+	}
+}
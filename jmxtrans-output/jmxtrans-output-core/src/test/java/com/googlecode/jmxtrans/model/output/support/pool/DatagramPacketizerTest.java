@@ -0,0 +1,151 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support.pool;
+
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Strings.repeat;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DatagramPacketizerTest {
+
+	private final DatagramRecorder channel = new DatagramRecorder();
+	private final PacketStats stats = new PacketStats();
+
+	@Test
+	public void linesArePackedInPackets() throws IOException {
+		DatagramPacketizer writer = new DatagramPacketizer(30, UTF_8, channel, stats);
+
+		writer.write("servers.a 1 1\n");
+		writer.write("servers.b 2 1\n");
+		writer.write("servers.c 3 1\n");
+		writer.flush();
+
+		assertThat(channel.datagrams).containsExactly("servers.a 1 1\nservers.b 2 1\n", "servers.c 3 1\n");
+	}
+
+	@Test
+	public void linesWrittenInPiecesAreNotSplit() throws IOException {
+		DatagramPacketizer writer = new DatagramPacketizer(30, UTF_8, channel, stats);
+
+		writer.write("servers.a 1 1\nservers.b");
+		writer.write(" 2 1\nservers.");
+		writer.write("c 3 1\n");
+		writer.flush();
+
+		assertThat(channel.datagrams).containsExactly("servers.a 1 1\nservers.b 2 1\n", "servers.c 3 1\n");
+	}
+
+	@Test
+	public void nonAsciiLinesAreCutOnBytes() throws IOException {
+		// each line is 14 characters and 16 bytes
+		DatagramPacketizer writer = new DatagramPacketizer(34, UTF_8, channel, stats);
+
+		writer.write("mémoire.é 1 1\n");
+		writer.write("mémoire.é 2 1\n");
+		writer.write("mémoire.é 3 1\n");
+		writer.flush();
+
+		assertThat(channel.datagrams).containsExactly("mémoire.é 1 1\nmémoire.é 2 1\n", "mémoire.é 3 1\n");
+	}
+
+	@Test
+	public void linesLargerThanPacketsAreSentAlone() throws IOException {
+		DatagramPacketizer writer = new DatagramPacketizer(20, UTF_8, channel, stats);
+		String large = "servers." + repeat("x", 30) + " 1 1\n";
+
+		writer.write("servers.a 1 1\n");
+		writer.write(large);
+		writer.write("servers.b 1 1\n");
+		writer.flush();
+
+		assertThat(channel.datagrams).containsExactly("servers.a 1 1\n", large, "servers.b 1 1\n");
+		assertThat(stats.getOversizedLineCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void linesLargerThanDatagramsAreSplit() throws IOException {
+		DatagramPacketizer writer = new DatagramPacketizer(1472, UTF_8, channel, stats);
+		String huge = repeat("x", DatagramPacketizer.MAX_DATAGRAM_SIZE + 10) + "\n";
+
+		writer.write(huge);
+		writer.flush();
+
+		assertThat(channel.datagrams).hasSize(2);
+		assertThat(channel.datagrams.get(0)).hasSize(DatagramPacketizer.MAX_DATAGRAM_SIZE);
+		assertThat(channel.datagrams.get(0) + channel.datagrams.get(1)).isEqualTo(huge);
+	}
+
+	@Test
+	public void partialLinesAreSentOnFlush() throws IOException {
+		DatagramPacketizer writer = new DatagramPacketizer(1472, UTF_8, channel, stats);
+
+		writer.write("servers.a 1 1\nservers.b 2 1");
+		writer.flush();
+
+		assertThat(channel.datagrams).containsExactly("servers.a 1 1\nservers.b 2 1");
+	}
+
+	@Test
+	public void packetsAreCounted() throws IOException {
+		DatagramPacketizer writer = new DatagramPacketizer(30, UTF_8, channel, stats);
+
+		writer.write("servers.a 1 1\nservers.b 2 1\nservers.c 3 1\n");
+		writer.flush();
+		stats.recordCycle();
+
+		assertThat(stats.getPacketCount()).isEqualTo(2);
+		assertThat(stats.getByteCount()).isEqualTo(42);
+		assertThat(stats.getPacketsPerCycle()).isEqualTo(2.0);
+		assertThat(stats.getBytesPerPacket()).isEqualTo(21.0);
+	}
+
+	private static class DatagramRecorder implements WritableByteChannel {
+		@Nonnull private final List<String> datagrams = new ArrayList<>();
+
+		@Override
+		public int write(ByteBuffer src) throws IOException {
+			byte[] bytes = new byte[src.remaining()];
+			src.get(bytes);
+			datagrams.add(new String(bytes, UTF_8));
+			return bytes.length;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() throws IOException {
+		}
+	}
+}
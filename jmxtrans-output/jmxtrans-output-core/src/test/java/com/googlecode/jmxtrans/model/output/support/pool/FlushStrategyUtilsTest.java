@@ -58,6 +58,17 @@ public class FlushStrategyUtilsTest {
 		createFlushStrategy("timeBased", null);
 	}
 
+	@Test
+	public void createSizeOrTimeBasedFlush() {
+		FlushStrategy strategy = createFlushStrategy("sizeOrTimeBased", 1, 1400);
+		assertThat(strategy).isInstanceOf(SizeOrTimeBasedFlush.class);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void flushDelayIsRequiredForSizeOrTimeBasedFlush() {
+		createFlushStrategy("sizeOrTimeBased", null, 1400);
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void unkownStrategyThrowsException() {
 		createFlushStrategy("unkown", null);
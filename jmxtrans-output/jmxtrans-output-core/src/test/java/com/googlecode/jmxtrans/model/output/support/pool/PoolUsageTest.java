@@ -0,0 +1,156 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support.pool;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import stormpot.LifecycledResizablePool;
+import stormpot.Timeout;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PoolUsageTest {
+
+	@Mock private LifecycledResizablePool<WriterPoolable> pool;
+	@Mock private WriterPoolable writer;
+
+	private final Timeout timeout = new Timeout(10, MILLISECONDS);
+
+	@Before
+	public void initialPoolSize() {
+		when(pool.getTargetSize()).thenReturn(1);
+	}
+
+	@Test
+	public void claimsAreRecorded() throws Exception {
+		when(pool.claim(any(Timeout.class))).thenReturn(writer);
+		PoolUsage<WriterPoolable> usage = new PoolUsage<>(pool, 1, false);
+
+		WriterPoolable claimed = usage.claim(timeout);
+		assertThat(usage.getInUseCount()).isEqualTo(1);
+		assertThat(usage.getUtilization()).isEqualTo(1.0);
+		usage.release(claimed);
+
+		verify(writer).release();
+		assertThat(usage.getInUseCount()).isEqualTo(0);
+		assertThat(usage.getPeakInUseCount()).isEqualTo(1);
+		assertThat(usage.getClaimCount()).isEqualTo(1);
+		assertThat(usage.getClaimWaitHistogram()).hasSize(usage.getClaimWaitBucketsMicros().length);
+		long recorded = 0;
+		for (long count : usage.getClaimWaitHistogram()) {
+			recorded += count;
+		}
+		assertThat(recorded).isEqualTo(1);
+	}
+
+	@Test
+	public void poolGrowsWhenClaimsWaitForObjectsInUse() throws Exception {
+		when(pool.claim(any(Timeout.class))).thenReturn(writer).thenAnswer(timeOut());
+		PoolUsage<WriterPoolable> usage = new PoolUsage<>(pool, 3, false);
+
+		assertThat(usage.claim(timeout)).isSameAs(writer);
+		assertThat(usage.claim(timeout)).isNull();
+		// an object is free after growing, the timeout is not due to contention
+		assertThat(usage.claim(timeout)).isNull();
+
+		verify(pool).setTargetSize(2);
+		verify(pool, times(1)).setTargetSize(anyInt());
+		assertThat(usage.getPoolSize()).isEqualTo(2);
+		assertThat(usage.getClaimTimeoutCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void poolDoesNotGrowWhenAllocationsFail() throws Exception {
+		when(pool.claim(any(Timeout.class))).thenAnswer(timeOut());
+		PoolUsage<WriterPoolable> usage = new PoolUsage<>(pool, 3, false);
+
+		assertThat(usage.claim(timeout)).isNull();
+		assertThat(usage.claim(timeout)).isNull();
+
+		verify(pool, never()).setTargetSize(anyInt());
+		assertThat(usage.getClaimTimeoutCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void poolDoesNotGrowWhenAllocationsAreSlow() throws Exception {
+		when(pool.claim(any(Timeout.class))).thenAnswer(new Answer<WriterPoolable>() {
+			@Override
+			public WriterPoolable answer(InvocationOnMock invocation) throws Throwable {
+				Thread.sleep(timeout.getTimeout());
+				return writer;
+			}
+		});
+		PoolUsage<WriterPoolable> usage = new PoolUsage<>(pool, 3, false);
+
+		assertThat(usage.claim(timeout)).isSameAs(writer);
+
+		verify(pool, never()).setTargetSize(anyInt());
+	}
+
+	@Test
+	public void sizedPoolDoesNotGrow() throws Exception {
+		PoolUsage<WriterPoolable> usage = new PoolUsage<>(pool, 0, false);
+
+		assertThat(usage.claim(timeout)).isNull();
+
+		verify(pool, never()).setTargetSize(anyInt());
+		assertThat(usage.getMaxPoolSize()).isEqualTo(1);
+	}
+
+	@Test
+	public void fairClaimsWaitForTheirTurn() throws Exception {
+		when(pool.claim(any(Timeout.class))).thenReturn(writer);
+		PoolUsage<WriterPoolable> usage = new PoolUsage<>(pool, 1, true);
+
+		WriterPoolable claimed = usage.claim(timeout);
+		assertThat(usage.claim(timeout)).isNull();
+		verify(pool, times(1)).claim(any(Timeout.class));
+
+		usage.release(claimed);
+		assertThat(usage.claim(timeout)).isSameAs(writer);
+		assertThat(usage.isFair()).isTrue();
+	}
+
+	private Answer<WriterPoolable> timeOut() {
+		return new Answer<WriterPoolable>() {
+			@Override
+			public WriterPoolable answer(InvocationOnMock invocation) throws Throwable {
+				Thread.sleep(timeout.getTimeout());
+				return null;
+			}
+		};
+	}
+}
@@ -0,0 +1,143 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support.pool;
+
+import com.googlecode.jmxtrans.util.ManualClock;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SizeOrTimeBasedFlushTest {
+
+	@Mock private Writer writer;
+
+	private final ManualClock clock = new ManualClock();
+	private final SizeOrTimeBasedFlush strategy = new SizeOrTimeBasedFlush(clock, 10, 100, MILLISECONDS);
+
+	@Test
+	public void writerIsFlushedOnceSizeIsReached() throws IOException {
+		Writer tracked = strategy.track(writer);
+
+		tracked.write("12345");
+		verify(writer, never()).flush();
+
+		tracked.write("67890");
+		verify(writer).flush();
+		assertThat(strategy.getStats().getSizeFlushCount()).isEqualTo(1);
+		assertThat(strategy.getStats().getFlushedCharCount()).isEqualTo(10);
+
+		tracked.close();
+	}
+
+	@Test
+	public void writerIsNotFlushedOnReleaseBeforeDelay() throws IOException {
+		Writer tracked = strategy.track(writer);
+
+		tracked.write("12345");
+		clock.waitFor(99, MILLISECONDS);
+		strategy.flush(tracked);
+
+		verify(writer, never()).flush();
+		tracked.close();
+	}
+
+	@Test
+	public void writerIsFlushedOnReleaseAfterDelay() throws IOException {
+		Writer tracked = strategy.track(writer);
+
+		tracked.write("12345");
+		clock.waitFor(100, MILLISECONDS);
+		strategy.flush(tracked);
+
+		verify(writer).flush();
+		assertThat(strategy.getStats().getTimeFlushCount()).isEqualTo(1);
+		tracked.close();
+	}
+
+	@Test
+	public void delayStartsWithFirstUnflushedWrite() throws IOException {
+		Writer tracked = strategy.track(writer);
+
+		clock.waitFor(200, MILLISECONDS);
+		strategy.flush(tracked);
+		tracked.write("12345");
+		clock.waitFor(50, MILLISECONDS);
+		strategy.flush(tracked);
+
+		verify(writer, never()).flush();
+		tracked.close();
+	}
+
+	@Test
+	public void idleWritersAreFlushed() throws IOException {
+		Writer tracked = strategy.track(writer);
+
+		tracked.write("12345");
+		clock.waitFor(100, MILLISECONDS);
+		strategy.flushIdleWriters();
+		strategy.flushIdleWriters();
+
+		verify(writer, times(1)).flush();
+		tracked.close();
+	}
+
+	@Test
+	public void closedWritersAreNoLongerFlushed() throws IOException {
+		Writer tracked = strategy.track(writer);
+
+		tracked.write("12345");
+		tracked.close();
+		clock.waitFor(100, MILLISECONDS);
+		strategy.flushIdleWriters();
+
+		verify(writer).close();
+		verify(writer, never()).flush();
+		assertThat(strategy.getStats().getFlushCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void flushSizesAreRecorded() throws IOException {
+		Writer tracked = strategy.track(writer);
+
+		tracked.write("123456789012");
+		tracked.write("1234");
+		clock.waitFor(100, MILLISECONDS);
+		strategy.flush(tracked);
+
+		assertThat(strategy.getStats().getFlushCount()).isEqualTo(2);
+		assertThat(strategy.getStats().getMaxFlushSize()).isEqualTo(12);
+		assertThat(strategy.getStats().getCharsPerFlush()).isEqualTo(8.0);
+		tracked.close();
+	}
+}
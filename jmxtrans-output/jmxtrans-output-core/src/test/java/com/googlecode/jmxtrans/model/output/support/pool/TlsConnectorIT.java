@@ -0,0 +1,188 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support.pool;
+
+import com.googlecode.jmxtrans.test.IntegrationTest;
+import com.googlecode.jmxtrans.test.RequiresIO;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLHandshakeException;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.jayway.awaitility.Awaitility.await;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+@Category({IntegrationTest.class, RequiresIO.class})
+public class TlsConnectorIT {
+
+	private static final char[] PASSWORD = "localhost".toCharArray();
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private final Queue<String> received = new ConcurrentLinkedQueue<>();
+	private final TlsStats stats = new TlsStats();
+	private SSLServerSocket serverSocket;
+	private SSLContext clientContext;
+	private TlsConnector connector;
+
+	@Before
+	public void startServer() throws Exception {
+		KeyStore keyStore = KeyStore.getInstance("JKS");
+		try (InputStream in = getClass().getResourceAsStream("/localhost.jks")) {
+			keyStore.load(in, PASSWORD);
+		}
+		KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+		keyManagers.init(keyStore, PASSWORD);
+		TrustManagerFactory trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+		trustManagers.init(keyStore);
+
+		SSLContext serverContext = SSLContext.getInstance("TLS");
+		serverContext.init(keyManagers.getKeyManagers(), null, null);
+		serverSocket = (SSLServerSocket) serverContext.getServerSocketFactory().createServerSocket(0);
+		executor.submit(new Runnable() {
+			@Override
+			public void run() {
+				acceptConnections();
+			}
+		});
+
+		clientContext = SSLContext.getInstance("TLS");
+		clientContext.init(null, trustManagers.getTrustManagers(), null);
+		connector = new TlsConnector(clientContext, 200, stats);
+	}
+
+	@After
+	public void stopServer() throws IOException {
+		serverSocket.close();
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void messagesAreSentOverTls() throws Exception {
+		send(server("localhost"), "message");
+
+		await().atMost(1, SECONDS).until(messageReceived("message"));
+		assertThat(stats.getHandshakeCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void sessionIsResumedByNextConnections() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			send(server("localhost"), "message" + i);
+		}
+
+		await().atMost(1, SECONDS).until(messageReceived("message0", "message1", "message2"));
+		assertThat(stats.getHandshakeCount()).isEqualTo(3);
+		assertThat(stats.getResumedHandshakeCount()).isEqualTo(2);
+	}
+
+	@Test(timeout = 5000)
+	public void connectionsDoNotWaitForeverWithoutTimeout() throws Exception {
+		connector = new TlsConnector(clientContext, 0, stats);
+
+		send(server("localhost"), "message");
+
+		await().atMost(1, SECONDS).until(messageReceived("message"));
+	}
+
+	@Test
+	public void serverCertificateMustMatchHostName() throws Exception {
+		try {
+			send(server("127.0.0.1"), "message");
+			fail("Handshake should fail");
+		} catch (SSLHandshakeException expected) {
+			assertThat(stats.getFailedHandshakeCount()).isEqualTo(1);
+		}
+	}
+
+	private InetSocketAddress server(String host) {
+		return new InetSocketAddress(host, serverSocket.getLocalPort());
+	}
+
+	private void send(InetSocketAddress server, String message) throws IOException {
+		Socket socket = new Socket();
+		socket.connect(server, 200);
+		try (SSLSocket sslSocket = connector.connect(socket, server);
+			 Writer writer = new OutputStreamWriter(sslSocket.getOutputStream(), UTF_8)) {
+			writer.write(message + "\n");
+		}
+	}
+
+	private Callable<Boolean> messageReceived(final String... messages) {
+		return new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				return received.containsAll(Arrays.asList(messages));
+			}
+		};
+	}
+
+	private void acceptConnections() {
+		while (!serverSocket.isClosed()) {
+			try {
+				final Socket socket = serverSocket.accept();
+				executor.submit(new Runnable() {
+					@Override
+					public void run() {
+						readLines(socket);
+					}
+				});
+			} catch (IOException e) {
+				return;
+			}
+		}
+	}
+
+	private void readLines(Socket socket) {
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) received.add(line);
+		} catch (IOException e) {
+			// handshake refused by the client
+		}
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support.pool;
+
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TlsStatsTest {
+
+	private final TlsStats stats = new TlsStats();
+
+	@Test
+	public void noHandshakeIsReportedAsZero() {
+		assertThat(stats.getHandshakeCount()).isEqualTo(0);
+		assertThat(stats.getResumptionRate()).isEqualTo(0);
+		assertThat(stats.getAverageFullHandshakeMillis()).isEqualTo(0);
+		assertThat(stats.getAverageResumedHandshakeMillis()).isEqualTo(0);
+	}
+
+	@Test
+	public void resumedHandshakesAreCountedSeparately() {
+		stats.recordHandshake(MILLISECONDS.toNanos(40), false);
+		stats.recordHandshake(MILLISECONDS.toNanos(2), true);
+		stats.recordHandshake(MILLISECONDS.toNanos(4), true);
+		stats.recordHandshake(MILLISECONDS.toNanos(6), true);
+
+		assertThat(stats.getHandshakeCount()).isEqualTo(4);
+		assertThat(stats.getResumedHandshakeCount()).isEqualTo(3);
+		assertThat(stats.getResumptionRate()).isEqualTo(0.75);
+		assertThat(stats.getAverageFullHandshakeMillis()).isEqualTo(40);
+		assertThat(stats.getAverageResumedHandshakeMillis()).isEqualTo(4);
+		assertThat(stats.getMaxHandshakeMillis()).isEqualTo(40);
+	}
+
+	@Test
+	public void failuresAreNotCountedAsHandshakes() {
+		stats.recordFailure();
+
+		assertThat(stats.getFailedHandshakeCount()).isEqualTo(1);
+		assertThat(stats.getHandshakeCount()).isEqualTo(0);
+	}
+}
@@ -0,0 +1,79 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support.retry;
+
+import org.junit.Test;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RetryBufferTest {
+
+	@Test
+	public void recordsAreReadOldestFirst() {
+		RetryBuffer buffer = new RetryBuffer(64);
+
+		assertThat(buffer.offer(bytes("first"))).isTrue();
+		assertThat(buffer.offer(bytes("second"))).isTrue();
+
+		assertThat(read(buffer)).isEqualTo("first");
+		assertThat(read(buffer)).isEqualTo("second");
+		assertThat(buffer.peek()).isNull();
+		assertThat(buffer.isEmpty()).isTrue();
+	}
+
+	@Test
+	public void recordsThatDoNotFitAreRejected() {
+		RetryBuffer buffer = new RetryBuffer(16);
+
+		assertThat(buffer.offer(bytes("0123456789"))).isTrue();
+		assertThat(buffer.offer(bytes("abc"))).isFalse();
+
+		assertThat(buffer.records()).isEqualTo(1);
+		assertThat(buffer.size()).isEqualTo(14);
+	}
+
+	@Test
+	public void recordsWrapAroundTheEndOfTheBuffer() {
+		RetryBuffer buffer = new RetryBuffer(20);
+
+		buffer.offer(bytes("0123456"));
+		buffer.offer(bytes("abc"));
+		assertThat(buffer.remove()).isEqualTo(7);
+		assertThat(buffer.offer(bytes("defghij"))).isTrue();
+
+		assertThat(buffer.size()).isEqualTo(18);
+		assertThat(read(buffer)).isEqualTo("abc");
+		assertThat(read(buffer)).isEqualTo("defghij");
+	}
+
+	private static String read(RetryBuffer buffer) {
+		byte[] record = buffer.peek();
+		buffer.remove();
+		return new String(record, UTF_8);
+	}
+
+	private static byte[] bytes(String record) {
+		return record.getBytes(UTF_8);
+	}
+}
@@ -0,0 +1,181 @@
+/**
+ * The MIT License
+ * Copyright © 2010 JmxTrans team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.googlecode.jmxtrans.model.output.support.spool;
+
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class DiskSpoolTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void recordsAreReadOldestFirst() throws IOException {
+		DiskSpool spool = open(1024, 64);
+
+		spool.append(bytes("first"));
+		spool.append(bytes("second"));
+
+		assertThat(read(spool)).isEqualTo("first");
+		assertThat(read(spool)).isEqualTo("second");
+		assertThat(spool.peek()).isNull();
+		assertThat(spool.isEmpty()).isTrue();
+	}
+
+	@Test
+	public void readSegmentsAreDeleted() throws IOException {
+		DiskSpool spool = open(1024, 32);
+
+		spool.append(bytes("0123456789"));
+		spool.append(bytes("abcdefghij"));
+		assertThat(spool.getSegmentCount()).isEqualTo(2);
+
+		read(spool);
+
+		assertThat(spool.getSegmentCount()).isEqualTo(1);
+		assertThat(segments()).hasSize(1);
+	}
+
+	@Test
+	public void evictedSegmentsAreUnmapped() throws IOException {
+		File maps = new File("/proc/self/maps");
+		assumeTrue(maps.canRead());
+		DiskSpool spool = open(32, 32);
+
+		spool.append(bytes("0123456789"));
+		String evicted = segments()[0].getAbsolutePath();
+		assertThat(Files.toString(maps, UTF_8)).contains(evicted);
+		spool.append(bytes("abcdefghij"));
+
+		assertThat(spool.getEvictedRecordCount()).isEqualTo(1);
+		assertThat(Files.toString(maps, UTF_8)).doesNotContain(evicted);
+	}
+
+	@Test
+	public void oldestSegmentIsEvictedWhenSpoolIsFull() throws IOException {
+		DiskSpool spool = open(64, 32);
+
+		spool.append(bytes("0123456789"));
+		spool.append(bytes("abcdefghij"));
+		spool.append(bytes("ABCDEFGHIJ"));
+
+		assertThat(spool.getEvictedRecordCount()).isEqualTo(1);
+		assertThat(spool.getBacklogRecordCount()).isEqualTo(2);
+		assertThat(read(spool)).isEqualTo("abcdefghij");
+	}
+
+	@Test
+	public void recordsLargerThanSegmentsAreRejected() throws IOException {
+		DiskSpool spool = open(64, 32);
+
+		assertThat(spool.append(new byte[32])).isFalse();
+		assertThat(spool.isEmpty()).isTrue();
+	}
+
+	@Test
+	public void unreadRecordsAreRecovered() throws IOException {
+		DiskSpool spool = open(1024, 64);
+		spool.append(bytes("first"));
+		spool.append(bytes("second"));
+		spool.append(bytes("third"));
+		read(spool);
+		spool.close();
+
+		DiskSpool recovered = open(1024, 64);
+
+		assertThat(recovered.getBacklogRecordCount()).isEqualTo(2);
+		assertThat(read(recovered)).isEqualTo("second");
+		recovered.append(bytes("fourth"));
+		assertThat(read(recovered)).isEqualTo("third");
+		assertThat(read(recovered)).isEqualTo("fourth");
+	}
+
+	@Test
+	public void partiallyWrittenRecordsAreIgnored() throws IOException {
+		DiskSpool spool = open(1024, 64);
+		spool.append(bytes("first"));
+		spool.append(bytes("second"));
+		spool.close();
+		File segment = segments()[0];
+		try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+			// corrupt the content of the second record
+			file.seek(SpoolSegment.HEADER_SIZE + SpoolSegment.RECORD_OVERHEAD + 5 + SpoolSegment.RECORD_OVERHEAD);
+			file.write('S');
+		}
+
+		DiskSpool recovered = open(1024, 64);
+
+		assertThat(recovered.getBacklogRecordCount()).isEqualTo(1);
+		assertThat(read(recovered)).isEqualTo("first");
+		assertThat(recovered.peek()).isNull();
+	}
+
+	@Test(expected = IOException.class)
+	public void directoryCannotBeUsedByTwoSpools() throws IOException {
+		open(1024, 64);
+
+		open(1024, 64);
+	}
+
+	@Test
+	public void directoryIsUnlockedWhenClosed() throws IOException {
+		DiskSpool spool = open(1024, 64);
+		spool.append(bytes("first"));
+		spool.close();
+
+		DiskSpool other = open(1024, 64);
+
+		assertThat(read(other)).isEqualTo("first");
+	}
+
+	private File[] segments() {
+		return folder.getRoot().listFiles((dir, name) -> name.endsWith(".spool"));
+	}
+
+	private DiskSpool open(long maxBytes, int segmentSize) throws IOException {
+		DiskSpool spool = new DiskSpool(folder.getRoot(), maxBytes, segmentSize);
+		spool.open();
+		return spool;
+	}
+
+	private static byte[] bytes(String record) {
+		return record.getBytes(UTF_8);
+	}
+
+	private static String read(DiskSpool spool) {
+		byte[] record = spool.peek();
+		spool.remove(record);
+		return new String(record, UTF_8);
+	}
+}
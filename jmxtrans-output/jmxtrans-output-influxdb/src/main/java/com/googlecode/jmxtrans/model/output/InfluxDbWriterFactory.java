@@ -32,6 +32,7 @@ import com.googlecode.jmxtrans.model.OutputWriterFactory;
 import com.googlecode.jmxtrans.model.ResultAttribute;
 import com.googlecode.jmxtrans.model.ResultAttributes;
 import com.googlecode.jmxtrans.model.output.support.ResultTransformerOutputWriter;
+import com.googlecode.jmxtrans.model.results.ValueTransformer;
 import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -75,6 +76,7 @@ public class InfluxDbWriterFactory implements OutputWriterFactory {
 	private final ImmutableSet<ResultAttribute> resultAttributesToWriteAsTags;
 	@Getter(AccessLevel.PACKAGE)
 	private final boolean booleanAsNumber;
+	private final ImmutableList<ValueTransformer> valueTransformers;
 	@Getter(AccessLevel.PACKAGE)
 	private final boolean typeNamesAsTags;
 	@Getter(AccessLevel.PACKAGE)
@@ -86,9 +88,30 @@ public class InfluxDbWriterFactory implements OutputWriterFactory {
 	@Getter(AccessLevel.PACKAGE)
 	private final boolean allowStringValues;
 
+	public InfluxDbWriterFactory(
+			ImmutableList<String> typeNames,
+			boolean booleanAsNumber,
+			String url,
+			String username,
+			String password,
+			String database,
+			ImmutableMap<String, String> tags,
+			String writeConsistency,
+			String retentionPolicy,
+			List<String> resultTags,
+			Boolean createDatabase,
+			Boolean reportJmxPortAsTag,
+			Boolean typeNamesAsTags,
+			Boolean allowStringValues) {
+		this(typeNames, booleanAsNumber, ImmutableList.<ValueTransformer>of(), url, username, password, database,
+				tags, writeConsistency, retentionPolicy, resultTags, createDatabase, reportJmxPortAsTag,
+				typeNamesAsTags, allowStringValues);
+	}
+
 	/**
 	 * @param typeNames			- List of typeNames keys to use in fields by default
 	 * @param booleanAsNumber	- output boolean attributes as number
+	 * @param valueTransformers	- Transformations applied to values before they are sent
 	 * @param url				- The url e.g http://localhost:8086 to InfluxDB
 	 * @param username			- The username for InfluxDB
 	 * @param password			- The password for InfluxDB
@@ -118,6 +141,7 @@ public class InfluxDbWriterFactory implements OutputWriterFactory {
 	public InfluxDbWriterFactory(
 			@JsonProperty("typeNames") ImmutableList<String> typeNames,
 			@JsonProperty("booleanAsNumber") boolean booleanAsNumber,
+			@JsonProperty("valueTransformers") List<ValueTransformer> valueTransformers,
 			@JsonProperty("url") String url,
 			@JsonProperty("username") String username,
 			@JsonProperty("password") String password,
@@ -133,6 +157,7 @@ public class InfluxDbWriterFactory implements OutputWriterFactory {
 
 		this.typeNames = firstNonNull(typeNames,ImmutableList.<String>of());
 		this.booleanAsNumber = booleanAsNumber;
+		this.valueTransformers = valueTransformers == null ? ImmutableList.<ValueTransformer>of() : ImmutableList.copyOf(valueTransformers);
 		this.database = database;
 		this.createDatabase = firstNonNull(createDatabase, TRUE);
 		this.typeNamesAsTags = firstNonNull(typeNamesAsTags, FALSE);
@@ -168,7 +193,7 @@ public class InfluxDbWriterFactory implements OutputWriterFactory {
 
 	@Override
 	public ResultTransformerOutputWriter<InfluxDbWriter> create() {
-		return ResultTransformerOutputWriter.booleanToNumber(booleanAsNumber, new InfluxDbWriter(influxDB, database,
+		return ResultTransformerOutputWriter.transformValues(booleanAsNumber, valueTransformers, new InfluxDbWriter(influxDB, database,
 				writeConsistency, retentionPolicy, tags, resultAttributesToWriteAsTags, typeNames, createDatabase, reportJmxPortAsTag, typeNamesAsTags, allowStringValues));
 	}
 }
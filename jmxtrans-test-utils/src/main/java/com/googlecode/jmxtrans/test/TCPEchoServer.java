@@ -29,7 +29,9 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
@@ -38,14 +40,48 @@ import java.net.ServerSocket;
 import java.net.Socket;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 import static com.google.common.base.Charsets.UTF_8;
 import static com.google.common.base.Preconditions.checkState;
 
 public class TCPEchoServer extends ExternalResource {
 
+	/** Compression of the messages received. */
+	public enum Compression {
+		NONE,
+		DEFLATE,
+		GZIP;
+
+		InputStream decompress(InputStream in) throws IOException {
+			// inflater streams claim bytes are available until their end, readers
+			// would wait for more than the flushed messages
+			switch (this) {
+				case DEFLATE:
+					return new InflaterInputStream(in) {
+						@Override
+						public int available() {
+							return 0;
+						}
+					};
+				case GZIP:
+					return new GZIPInputStream(in) {
+						@Override
+						public int available() {
+							return 0;
+						}
+					};
+				default:
+					return in;
+			}
+		}
+	}
+
 	private final Logger log = LoggerFactory.getLogger(getClass());
 
+	@Nonnull private final Compression compression;
+
 	private Thread thread = null;
 	private volatile ServerSocket server;
 
@@ -53,6 +89,14 @@ public class TCPEchoServer extends ExternalResource {
 	private final ConcurrentLinkedQueue<String> receivedMessages = new ConcurrentLinkedQueue<>();
 	private final AtomicInteger connectionsAccepted = new AtomicInteger();
 
+	public TCPEchoServer() {
+		this(Compression.NONE);
+	}
+
+	public TCPEchoServer(@Nonnull Compression compression) {
+		this.compression = compression;
+	}
+
 	@Override
 	public void before() {
 		start();
@@ -103,7 +147,7 @@ public class TCPEchoServer extends ExternalResource {
 		Socket socket = server.accept();
 		connectionsAccepted.incrementAndGet();
 		try (
-				BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+				BufferedReader in = new BufferedReader(new InputStreamReader(compression.decompress(socket.getInputStream()), UTF_8));
 				PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), UTF_8))
 		){
 			synchronized (startSynchro) {
@@ -114,6 +158,9 @@ public class TCPEchoServer extends ExternalResource {
 				receivedMessages.add(line);
 				out.print(line);
 			}
+		} catch (EOFException e) {
+			// compressed stream not ended by the client, the next connection is still accepted
+			log.debug("Connection closed before the end of the compressed stream", e);
 		}
 	}
 